@@ -0,0 +1,29 @@
+package com.anz.fastpayment.liquidity.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.util.Arrays;
+
+/**
+ * Liquidity Benchmarks
+ * 
+ * Entry point of {@code benchmarks.jar}. Takes the standard JMH command line and adds
+ * the GC profiler ({@code -prof gc}) unless profilers are given, so every run reports
+ * allocation per operation next to throughput and latency.
+ */
+public final class LiquidityBenchmarks {
+
+    private LiquidityBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (!Arrays.asList(args).contains("-prof")) {
+            String[] withGc = new String[args.length + 2];
+            withGc[0] = "-prof";
+            withGc[1] = "gc";
+            System.arraycopy(args, 0, withGc, 2, args.length);
+            args = withGc;
+        }
+        Main.main(args);
+    }
+}
@@ -0,0 +1,155 @@
+package com.anz.fastpayment.liquidity.benchmark;
+
+import com.anz.fastpayment.common.id.IdGenerator;
+import com.anz.fastpayment.liquidity.audit.AuditTrail;
+import com.anz.fastpayment.liquidity.cache.BalanceNearCache;
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import com.anz.fastpayment.liquidity.metrics.LiquidityLatencyRecorder;
+import com.anz.fastpayment.liquidity.model.Amount;
+import com.anz.fastpayment.liquidity.model.BalanceCheckRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateRequest;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+import com.anz.fastpayment.liquidity.netdebit.NetDebitCapTracker;
+import com.anz.fastpayment.liquidity.persistence.BalanceWriteBehind;
+import com.anz.fastpayment.liquidity.service.LiquidityService;
+import com.anz.fastpayment.liquidity.service.impl.LiquidityServiceImpl;
+import com.anz.fastpayment.liquidity.settlement.SettlementRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Liquidity Fixture
+ * 
+ * A liquidity service wired the way the application context wires it (sharded ledger
+ * with the net debit cap tracker, near cache, audit trail, settlement recorder and
+ * balance write-behind as listeners), without Spring, Kafka or the journal. The
+ * write-behind runs against a store that discards its rows. Every participant is funded up
+ * front so debits are authorized and positions and cache entries already exist.
+ * 
+ * {@code distribution} picks the participant of each operation: {@code uniform} over
+ * all participants, or {@code skewed}, where 80% of operations go to the busiest 1%,
+ * as happens with the large clearing banks.
+ */
+@State(Scope.Benchmark)
+public class LiquidityFixture {
+
+    static final String CURRENCY = "SGD";
+    static final String COUNTRY = "SG";
+
+    private static final Amount FUNDING = Amount.parse("1000000.00");
+
+    @Param({"100", "1000", "10000"})
+    public int participants;
+
+    @Param({"uniform", "skewed"})
+    public String distribution;
+
+    LiquidityService service;
+    String[] participantIds;
+    BalanceCheckRequest[] checkRequests;
+
+    private int hotParticipants;
+    private boolean skewed;
+    private Path auditDirectory;
+    private BalanceLedger ledger;
+    private NetDebitCapTracker tracker;
+    private AuditTrail auditTrail;
+    private BalanceWriteBehind writeBehind;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        auditDirectory = Files.createTempDirectory("liquidity-benchmark-audit");
+        LiquidityProperties properties = new LiquidityProperties();
+        properties.setSupportedSchemes(Map.of("SG", "G3", "HK", "FPS"));
+        properties.getAudit().setDirectory(auditDirectory.toString());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        tracker = new NetDebitCapTracker(properties, event -> { });
+        BalanceNearCache cache = new BalanceNearCache(properties, meterRegistry);
+        auditTrail = new AuditTrail(properties, meterRegistry);
+        writeBehind = new BalanceWriteBehind(properties, rows -> { }, meterRegistry);
+        ledger = new BalanceLedger(properties,
+                List.of(tracker, cache, auditTrail, new SettlementRecorder(properties), writeBehind));
+        service = new LiquidityServiceImpl(ledger, tracker, cache, new IdGenerator(0), auditTrail, writeBehind,
+                new LiquidityLatencyRecorder(ledger, meterRegistry), properties);
+
+        participantIds = new String[participants];
+        checkRequests = new BalanceCheckRequest[participants];
+        for (int i = 0; i < participants; i++) {
+            participantIds[i] = participantId(i);
+            service.updateBalance(update(participantIds[i], FUNDING, TransactionType.CREDIT, "FUND" + i));
+
+            BalanceCheckRequest check = new BalanceCheckRequest(COUNTRY, CURRENCY, Amount.parse("-2500.00"),
+                    TransactionType.DEBIT);
+            check.setParticipantId(participantIds[i]);
+            checkRequests[i] = check;
+        }
+        hotParticipants = Math.max(1, participants / 100);
+        skewed = "skewed".equals(distribution);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ledger.close();
+        tracker.close();
+        auditTrail.close();
+        writeBehind.close();
+        try (Stream<Path> files = Files.walk(auditDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Index of the participant for the next operation under the configured distribution
+     */
+    int nextParticipant() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (skewed && random.nextInt(10) < 8) {
+            return random.nextInt(hotParticipants);
+        }
+        return random.nextInt(participants);
+    }
+
+    static BalanceUpdateRequest update(String participantId, Amount amount, TransactionType type, String messageId) {
+        BalanceUpdateRequest request = new BalanceUpdateRequest();
+        request.setCountryCode(COUNTRY);
+        request.setParticipantId(participantId);
+        request.setCurrency(CURRENCY);
+        request.setAmount(amount);
+        request.setTransactionType(type);
+        request.setMessageType("pacs.008");
+        request.setMessageId(messageId);
+        request.setTimestamp(Instant.now());
+        return request;
+    }
+
+    /**
+     * Eight uppercase letters, like a BIC-derived participant id
+     */
+    static String participantId(int index) {
+        char[] id = {'P', 'A', 'A', 'A', 'A', 'A', 'A', 'A'};
+        for (int i = id.length - 1; i > 0 && index > 0; i--) {
+            id[i] = (char) ('A' + index % 26);
+            index /= 26;
+        }
+        return new String(id);
+    }
+}
@@ -0,0 +1,111 @@
+package com.anz.fastpayment.liquidity.benchmark;
+
+import com.anz.fastpayment.liquidity.model.Amount;
+import com.anz.fastpayment.liquidity.model.BalanceCheckResponse;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateResponse;
+import com.anz.fastpayment.liquidity.model.ParticipantBalanceResponse;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Liquidity Service Benchmark
+ * 
+ * {@code checkBalance}, {@code updateBalance} and {@code getParticipantBalance}
+ * through {@link com.anz.fastpayment.liquidity.service.impl.LiquidityServiceImpl},
+ * each on one thread and on one thread per core contending for the same participants.
+ * Updates alternate a credit and a debit of 1.00 per thread so balances stay put, and
+ * every update carries a new message id as it would in production.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-XX:+UseZGC"})
+public class LiquidityServiceBenchmark {
+
+    private static final Amount ONE = Amount.parse("1.00");
+    private static final Amount MINUS_ONE = Amount.parse("-1.00");
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Updater {
+
+        private final String prefix = "BM" + THREADS.incrementAndGet() + "-";
+        private long count;
+
+        String nextMessageId() {
+            return prefix + count++;
+        }
+
+        boolean nextIsCredit() {
+            return (count & 1L) == 0L;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BalanceCheckResponse checkBalance(LiquidityFixture fixture) {
+        return check(fixture);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public BalanceCheckResponse checkBalanceContended(LiquidityFixture fixture) {
+        return check(fixture);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BalanceUpdateResponse updateBalance(LiquidityFixture fixture, Updater updater) {
+        return update(fixture, updater);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public BalanceUpdateResponse updateBalanceContended(LiquidityFixture fixture, Updater updater) {
+        return update(fixture, updater);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ParticipantBalanceResponse getParticipantBalance(LiquidityFixture fixture) {
+        return balance(fixture);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ParticipantBalanceResponse getParticipantBalanceContended(LiquidityFixture fixture) {
+        return balance(fixture);
+    }
+
+    private static BalanceCheckResponse check(LiquidityFixture fixture) {
+        return fixture.service.checkBalance(fixture.checkRequests[fixture.nextParticipant()]);
+    }
+
+    private static BalanceUpdateResponse update(LiquidityFixture fixture, Updater updater) {
+        boolean credit = updater.nextIsCredit();
+        return fixture.service.updateBalance(LiquidityFixture.update(
+                fixture.participantIds[fixture.nextParticipant()],
+                credit ? ONE : MINUS_ONE,
+                credit ? TransactionType.CREDIT : TransactionType.DEBIT,
+                updater.nextMessageId()));
+    }
+
+    private static ParticipantBalanceResponse balance(LiquidityFixture fixture) {
+        return fixture.service.getParticipantBalance(fixture.participantIds[fixture.nextParticipant()],
+                LiquidityFixture.CURRENCY, LiquidityFixture.COUNTRY);
+    }
+}
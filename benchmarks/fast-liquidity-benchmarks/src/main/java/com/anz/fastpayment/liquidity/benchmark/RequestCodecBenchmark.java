@@ -0,0 +1,142 @@
+package com.anz.fastpayment.liquidity.benchmark;
+
+import com.anz.fastpayment.liquidity.model.BalanceCheckRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request Codec Benchmark
+ * 
+ * Jackson (de)serialization and bean validation of the two request bodies on the
+ * authorization path, with the object mapper configured as Spring Boot configures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-XX:+UseZGC"})
+public class RequestCodecBenchmark {
+
+    private static final byte[] CHECK_JSON = """
+            {
+              "countryCode": "SG",
+              "participantId": "DBSSSGSG",
+              "currency": "SGD",
+              "amount": "-50000.00",
+              "transactionType": "DEBIT",
+              "reference": "PAY-20250115-001234"
+            }
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] UPDATE_JSON = """
+            {
+              "countryCode": "SG",
+              "participantId": "DBSSSGSG",
+              "currency": "SGD",
+              "amount": "-50000.00",
+              "transactionType": "DEBIT",
+              "messageType": "pacs.008",
+              "messageId": "MSG20250115103000123456",
+              "reference": "TXN-20250115-001234",
+              "timestamp": "2025-01-15T10:30:00.123Z",
+              "counterpartyId": "OCBCSGSG"
+            }
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private ObjectReader checkReader;
+    private ObjectReader updateReader;
+    private ObjectWriter writer;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+
+    private BalanceCheckRequest checkRequest;
+    private BalanceUpdateRequest updateRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        checkReader = objectMapper.readerFor(BalanceCheckRequest.class);
+        updateReader = objectMapper.readerFor(BalanceUpdateRequest.class);
+        writer = objectMapper.writer();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        checkRequest = checkReader.readValue(CHECK_JSON);
+        updateRequest = updateReader.readValue(UPDATE_JSON);
+        if (!validator.validate(checkRequest).isEmpty() || !validator.validate(updateRequest).isEmpty()) {
+            throw new IllegalStateException("Benchmark requests must be valid");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public BalanceCheckRequest deserializeCheckRequest() throws IOException {
+        return checkReader.readValue(CHECK_JSON);
+    }
+
+    @Benchmark
+    public BalanceUpdateRequest deserializeUpdateRequest() throws IOException {
+        return updateReader.readValue(UPDATE_JSON);
+    }
+
+    @Benchmark
+    public byte[] serializeCheckRequest() throws IOException {
+        return writer.writeValueAsBytes(checkRequest);
+    }
+
+    @Benchmark
+    public byte[] serializeUpdateRequest() throws IOException {
+        return writer.writeValueAsBytes(updateRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BalanceCheckRequest>> validateCheckRequest() {
+        return validator.validate(checkRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BalanceUpdateRequest>> validateUpdateRequest() {
+        return validator.validate(updateRequest);
+    }
+
+    /**
+     * What the controller does with each update body: read it, then validate it
+     */
+    @Benchmark
+    public Set<ConstraintViolation<BalanceUpdateRequest>> decodeAndValidateUpdateRequest() throws IOException {
+        return validator.validate(updateReader.<BalanceUpdateRequest>readValue(UPDATE_JSON));
+    }
+}
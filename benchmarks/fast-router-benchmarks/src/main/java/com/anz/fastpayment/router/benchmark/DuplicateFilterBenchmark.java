@@ -0,0 +1,70 @@
+package com.anz.fastpayment.router.benchmark;
+
+import com.anz.fastpayment.router.dedupe.TimeSlicedBloomFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Duplicate Filter Benchmark
+ *
+ * The in-process part of duplicate detection: testing a message id against the
+ * time-sliced filter in front of Redis and adding it when it is new, which is all a new
+ * message costs. The filter is first loaded with {@code recorded} ids, as after an hour
+ * of traffic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-XX:+UseZGC"})
+@Threads(Threads.MAX)
+public class DuplicateFilterBenchmark {
+
+    private static final String PREFIX = "MSG20250115103000";
+
+    @Param({"100000", "1000000"})
+    private int recorded;
+
+    private TimeSlicedBloomFilter filter;
+    private final AtomicLong next = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filter = new TimeSlicedBloomFilter(Duration.ofMinutes(60), 6, 1_000_000, 0.01);
+        for (int i = 0; i < recorded; i++) {
+            filter.add(TimeSlicedBloomFilter.hash(PREFIX + i));
+        }
+        next.set(recorded);
+    }
+
+    @Benchmark
+    public boolean newMessage() {
+        long hash = TimeSlicedBloomFilter.hash(PREFIX + next.getAndIncrement());
+        if (filter.mightContain(hash)) {
+            return true;
+        }
+        filter.add(hash);
+        return false;
+    }
+
+    @Benchmark
+    public boolean repeat() {
+        return filter.mightContain(TimeSlicedBloomFilter.hash(PREFIX + (next.getAndIncrement() % recorded)));
+    }
+}
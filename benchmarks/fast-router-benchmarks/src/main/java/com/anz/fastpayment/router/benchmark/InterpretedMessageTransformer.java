@@ -0,0 +1,263 @@
+package com.anz.fastpayment.router.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Interpreted Message Transformer
+ *
+ * Baseline for {@link MessageTransformBenchmark}: the same single StAX pass as the
+ * router's transformer, but following transformation-config.json as parsed, rule by
+ * rule: every element is looked up by scanning its object's {@code fields}, templates
+ * are resolved by name and data types by conversion name each time they are met.
+ * Writes the same JSON as the compiled transformer for the benchmark messages.
+ */
+final class InterpretedMessageTransformer {
+
+    private static final String NAMESPACE_PREFIX = "urn:iso:std:iso:20022:tech:xsd:";
+    private static final String DOCUMENT = "Document";
+    private static final String TEXT = "_text";
+    private static final char ATTRIBUTE = '@';
+
+    private final Map<String, JsonNode> rulesByDefinition = new HashMap<>();
+    private final JsonNode templates;
+    private final Map<String, String> jsonTypes = new HashMap<>();
+    private final XMLInputFactory xmlInputFactory;
+    private final JsonFactory jsonFactory;
+
+    InterpretedMessageTransformer(JsonNode config, JsonFactory jsonFactory) {
+        Iterator<Map.Entry<String, JsonNode>> types = config.path("messageTypes").fields();
+        while (types.hasNext()) {
+            Map.Entry<String, JsonNode> type = types.next();
+            rulesByDefinition.put(type.getKey(), type.getValue().path("mappingRules"));
+        }
+        this.templates = config.path("transformationTemplates");
+        Iterator<Map.Entry<String, JsonNode>> conversions = config.path("dataTypeConversions").fields();
+        while (conversions.hasNext()) {
+            Map.Entry<String, JsonNode> conversion = conversions.next();
+            jsonTypes.put(conversion.getKey(), conversion.getValue().path("type").asText("string"));
+        }
+        this.jsonFactory = jsonFactory;
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    }
+
+    void transform(InputStream xml, OutputStream json) throws XMLStreamException, IOException {
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(xml);
+        try {
+            while (!(reader.getEventType() == XMLStreamConstants.START_ELEMENT
+                    && DOCUMENT.equals(reader.getLocalName()))) {
+                reader.next();
+            }
+            JsonNode rules = rulesByDefinition.get(reader.getNamespaceURI().substring(NAMESPACE_PREFIX.length()));
+            reader.nextTag();
+            try (JsonGenerator generator = jsonFactory.createGenerator(json, JsonEncoding.UTF8)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                writeMessage(reader, generator, rules);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void writeMessage(XMLStreamReader reader, JsonGenerator json, JsonNode rules)
+            throws XMLStreamException, IOException {
+        json.writeStartObject();
+        Iterator<Map.Entry<String, JsonNode>> entries = rules.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> rule = entries.next();
+            JsonNode fixed = rule.getValue().get("fixed");
+            if (fixed != null) {
+                json.writeStringField(rule.getKey(), fixed.asText());
+            }
+        }
+
+        Deque<Frame> frames = new ArrayDeque<>();
+        frames.push(new Frame(rules, null));
+        while (!frames.isEmpty()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                startElement(reader, json, frames);
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                Frame frame = frames.pop();
+                closeArray(json, frame);
+                json.writeEndObject();
+            }
+        }
+    }
+
+    private void startElement(XMLStreamReader reader, JsonGenerator json, Deque<Frame> frames)
+            throws XMLStreamException, IOException {
+        Frame frame = frames.peek();
+        String element = reader.getLocalName();
+        if (frame.arrayElement != null && !frame.arrayElement.equals(element)) {
+            closeArray(json, frame);
+        }
+        Map.Entry<String, JsonNode> field = fieldFor(frame.rules, element);
+        if (field == null) {
+            skipElement(reader);
+            return;
+        }
+        String name = field.getKey();
+        JsonNode rule = field.getValue();
+
+        if (rule.isTextual()) {
+            if (element.equals(frame.lastElement)) {
+                skipElement(reader);
+                return;
+            }
+            frame.lastElement = element;
+            json.writeFieldName(name);
+            writeValue(json, name, reader.getElementText(), frame.dataTypes);
+            return;
+        }
+
+        boolean array = rule.path("array").asBoolean(false);
+        JsonNode body = bodyOf(rule);
+        if (body == null && rule.has("transform")) {
+            skipElement(reader);
+            return;
+        }
+        if (array) {
+            if (frame.arrayElement == null) {
+                json.writeArrayFieldStart(name);
+                frame.arrayElement = element;
+            }
+        } else {
+            if (element.equals(frame.lastElement)) {
+                skipElement(reader);
+                return;
+            }
+            frame.lastElement = element;
+            json.writeFieldName(name);
+        }
+
+        if (body == null) {
+            writeValue(json, name, reader.getElementText(), frame.dataTypes);
+            return;
+        }
+        json.writeStartObject();
+        JsonNode fields = body.path("fields");
+        JsonNode dataTypes = body.get("dataTypes");
+        String textField = writeAttributes(reader, json, fields, dataTypes);
+        if (textField != null) {
+            json.writeFieldName(textField);
+            writeValue(json, textField, reader.getElementText(), dataTypes);
+            json.writeEndObject();
+            return;
+        }
+        frames.push(new Frame(fields, dataTypes));
+    }
+
+    private static Map.Entry<String, JsonNode> fieldFor(JsonNode rules, String element) {
+        Iterator<Map.Entry<String, JsonNode>> fields = rules.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode rule = field.getValue();
+            String source = rule.isTextual() ? rule.asText() : rule.path("source").asText(null);
+            if (element.equals(source)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private JsonNode bodyOf(JsonNode rule) {
+        if (rule.has("fields")) {
+            return rule;
+        }
+        JsonNode transform = rule.get("transform");
+        if (transform == null) {
+            return null;
+        }
+        JsonNode template = templates.get(transform.asText());
+        return template != null && template.isObject() ? template : null;
+    }
+
+    private String writeAttributes(XMLStreamReader reader, JsonGenerator json, JsonNode fields, JsonNode dataTypes)
+            throws IOException {
+        String textField = null;
+        boolean children = false;
+        Iterator<Map.Entry<String, JsonNode>> entries = fields.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> field = entries.next();
+            JsonNode rule = field.getValue();
+            String source = rule.isTextual() ? rule.asText() : null;
+            if (source == null) {
+                children = true;
+            } else if (TEXT.equals(source)) {
+                textField = field.getKey();
+            } else if (!source.isEmpty() && source.charAt(0) == ATTRIBUTE) {
+                String value = reader.getAttributeValue(null, source.substring(1));
+                if (value != null) {
+                    json.writeFieldName(field.getKey());
+                    writeValue(json, field.getKey(), value, dataTypes);
+                }
+            } else {
+                children = true;
+            }
+        }
+        return children ? null : textField;
+    }
+
+    private void writeValue(JsonGenerator json, String name, String text, JsonNode dataTypes) throws IOException {
+        JsonNode conversion = dataTypes != null ? dataTypes.get(name) : null;
+        String type = conversion != null ? jsonTypes.getOrDefault(conversion.asText(), "string") : "string";
+        switch (type) {
+            case "number" -> json.writeNumber(new BigDecimal(text.trim()));
+            case "integer" -> json.writeNumber(Long.parseLong(text.trim()));
+            case "boolean" -> json.writeBoolean(Boolean.parseBoolean(text.trim()));
+            default -> json.writeString(text);
+        }
+    }
+
+    private static void closeArray(JsonGenerator json, Frame frame) throws IOException {
+        if (frame.arrayElement != null) {
+            json.writeEndArray();
+            frame.arrayElement = null;
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static final class Frame {
+
+        private final JsonNode rules;
+        private final JsonNode dataTypes;
+        private String arrayElement;
+        private String lastElement;
+
+        private Frame(JsonNode rules, JsonNode dataTypes) {
+            this.rules = rules;
+            this.dataTypes = dataTypes;
+        }
+    }
+}
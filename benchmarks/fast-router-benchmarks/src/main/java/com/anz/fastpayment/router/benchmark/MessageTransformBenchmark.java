@@ -0,0 +1,150 @@
+package com.anz.fastpayment.router.benchmark;
+
+import com.anz.fastpayment.router.transform.StreamingMessageTransformer;
+import com.anz.fastpayment.router.transform.TransformResult;
+import com.anz.fastpayment.router.transform.TransformationConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message Transform Benchmark
+ *
+ * pacs.008 to unified JSON through the router's compiled mapping plans against the
+ * same streaming pass interpreting transformation-config.json rule by rule, for
+ * batches of increasing size. Also measures compiling the config, which is paid once
+ * at startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-XX:+UseZGC"})
+public class MessageTransformBenchmark {
+
+    private static final String CONFIG = "mappings/transformation-config.json";
+
+    private static final String HEADER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.13">
+              <FIToFICstmrCdtTrf>
+                <GrpHdr>
+                  <MsgId>MSG20250115103000123456</MsgId>
+                  <CreDtTm>2025-01-15T10:30:00.123Z</CreDtTm>
+                  <NbOfTxs>%d</NbOfTxs>
+                  <TtlIntrBkSttlmAmt Ccy="SGD">%d.00</TtlIntrBkSttlmAmt>
+                  <IntrBkSttlmDt>2025-01-15</IntrBkSttlmDt>
+                  <SttlmInf><SttlmMtd>CLRG</SttlmMtd></SttlmInf>
+                  <InstgAgt><FinInstnId><BICFI>ANZBSGSXXXX</BICFI></FinInstnId></InstgAgt>
+                  <InstdAgt><FinInstnId><BICFI>DBSSSGSGXXX</BICFI></FinInstnId></InstdAgt>
+                </GrpHdr>
+            """;
+
+    private static final String TRANSACTION = """
+                <CdtTrfTxInf>
+                  <PmtId>
+                    <InstrId>INSTR%1$08d</InstrId>
+                    <EndToEndId>E2E%1$08d</EndToEndId>
+                    <TxId>TX%1$08d</TxId>
+                    <UETR>8a562c67-ca16-48ba-b074-65581be6f011</UETR>
+                  </PmtId>
+                  <PmtTpInf><SvcLvl><Cd>SEPA</Cd></SvcLvl><LclInstrm><Prtry>FAST</Prtry></LclInstrm></PmtTpInf>
+                  <IntrBkSttlmAmt Ccy="SGD">1.00</IntrBkSttlmAmt>
+                  <ChrgBr>SLEV</ChrgBr>
+                  <Dbtr>
+                    <Nm>Tan Ah Kow</Nm>
+                    <PstlAdr><StrtNm>Raffles Place</StrtNm><BldgNb>1</BldgNb><PstCd>048616</PstCd><TwnNm>Singapore</TwnNm><Ctry>SG</Ctry></PstlAdr>
+                  </Dbtr>
+                  <DbtrAcct><Id><Othr><Id>0123456789</Id></Othr></Id></DbtrAcct>
+                  <DbtrAgt><FinInstnId><BICFI>ANZBSGSXXXX</BICFI></FinInstnId></DbtrAgt>
+                  <CdtrAgt><FinInstnId><BICFI>DBSSSGSGXXX</BICFI></FinInstnId></CdtrAgt>
+                  <Cdtr><Nm>Lim Bee Leng</Nm><PstlAdr><Ctry>SG</Ctry><AdrLine>10 Marina Boulevard</AdrLine></PstlAdr></Cdtr>
+                  <CdtrAcct><Id><Othr><Id>9876543210</Id></Othr></Id></CdtrAcct>
+                  <Purp><Cd>SALA</Cd></Purp>
+                  <RmtInf><Ustrd>Invoice %1$d</Ustrd></RmtInf>
+                </CdtTrfTxInf>
+            """;
+
+    private static final String FOOTER = """
+              </FIToFICstmrCdtTrf>
+            </Document>
+            """;
+
+    @Param({"1", "50", "1000"})
+    private int transactions;
+
+    private byte[] config;
+    private byte[] message;
+    private ObjectMapper objectMapper;
+    private StreamingMessageTransformer compiled;
+    private InterpretedMessageTransformer interpreted;
+    private ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, XMLStreamException {
+        objectMapper = new ObjectMapper();
+        try (InputStream in = MessageTransformBenchmark.class.getClassLoader().getResourceAsStream(CONFIG)) {
+            if (in == null) {
+                throw new IllegalStateException(CONFIG + " is not on the classpath");
+            }
+            config = in.readAllBytes();
+        }
+        compiled = new StreamingMessageTransformer(
+                TransformationConfig.load(new ByteArrayInputStream(config), objectMapper), objectMapper.getFactory());
+        JsonNode rules = objectMapper.readTree(config);
+        interpreted = new InterpretedMessageTransformer(rules, objectMapper.getFactory());
+
+        StringBuilder xml = new StringBuilder(HEADER.formatted(transactions, transactions));
+        for (int i = 0; i < transactions; i++) {
+            xml.append(TRANSACTION.formatted(i));
+        }
+        message = xml.append(FOOTER).toString().getBytes(StandardCharsets.UTF_8);
+        out = new ByteArrayOutputStream(message.length);
+
+        compiled();
+        byte[] fromPlans = out.toByteArray();
+        interpreted();
+        if (!Arrays.equals(fromPlans, out.toByteArray())) {
+            throw new IllegalStateException("Compiled and interpreted transformers disagree");
+        }
+    }
+
+    @Benchmark
+    public TransformResult compiled() {
+        out.reset();
+        return compiled.transform(new ByteArrayInputStream(message), out);
+    }
+
+    @Benchmark
+    public int interpreted() throws IOException, XMLStreamException {
+        out.reset();
+        interpreted.transform(new ByteArrayInputStream(message), out);
+        return out.size();
+    }
+
+    @Benchmark
+    public TransformationConfig compileConfig() throws IOException {
+        return TransformationConfig.load(new ByteArrayInputStream(config), objectMapper);
+    }
+}
@@ -0,0 +1,88 @@
+package com.anz.fastpayment.liquidity.admission;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Admission Interceptor
+ *
+ * Admits liquidity requests against the {@link GradientConcurrencyLimiter} before they
+ * reach the controller. Balance checks may fill the whole limit, updates
+ * {@code update-share} of it and participant balance reads {@code read-share}, so
+ * under overload reads are shed first and checks last. A request turned away fails
+ * fast with {@link LiquidityOverloadedException}, answered as 429 with Retry-After,
+ * instead of queueing behind work that is already late.
+ */
+@Component
+@ConditionalOnProperty(prefix = "liquidity.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String ADMITTED_AT = AdmissionInterceptor.class.getName() + ".admittedAt";
+
+    private final GradientConcurrencyLimiter limiter;
+    private final double updateShare;
+    private final double readShare;
+    private final Duration retryAfter;
+    private final Counter checksShed;
+    private final Counter updatesShed;
+    private final Counter readsShed;
+
+    public AdmissionInterceptor(LiquidityProperties properties, MeterRegistry meterRegistry) {
+        LiquidityProperties.Admission config = properties.getAdmission();
+        this.limiter = new GradientConcurrencyLimiter(config);
+        this.updateShare = config.getUpdateShare();
+        this.readShare = config.getReadShare();
+        this.retryAfter = config.getRetryAfter();
+        this.checksShed = shedCounter(meterRegistry, "check");
+        this.updatesShed = shedCounter(meterRegistry, "update");
+        this.readsShed = shedCounter(meterRegistry, "read");
+        meterRegistry.gauge("liquidity.admission.limit", limiter, GradientConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("liquidity.admission.inflight", limiter, GradientConcurrencyLimiter::getInFlight);
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String priority) {
+        return Counter.builder("liquidity.admission.shed")
+                .description("Liquidity requests turned away by the concurrency limit")
+                .tag("priority", priority)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        double share;
+        Counter shed;
+        if ("GET".equals(request.getMethod())) {
+            share = readShare;
+            shed = readsShed;
+        } else if (request.getRequestURI().endsWith("/balance/check")) {
+            share = 1.0;
+            shed = checksShed;
+        } else {
+            share = updateShare;
+            shed = updatesShed;
+        }
+        if (!limiter.tryAcquire(share)) {
+            shed.increment();
+            throw new LiquidityOverloadedException("Liquidity service is at its concurrency limit of "
+                    + limiter.getLimit() + "; retry shortly", retryAfter);
+        }
+        request.setAttribute(ADMITTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object admittedAt = request.getAttribute(ADMITTED_AT);
+        if (admittedAt != null) {
+            limiter.release(System.nanoTime() - (Long) admittedAt);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.anz.fastpayment.liquidity.admission;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient Concurrency Limiter
+ *
+ * Caps the requests in flight at a limit sized from observed latency rather than
+ * configured up front. Latency is averaged over short windows and compared with a
+ * baseline, the lowest window average seen, which stands for latency without queueing.
+ * While latency stays within {@code tolerance} of the baseline the limit grows by about
+ * its square root per window; once requests queue up and latency rises the limit is
+ * cut in proportion (by at most half per window). While the service is not using half
+ * its limit, the limit does not grow (a quiet period must not leave a limit nobody has
+ * tested) and the baseline follows latency up, so a slower dependency is not mistaken
+ * for queueing for ever.
+ *
+ * Requests of lower priority may only fill a share of the limit, so when it tightens
+ * they are turned away first. Admission is a single CAS; the limit is resized by
+ * whichever release closes a window.
+ */
+public final class GradientConcurrencyLimiter {
+
+    // An unsaturated service's baseline follows latency over about this many windows
+    private static final double BASELINE_WINDOWS = 50.0;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAdder latencySamples = new LongAdder();
+    private final AtomicBoolean resizing = new AtomicBoolean();
+
+    private volatile int limit;
+    private volatile long windowEnd;
+
+    // Only touched by the release that holds resizing
+    private double estimatedLimit;
+    private double baselineLatency;
+
+    public GradientConcurrencyLimiter(LiquidityProperties.Admission config) {
+        this.minLimit = config.getMinLimit();
+        this.maxLimit = config.getMaxLimit();
+        this.tolerance = config.getTolerance();
+        this.smoothing = config.getSmoothing();
+        this.windowNanos = config.getWindow().toNanos();
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, config.getInitialLimit()));
+        this.limit = (int) estimatedLimit;
+        this.windowEnd = System.nanoTime() + windowNanos;
+    }
+
+    /**
+     * Admit a request if fewer than {@code share} of the limit are in flight. Every
+     * admitted request must be followed by {@link #release}.
+     *
+     * @param share Fraction of the limit requests of this priority may fill
+     * @return Whether the request was admitted
+     */
+    public boolean tryAcquire(double share) {
+        int cap = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= cap) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current + 1 > peakInFlight.get()) {
+                    peakInFlight.accumulateAndGet(current + 1, Math::max);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Complete an admitted request
+     *
+     * @param latencyNanos How long the request took
+     */
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        latencySum.add(latencyNanos);
+        latencySamples.increment();
+        long now = System.nanoTime();
+        if (now - windowEnd >= 0L && resizing.compareAndSet(false, true)) {
+            try {
+                resize(now);
+            } finally {
+                resizing.set(false);
+            }
+        }
+    }
+
+    private void resize(long now) {
+        windowEnd = now + windowNanos;
+        long samples = latencySamples.sumThenReset();
+        long sum = latencySum.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (samples == 0L) {
+            return;
+        }
+
+        double latency = Math.max(1.0, (double) sum / samples);
+        boolean unsaturated = peak < estimatedLimit / 2.0;
+        if (baselineLatency == 0.0 || latency < baselineLatency) {
+            baselineLatency = latency;
+        } else if (unsaturated) {
+            baselineLatency += (latency - baselineLatency) / BASELINE_WINDOWS;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * baselineLatency / latency));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        if (target > estimatedLimit && unsaturated) {
+            return;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1.0 - smoothing) + target * smoothing));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
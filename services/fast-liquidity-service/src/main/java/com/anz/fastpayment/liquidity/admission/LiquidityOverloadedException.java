@@ -0,0 +1,23 @@
+package com.anz.fastpayment.liquidity.admission;
+
+import java.time.Duration;
+
+/**
+ * Liquidity Overloaded Exception
+ *
+ * Thrown when a request is turned away because the service already has as much work
+ * in flight as its concurrency limit allows
+ */
+public class LiquidityOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LiquidityOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,190 @@
+package com.anz.fastpayment.liquidity.audit;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * Audit Codec
+ * 
+ * Binary layout of one audit record:
+ * <pre>
+ * int   length         whole record
+ * int   crc32c         of every byte after this field
+ * byte  recordType     1 = mutation, 2 = decision
+ * long  timestamp      epoch nanos (appliedAt / decidedAt)
+ * byte  transactionType, -1 for none
+ * str   participantId, currency, countryCode, messageId
+ *
+ * mutation:  int shard, long sequence, long amount, balanceBefore, balanceAfter, reservedAfter,
+ *            reservationExpiresAt, str reservationId, reference, transactionId
+ * decision:  byte kind, long amount, balance, str errorCode, requestId
+ * </pre>
+ * Strings are a signed short byte length (-1 for null) followed by UTF-8 bytes.
+ * Records are encoded on the audit writer thread, never on a request or ledger thread.
+ */
+final class AuditCodec {
+
+    static final byte MUTATION = 1;
+    static final byte DECISION = 2;
+
+    /**
+     * Upper bound on an encoded record; a write buffer is flushed when less than this remains
+     */
+    static final int MAX_RECORD_SIZE = 4096;
+
+    private static final int LENGTH_OFFSET = 0;
+    private static final int CRC_OFFSET = 4;
+    private static final int BODY_OFFSET = 8;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final AuditDecision.Kind[] KINDS = AuditDecision.Kind.values();
+
+    private AuditCodec() {
+    }
+
+    /**
+     * Encode a {@link BalanceMutation} or {@link AuditDecision} at the buffer's position and advance past it
+     */
+    static void encode(Object entry, ByteBuffer buffer, CRC32C crc) {
+        int start = buffer.position();
+        buffer.position(start + BODY_OFFSET);
+        if (entry instanceof BalanceMutation mutation) {
+            putCommon(buffer, MUTATION, mutation.appliedAt(), mutation.transactionType(), mutation.key(),
+                    mutation.messageId());
+            buffer.putInt(mutation.shard());
+            buffer.putLong(mutation.sequence());
+            buffer.putLong(mutation.amount());
+            buffer.putLong(mutation.balanceBefore());
+            buffer.putLong(mutation.balanceAfter());
+            buffer.putLong(mutation.reservedAfter());
+            buffer.putLong(mutation.reservationExpiresAt());
+            putString(buffer, mutation.reservationId());
+            putString(buffer, mutation.reference());
+            putString(buffer, mutation.transactionId());
+        } else if (entry instanceof AuditDecision decision) {
+            putCommon(buffer, DECISION, decision.decidedAt(), decision.transactionType(), decision.key(),
+                    decision.messageId());
+            buffer.put((byte) decision.kind().ordinal());
+            buffer.putLong(decision.amount());
+            buffer.putLong(decision.balance());
+            putString(buffer, decision.errorCode());
+            putString(buffer, decision.requestId());
+        } else {
+            throw new IllegalArgumentException("Not an audit entry: " + entry.getClass().getName());
+        }
+        int end = buffer.position();
+
+        int limit = buffer.limit();
+        buffer.position(start + BODY_OFFSET).limit(end);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(limit).position(end);
+
+        buffer.putInt(start + CRC_OFFSET, (int) crc.getValue());
+        buffer.putInt(start + LENGTH_OFFSET, end - start);
+    }
+
+    /**
+     * Decode the record at the buffer's position and advance past it
+     * 
+     * @return A {@link BalanceMutation} or {@link AuditDecision}, or null at the end of data or at a torn/corrupt record
+     */
+    static Object decode(ByteBuffer buffer, CRC32C crc) {
+        int start = buffer.position();
+        if (buffer.remaining() < BODY_OFFSET) {
+            return null;
+        }
+        int length = buffer.getInt(start + LENGTH_OFFSET);
+        if (length <= BODY_OFFSET || length > buffer.remaining() || length > MAX_RECORD_SIZE) {
+            return null;
+        }
+
+        int limit = buffer.limit();
+        buffer.position(start + BODY_OFFSET).limit(start + length);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(limit).position(start + BODY_OFFSET);
+        if ((int) crc.getValue() != buffer.getInt(start + CRC_OFFSET)) {
+            buffer.position(start);
+            return null;
+        }
+
+        byte recordType = buffer.get();
+        Instant timestamp = fromEpochNanos(buffer.getLong());
+        byte typeOrdinal = buffer.get();
+        TransactionType transactionType = typeOrdinal >= 0 ? TYPES[typeOrdinal] : null;
+        PositionKey key = new PositionKey(getString(buffer), getString(buffer), getString(buffer));
+        String messageId = getString(buffer);
+
+        Object entry;
+        if (recordType == MUTATION) {
+            int shard = buffer.getInt();
+            long sequence = buffer.getLong();
+            long amount = buffer.getLong();
+            long balanceBefore = buffer.getLong();
+            long balanceAfter = buffer.getLong();
+            long reservedAfter = buffer.getLong();
+            long reservationExpiresAt = buffer.getLong();
+            String reservationId = getString(buffer);
+            String reference = getString(buffer);
+            String transactionId = getString(buffer);
+            entry = new BalanceMutation(shard, sequence, key, transactionType, amount, balanceBefore, balanceAfter,
+                    reservedAfter, reservationId, reservationExpiresAt, messageId, reference, transactionId, timestamp);
+        } else if (recordType == DECISION) {
+            AuditDecision.Kind kind = KINDS[buffer.get()];
+            long amount = buffer.getLong();
+            long balance = buffer.getLong();
+            String errorCode = getString(buffer);
+            String requestId = getString(buffer);
+            entry = new AuditDecision(kind, key, transactionType, amount, balance, errorCode, messageId, requestId,
+                    timestamp);
+        } else {
+            throw new IllegalStateException("Unknown audit record type " + recordType + " at offset " + start);
+        }
+        buffer.position(start + length);
+        return entry;
+    }
+
+    private static void putCommon(ByteBuffer buffer, byte recordType, Instant timestamp,
+                                  TransactionType transactionType, PositionKey key, String messageId) {
+        buffer.put(recordType);
+        buffer.putLong(timestamp.getEpochSecond() * NANOS_PER_SECOND + timestamp.getNano());
+        buffer.put(transactionType != null ? (byte) transactionType.ordinal() : (byte) -1);
+        putString(buffer, key.participantId());
+        putString(buffer, key.currency());
+        putString(buffer, key.countryCode());
+        putString(buffer, messageId);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Instant fromEpochNanos(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND));
+    }
+}
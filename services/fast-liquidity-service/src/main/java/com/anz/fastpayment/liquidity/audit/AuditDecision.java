@@ -0,0 +1,31 @@
+package com.anz.fastpayment.liquidity.audit;
+
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+
+import java.time.Instant;
+
+/**
+ * Audit Decision
+ * 
+ * A liquidity decision that did not change a position: a balance check, or an update
+ * the ledger refused. Applied updates are audited from the mutation itself.
+ * {@code errorCode} is null for an authorized check; amounts are scaled units and
+ * {@code balance} is the position's balance when the decision was taken.
+ */
+public record AuditDecision(Kind kind,
+                            PositionKey key,
+                            TransactionType transactionType,
+                            long amount,
+                            long balance,
+                            String errorCode,
+                            String messageId,
+                            String requestId,
+                            Instant decidedAt) {
+
+    public enum Kind {
+        CHECK,
+        REJECTED,
+        DUPLICATE
+    }
+}
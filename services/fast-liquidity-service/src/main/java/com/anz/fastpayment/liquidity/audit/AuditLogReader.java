@@ -0,0 +1,102 @@
+package com.anz.fastpayment.liquidity.audit;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.model.Amount;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Audit Log Reader
+ * 
+ * Decodes audit segment files into one tab-separated line per record. Takes segment
+ * files or directories of them; directories are read oldest segment first:
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.anz.fastpayment.liquidity.audit.AuditLogReader \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher data/audit
+ * </pre>
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditLogReader <segment file or directory>...");
+            System.exit(2);
+        }
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                files.addAll(AuditSegmentWriter.segments(path));
+            } else {
+                files.add(path);
+            }
+        }
+        PrintStream out = System.out;
+        boolean clean = true;
+        for (Path file : files) {
+            clean &= read(file, record -> out.println(format(record)));
+        }
+        out.flush();
+        System.exit(clean ? 0 : 1);
+    }
+
+    /**
+     * Hand every record of a segment to {@code consumer}, in the order written
+     * 
+     * @return false if the segment has an invalid header or ends in a torn or corrupt record
+     */
+    public static boolean read(Path file, Consumer<Object> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < AuditSegmentWriter.HEADER_SIZE
+                    || buffer.getInt() != AuditSegmentWriter.MAGIC
+                    || buffer.getInt() != AuditSegmentWriter.VERSION) {
+                System.err.println(file + ": not an audit segment");
+                return false;
+            }
+            buffer.getLong(); // created at
+            CRC32C crc = new CRC32C();
+            Object record;
+            while ((record = AuditCodec.decode(buffer, crc)) != null) {
+                consumer.accept(record);
+            }
+            if (buffer.hasRemaining()) {
+                System.err.println(file + ": unreadable record at offset " + buffer.position()
+                        + ", " + buffer.remaining() + " bytes not decoded");
+                return false;
+            }
+            return true;
+        }
+    }
+
+    static String format(Object record) {
+        if (record instanceof BalanceMutation m) {
+            return String.join("\t", m.appliedAt().toString(), "MUTATION", m.key().participantId(),
+                    m.key().currency(), m.key().countryCode(), String.valueOf(m.transactionType()),
+                    Amount.ofUnits(m.amount()).toString(), Amount.ofUnits(m.balanceBefore()).toString(),
+                    Amount.ofUnits(m.balanceAfter()).toString(), Amount.ofUnits(m.reservedAfter()).toString(),
+                    "shard=" + m.shard(), "seq=" + m.sequence(), "messageId=" + m.messageId(),
+                    "transactionId=" + m.transactionId(), "reservationId=" + m.reservationId(),
+                    "reference=" + m.reference());
+        }
+        AuditDecision d = (AuditDecision) record;
+        return String.join("\t", d.decidedAt().toString(), d.kind().name(), d.key().participantId(),
+                d.key().currency(), d.key().countryCode(), String.valueOf(d.transactionType()),
+                Amount.ofUnits(d.amount()).toString(), Amount.ofUnits(d.balance()).toString(),
+                "errorCode=" + d.errorCode(), "messageId=" + d.messageId(), "requestId=" + d.requestId());
+    }
+}
@@ -0,0 +1,40 @@
+package com.anz.fastpayment.liquidity.audit;
+
+import com.anz.fastpayment.common.health.DependencyProbe;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Audit Probe
+ * 
+ * Reports the audit trail DOWN while it cannot write its segments or has fallen so far
+ * behind that updates are held back. Reads only in-memory state.
+ */
+@Component
+public class AuditProbe implements DependencyProbe {
+
+    public static final String NAME = "audit";
+
+    private final AuditTrail auditTrail;
+
+    public AuditProbe(AuditTrail auditTrail) {
+        this.auditTrail = auditTrail;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void probe(Duration timeout) {
+        String failure = auditTrail.failure();
+        if (failure != null) {
+            throw new IllegalStateException("Audit trail cannot write: " + failure);
+        }
+        if (!auditTrail.isAccepting()) {
+            throw new IllegalStateException("Audit trail is " + auditTrail.backlog() + " records behind");
+        }
+    }
+}
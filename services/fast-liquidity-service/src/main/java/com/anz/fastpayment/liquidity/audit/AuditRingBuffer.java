@@ -0,0 +1,85 @@
+package com.anz.fastpayment.liquidity.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Audit Ring Buffer
+ * 
+ * Bounded lock-free queue for many producers and one consumer. A producer claims a
+ * sequence with a compare-and-set on the head and publishes its entry into that slot;
+ * the consumer takes slots in sequence order and clears them, which frees them for
+ * reuse. Producers never wait: when every slot is taken {@link #offer} fails at once.
+ */
+final class AuditRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    // Next sequence to claim, shared by producers
+    private final AtomicLong head = new AtomicLong();
+
+    // Next sequence to consume; written only by the consumer
+    private volatile long tail;
+
+    AuditRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Enqueue without blocking
+     * 
+     * @return false if the buffer is full
+     */
+    boolean offer(T entry) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail > mask) {
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+        slots.lazySet((int) sequence & mask, entry);
+        return true;
+    }
+
+    /**
+     * Hand up to {@code max} published entries to {@code consumer}, in claim order; consumer thread only
+     * 
+     * @return Number of entries drained
+     */
+    int drain(Consumer<? super T> consumer, int max) {
+        long next = tail;
+        int drained = 0;
+        try {
+            while (drained < max) {
+                int index = (int) next & mask;
+                T entry = slots.get(index);
+                if (entry == null) {
+                    // Empty, or claimed but not yet published
+                    break;
+                }
+                slots.lazySet(index, null);
+                next++;
+                drained++;
+                consumer.accept(entry);
+            }
+        } finally {
+            tail = next;
+        }
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0L, head.get() - tail);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
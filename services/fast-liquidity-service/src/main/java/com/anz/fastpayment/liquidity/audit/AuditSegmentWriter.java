@@ -0,0 +1,138 @@
+package com.anz.fastpayment.liquidity.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Audit Segment Writer
+ * 
+ * Appends encoded audit records to rolling segment files named
+ * {@code audit-<yyyyMMdd>-<nnnnnn>.bin}. A segment holds one UTC day at most and rolls
+ * earlier when it reaches the configured size, so retention can be managed per day.
+ * Segments start with a 16 byte header: magic {@code LQAU}, format version and the
+ * creation time in epoch millis. Only ever used from the audit writer thread.
+ */
+final class AuditSegmentWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x4C514155; // "LQAU"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    private static final Pattern FILE_NAME = Pattern.compile("audit-(\\d{8})-(\\d{6})\\.bin");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private FileChannel channel;
+    private LocalDate segmentDay;
+    private int segmentIndex;
+    private long segmentPosition;
+
+    AuditSegmentWriter(Path directory, long segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Write the buffer's remaining bytes, rolling to a new segment first if they would
+     * overflow the current one or the UTC day has changed
+     */
+    void write(ByteBuffer buffer, long nowMillis) throws IOException {
+        LocalDate today = LocalDate.ofInstant(Instant.ofEpochMilli(nowMillis), ZoneOffset.UTC);
+        if (channel == null || !today.equals(segmentDay)
+                || (segmentPosition > HEADER_SIZE && segmentPosition + buffer.remaining() > segmentSize)) {
+            roll(today, nowMillis);
+        }
+        while (buffer.hasRemaining()) {
+            segmentPosition += channel.write(buffer);
+        }
+    }
+
+    void force() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Give up on the current segment after a failed write, which may have left a torn
+     * record at its end; the next write starts a new segment
+     */
+    void abandon() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Already failing; the segment is not written to again either way
+            }
+            channel = null;
+        }
+    }
+
+    private void roll(LocalDate day, long nowMillis) throws IOException {
+        close();
+        segmentIndex = day.equals(segmentDay) ? segmentIndex + 1 : lastIndexOf(day) + 1;
+        segmentDay = day;
+        Path path = directory.resolve(String.format("audit-%s-%06d.bin", DAY.format(day), segmentIndex));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(nowMillis).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        segmentPosition = HEADER_SIZE;
+    }
+
+    /**
+     * Highest segment index already used for a day, or 0 if none; a restart never appends to an old segment
+     */
+    private int lastIndexOf(LocalDate day) throws IOException {
+        String dayText = DAY.format(day);
+        int last = 0;
+        for (Path path : segments(directory)) {
+            Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+            if (matcher.matches() && matcher.group(1).equals(dayText)) {
+                last = Math.max(last, Integer.parseInt(matcher.group(2)));
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Audit segments in a directory, oldest first
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> FILE_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.anz.fastpayment.liquidity.audit;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutationListener;
+import com.anz.fastpayment.liquidity.ledger.LedgerUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Audit Trail
+ * 
+ * Regulatory record of every applied mutation and every balance check or refused
+ * update, kept as binary segment files under {@code liquidity.audit.directory}.
+ * 
+ * Callers only publish a reference into a lock-free ring buffer: ledger writers hand
+ * over the {@link BalanceMutation} they already built, and request threads an
+ * {@link AuditDecision}, each into a ring of their own so decisions can never take the
+ * room mutations need. A single audit writer thread drains both, encodes records
+ * into a reusable buffer and writes them in batches, forcing the segment to disk at
+ * least every {@code flush-interval}. A batch that fails to write is kept and written
+ * again to a new segment, with back-off, until it succeeds.
+ *
+ * Nobody waits on audit I/O itself, but an update must not be applied if its record
+ * cannot be kept: {@link #admit()} holds updates back while writes are failing or the
+ * mutation ring is three quarters full, under the BLOCK policy for up to
+ * {@code block-timeout}, under SHED at once, by refusing them with a
+ * {@link LedgerUnavailableException}. The last quarter covers updates already admitted
+ * and reservation expiries; should it fill as well, the ledger writer waits for room,
+ * counted in {@code liquidity.audit.stalls}, rather than lose a mutation record. Balance
+ * checks and refused updates are never held back; when their ring is full the record
+ * is dropped, counted in {@code liquidity.audit.dropped} and logged.
+ * Read segments back with {@link AuditLogReader}.
+ */
+@Component
+public class AuditTrail implements BalanceMutationListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditTrail.class);
+
+    private static final int DRAIN_BATCH = 1024;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MIN_RETRY_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final boolean enabled;
+    private final AuditRingBuffer<BalanceMutation> mutations;
+    private final AuditRingBuffer<AuditDecision> decisions;
+    private final AuditSegmentWriter segments;
+    private final long flushIntervalNanos;
+    private final LiquidityProperties.Persistence.OverloadPolicy overloadPolicy;
+    private final long blockTimeoutNanos;
+    private final int highWater;
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private int buffered;
+    // The buffer holds a flipped batch whose write failed and is to be retried
+    private boolean unwritten;
+    private volatile String failure;
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter shedCounter;
+    private final Counter stallCounter;
+    private final LongAdder dropped = new LongAdder();
+    private long droppedReported;
+
+    private final Thread writer;
+    private volatile boolean running;
+
+    public AuditTrail(LiquidityProperties properties, MeterRegistry meterRegistry) throws IOException {
+        LiquidityProperties.Audit config = properties.getAudit();
+        this.enabled = config.isEnabled();
+        this.flushIntervalNanos = config.getFlushInterval().toNanos();
+        this.overloadPolicy = config.getOverloadPolicy();
+        this.blockTimeoutNanos = config.getBlockTimeout().toNanos();
+        this.writtenCounter = Counter.builder("liquidity.audit.records")
+                .description("Audit records written to segment files")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("liquidity.audit.dropped")
+                .description("Audit records lost before they were written")
+                .register(meterRegistry);
+        this.shedCounter = Counter.builder("liquidity.audit.shed")
+                .description("Updates refused because the audit trail could not keep their records")
+                .register(meterRegistry);
+        this.stallCounter = Counter.builder("liquidity.audit.stalls")
+                .description("Times a ledger writer waited for room in the audit mutation ring")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            this.mutations = null;
+            this.decisions = null;
+            this.segments = null;
+            this.highWater = 0;
+            this.writer = null;
+            logger.warn("Audit trail is disabled; liquidity decisions are not being recorded");
+            return;
+        }
+        long segmentBytes = config.getSegmentSize().toBytes();
+        if (segmentBytes < AuditSegmentWriter.HEADER_SIZE + WRITE_BUFFER_SIZE) {
+            throw new IllegalArgumentException("liquidity.audit.segment-size must be larger than 1MB");
+        }
+        this.mutations = new AuditRingBuffer<>(config.getBufferSize());
+        this.decisions = new AuditRingBuffer<>(config.getBufferSize());
+        this.highWater = mutations.capacity() - mutations.capacity() / 4;
+        this.segments = new AuditSegmentWriter(Paths.get(config.getDirectory()), segmentBytes);
+        meterRegistry.gauge("liquidity.audit.backlog", this, AuditTrail::backlog);
+
+        this.running = true;
+        this.writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Audit trail writing to {} with rings of {} records", config.getDirectory(), mutations.capacity());
+    }
+
+    /**
+     * Record an applied mutation; waits for room rather than drop it
+     */
+    @Override
+    public void onMutation(BalanceMutation mutation) {
+        if (!enabled || mutations.offer(mutation)) {
+            return;
+        }
+        stallCounter.increment();
+        do {
+            if (!writer.isAlive()) {
+                // Only once the writer has stopped for good, at shutdown
+                drop(1);
+                return;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        } while (!mutations.offer(mutation));
+    }
+
+    /**
+     * Record a balance check or an update the ledger did not apply
+     */
+    public void record(AuditDecision decision) {
+        if (enabled && !decisions.offer(decision)) {
+            drop(1);
+        }
+    }
+
+    /**
+     * Hold back an update while the audit trail cannot keep its record
+     *
+     * @throws LedgerUnavailableException if it did not recover in time
+     */
+    public void admit() {
+        if (!enabled || accepting()) {
+            return;
+        }
+        if (overloadPolicy == LiquidityProperties.Persistence.OverloadPolicy.BLOCK && awaitAccepting()) {
+            return;
+        }
+        shedCounter.increment();
+        String reason = failure;
+        throw new LedgerUnavailableException(reason != null ? "Audit trail cannot write: " + reason + "; update refused"
+                : "Audit trail is " + mutations.size() + " mutation records behind; update refused");
+    }
+
+    /**
+     * Why the last write or force failed, or null while the audit trail is writing
+     */
+    public String failure() {
+        return failure;
+    }
+
+    /**
+     * Records waiting for the writer
+     */
+    public int backlog() {
+        return enabled ? mutations.size() + decisions.size() : 0;
+    }
+
+    /**
+     * Whether updates are admitted right now
+     */
+    public boolean isAccepting() {
+        return !enabled || accepting();
+    }
+
+    private boolean accepting() {
+        return failure == null && mutations.size() < highWater;
+    }
+
+    private boolean awaitAccepting() {
+        // The writer only parks between batches, so polling at its pace is enough
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (!accepting()) {
+            if (System.nanoTime() - deadline >= 0L || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return true;
+    }
+
+    private void drop(int records) {
+        dropped.add(records);
+        droppedCounter.increment(records);
+    }
+
+    private void run() {
+        long lastForce = System.nanoTime();
+        boolean unforced = false;
+        long backoff = 0L;
+        while (running || backlog() > 0 || unwritten) {
+            try {
+                // A failed batch is written again before anything else is drained
+                boolean retry = failure != null;
+                int drained = 0;
+                if (!unwritten) {
+                    int room = Math.min(DRAIN_BATCH, writeBuffer.remaining() / AuditCodec.MAX_RECORD_SIZE);
+                    drained = mutations.drain(this::append, room);
+                    drained += decisions.drain(this::append, room - drained);
+                }
+                if (drained > 0 || unwritten) {
+                    writeOut();
+                    unforced = true;
+                }
+                long now = System.nanoTime();
+                if (unforced && (retry || now - lastForce >= flushIntervalNanos)) {
+                    segments.force();
+                    lastForce = now;
+                    unforced = false;
+                }
+                if (retry && !unforced) {
+                    logger.info("Audit trail writing again after: {}", failure);
+                    failure = null;
+                    backoff = 0L;
+                }
+                reportDrops();
+                if (drained == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Keep the batch and retry it in a new segment; updates are held back meanwhile
+                failure = e.toString();
+                segments.abandon();
+                backoff = backoff == 0L ? MIN_RETRY_BACKOFF_NANOS : Math.min(backoff * 2, MAX_RETRY_BACKOFF_NANOS);
+                if (!running) {
+                    logger.error("Failed to write audit records at shutdown; {} records and {} waiting are lost",
+                            buffered, backlog(), e);
+                    break;
+                }
+                logger.error("Failed to write {} audit records, retrying in {} ms", buffered,
+                        TimeUnit.NANOSECONDS.toMillis(backoff), e);
+                LockSupport.parkNanos(backoff);
+            }
+        }
+        try {
+            segments.close();
+        } catch (IOException e) {
+            logger.error("Failed to close audit segment", e);
+        }
+    }
+
+    /**
+     * Encode one record into the write buffer; the drain is bounded so it always fits
+     */
+    private void append(Object entry) {
+        // Bound the record so an oversized one fails here rather than being unreadable later
+        int start = writeBuffer.position();
+        writeBuffer.limit(start + AuditCodec.MAX_RECORD_SIZE);
+        try {
+            AuditCodec.encode(entry, writeBuffer, crc);
+            buffered++;
+        } catch (BufferOverflowException e) {
+            writeBuffer.position(start);
+            drop(1);
+            logger.error("Audit record larger than {} bytes dropped: {}", AuditCodec.MAX_RECORD_SIZE, entry);
+        } catch (RuntimeException e) {
+            // Never leave a partial record in a batch that will be retried
+            writeBuffer.position(start);
+            drop(1);
+            logger.error("Audit record could not be encoded and was dropped: {}", entry, e);
+        } finally {
+            writeBuffer.limit(writeBuffer.capacity());
+        }
+    }
+
+    private void writeOut() throws IOException {
+        if (unwritten) {
+            // From the start of the batch, since the failed write may have got part way
+            writeBuffer.rewind();
+        } else {
+            writeBuffer.flip();
+            unwritten = true;
+        }
+        segments.write(writeBuffer, System.currentTimeMillis());
+        writeBuffer.clear();
+        unwritten = false;
+        writtenCounter.increment(buffered);
+        buffered = 0;
+    }
+
+    private void reportDrops() {
+        long total = dropped.sum();
+        if (total != droppedReported) {
+            logger.error("{} audit records dropped since the last report ({} in total); audit ring buffer is full",
+                    total - droppedReported, total);
+            droppedReported = total;
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
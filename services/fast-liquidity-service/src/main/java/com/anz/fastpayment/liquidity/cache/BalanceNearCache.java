@@ -0,0 +1,70 @@
+package com.anz.fastpayment.liquidity.cache;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutationListener;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.model.ParticipantBalanceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Balance Near Cache
+ * 
+ * Size-bounded in-process cache of participant balance responses in front of
+ * {@code GET /liquidity/balance/{participantId}}. An entry is dropped as soon as its
+ * position is mutated, via the ledger's mutation stream, and in any case after
+ * {@code liquidity.cache.balance-ttl}.
+ * 
+ * Loads run inside the cache's per-key compute, so an invalidation racing a load waits
+ * for it and then removes it; a balance read before a mutation is never left cached
+ * after that mutation. Hit, miss and eviction counts are exported as {@code cache.*}
+ * metrics tagged {@code cache=participant-balance}.
+ */
+@Component
+public class BalanceNearCache implements BalanceMutationListener {
+
+    static final String CACHE_NAME = "participant-balance";
+
+    private final Cache<PositionKey, ParticipantBalanceResponse> cache;
+
+    public BalanceNearCache(LiquidityProperties properties, MeterRegistry meterRegistry) {
+        LiquidityProperties.Cache config = properties.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getBalanceMaximumSize())
+                .expireAfterWrite(config.getBalanceTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Cached balance of a position, loading it on a miss
+     */
+    public ParticipantBalanceResponse get(PositionKey key, Function<PositionKey, ParticipantBalanceResponse> loader) {
+        return cache.get(key, loader);
+    }
+
+    @Override
+    public void onMutation(BalanceMutation mutation) {
+        cache.invalidate(mutation.key());
+    }
+
+    /**
+     * Drop the entries of the positions selected by {@code keys}, for positions restored
+     * or evicted without a mutation
+     */
+    public void invalidate(Predicate<PositionKey> keys) {
+        cache.asMap().keySet().removeIf(keys);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
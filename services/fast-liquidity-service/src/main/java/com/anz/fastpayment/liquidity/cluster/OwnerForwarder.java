@@ -0,0 +1,145 @@
+package com.anz.fastpayment.liquidity.cluster;
+
+import com.anz.fastpayment.liquidity.admission.LiquidityOverloadedException;
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.LedgerUnavailableException;
+import com.anz.fastpayment.liquidity.model.ErrorResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Owner Forwarder
+ *
+ * Sends a liquidity request on to the node that owns its partition, through that node's
+ * REST API, and hands back the owner's answer. Forwarded requests carry
+ * {@value #FORWARDED_HEADER}, and a node never forwards a request that already does, so
+ * a stale view of the owners during a rebalance costs a 503 and a retry rather than a
+ * loop.
+ */
+@Component
+@ConditionalOnProperty(prefix = "liquidity.cluster", name = "enabled", havingValue = "true")
+public class OwnerForwarder {
+
+    public static final String FORWARDED_HEADER = "X-Liquidity-Forwarded-By";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String advertisedAddress;
+    private final Duration timeout;
+    private final Counter forwardedCounter;
+    private final Counter failedCounter;
+
+    public OwnerForwarder(ObjectMapper objectMapper, PartitionOwnership ownership,
+                          LiquidityProperties properties, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.advertisedAddress = ownership.getAdvertisedAddress();
+        this.timeout = properties.getCluster().getForwardTimeout();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        this.forwardedCounter = Counter.builder("liquidity.cluster.forwarded")
+                .description("Requests forwarded to the owner of their partition")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("liquidity.cluster.forward.failures")
+                .description("Forwarded requests the owner did not answer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the request being served was forwarded here by another node
+     */
+    public boolean isForwarded() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet
+                && servlet.getRequest().getHeader(FORWARDED_HEADER) != null;
+    }
+
+    /**
+     * POST {@code body} as JSON to {@code path} on {@code owner}
+     *
+     * @throws LedgerUnavailableException if the owner could not be reached or could not take the request
+     * @throws LiquidityOverloadedException if the owner is at its concurrency limit
+     * @throws OwnerRejectedException if the owner rejected the request as a client error
+     */
+    public <T> T post(String owner, String path, Object body, Class<T> responseType) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot encode request for " + path, e);
+        }
+        return send(owner, request(owner, path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                .build(), responseType);
+    }
+
+    /**
+     * GET {@code pathAndQuery}, already encoded, on {@code owner}
+     *
+     * @throws LedgerUnavailableException if the owner could not be reached or could not take the request
+     * @throws LiquidityOverloadedException if the owner is at its concurrency limit
+     * @throws OwnerRejectedException if the owner rejected the request as a client error
+     */
+    public <T> T get(String owner, String pathAndQuery, Class<T> responseType) {
+        return send(owner, request(owner, pathAndQuery).GET().build(), responseType);
+    }
+
+    private HttpRequest.Builder request(String owner, String path) {
+        return HttpRequest.newBuilder(URI.create("http://" + owner + path))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .header(FORWARDED_HEADER, advertisedAddress);
+    }
+
+    private <T> T send(String owner, HttpRequest request, Class<T> responseType) {
+        forwardedCounter.increment();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            failedCounter.increment();
+            throw new LedgerUnavailableException("Owner " + owner + " did not answer: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LedgerUnavailableException("Interrupted waiting for owner " + owner, e);
+        }
+        int status = response.statusCode();
+        try {
+            // 409 carries the original outcome of a redelivered update
+            if (status == 200 || status == 409) {
+                return objectMapper.readValue(response.body(), responseType);
+            }
+            ErrorResponse error = objectMapper.readValue(response.body(), ErrorResponse.class);
+            String message = error.getMessage();
+            if (status == 429) {
+                // The owner is shedding load; pass that on rather than treating it as gone
+                long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1L);
+                throw new LiquidityOverloadedException(message, Duration.ofSeconds(retryAfter));
+            }
+            if (status >= 400 && status < 500) {
+                throw new OwnerRejectedException(status, error);
+            }
+            failedCounter.increment();
+            throw new LedgerUnavailableException("Owner " + owner + " answered " + status + ": " + message);
+        } catch (IOException e) {
+            failedCounter.increment();
+            throw new LedgerUnavailableException("Unreadable answer from owner " + owner + " (" + status + ")", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.anz.fastpayment.liquidity.cluster;
+
+import com.anz.fastpayment.liquidity.model.ErrorResponse;
+
+/**
+ * Owner Rejected Exception
+ *
+ * Thrown when the owner of a forwarded request turned it away as a client error; the
+ * caller gets the owner's status and error as they were
+ */
+public class OwnerRejectedException extends RuntimeException {
+
+    private final int status;
+    private final ErrorResponse error;
+
+    public OwnerRejectedException(int status, ErrorResponse error) {
+        super(error.getMessage());
+        this.status = status;
+        this.error = error;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public ErrorResponse getError() {
+        return error;
+    }
+}
@@ -0,0 +1,23 @@
+package com.anz.fastpayment.liquidity.cluster;
+
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Participant Partitioner
+ * 
+ * Maps a participant to its cluster partition the way Kafka's default partitioner maps
+ * a String key, so a topic keyed by participant id with the same partition count
+ * (such as the balance update topic) lines up with the ownership partitions. All
+ * positions of a participant share a partition, and so an owner.
+ */
+public final class ParticipantPartitioner {
+
+    private ParticipantPartitioner() {
+    }
+
+    public static int partitionOf(String participantId, int partitions) {
+        return Utils.toPositive(Utils.murmur2(participantId.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+}
@@ -0,0 +1,799 @@
+package com.anz.fastpayment.liquidity.cluster;
+
+import com.anz.fastpayment.liquidity.cache.BalanceNearCache;
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.journal.JournalCodec;
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.DurableMutationListener;
+import com.anz.fastpayment.liquidity.ledger.LedgerUnavailableException;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.persistence.BalanceWriteBehind;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.InvalidProducerEpochException;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Partition Ownership
+ *
+ * Splits participants across the nodes of a liquidity cluster so that every participant
+ * has exactly one writer. Participants hash onto the partitions of the replicated
+ * mutation log ({@code liquidity.cluster.mutation-topic}); each node joins one consumer
+ * group on that topic, and the partitions Kafka assigns to a node are the partitions it
+ * owns. Kafka's group protocol therefore decides ownership, detects dead nodes and
+ * moves their partitions, with no coordination of our own.
+ *
+ * Every mutation an owner applies is written to its partition of the log as a journal
+ * record, and every node tails the whole log into a {@link PartitionReplica} per
+ * partition, so a standby is always warm. On taking a partition over, a node reads the
+ * log up to its end, swaps the replica into its ledger and only then serves the
+ * partition. On handing one over (rebalance or shutdown) it stops admitting requests
+ * for it, waits for those in flight, flushes the balance store and drops the positions.
+ * The cooperative-sticky assignor only moves partitions that change owner, and the new
+ * owner is assigned a partition only after the old one has finished revoking it.
+ *
+ * Each owned partition is written through its own transactional producer, whose
+ * transactional id is the same on every node. A new owner initialises it before reading
+ * the log to its end, which fences the previous owner: a node cut off from the group
+ * that still believes it owns the partition can no longer commit to it, and the log is
+ * only read committed, so nothing it writes reaches a replica. The mutations of every
+ * writer task are committed before its outcomes are returned, a single command as much
+ * as a batch; a commit the log does not take fails the task, and the partition is
+ * rebuilt from the log (or dropped, if it was fenced) before it is served again. As a
+ * first line of defence, a node also stops admitting requests once the group
+ * coordinator has not confirmed its membership for a session timeout.
+ *
+ * The log is the source of truth for the cluster, so it must be retained in full (it
+ * is created with infinite retention) and the local journal is not used for recovery.
+ * Replicas are not checkpointed, so a starting node reads the whole log before it can
+ * take anything over; its start-up time grows with the log.
+ */
+@Component
+@ConditionalOnProperty(prefix = "liquidity.cluster", name = "enabled", havingValue = "true")
+public class PartitionOwnership implements DurableMutationListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionOwnership.class);
+
+    /**
+     * Prefix of a member's client id, followed by its advertised address
+     */
+    static final String CLIENT_ID_PREFIX = "liquidity@";
+
+    private static final int NOT_OWNED = 0;
+    private static final int REBUILDING = 1;
+    private static final int OWNED = 2;
+    // The log did not take a write; rebuilt from the log by the cluster thread
+    private static final int FAILED = 3;
+    // Another node's producer fenced ours; dropped until Kafka assigns it here again
+    private static final int FENCED = 4;
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final String MAX_BLOCK_MS = "500";
+    private static final long DEFAULT_SESSION_TIMEOUT_MS = 45_000L;
+
+    private final LiquidityProperties.Cluster config;
+    private final KafkaProperties kafkaProperties;
+    private final BalanceNearCache nearCache;
+    private final ObjectProvider<BalanceWriteBehind> writeBehind;
+    private final String advertisedAddress;
+    private final String topic;
+    private final long idempotencyTtlMillis;
+
+    private final Counter replicationFailures;
+    private final Counter takeovers;
+    private final Counter handovers;
+
+    // Set once by start(), before any traffic
+    private volatile int partitions;
+    private AtomicIntegerArray states;
+    private AtomicIntegerArray inFlight;
+    private BalanceLedger ledger;
+    private long leaseNanos;
+    // Set by the cluster thread, read by shard writers
+    private AtomicReferenceArray<PartitionLog> logs;
+
+    // Shard writer threads only, indexed by shard
+    private ByteBuffer[] encodeBuffers;
+    private CRC32C[] crcs;
+    private List<List<ProducerRecord<String, byte[]>>> pending;
+
+    // Cluster thread only
+    private Admin admin;
+    private KafkaConsumer<String, byte[]> membership;
+    private KafkaConsumer<String, byte[]> tailer;
+    private PartitionReplica[] replicas;
+    // Log end each assigned partition must be read to, or null until it is fenced
+    private final Map<TopicPartition, Long> takeoverTargets = new HashMap<>();
+    private final CRC32C tailCrc = new CRC32C();
+
+    private volatile Map<Integer, String> owners = Map.of();
+    private volatile boolean directoryStale = true;
+    // When the coordinator last confirmed this node's membership, by System.nanoTime
+    private volatile long leaseRenewedAt;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public PartitionOwnership(LiquidityProperties properties, KafkaProperties kafkaProperties,
+                              BalanceNearCache nearCache, ObjectProvider<BalanceWriteBehind> writeBehind,
+                              Environment environment, MeterRegistry meterRegistry) throws UnknownHostException {
+        this.config = properties.getCluster();
+        this.kafkaProperties = kafkaProperties;
+        this.nearCache = nearCache;
+        this.writeBehind = writeBehind;
+        this.advertisedAddress = StringUtils.hasText(config.getAdvertisedAddress()) ? config.getAdvertisedAddress()
+                : InetAddress.getLocalHost().getHostName() + ":" + environment.getProperty("server.port", "8080");
+        this.topic = config.getMutationTopic();
+        this.idempotencyTtlMillis = properties.getIdempotency().getTtl().toMillis();
+
+        this.replicationFailures = Counter.builder("liquidity.cluster.replication.failures")
+                .description("Mutations the replicated log did not commit")
+                .register(meterRegistry);
+        this.takeovers = Counter.builder("liquidity.cluster.takeovers")
+                .description("Partitions this node took over")
+                .register(meterRegistry);
+        this.handovers = Counter.builder("liquidity.cluster.handovers")
+                .description("Partitions this node handed over or lost")
+                .register(meterRegistry);
+        meterRegistry.gauge("liquidity.cluster.partitions.owned", this, PartitionOwnership::ownedCount);
+    }
+
+    /**
+     * Join the cluster. Called once the ledger is built and before it takes traffic; the
+     * node owns nothing until Kafka assigns it partitions and it has rebuilt them.
+     */
+    public void start(BalanceLedger ledger) {
+        this.ledger = ledger;
+        this.admin = Admin.create(kafkaProperties.buildAdminProperties(null));
+        int count = ensureTopic();
+        this.states = new AtomicIntegerArray(count);
+        this.inFlight = new AtomicIntegerArray(count);
+        this.replicas = new PartitionReplica[count];
+        for (int i = 0; i < count; i++) {
+            replicas[i] = new PartitionReplica(idempotencyTtlMillis);
+        }
+        this.logs = new AtomicReferenceArray<>(count);
+        int shards = ledger.getShardCount();
+        this.encodeBuffers = new ByteBuffer[shards];
+        this.crcs = new CRC32C[shards];
+        this.pending = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            encodeBuffers[i] = ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE);
+            crcs[i] = new CRC32C();
+            pending.add(new ArrayList<>());
+        }
+        Object sessionTimeout = consumerConfig(config.getGroupId(), advertisedAddress)
+                .get(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG);
+        this.leaseNanos = TimeUnit.MILLISECONDS.toNanos(sessionTimeout != null
+                ? Long.parseLong(sessionTimeout.toString()) : DEFAULT_SESSION_TIMEOUT_MS);
+        this.leaseRenewedAt = System.nanoTime() - leaseNanos;
+        this.partitions = count;
+
+        // The log, not the local journal, is the source of truth for every partition
+        int dropped = ledger.evict(key -> true);
+        nearCache.invalidate(key -> true);
+        if (dropped > 0) {
+            logger.info("Dropped {} journal-recovered positions; owned partitions are rebuilt from {}", dropped, topic);
+        }
+
+        List<TopicPartition> all = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            all.add(new TopicPartition(topic, i));
+        }
+        this.tailer = new KafkaConsumer<>(consumerConfig(null, "liquidity-tail@" + advertisedAddress),
+                new StringDeserializer(), new ByteArrayDeserializer());
+        tailer.assign(all);
+        tailer.seekToBeginning(all);
+        this.membership = new KafkaConsumer<>(consumerConfig(config.getGroupId(), CLIENT_ID_PREFIX + advertisedAddress),
+                new StringDeserializer(), new ByteArrayDeserializer());
+        membership.subscribe(List.of(topic), new Rebalance());
+
+        this.running = true;
+        this.thread = new Thread(this::run, "liquidity-cluster");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Joined liquidity cluster {} as {} over {} partitions of {}",
+                config.getGroupId(), advertisedAddress, count, topic);
+    }
+
+    private int ensureTopic() {
+        NewTopic newTopic = new NewTopic(topic, Optional.of(config.getPartitions()), Optional.empty())
+                .configs(Map.of(TopicConfig.RETENTION_MS_CONFIG, "-1"));
+        try {
+            admin.createTopics(List.of(newTopic)).all().get(config.getStartupTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof TopicExistsException)) {
+                throw new IllegalStateException("Cannot create mutation log " + topic, e.getCause());
+            }
+        } catch (InterruptedException | TimeoutException e) {
+            throw new IllegalStateException("Cannot create mutation log " + topic, e);
+        }
+        try {
+            return admin.describeTopics(List.of(topic)).allTopicNames()
+                    .get(config.getStartupTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .get(topic).partitions().size();
+        } catch (ExecutionException | InterruptedException | TimeoutException e) {
+            throw new IllegalStateException("Cannot describe mutation log " + topic, e);
+        }
+    }
+
+    private Map<String, Object> producerConfig(int partition) {
+        Map<String, Object> producerConfig = kafkaProperties.buildProducerProperties(null);
+        producerConfig.put(ProducerConfig.CLIENT_ID_CONFIG, "liquidity-log-" + partition + "@" + advertisedAddress);
+        producerConfig.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerConfig.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // The same on every node, so whoever initialises it last is the only writer
+        producerConfig.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, config.getGroupId() + "-" + topic + "-" + partition);
+        // A transaction left open by a dead writer holds back readers for at most this long
+        producerConfig.put(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG, (int) config.getHandoverTimeout().toMillis());
+        // Never hold a shard writer for long when the log is unreachable
+        producerConfig.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, MAX_BLOCK_MS);
+        return producerConfig;
+    }
+
+    private Map<String, Object> consumerConfig(String groupId, String clientId) {
+        Map<String, Object> consumerConfig = kafkaProperties.buildConsumerProperties(null);
+        consumerConfig.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        if (groupId != null) {
+            consumerConfig.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+            consumerConfig.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG,
+                    CooperativeStickyAssignor.class.getName());
+        }
+        consumerConfig.put(ConsumerConfig.CLIENT_ID_CONFIG, clientId);
+        consumerConfig.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        consumerConfig.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // Writes of an owner that was fenced mid-transaction are never folded
+        consumerConfig.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        return consumerConfig;
+    }
+
+    /**
+     * Partition a participant belongs to
+     */
+    public int partitionOf(String participantId) {
+        return ParticipantPartitioner.partitionOf(participantId, partitions);
+    }
+
+    /**
+     * Admit a request for a partition if this node owns it and the group coordinator has
+     * confirmed its membership within a session timeout. Every admitted request must be
+     * followed by {@link #exit}, so a handover can wait for it.
+     *
+     * @return Whether the partition is owned here and the request admitted
+     */
+    public boolean enter(int partition) {
+        inFlight.incrementAndGet(partition);
+        if (states.get(partition) == OWNED && System.nanoTime() - leaseRenewedAt < leaseNanos) {
+            return true;
+        }
+        inFlight.decrementAndGet(partition);
+        return false;
+    }
+
+    public void exit(int partition) {
+        inFlight.decrementAndGet(partition);
+    }
+
+    /**
+     * Whether this node is catching up on a partition it has just been assigned
+     */
+    public boolean isRebuilding(int partition) {
+        int state = states.get(partition);
+        return state == REBUILDING || state == FAILED;
+    }
+
+    /**
+     * Advertised address of the partition's owner as last looked up, or null if unknown
+     */
+    public String ownerOf(int partition) {
+        return owners.get(partition);
+    }
+
+    /**
+     * Look owners up again soon, after the recorded owner of a partition did not answer
+     * or no longer owned it
+     */
+    public void ownerUnreachable(int partition) {
+        directoryStale = true;
+    }
+
+    public String getAdvertisedAddress() {
+        return advertisedAddress;
+    }
+
+    int ownedCount() {
+        AtomicIntegerArray current = states;
+        int owned = 0;
+        for (int i = 0; current != null && i < current.length(); i++) {
+            if (current.get(i) == OWNED) {
+                owned++;
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * @throws LedgerUnavailableException if this node cannot write the mutation's partition
+     */
+    @Override
+    public void prepare(BalanceMutation mutation) {
+        if (logs == null) {
+            return;
+        }
+        int partition = partitionOf(mutation.key().participantId());
+        int state = states.get(partition);
+        if (logs.get(partition) == null || state == FAILED || state == FENCED) {
+            throw new LedgerUnavailableException("Partition " + partition + " is not writable on this node");
+        }
+    }
+
+    /**
+     * Encode the mutation for its partition's log; it is written on {@link #onCommit},
+     * which refuses it if the partition stopped being writable since {@link #prepare}
+     */
+    @Override
+    public void onMutation(BalanceMutation mutation) {
+        if (logs == null) {
+            return;
+        }
+        String participantId = mutation.key().participantId();
+        int partition = partitionOf(participantId);
+        int shard = mutation.shard();
+        ByteBuffer buffer = encodeBuffers[shard];
+        buffer.clear();
+        JournalCodec.encode(mutation, buffer, crcs[shard]);
+        byte[] record = Arrays.copyOf(buffer.array(), buffer.position());
+        pending.get(shard).add(new ProducerRecord<>(topic, partition, participantId, record));
+    }
+
+    /**
+     * Commit the shard's pending mutations, one transaction per partition
+     *
+     * @throws LedgerUnavailableException if a partition's transaction did not commit; the
+     *                                    partition is marked for rebuilding or dropping
+     */
+    @Override
+    public void onCommit(int shard) {
+        if (logs == null) {
+            return;
+        }
+        List<ProducerRecord<String, byte[]>> records = pending.get(shard);
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            // Stable, so each partition keeps the order its mutations were applied in
+            records.sort(Comparator.comparingInt(ProducerRecord::partition));
+            LedgerUnavailableException refused = null;
+            for (int from = 0; from < records.size(); ) {
+                int partition = records.get(from).partition();
+                int to = from + 1;
+                while (to < records.size() && records.get(to).partition() == partition) {
+                    to++;
+                }
+                try {
+                    commit(partition, records.subList(from, to));
+                } catch (LedgerUnavailableException e) {
+                    if (refused == null) {
+                        refused = e;
+                    }
+                }
+                from = to;
+            }
+            if (refused != null) {
+                throw refused;
+            }
+        } finally {
+            records.clear();
+        }
+    }
+
+    private void commit(int partition, List<ProducerRecord<String, byte[]>> records) {
+        PartitionLog log = logs.get(partition);
+        if (log == null) {
+            replicationFailures.increment(records.size());
+            markFailed(partition, FAILED);
+            throw new LedgerUnavailableException("Partition " + partition + " is not writable on this node");
+        }
+        log.lock.lock();
+        try {
+            if (log.closed) {
+                replicationFailures.increment(records.size());
+                markFailed(partition, FAILED);
+                throw new LedgerUnavailableException("Partition " + partition + " is not writable on this node");
+            }
+            log.producer.beginTransaction();
+            for (ProducerRecord<String, byte[]> record : records) {
+                log.producer.send(record);
+            }
+            log.producer.commitTransaction();
+        } catch (ProducerFencedException | InvalidProducerEpochException e) {
+            replicationFailures.increment(records.size());
+            markFailed(partition, FENCED);
+            logger.error("Partition {} was fenced by another owner; dropping it", partition);
+            throw new LedgerUnavailableException("Partition " + partition + " is owned by another node now", e);
+        } catch (KafkaException e) {
+            // The transaction may or may not have committed; only the log can tell
+            replicationFailures.increment(records.size());
+            markFailed(partition, FAILED);
+            logger.error("Replicated log did not commit {} mutations of partition {}; rebuilding it from {}",
+                    records.size(), partition, topic, e);
+            throw new LedgerUnavailableException("Replicated log did not commit partition " + partition
+                    + "; retry shortly", e);
+        } finally {
+            log.lock.unlock();
+        }
+    }
+
+    /**
+     * Stop serving a partition whose positions no longer match its log; the cluster
+     * thread then discards them
+     */
+    private void markFailed(int partition, int failedState) {
+        while (true) {
+            int state = states.get(partition);
+            if (state != OWNED && state != REBUILDING) {
+                return;
+            }
+            if (states.compareAndSet(partition, state, failedState)) {
+                directoryStale = true;
+                return;
+            }
+        }
+    }
+
+    private void run() {
+        long nextLookup = System.nanoTime();
+        while (running) {
+            try {
+                membership.poll(POLL_TIMEOUT);
+                tail(tailer.poll(POLL_TIMEOUT));
+                discardFailed();
+                completeTakeovers();
+                if (directoryStale || System.nanoTime() - nextLookup >= 0L) {
+                    lookUpOwners();
+                    nextLookup = System.nanoTime() + config.getDirectoryRefresh().toNanos();
+                }
+            } catch (WakeupException e) {
+                // Closing
+            } catch (RuntimeException e) {
+                logger.error("Liquidity cluster loop failed", e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+        // Leaving the group revokes, and so hands over, every owned partition
+        membership.close(config.getHandoverTimeout());
+        tailer.close(Duration.ZERO);
+        for (int partition = 0; partition < partitions; partition++) {
+            closeLog(partition);
+        }
+        admin.close(Duration.ZERO);
+    }
+
+    private void tail(ConsumerRecords<String, byte[]> records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            // The shard a record came from does not matter to the fold
+            BalanceMutation mutation = JournalCodec.decode(0, ByteBuffer.wrap(record.value()), tailCrc);
+            if (mutation == null) {
+                logger.error("Skipping unreadable record at {}-{} offset {}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            replicas[record.partition()].apply(mutation, record.offset());
+        }
+    }
+
+    /**
+     * Fence every assigned partition not yet fenced, then serve each whose replica has
+     * caught up with the log
+     */
+    private void completeTakeovers() {
+        if (takeoverTargets.isEmpty()) {
+            return;
+        }
+        for (Iterator<Map.Entry<TopicPartition, Long>> it = takeoverTargets.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<TopicPartition, Long> target = it.next();
+            if (target.getValue() == null) {
+                if (!fence(target.getKey().partition())) {
+                    continue;
+                }
+                // Read committed, so this is past everything the previous owner committed
+                target.setValue(tailer.endOffsets(List.of(target.getKey())).get(target.getKey()));
+            }
+            if (tailer.position(target.getKey()) >= target.getValue()) {
+                takeOver(target.getKey().partition());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Open the partition's transactional producer, fencing any other node's
+     *
+     * @return Whether the partition is fenced; if not, it is tried again on the next loop
+     */
+    private boolean fence(int partition) {
+        KafkaProducer<String, byte[]> producer = new KafkaProducer<>(producerConfig(partition),
+                new StringSerializer(), new ByteArraySerializer());
+        try {
+            producer.initTransactions();
+        } catch (KafkaException e) {
+            producer.close(Duration.ZERO);
+            logger.warn("Cannot fence partition {} yet: {}", partition, e.getMessage());
+            return false;
+        }
+        closeLog(partition);
+        logs.set(partition, new PartitionLog(producer));
+        return true;
+    }
+
+    private void closeLog(int partition) {
+        PartitionLog log = logs.getAndSet(partition, null);
+        if (log == null) {
+            return;
+        }
+        log.lock.lock();
+        try {
+            log.closed = true;
+        } finally {
+            log.lock.unlock();
+        }
+        log.producer.close(Duration.ZERO);
+    }
+
+    /**
+     * Discard the positions of every partition whose log write failed or was fenced.
+     * A failed partition still assigned here is rebuilt from the log; anything else is
+     * dropped until Kafka assigns it here again.
+     */
+    private void discardFailed() {
+        for (int partition = 0; partition < partitions; partition++) {
+            int state = states.get(partition);
+            if (state != FAILED && state != FENCED) {
+                continue;
+            }
+            quiesce(partition);
+            closeLog(partition);
+            Predicate<PositionKey> keys = inPartition(partition);
+            ledger.evict(keys);
+            nearCache.invalidate(keys);
+            TopicPartition topicPartition = new TopicPartition(topic, partition);
+            if (state == FAILED && membership.assignment().contains(topicPartition)) {
+                states.set(partition, REBUILDING);
+                takeoverTargets.put(topicPartition, null);
+                logger.warn("Rebuilding partition {} from {} after a write it did not commit", partition, topic);
+            } else {
+                states.set(partition, NOT_OWNED);
+                takeoverTargets.remove(topicPartition);
+                handovers.increment();
+                logger.warn("Dropped partition {}; it is no longer writable from this node", partition);
+            }
+            directoryStale = true;
+        }
+    }
+
+    private void takeOver(int partition) {
+        PartitionReplica replica = replicas[partition];
+        Predicate<PositionKey> keys = inPartition(partition);
+        ledger.evict(keys);
+        ledger.restore(replica.positions(), replica.reservations(), replica.idempotencyEntries(), null);
+        nearCache.invalidate(keys);
+        writeBehind.ifAvailable(w -> w.resync(replica.positions(), -1, replica.offset()));
+        if (!states.compareAndSet(partition, REBUILDING, OWNED)) {
+            // A write during the restore failed; discardFailed starts over
+            return;
+        }
+        takeovers.increment();
+        directoryStale = true;
+        logger.info("Took over partition {} with {} positions at log offset {}",
+                partition, replica.positions().size(), replica.offset());
+    }
+
+    private void handOver(int partition) {
+        states.set(partition, NOT_OWNED);
+        takeoverTargets.remove(new TopicPartition(topic, partition));
+        quiesce(partition);
+        // Every writer task commits before it returns, so nothing is left to send
+        closeLog(partition);
+        writeBehind.ifAvailable(w -> {
+            if (!w.awaitFlushed(config.getHandoverTimeout())) {
+                logger.warn("Balance store not flushed before handing over partition {}", partition);
+            }
+        });
+        drop(partition);
+        logger.info("Handed over partition {}", partition);
+    }
+
+    /**
+     * Wait for requests admitted to the partition to finish, once it admits no more
+     */
+    private void quiesce(int partition) {
+        long deadline = System.nanoTime() + config.getHandoverTimeout().toNanos();
+        while (inFlight.get(partition) > 0 && System.nanoTime() - deadline < 0L) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        // Every shard reaching a capture task means all commands queued before it are applied
+        for (int shard = 0; shard < ledger.getShardCount(); shard++) {
+            ledger.capture(shard).join();
+        }
+    }
+
+    private void drop(int partition) {
+        states.set(partition, NOT_OWNED);
+        closeLog(partition);
+        Predicate<PositionKey> keys = inPartition(partition);
+        ledger.evict(keys);
+        nearCache.invalidate(keys);
+        handovers.increment();
+        directoryStale = true;
+    }
+
+    private Predicate<PositionKey> inPartition(int partition) {
+        int count = partitions;
+        return key -> ParticipantPartitioner.partitionOf(key.participantId(), count) == partition;
+    }
+
+    /**
+     * Refresh the owner directory. Finding this node among the group's members also
+     * renews its lease: a membership poll returns whether or not the coordinator is
+     * reachable, so only the coordinator's own answer says the node is still a member.
+     */
+    private void lookUpOwners() {
+        long asked = System.nanoTime();
+        ConsumerGroupDescription group;
+        try {
+            group = admin.describeConsumerGroups(List.of(config.getGroupId())).all()
+                    .get(config.getForwardTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .get(config.getGroupId());
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Cannot look up partition owners: {}", e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        Map<Integer, String> found = new HashMap<>();
+        boolean member = false;
+        for (MemberDescription description : group.members()) {
+            if (!description.clientId().startsWith(CLIENT_ID_PREFIX)) {
+                continue;
+            }
+            String address = description.clientId().substring(CLIENT_ID_PREFIX.length());
+            member |= address.equals(advertisedAddress);
+            for (TopicPartition partition : description.assignment().topicPartitions()) {
+                if (partition.topic().equals(topic)) {
+                    found.put(partition.partition(), address);
+                }
+            }
+        }
+        owners = Map.copyOf(found);
+        directoryStale = false;
+        if (member) {
+            leaseRenewedAt = asked;
+        } else if (ownedCount() > 0) {
+            logger.warn("Group {} does not list this node; refusing writes once its lease runs out", config.getGroupId());
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        membership.wakeup();
+        thread.join(config.getHandoverTimeout().toMillis() * 2);
+    }
+
+    /**
+     * Runs on the cluster thread, inside {@code membership.poll}
+     */
+    private final class Rebalance implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> assigned) {
+            if (assigned.isEmpty()) {
+                return;
+            }
+            // Nothing is read through the membership consumer; the tailer reads the log
+            membership.pause(assigned);
+            for (TopicPartition partition : assigned) {
+                states.set(partition.partition(), REBUILDING);
+                takeoverTargets.put(partition, null);
+            }
+            logger.info("Assigned partitions {}; catching up from the log", partitionsOf(assigned));
+            completeTakeovers();
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+            for (TopicPartition partition : revoked) {
+                handOver(partition.partition());
+            }
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> lost) {
+            // Another node may already own these; nothing here may be written any more
+            for (TopicPartition partition : lost) {
+                takeoverTargets.remove(partition);
+                drop(partition.partition());
+                logger.warn("Lost partition {} without handing it over", partition.partition());
+            }
+        }
+
+        private List<Integer> partitionsOf(Collection<TopicPartition> topicPartitions) {
+            return topicPartitions.stream().map(TopicPartition::partition).sorted().toList();
+        }
+    }
+
+    /**
+     * Transactional producer of one owned partition. Shard writers take turns on it, one
+     * transaction at a time.
+     */
+    private static final class PartitionLog {
+
+        final KafkaProducer<String, byte[]> producer;
+        final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock
+        boolean closed;
+
+        PartitionLog(KafkaProducer<String, byte[]> producer) {
+            this.producer = producer;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.anz.fastpayment.liquidity.cluster;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.IdempotencyIndex;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.ledger.ReservationState;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Partition Replica
+ * 
+ * State of one participant partition folded from its replicated mutation log: positions,
+ * active reservations and the message ids applied within the idempotency TTL. Every
+ * record carries the position's after-state, so folding never re-runs ledger rules;
+ * records of one position arrive in the order their shard applied them, which is all
+ * the fold needs. The log is read committed, so a fenced owner's writes never get here
+ * and the history is never interleaved. Owned by the cluster thread.
+ */
+final class PartitionReplica {
+
+    // Remembered message outcomes: applied-at millis followed by the exported entry
+    private static final int ENTRY = 1 + IdempotencyIndex.STRIDE;
+
+    private final long idempotencyTtlMillis;
+    private final Map<PositionKey, PositionState> positions = new HashMap<>();
+    private final Map<HoldKey, ReservationState> reservations = new HashMap<>();
+    private long[] idempotency = new long[ENTRY * 256];
+    private int idempotencyStart;
+    private int idempotencyEnd;
+    private long offset = -1L;
+
+    private record HoldKey(PositionKey key, String reservationId) {
+    }
+
+    PartitionReplica(long idempotencyTtlMillis) {
+        this.idempotencyTtlMillis = idempotencyTtlMillis;
+    }
+
+    void apply(BalanceMutation mutation, long logOffset) {
+        offset = logOffset;
+        PositionState previous = positions.get(mutation.key());
+        positions.put(mutation.key(), new PositionState(mutation.key(), mutation.balanceAfter(),
+                mutation.reservedAfter(), mutation.appliedAt(), previous != null ? previous.version() + 1 : 1L));
+
+        if (mutation.reservationId() != null) {
+            HoldKey hold = new HoldKey(mutation.key(), mutation.reservationId());
+            if (mutation.transactionType() == TransactionType.RESERVE) {
+                reservations.put(hold, new ReservationState(mutation.key(), mutation.reservationId(),
+                        Math.abs(mutation.amount()), mutation.reservationExpiresAt()));
+            } else {
+                reservations.remove(hold);
+            }
+        }
+
+        long appliedAtMillis = mutation.appliedAt().toEpochMilli();
+        expire(appliedAtMillis - idempotencyTtlMillis);
+        ensureCapacity();
+        if (IdempotencyIndex.export(mutation, idempotency, idempotencyEnd + 1)) {
+            idempotency[idempotencyEnd] = appliedAtMillis;
+            idempotencyEnd += ENTRY;
+        }
+    }
+
+    /**
+     * Forget message ids applied before {@code cutoffMillis}; they arrive in roughly
+     * applied order, so only the oldest end is checked
+     */
+    private void expire(long cutoffMillis) {
+        while (idempotencyStart < idempotencyEnd && idempotency[idempotencyStart] < cutoffMillis) {
+            idempotencyStart += ENTRY;
+        }
+    }
+
+    private void ensureCapacity() {
+        if (idempotencyEnd + ENTRY <= idempotency.length) {
+            return;
+        }
+        int live = idempotencyEnd - idempotencyStart;
+        long[] target = live + ENTRY > idempotency.length / 2 ? new long[idempotency.length * 2] : idempotency;
+        System.arraycopy(idempotency, idempotencyStart, target, 0, live);
+        idempotency = target;
+        idempotencyStart = 0;
+        idempotencyEnd = live;
+    }
+
+    Collection<PositionState> positions() {
+        return positions.values();
+    }
+
+    Collection<ReservationState> reservations() {
+        return reservations.values();
+    }
+
+    /**
+     * Remembered message outcomes in {@link IdempotencyIndex} export form, oldest first
+     */
+    long[] idempotencyEntries() {
+        int count = (idempotencyEnd - idempotencyStart) / ENTRY;
+        long[] entries = new long[count * IdempotencyIndex.STRIDE];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(idempotency, idempotencyStart + i * ENTRY + 1, entries,
+                    i * IdempotencyIndex.STRIDE, IdempotencyIndex.STRIDE);
+        }
+        return entries;
+    }
+
+    /**
+     * Log offset of the last record folded in, or -1 if none has been
+     */
+    long offset() {
+        return offset;
+    }
+}
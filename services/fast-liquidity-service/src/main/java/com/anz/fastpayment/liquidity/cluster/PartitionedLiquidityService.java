@@ -0,0 +1,219 @@
+package com.anz.fastpayment.liquidity.cluster;
+
+import com.anz.fastpayment.common.id.IdGenerator;
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.LedgerUnavailableException;
+import com.anz.fastpayment.liquidity.model.BalanceCheckRequest;
+import com.anz.fastpayment.liquidity.model.BalanceCheckResponse;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateBatchRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateBatchResponse;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateResponse;
+import com.anz.fastpayment.liquidity.model.ParticipantBalanceResponse;
+import com.anz.fastpayment.liquidity.service.LiquidityService;
+import com.anz.fastpayment.liquidity.service.impl.LiquidityServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Partitioned Liquidity Service
+ *
+ * The {@link LiquidityService} of a cluster node: requests for participants whose
+ * partition this node owns run on the local {@link LiquidityServiceImpl}, the rest are
+ * forwarded to their owner by the {@link OwnerForwarder}. A batch is split by owner,
+ * its local part applied as one ledger batch and the other parts forwarded as batches,
+ * and the results are put back in request order. Local work is admitted through
+ * {@link PartitionOwnership#enter} so a handover waits for it.
+ *
+ * While a partition has no reachable owner (during a rebalance or while its new owner
+ * rebuilds it) its requests fail with {@link LedgerUnavailableException}, which callers
+ * already retry; updates are idempotent per message id, so a batch retried after a
+ * partial failure does not apply anything twice.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "liquidity.cluster", name = "enabled", havingValue = "true")
+public class PartitionedLiquidityService implements LiquidityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedLiquidityService.class);
+
+    private static final String BASE_PATH = "/liquidity/balance";
+
+    private final LiquidityServiceImpl local;
+    private final PartitionOwnership ownership;
+    private final OwnerForwarder forwarder;
+    private final IdGenerator idGenerator;
+    private final Map<String, String> houseParticipants;
+
+    public PartitionedLiquidityService(LiquidityServiceImpl local, PartitionOwnership ownership,
+                                       OwnerForwarder forwarder, IdGenerator idGenerator,
+                                       LiquidityProperties properties) {
+        this.local = local;
+        this.ownership = ownership;
+        this.forwarder = forwarder;
+        this.idGenerator = idGenerator;
+        this.houseParticipants = Map.copyOf(properties.getLedger().getHouseParticipants());
+    }
+
+    @Override
+    public BalanceCheckResponse checkBalance(BalanceCheckRequest request) {
+        String participantId = request.getParticipantId() != null ? request.getParticipantId()
+                : houseParticipants.get(request.getCountryCode());
+        if (participantId == null) {
+            // Let the local service reject it the usual way
+            return local.checkBalance(request);
+        }
+        return route(participantId, () -> local.checkBalance(request),
+                owner -> forwarder.post(owner, BASE_PATH + "/check", request, BalanceCheckResponse.class));
+    }
+
+    @Override
+    public BalanceUpdateResponse updateBalance(BalanceUpdateRequest request) {
+        return route(request.getParticipantId(), () -> local.updateBalance(request),
+                owner -> forwarder.post(owner, BASE_PATH + "/update", request, BalanceUpdateResponse.class));
+    }
+
+    @Override
+    public ParticipantBalanceResponse getParticipantBalance(String participantId, String currency, String countryCode) {
+        return route(participantId, () -> local.getParticipantBalance(participantId, currency, countryCode),
+                owner -> forwarder.get(owner, BASE_PATH + "/" + encode(participantId)
+                        + "?currency=" + encode(currency) + "&countryCode=" + encode(countryCode),
+                        ParticipantBalanceResponse.class));
+    }
+
+    @Override
+    public BalanceUpdateBatchResponse updateBalances(BalanceUpdateBatchRequest request) {
+        List<BalanceUpdateRequest> updates = request.getUpdates();
+
+        // Split by partition, keeping request order within each part
+        Map<Integer, List<Integer>> byPartition = new LinkedHashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            byPartition.computeIfAbsent(ownership.partitionOf(updates.get(i).getParticipantId()),
+                    partition -> new ArrayList<>()).add(i);
+        }
+        List<Integer> localPartitions = new ArrayList<>();
+        List<Integer> localIndices = new ArrayList<>();
+        Map<String, List<Integer>> byOwner = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Integer, List<Integer>> part : byPartition.entrySet()) {
+                int partition = part.getKey();
+                if (ownership.enter(partition)) {
+                    localPartitions.add(partition);
+                    localIndices.addAll(part.getValue());
+                } else {
+                    byOwner.computeIfAbsent(ownerFor(partition), owner -> new ArrayList<>()).addAll(part.getValue());
+                }
+            }
+
+            BalanceUpdateResponse[] results = new BalanceUpdateResponse[updates.size()];
+            int[] counts = new int[3];
+            if (!localIndices.isEmpty()) {
+                merge(local.updateBalances(subBatch(updates, localIndices)), localIndices, results, counts);
+            }
+            for (Map.Entry<String, List<Integer>> part : byOwner.entrySet()) {
+                BalanceUpdateBatchResponse forwarded = forward(part.getKey(), partitionsOf(updates, part.getValue()),
+                        owner -> forwarder.post(owner, BASE_PATH + "/update:batch", subBatch(updates, part.getValue()),
+                                BalanceUpdateBatchResponse.class));
+                merge(forwarded, part.getValue(), results, counts);
+            }
+
+            BalanceUpdateBatchResponse response = new BalanceUpdateBatchResponse();
+            int applied = counts[0];
+            response.setStatus(applied == updates.size() ? "SUCCESS" : applied > 0 ? "PARTIAL" : "REJECTED");
+            response.setAppliedCount(applied);
+            response.setRejectedCount(counts[1]);
+            response.setDuplicateCount(counts[2]);
+            response.setResults(Arrays.asList(results));
+            response.setProcessedAt(Instant.now());
+            response.setRequestId(idGenerator.next("BAT-"));
+            logger.debug("Balance update batch split into {} local and {} forwarded updates across {} owners",
+                    localIndices.size(), updates.size() - localIndices.size(), byOwner.size());
+            return response;
+        } finally {
+            for (int partition : localPartitions) {
+                ownership.exit(partition);
+            }
+        }
+    }
+
+    private <T> T route(String participantId, Supplier<T> onOwner, Function<String, T> toOwner) {
+        int partition = ownership.partitionOf(participantId);
+        if (ownership.enter(partition)) {
+            try {
+                return onOwner.get();
+            } finally {
+                ownership.exit(partition);
+            }
+        }
+        return forward(ownerFor(partition), List.of(partition), toOwner);
+    }
+
+    /**
+     * Address of the partition's owner
+     *
+     * @throws LedgerUnavailableException if no other node is known to own it, or this
+     *                                    request was already forwarded here
+     */
+    private String ownerFor(int partition) {
+        if (ownership.isRebuilding(partition)) {
+            throw new LedgerUnavailableException("Partition " + partition + " is being rebuilt; retry shortly");
+        }
+        String owner = ownership.ownerOf(partition);
+        if (forwarder.isForwarded() || owner == null || owner.equals(ownership.getAdvertisedAddress())) {
+            ownership.ownerUnreachable(partition);
+            throw new LedgerUnavailableException("Partition " + partition + " has no reachable owner; retry shortly");
+        }
+        return owner;
+    }
+
+    private <T> T forward(String owner, List<Integer> partitions, Function<String, T> toOwner) {
+        try {
+            return toOwner.apply(owner);
+        } catch (LedgerUnavailableException e) {
+            partitions.forEach(ownership::ownerUnreachable);
+            throw e;
+        }
+    }
+
+    private List<Integer> partitionsOf(List<BalanceUpdateRequest> updates, List<Integer> indices) {
+        return indices.stream().map(i -> ownership.partitionOf(updates.get(i).getParticipantId())).distinct().toList();
+    }
+
+    private static BalanceUpdateBatchRequest subBatch(List<BalanceUpdateRequest> updates, List<Integer> indices) {
+        List<BalanceUpdateRequest> part = new ArrayList<>(indices.size());
+        for (int i : indices) {
+            part.add(updates.get(i));
+        }
+        BalanceUpdateBatchRequest batch = new BalanceUpdateBatchRequest();
+        batch.setUpdates(part);
+        return batch;
+    }
+
+    private static void merge(BalanceUpdateBatchResponse part, List<Integer> indices,
+                              BalanceUpdateResponse[] results, int[] counts) {
+        for (int i = 0; i < indices.size(); i++) {
+            results[indices.get(i)] = part.getResults().get(i);
+        }
+        counts[0] += part.getAppliedCount();
+        counts[1] += part.getRejectedCount();
+        counts[2] += part.getDuplicateCount();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,55 @@
+package com.anz.fastpayment.liquidity.codec;
+
+/**
+ * Code Interner
+ *
+ * Canonical String instances for short uppercase codes (country codes, currencies,
+ * participant BICs) read from a character buffer. A code of up to 12 letters packs into
+ * a long, 5 bits per letter, which indexes a direct-mapped table of immutable entries;
+ * a code seen before is returned without allocating, and a colliding code simply
+ * replaces the entry. Entries are safely published through their final fields, so the
+ * unsynchronised table is safe to share between request threads.
+ *
+ * Since the closed sets are small, requests share the same String for a position's key
+ * components, whose hash codes are then computed once.
+ */
+final class CodeInterner {
+
+    static final int MAX_LENGTH = 12;
+
+    private final Entry[] table;
+    private final int mask;
+
+    CodeInterner(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.table = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * The canonical String for {@code length} uppercase letters at {@code offset}, which
+     * the caller has already checked
+     */
+    String intern(char[] buffer, int offset, int length) {
+        long packed = length;
+        for (int i = 0; i < length; i++) {
+            packed = (packed << 5) | (buffer[offset + i] - 'A' + 1);
+        }
+        int index = (int) (mix(packed) & mask);
+        Entry entry = table[index];
+        if (entry != null && entry.packed == packed) {
+            return entry.value;
+        }
+        String value = new String(buffer, offset, length).intern();
+        table[index] = new Entry(packed, value);
+        return value;
+    }
+
+    private static long mix(long packed) {
+        long h = packed * 0x9E37_79B9_7F4A_7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private record Entry(long packed, String value) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.anz.fastpayment.liquidity.codec;
+
+import com.anz.fastpayment.liquidity.model.BalanceCheckRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateBatchRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+
+/**
+ * Liquidity Request Converter
+ *
+ * Reads the liquidity request bodies through {@link LiquidityRequestDecoder} instead
+ * of generic data binding followed by bean validation. Registered ahead of the Jackson
+ * converter, so the request arrives at the controller already validated; a body that
+ * breaks its constraints fails with a {@link RequestValidationException}. Read-only:
+ * responses are written by the Jackson converter as before.
+ */
+public class LiquidityRequestConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final JsonFactory jsonFactory;
+    private final LiquidityRequestDecoder decoder = new LiquidityRequestDecoder();
+
+    /**
+     * @param objectMapper Application mapper, whose factory (and so its parser settings
+     *                     and buffer recycling) is reused; also reads nested free-form data
+     */
+    public LiquidityRequestConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == BalanceCheckRequest.class
+                || clazz == BalanceUpdateRequest.class
+                || clazz == BalanceUpdateBatchRequest.class;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputMessage.getBody())) {
+            if (clazz == BalanceCheckRequest.class) {
+                return decoder.readCheck(parser);
+            }
+            if (clazz == BalanceUpdateRequest.class) {
+                return decoder.readUpdate(parser);
+            }
+            return decoder.readBatch(parser);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("Liquidity requests are only read");
+    }
+}
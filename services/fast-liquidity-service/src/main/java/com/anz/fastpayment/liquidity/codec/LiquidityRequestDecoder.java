@@ -0,0 +1,378 @@
+package com.anz.fastpayment.liquidity.codec;
+
+import com.anz.fastpayment.liquidity.model.Amount;
+import com.anz.fastpayment.liquidity.model.BalanceCheckRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateBatchRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateRequest;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Liquidity Request Decoder
+ *
+ * Reads the balance check and balance update request bodies in one streaming pass
+ * over the parser's tokens, checking each field against the constraints declared on
+ * its model as it goes. Codes are checked character by character against the parser's
+ * own buffer and interned, and amounts are parsed straight into units, so a valid
+ * request allocates little beyond the model object and its free-text fields.
+ *
+ * All violations in a body are collected and thrown together as a
+ * {@link RequestValidationException}, with the same messages as the model's
+ * annotations. Unknown fields are skipped and JSON nulls count as absent, as with the
+ * default object mapper. The annotations stay on the models for the OpenAPI schema and
+ * for the paths that do not decode through here (Kafka, RPC).
+ *
+ * Thread-safe; the interners are shared across requests.
+ */
+public final class LiquidityRequestDecoder {
+
+    public static final int MAX_REFERENCE_LENGTH = 35;
+
+    private static final String COUNTRY_SG = "SG";
+    private static final String COUNTRY_HK = "HK";
+
+    private static final String COUNTRY_MESSAGE = "Country code must be SG or HK";
+    private static final String CURRENCY_MESSAGE = "Currency must be 3 uppercase letters";
+    private static final String PARTICIPANT_MESSAGE = "Participant ID must be 8 uppercase letters";
+    private static final String COUNTERPARTY_MESSAGE = "Counterparty ID must be 8 uppercase letters";
+    private static final String AMOUNT_MESSAGE = "Amount must be numeric with up to " + Amount.SCALE + " decimal places";
+    private static final String TRANSACTION_TYPE_MESSAGE = "Transaction type must be DEBIT, CREDIT, RESERVE or RELEASE";
+
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+    private final CodeInterner currencies = new CodeInterner(1024);
+    private final CodeInterner participants = new CodeInterner(16384);
+
+    public BalanceCheckRequest readCheck(JsonParser parser) throws IOException {
+        Violations violations = new Violations();
+        BalanceCheckRequest request = new BalanceCheckRequest();
+        startObject(parser, violations);
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "countryCode" -> request.setCountryCode(readCountry(parser, violations, field));
+                case "participantId" -> request.setParticipantId(
+                        readCode(parser, participants, 8, violations, field, PARTICIPANT_MESSAGE));
+                case "currency" -> request.setCurrency(
+                        readCode(parser, currencies, 3, violations, field, CURRENCY_MESSAGE));
+                case "amount" -> request.setAmount(readAmount(parser, violations, field));
+                case "transactionType" -> request.setTransactionType(readTransactionType(parser, violations, field));
+                case "reference" -> request.setReference(
+                        readText(parser, violations, field, null, "Reference cannot exceed 35 characters"));
+                default -> parser.skipChildren();
+            }
+        }
+        requireCode(request.getCountryCode(), violations, "countryCode", "Country code is required");
+        requireCode(request.getCurrency(), violations, "currency", "Currency is required");
+        if (request.getAmount() == null) {
+            violations.addIfAbsent("amount", "Amount is required");
+        }
+        if (request.getTransactionType() == null) {
+            violations.addIfAbsent("transactionType", "Transaction type is required");
+        }
+        violations.throwIfAny();
+        return request;
+    }
+
+    public BalanceUpdateRequest readUpdate(JsonParser parser) throws IOException {
+        Violations violations = new Violations();
+        startObject(parser, violations);
+        BalanceUpdateRequest request = readUpdateFields(parser, violations);
+        violations.throwIfAny();
+        return request;
+    }
+
+    public BalanceUpdateBatchRequest readBatch(JsonParser parser) throws IOException {
+        Violations violations = new Violations();
+        List<BalanceUpdateRequest> updates = null;
+        startObject(parser, violations);
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (!"updates".equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                violations.add("updates", "Updates must be an array");
+                parser.skipChildren();
+                continue;
+            }
+            updates = new ArrayList<>();
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (index == BalanceUpdateBatchRequest.MAX_BATCH_SIZE) {
+                    violations.add("updates", "A batch cannot exceed " + BalanceUpdateBatchRequest.MAX_BATCH_SIZE + " updates");
+                }
+                if (index >= BalanceUpdateBatchRequest.MAX_BATCH_SIZE) {
+                    // Not decoded; the batch is rejected anyway
+                    parser.skipChildren();
+                } else if (parser.currentToken() != JsonToken.START_OBJECT) {
+                    violations.add("updates[" + index + "]", "Update must be a JSON object");
+                    parser.skipChildren();
+                } else {
+                    violations.index = index;
+                    updates.add(readUpdateFields(parser, violations));
+                    violations.index = -1;
+                }
+                index++;
+            }
+        }
+        if (updates == null || updates.isEmpty()) {
+            violations.addIfAbsent("updates", "At least one update is required");
+        }
+        violations.throwIfAny();
+        return new BalanceUpdateBatchRequest(updates);
+    }
+
+    /**
+     * Read the fields of an update whose START_OBJECT is the current token, through its END_OBJECT
+     */
+    private BalanceUpdateRequest readUpdateFields(JsonParser parser, Violations violations) throws IOException {
+        BalanceUpdateRequest request = new BalanceUpdateRequest();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "countryCode" -> request.setCountryCode(readCountry(parser, violations, field));
+                case "participantId" -> request.setParticipantId(
+                        readCode(parser, participants, 8, violations, field, PARTICIPANT_MESSAGE));
+                case "currency" -> request.setCurrency(
+                        readCode(parser, currencies, 3, violations, field, CURRENCY_MESSAGE));
+                case "amount" -> request.setAmount(readAmount(parser, violations, field));
+                case "transactionType" -> request.setTransactionType(readTransactionType(parser, violations, field));
+                case "messageType" -> request.setMessageType(
+                        readText(parser, violations, field, "Message type is required", null));
+                case "messageId" -> request.setMessageId(
+                        readText(parser, violations, field, "Message ID is required", "Message ID cannot exceed 35 characters"));
+                case "reference" -> request.setReference(
+                        readText(parser, violations, field, null, "Reference cannot exceed 35 characters"));
+                case "timestamp" -> request.setTimestamp(readTimestamp(parser, violations, field));
+                case "counterpartyId" -> request.setCounterpartyId(
+                        readCode(parser, participants, 8, violations, field, COUNTERPARTY_MESSAGE));
+                case "additionalData" -> request.setAdditionalData(readAdditionalData(parser, violations, field));
+                default -> parser.skipChildren();
+            }
+        }
+        requireCode(request.getCountryCode(), violations, "countryCode", "Country code is required");
+        requireCode(request.getParticipantId(), violations, "participantId", "Participant ID is required");
+        requireCode(request.getCurrency(), violations, "currency", "Currency is required");
+        if (request.getAmount() == null) {
+            violations.addIfAbsent("amount", "Amount is required");
+        }
+        if (request.getTransactionType() == null) {
+            violations.addIfAbsent("transactionType", "Transaction type is required");
+        }
+        if (request.getMessageType() == null) {
+            violations.addIfAbsent("messageType", "Message type is required");
+        }
+        if (request.getMessageId() == null) {
+            violations.addIfAbsent("messageId", "Message ID is required");
+        }
+        if (request.getTimestamp() == null) {
+            violations.addIfAbsent("timestamp", "Timestamp is required");
+        }
+        return request;
+    }
+
+    private static void startObject(JsonParser parser, Violations violations) throws IOException {
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            violations.add("body", "Request body must be a JSON object");
+            violations.throwIfAny();
+        }
+    }
+
+    private static void requireCode(String value, Violations violations, String field, String message) {
+        if (value == null) {
+            violations.addIfAbsent(field, message);
+        }
+    }
+
+    private static String readCountry(JsonParser parser, Violations violations, String field) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            return reject(parser, violations, field, COUNTRY_MESSAGE);
+        }
+        char[] buffer = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        if (parser.getTextLength() == 2) {
+            char first = buffer[offset];
+            char second = buffer[offset + 1];
+            if (first == 'S' && second == 'G') {
+                return COUNTRY_SG;
+            }
+            if (first == 'H' && second == 'K') {
+                return COUNTRY_HK;
+            }
+        }
+        return reject(parser, violations, field, COUNTRY_MESSAGE);
+    }
+
+    /**
+     * Read exactly {@code length} uppercase ASCII letters
+     */
+    private static String readCode(JsonParser parser, CodeInterner interner, int length,
+                                   Violations violations, String field, String message) throws IOException {
+        if (!parser.currentToken().isScalarValue() || parser.getTextLength() != length) {
+            return reject(parser, violations, field, message);
+        }
+        char[] buffer = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = offset; i < offset + length; i++) {
+            char c = buffer[i];
+            if (c < 'A' || c > 'Z') {
+                return reject(parser, violations, field, message);
+            }
+        }
+        return interner.intern(buffer, offset, length);
+    }
+
+    private static Amount readAmount(JsonParser parser, Violations violations, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING || token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            try {
+                return Amount.ofUnits(Amount.parseUnits(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+            } catch (NumberFormatException | ArithmeticException e) {
+                // Reported below
+            }
+        }
+        reject(parser, violations, field, AMOUNT_MESSAGE);
+        return null;
+    }
+
+    private static TransactionType readTransactionType(JsonParser parser, Violations violations, String field) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            char[] buffer = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            int length = parser.getTextLength();
+            for (TransactionType type : TRANSACTION_TYPES) {
+                if (matches(type.getValue(), buffer, offset, length)) {
+                    return type;
+                }
+            }
+        }
+        reject(parser, violations, field, TRANSACTION_TYPE_MESSAGE);
+        return null;
+    }
+
+    /**
+     * Read free text
+     *
+     * @param blankMessage Violation for blank text, as with {@code @NotBlank}, or null if blank is allowed
+     * @param tooLongMessage Violation for text over {@link #MAX_REFERENCE_LENGTH} characters, or null if unbounded
+     */
+    private static String readText(JsonParser parser, Violations violations, String field,
+                                   String blankMessage, String tooLongMessage) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            return reject(parser, violations, field, field + " must be text");
+        }
+        String text = parser.getText();
+        if (blankMessage != null && text.isBlank()) {
+            violations.add(field, blankMessage);
+            return null;
+        }
+        if (tooLongMessage != null && text.length() > MAX_REFERENCE_LENGTH) {
+            violations.add(field, tooLongMessage);
+            return null;
+        }
+        return text;
+    }
+
+    private static Instant readTimestamp(JsonParser parser, Violations violations, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        try {
+            if (token == JsonToken.VALUE_STRING) {
+                return Instant.parse(parser.getText());
+            }
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                return Instant.ofEpochSecond(parser.getLongValue());
+            }
+            if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                // Seconds with a nanosecond fraction, as the default object mapper reads it
+                return parser.readValueAs(Instant.class);
+            }
+        } catch (DateTimeParseException | ArithmeticException e) {
+            // Reported below
+        }
+        return reject(parser, violations, field, "Timestamp must be an ISO-8601 instant");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readAdditionalData(JsonParser parser, Violations violations, String field) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return reject(parser, violations, field, "Additional data must be a JSON object");
+        }
+        return parser.readValueAs(Map.class);
+    }
+
+    private static <T> T reject(JsonParser parser, Violations violations, String field, String message) throws IOException {
+        violations.add(field, message);
+        parser.skipChildren();
+        return null;
+    }
+
+    private static boolean matches(String expected, char[] buffer, int offset, int length) {
+        if (expected.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (expected.charAt(i) != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Violations found so far in one body, allocated only once there is one
+     */
+    private static final class Violations {
+
+        private Map<String, String> errors;
+
+        // Index of the batch update being read, or -1
+        int index = -1;
+
+        void add(String field, String message) {
+            if (errors == null) {
+                errors = new LinkedHashMap<>();
+            }
+            errors.putIfAbsent(path(field), message);
+        }
+
+        void addIfAbsent(String field, String message) {
+            if (errors == null || !errors.containsKey(path(field))) {
+                add(field, message);
+            }
+        }
+
+        private String path(String field) {
+            return index < 0 ? field : "updates[" + index + "]." + field;
+        }
+
+        void throwIfAny() {
+            if (errors != null) {
+                throw new RequestValidationException(errors);
+            }
+        }
+    }
+}
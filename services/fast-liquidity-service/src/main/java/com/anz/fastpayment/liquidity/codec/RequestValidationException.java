@@ -0,0 +1,24 @@
+package com.anz.fastpayment.liquidity.codec;
+
+import java.util.Map;
+
+/**
+ * Request Validation Exception
+ *
+ * A request body that does not satisfy the constraints of its model, found while
+ * decoding it. Carries every violation, keyed by field path such as
+ * {@code updates[2].currency}, in the order they were found.
+ */
+public class RequestValidationException extends RuntimeException {
+
+    private final Map<String, String> fieldErrors;
+
+    public RequestValidationException(Map<String, String> fieldErrors) {
+        super(String.join("; ", fieldErrors.values()));
+        this.fieldErrors = fieldErrors;
+    }
+
+    public Map<String, String> getFieldErrors() {
+        return fieldErrors;
+    }
+}
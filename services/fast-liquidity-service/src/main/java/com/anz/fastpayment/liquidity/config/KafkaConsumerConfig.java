@@ -0,0 +1,101 @@
+package com.anz.fastpayment.liquidity.config;
+
+import com.anz.fastpayment.liquidity.model.BalanceUpdateRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Kafka Consumer Configuration
+ * 
+ * Batch listener container for balance update events. Offsets are committed manually
+ * by the listener once a batch has been applied. A batch the ledger cannot take is
+ * redelivered by the listener itself until it can, since dropping balance updates is
+ * never acceptable; redelivered updates that were already applied are recognised by the
+ * ledger's idempotency index. An event that fails with anything else is reported by the
+ * listener as the batch's failed record, retried {@code max-attempts} times with
+ * exponential back-off, and then published to the dead-letter topic so the events behind
+ * it can go on. Events that cannot be read or are invalid are dead-lettered by the
+ * listener straight away through the same recoverer.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "liquidity.kafka", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class KafkaConsumerConfig {
+
+    public static final String BALANCE_UPDATE_CONTAINER_FACTORY = "balanceUpdateListenerContainerFactory";
+
+    @Bean
+    public ConsumerFactory<String, BalanceUpdateRequest> balanceUpdateConsumerFactory(KafkaProperties kafkaProperties,
+                                                                                      ObjectMapper objectMapper) {
+        Map<String, Object> config = kafkaProperties.buildConsumerProperties(null);
+        // Undeserializable records arrive as null values instead of failing the whole poll
+        return new DefaultKafkaConsumerFactory<>(config,
+                new ErrorHandlingDeserializer<>(new StringDeserializer()),
+                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(BalanceUpdateRequest.class, objectMapper, false)));
+    }
+
+    @Bean(BALANCE_UPDATE_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, BalanceUpdateRequest> balanceUpdateListenerContainerFactory(
+            ConsumerFactory<String, BalanceUpdateRequest> balanceUpdateConsumerFactory,
+            DeadLetterPublishingRecoverer balanceUpdateDeadLetters, LiquidityProperties properties) {
+        LiquidityProperties.Kafka config = properties.getKafka();
+
+        ConcurrentKafkaListenerContainerFactory<String, BalanceUpdateRequest> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(balanceUpdateConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(config.getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+
+        SimpleAsyncTaskExecutor listenerExecutor = new SimpleAsyncTaskExecutor("liquidity-kafka-");
+        listenerExecutor.setVirtualThreads(true);
+        factory.getContainerProperties().setListenerTaskExecutor(listenerExecutor);
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(config.getMaxAttempts() - 1);
+        backOff.setInitialInterval(100L);
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(config.getMaxRetryInterval().toMillis());
+        factory.setCommonErrorHandler(new DefaultErrorHandler(balanceUpdateDeadLetters, backOff));
+        return factory;
+    }
+
+    /**
+     * Publishes balance updates that can never be applied to the dead-letter topic.
+     * Undeserializable events are published as the bytes they arrived with.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer balanceUpdateDeadLetters(KafkaOperations<?, ?> kafkaTemplate,
+                                                                  KafkaProperties kafkaProperties,
+                                                                  LiquidityProperties properties) {
+        KafkaTemplate<String, byte[]> rawTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(null), new StringSerializer(), new ByteArraySerializer()));
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, rawTemplate);
+        templates.put(Object.class, kafkaTemplate);
+        // Key-partitioned by the producer, so the dead-letter topic needs no matching partition count
+        String deadLetterTopic = properties.getKafka().getTopics().getBalanceUpdatesDlt();
+        return new DeadLetterPublishingRecoverer(templates, (record, e) -> new TopicPartition(deadLetterTopic, -1));
+    }
+}
@@ -0,0 +1,63 @@
+package com.anz.fastpayment.liquidity.config;
+
+import com.anz.fastpayment.liquidity.cluster.PartitionOwnership;
+import com.anz.fastpayment.liquidity.journal.BalanceJournal;
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutationListener;
+import com.anz.fastpayment.liquidity.ledger.LedgerProbe;
+import com.anz.fastpayment.liquidity.persistence.BalanceWriteBehind;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ledger Configuration
+ * 
+ * Wires the in-memory balance ledger and attaches every {@link BalanceMutationListener}
+ * bean in the context as a side-channel consumer of applied mutations. When the
+ * journal is enabled the ledger is recovered from disk before it is published, and the
+ * recovered positions are then handed to the balance write-behind. In a cluster the
+ * node instead joins the cluster, which rebuilds the partitions it is given from the
+ * replicated mutation log. Reservations only start expiring once that is done. The
+ * ledger reports to health as its own dependency, DOWN once a shard has stopped
+ * taking writes.
+ */
+@Configuration
+@EnableConfigurationProperties(LiquidityProperties.class)
+public class LedgerConfig {
+
+    @Bean
+    public BalanceLedger balanceLedger(LiquidityProperties properties,
+                                       ObjectProvider<BalanceMutationListener> listeners,
+                                       ObjectProvider<BalanceJournal> journal,
+                                       ObjectProvider<BalanceWriteBehind> writeBehind,
+                                       ObjectProvider<PartitionOwnership> cluster,
+                                       MeterRegistry meterRegistry) {
+        BalanceLedger ledger = new BalanceLedger(properties, listeners.orderedStream().toList());
+        for (int shard = 0; shard < ledger.getShardCount(); shard++) {
+            int index = shard;
+            FunctionCounter.builder("liquidity.idempotency.early-rotations", ledger,
+                            l -> l.getEarlyIdempotencyRotations(index))
+                    .description("Times the shard forgot message ids before their TTL because its index was full")
+                    .tag("shard", Integer.toString(shard))
+                    .register(meterRegistry);
+        }
+        journal.ifAvailable(j -> j.recover(ledger));
+        PartitionOwnership ownership = cluster.getIfAvailable();
+        if (ownership != null) {
+            ownership.start(ledger);
+        } else {
+            writeBehind.ifAvailable(w -> w.resync(ledger));
+        }
+        ledger.start();
+        return ledger;
+    }
+
+    @Bean
+    public LedgerProbe ledgerProbe(BalanceLedger ledger) {
+        return new LedgerProbe(ledger);
+    }
+}
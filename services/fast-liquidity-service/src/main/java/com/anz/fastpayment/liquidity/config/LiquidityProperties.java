@@ -0,0 +1,1398 @@
+package com.anz.fastpayment.liquidity.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Liquidity Properties
+ * 
+ * Typed binding for the {@code liquidity.*} section of application.yml
+ */
+@ConfigurationProperties(prefix = "liquidity")
+public class LiquidityProperties {
+
+    /**
+     * Country code to payment scheme mapping (SG=G3, HK=FPS)
+     */
+    private Map<String, String> supportedSchemes = new HashMap<>();
+
+    private Thresholds thresholds = new Thresholds();
+
+    private NetDebitCap netDebitCap = new NetDebitCap();
+
+    private Ledger ledger = new Ledger();
+
+    private Reservation reservation = new Reservation();
+
+    private Journal journal = new Journal();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private Cache cache = new Cache();
+
+    private Kafka kafka = new Kafka();
+
+    private Feed feed = new Feed();
+
+    private Audit audit = new Audit();
+
+    private Settlement settlement = new Settlement();
+
+    private Rpc rpc = new Rpc();
+
+    private Persistence persistence = new Persistence();
+
+    private Cluster cluster = new Cluster();
+
+    private Admission admission = new Admission();
+
+    public Map<String, String> getSupportedSchemes() {
+        return supportedSchemes;
+    }
+
+    public void setSupportedSchemes(Map<String, String> supportedSchemes) {
+        this.supportedSchemes = supportedSchemes;
+    }
+
+    public Thresholds getThresholds() {
+        return thresholds;
+    }
+
+    public void setThresholds(Thresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    public NetDebitCap getNetDebitCap() {
+        return netDebitCap;
+    }
+
+    public void setNetDebitCap(NetDebitCap netDebitCap) {
+        this.netDebitCap = netDebitCap;
+    }
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    public void setLedger(Ledger ledger) {
+        this.ledger = ledger;
+    }
+
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    public void setReservation(Reservation reservation) {
+        this.reservation = reservation;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public void setIdempotency(Idempotency idempotency) {
+        this.idempotency = idempotency;
+    }
+
+    /**
+     * Net debit cap utilization thresholds, as fractions of the cap
+     */
+    public static class Thresholds {
+
+        private double warningPercentage = 0.8;
+
+        private double criticalPercentage = 0.95;
+
+        public double getWarningPercentage() {
+            return warningPercentage;
+        }
+
+        public void setWarningPercentage(double warningPercentage) {
+            this.warningPercentage = warningPercentage;
+        }
+
+        public double getCriticalPercentage() {
+            return criticalPercentage;
+        }
+
+        public void setCriticalPercentage(double criticalPercentage) {
+            this.criticalPercentage = criticalPercentage;
+        }
+    }
+
+    /**
+     * Net debit cap settings
+     */
+    public static class NetDebitCap {
+
+        /**
+         * Cap on a participant's net debit position when no participant-specific limit is set
+         */
+        private BigDecimal defaultLimit = new BigDecimal("5000000.00");
+
+        /**
+         * Participant id to cap, overriding the default
+         */
+        private Map<String, BigDecimal> limits = new HashMap<>();
+
+        /**
+         * Whether threshold crossings are published as events
+         */
+        private boolean monitoringEnabled = true;
+
+        /**
+         * Utilization at which an alert is raised, between the warning and critical thresholds
+         */
+        private double alertThreshold = 0.9;
+
+        public BigDecimal getDefaultLimit() {
+            return defaultLimit;
+        }
+
+        public void setDefaultLimit(BigDecimal defaultLimit) {
+            this.defaultLimit = defaultLimit;
+        }
+
+        public Map<String, BigDecimal> getLimits() {
+            return limits;
+        }
+
+        public void setLimits(Map<String, BigDecimal> limits) {
+            this.limits = limits;
+        }
+
+        public boolean isMonitoringEnabled() {
+            return monitoringEnabled;
+        }
+
+        public void setMonitoringEnabled(boolean monitoringEnabled) {
+            this.monitoringEnabled = monitoringEnabled;
+        }
+
+        public double getAlertThreshold() {
+            return alertThreshold;
+        }
+
+        public void setAlertThreshold(double alertThreshold) {
+            this.alertThreshold = alertThreshold;
+        }
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Kafka getKafka() {
+        return kafka;
+    }
+
+    public void setKafka(Kafka kafka) {
+        this.kafka = kafka;
+    }
+
+    public Feed getFeed() {
+        return feed;
+    }
+
+    public void setFeed(Feed feed) {
+        this.feed = feed;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    public void setAudit(Audit audit) {
+        this.audit = audit;
+    }
+
+    public Settlement getSettlement() {
+        return settlement;
+    }
+
+    public void setSettlement(Settlement settlement) {
+        this.settlement = settlement;
+    }
+
+    public Rpc getRpc() {
+        return rpc;
+    }
+
+    public void setRpc(Rpc rpc) {
+        this.rpc = rpc;
+    }
+
+    public Persistence getPersistence() {
+        return persistence;
+    }
+
+    public void setPersistence(Persistence persistence) {
+        this.persistence = persistence;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * In-memory balance ledger settings
+     */
+    public static class Ledger {
+
+        /**
+         * Number of single-writer shards positions are partitioned into
+         */
+        private int shards = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Maximum number of pending mutations queued per shard before new work is refused
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Maximum time a caller waits for its mutation to be applied by the shard writer
+         */
+        private Duration writeTimeout = Duration.ofMillis(500);
+
+        /**
+         * Balance a position opens with the first time it is referenced
+         */
+        private BigDecimal openingBalance = BigDecimal.ZERO;
+
+        /**
+         * Balance below which debits are not authorized
+         */
+        private BigDecimal minimumBalance = BigDecimal.ZERO;
+
+        /**
+         * In-house participant per country, used when a balance check carries no participant
+         */
+        private Map<String, String> houseParticipants = new HashMap<>();
+
+        public int getShards() {
+            return shards;
+        }
+
+        public void setShards(int shards) {
+            this.shards = shards;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getWriteTimeout() {
+            return writeTimeout;
+        }
+
+        public void setWriteTimeout(Duration writeTimeout) {
+            this.writeTimeout = writeTimeout;
+        }
+
+        public BigDecimal getOpeningBalance() {
+            return openingBalance;
+        }
+
+        public void setOpeningBalance(BigDecimal openingBalance) {
+            this.openingBalance = openingBalance;
+        }
+
+        public BigDecimal getMinimumBalance() {
+            return minimumBalance;
+        }
+
+        public void setMinimumBalance(BigDecimal minimumBalance) {
+            this.minimumBalance = minimumBalance;
+        }
+
+        public Map<String, String> getHouseParticipants() {
+            return houseParticipants;
+        }
+
+        public void setHouseParticipants(Map<String, String> houseParticipants) {
+            this.houseParticipants = houseParticipants;
+        }
+    }
+
+    /**
+     * RESERVE/RELEASE hold settings
+     */
+    public static class Reservation {
+
+        /**
+         * How long a hold lives before it is released automatically
+         */
+        private Duration defaultTtl = Duration.ofMinutes(5);
+
+        /**
+         * Expiry resolution of the timing wheel
+         */
+        private Duration tick = Duration.ofMillis(100);
+
+        /**
+         * Number of timing wheel buckets (rounded up to a power of two)
+         */
+        private int wheelSize = 512;
+
+        public Duration getDefaultTtl() {
+            return defaultTtl;
+        }
+
+        public void setDefaultTtl(Duration defaultTtl) {
+            this.defaultTtl = defaultTtl;
+        }
+
+        public Duration getTick() {
+            return tick;
+        }
+
+        public void setTick(Duration tick) {
+            this.tick = tick;
+        }
+
+        public int getWheelSize() {
+            return wheelSize;
+        }
+
+        public void setWheelSize(int wheelSize) {
+            this.wheelSize = wheelSize;
+        }
+    }
+
+    /**
+     * Kafka balance update ingestion settings
+     */
+    public static class Kafka {
+
+        /**
+         * Whether balance updates are consumed from Kafka
+         */
+        private boolean enabled = true;
+
+        /**
+         * Listener containers, each consuming a share of the topic's partitions on a virtual thread
+         */
+        private int concurrency = 3;
+
+        /**
+         * Pause before a batch the ledger could not take (stopped shard, partition moving,
+         * persistence behind) is read again; such a batch is retried until it goes through
+         */
+        private Duration redeliveryInterval = Duration.ofMillis(500);
+
+        /**
+         * Attempts at an event that fails with an unexpected error before it is published
+         * to the dead-letter topic
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Longest back-off between attempts at an event that fails with an unexpected error
+         */
+        private Duration maxRetryInterval = Duration.ofSeconds(5);
+
+        private Topics topics = new Topics();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public Duration getRedeliveryInterval() {
+            return redeliveryInterval;
+        }
+
+        public void setRedeliveryInterval(Duration redeliveryInterval) {
+            this.redeliveryInterval = redeliveryInterval;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getMaxRetryInterval() {
+            return maxRetryInterval;
+        }
+
+        public void setMaxRetryInterval(Duration maxRetryInterval) {
+            this.maxRetryInterval = maxRetryInterval;
+        }
+
+        public Topics getTopics() {
+            return topics;
+        }
+
+        public void setTopics(Topics topics) {
+            this.topics = topics;
+        }
+
+        public static class Topics {
+
+            /**
+             * Balance update events, keyed by participant id
+             */
+            private String balanceUpdates = "liquidity-balance-updates";
+
+            /**
+             * Dead-letter topic for balance update events that kept failing
+             */
+            private String balanceUpdatesDlt = "liquidity-balance-updates.DLT";
+
+            public String getBalanceUpdates() {
+                return balanceUpdates;
+            }
+
+            public void setBalanceUpdates(String balanceUpdates) {
+                this.balanceUpdates = balanceUpdates;
+            }
+
+            public String getBalanceUpdatesDlt() {
+                return balanceUpdatesDlt;
+            }
+
+            public void setBalanceUpdatesDlt(String balanceUpdatesDlt) {
+                this.balanceUpdatesDlt = balanceUpdatesDlt;
+            }
+        }
+    }
+
+    /**
+     * Streaming balance change feed settings
+     */
+    public static class Feed {
+
+        /**
+         * Window within which changes to one position are coalesced into a single event
+         */
+        private Duration coalesceWindow = Duration.ofMillis(250);
+
+        /**
+         * Interval of keep-alive comments on an otherwise idle stream
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+        public Duration getCoalesceWindow() {
+            return coalesceWindow;
+        }
+
+        public void setCoalesceWindow(Duration coalesceWindow) {
+            this.coalesceWindow = coalesceWindow;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+    }
+
+    /**
+     * Binary audit trail settings
+     */
+    public static class Audit {
+
+        /**
+         * Whether liquidity decisions are written to the audit trail
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory holding the daily audit segment files
+         */
+        private String directory = "data/audit";
+
+        /**
+         * Records each ring buffer (mutations, decisions) holds while waiting for the writer; a power of two
+         */
+        private int bufferSize = 65_536;
+
+        /**
+         * Size at which a segment rolls before the end of its day
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(256);
+
+        /**
+         * Upper bound on how long written audit records stay unforced
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * What updates do while the audit trail cannot write or its ring is three quarters full
+         */
+        private Persistence.OverloadPolicy overloadPolicy = Persistence.OverloadPolicy.BLOCK;
+
+        /**
+         * Longest an update waits for the audit trail to recover under the BLOCK policy
+         */
+        private Duration blockTimeout = Duration.ofMillis(250);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public Persistence.OverloadPolicy getOverloadPolicy() {
+            return overloadPolicy;
+        }
+
+        public void setOverloadPolicy(Persistence.OverloadPolicy overloadPolicy) {
+            this.overloadPolicy = overloadPolicy;
+        }
+
+        public Duration getBlockTimeout() {
+            return blockTimeout;
+        }
+
+        public void setBlockTimeout(Duration blockTimeout) {
+            this.blockTimeout = blockTimeout;
+        }
+    }
+
+    /**
+     * Settlement cycle cut and reconciliation settings
+     */
+    public static class Settlement {
+
+        /**
+         * Whether settlement cycles are closed and reconciled
+         */
+        private boolean enabled = true;
+
+        /**
+         * Spring cron expression for the end of each settlement cycle
+         */
+        private String cron = "0 0 0,12 * * *";
+
+        /**
+         * Time zone the cron expression is evaluated in
+         */
+        private String zone = "Asia/Singapore";
+
+        /**
+         * Directory settlement reports are written to
+         */
+        private String directory = "data/settlement";
+
+        /**
+         * Worker threads reconciling participants in parallel
+         */
+        private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+        /**
+         * Longest to wait for every shard writer to reach the cut
+         */
+        private Duration cutTimeout = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public String getZone() {
+            return zone;
+        }
+
+        public void setZone(String zone) {
+            this.zone = zone;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public Duration getCutTimeout() {
+            return cutTimeout;
+        }
+
+        public void setCutTimeout(Duration cutTimeout) {
+            this.cutTimeout = cutTimeout;
+        }
+    }
+
+    /**
+     * Binary RPC endpoint for balance checks from the payment processors
+     */
+    public static class Rpc {
+
+        /**
+         * Whether the RPC endpoint is opened
+         */
+        private boolean enabled = true;
+
+        /**
+         * TCP port the processors connect to
+         */
+        private int port = 9084;
+
+        /**
+         * Address to bind to; all interfaces when unset
+         */
+        private String bindAddress;
+
+        /**
+         * Pending connections the OS queues before accepting
+         */
+        private int backlog = 50;
+
+        /**
+         * Open connections beyond which new ones are refused
+         */
+        private int maxConnections = 256;
+
+        /**
+         * Checks one connection may have in progress before its next frame is read
+         */
+        private int maxInFlight = 256;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public String getBindAddress() {
+            return bindAddress;
+        }
+
+        public void setBindAddress(String bindAddress) {
+            this.bindAddress = bindAddress;
+        }
+
+        public int getBacklog() {
+            return backlog;
+        }
+
+        public void setBacklog(int backlog) {
+            this.backlog = backlog;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+    }
+
+    /**
+     * Write-behind of position balances to Spanner
+     */
+    public static class Persistence {
+
+        /**
+         * What updates do while Spanner is further behind than {@code max-lag}
+         */
+        public enum OverloadPolicy {
+            /**
+             * Wait up to {@code block-timeout} for the lag to recover, then refuse
+             */
+            BLOCK,
+            /**
+             * Refuse at once
+             */
+            SHED
+        }
+
+        /**
+         * Whether balances are written behind to Spanner
+         */
+        private boolean enabled = true;
+
+        /**
+         * Table positions are written to
+         */
+        private String table = "ParticipantBalances";
+
+        /**
+         * Longest a changed position waits before it is written
+         */
+        private Duration flushInterval = Duration.ofMillis(100);
+
+        /**
+         * Changed positions that trigger a write before the interval is up
+         */
+        private int flushSize = 500;
+
+        /**
+         * Most rows in one Spanner commit
+         */
+        private int maxBatchSize = 1000;
+
+        /**
+         * Age of the oldest unwritten change beyond which updates are held back
+         */
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        private OverloadPolicy overloadPolicy = OverloadPolicy.BLOCK;
+
+        /**
+         * Longest an update waits for the lag to recover under the BLOCK policy
+         */
+        private Duration blockTimeout = Duration.ofMillis(250);
+
+        /**
+         * Longest pause between attempts while Spanner writes are failing
+         */
+        private Duration maxRetryBackoff = Duration.ofSeconds(5);
+
+        /**
+         * Longest to spend writing what is left at shutdown
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public void setTable(String table) {
+            this.table = table;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getFlushSize() {
+            return flushSize;
+        }
+
+        public void setFlushSize(int flushSize) {
+            this.flushSize = flushSize;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public Duration getMaxLag() {
+            return maxLag;
+        }
+
+        public void setMaxLag(Duration maxLag) {
+            this.maxLag = maxLag;
+        }
+
+        public OverloadPolicy getOverloadPolicy() {
+            return overloadPolicy;
+        }
+
+        public void setOverloadPolicy(OverloadPolicy overloadPolicy) {
+            this.overloadPolicy = overloadPolicy;
+        }
+
+        public Duration getBlockTimeout() {
+            return blockTimeout;
+        }
+
+        public void setBlockTimeout(Duration blockTimeout) {
+            this.blockTimeout = blockTimeout;
+        }
+
+        public Duration getMaxRetryBackoff() {
+            return maxRetryBackoff;
+        }
+
+        public void setMaxRetryBackoff(Duration maxRetryBackoff) {
+            this.maxRetryBackoff = maxRetryBackoff;
+        }
+
+        public Duration getShutdownTimeout() {
+            return shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(Duration shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+        }
+    }
+
+    /**
+     * Participant partitioning across nodes, with ownership and failover through Kafka
+     */
+    public static class Cluster {
+
+        /**
+         * Whether positions are partitioned across several nodes
+         */
+        private boolean enabled = false;
+
+        /**
+         * Replicated mutation log; its partition count is the number of participant partitions
+         */
+        private String mutationTopic = "liquidity.position-mutations";
+
+        /**
+         * Partitions the mutation log is created with if it does not exist yet
+         */
+        private int partitions = 12;
+
+        /**
+         * Consumer group whose partition assignment decides which node owns which partition
+         */
+        private String groupId = "fast-liquidity-owners";
+
+        /**
+         * host:port other nodes forward requests to; this host's name and {@code server.port} when unset
+         */
+        private String advertisedAddress;
+
+        /**
+         * How often the owner of every partition is looked up
+         */
+        private Duration directoryRefresh = Duration.ofSeconds(5);
+
+        /**
+         * Longest to wait for the owner to answer a forwarded request
+         */
+        private Duration forwardTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Longest to wait for the mutation log to be created and described when joining
+         */
+        private Duration startupTimeout = Duration.ofSeconds(60);
+
+        /**
+         * Longest to spend handing a partition over: draining updates and flushing them to the log and the balance store
+         */
+        private Duration handoverTimeout = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getMutationTopic() {
+            return mutationTopic;
+        }
+
+        public void setMutationTopic(String mutationTopic) {
+            this.mutationTopic = mutationTopic;
+        }
+
+        public int getPartitions() {
+            return partitions;
+        }
+
+        public void setPartitions(int partitions) {
+            this.partitions = partitions;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public void setGroupId(String groupId) {
+            this.groupId = groupId;
+        }
+
+        public String getAdvertisedAddress() {
+            return advertisedAddress;
+        }
+
+        public void setAdvertisedAddress(String advertisedAddress) {
+            this.advertisedAddress = advertisedAddress;
+        }
+
+        public Duration getDirectoryRefresh() {
+            return directoryRefresh;
+        }
+
+        public void setDirectoryRefresh(Duration directoryRefresh) {
+            this.directoryRefresh = directoryRefresh;
+        }
+
+        public Duration getForwardTimeout() {
+            return forwardTimeout;
+        }
+
+        public void setForwardTimeout(Duration forwardTimeout) {
+            this.forwardTimeout = forwardTimeout;
+        }
+
+        public Duration getStartupTimeout() {
+            return startupTimeout;
+        }
+
+        public void setStartupTimeout(Duration startupTimeout) {
+            this.startupTimeout = startupTimeout;
+        }
+
+        public Duration getHandoverTimeout() {
+            return handoverTimeout;
+        }
+
+        public void setHandoverTimeout(Duration handoverTimeout) {
+            this.handoverTimeout = handoverTimeout;
+        }
+    }
+
+    /**
+     * Adaptive concurrency limit on the liquidity REST endpoints
+     */
+    public static class Admission {
+
+        /**
+         * Whether liquidity requests are admitted against an adaptive concurrency limit
+         */
+        private boolean enabled = true;
+
+        /**
+         * Concurrent requests admitted before any latency has been observed
+         */
+        private int initialLimit = 20;
+
+        /**
+         * Lowest the limit is ever cut to
+         */
+        private int minLimit = 8;
+
+        /**
+         * Highest the limit is ever raised to
+         */
+        private int maxLimit = 1000;
+
+        /**
+         * How far recent latency may rise above its long-run baseline before the limit shrinks
+         */
+        private double tolerance = 1.5;
+
+        /**
+         * Weight of each new limit estimate against the current limit
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * Latency is averaged over windows this long before the limit is resized
+         */
+        private Duration window = Duration.ofMillis(100);
+
+        /**
+         * Share of the limit balance updates may fill; checks may fill all of it
+         */
+        private double updateShare = 0.9;
+
+        /**
+         * Share of the limit balance reads may fill
+         */
+        private double readShare = 0.5;
+
+        /**
+         * Retry-After sent with a request turned away
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public double getUpdateShare() {
+            return updateShare;
+        }
+
+        public void setUpdateShare(double updateShare) {
+            this.updateShare = updateShare;
+        }
+
+        public double getReadShare() {
+            return readShare;
+        }
+
+        public void setReadShare(double readShare) {
+            this.readShare = readShare;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    /**
+     * Near cache settings for participant balance reads
+     */
+    public static class Cache {
+
+        /**
+         * Longest a cached balance is served without being reloaded
+         */
+        private Duration balanceTtl = Duration.ofSeconds(30);
+
+        /**
+         * Maximum number of cached positions before the least valuable are evicted
+         */
+        private long balanceMaximumSize = 100_000;
+
+        public Duration getBalanceTtl() {
+            return balanceTtl;
+        }
+
+        public void setBalanceTtl(Duration balanceTtl) {
+            this.balanceTtl = balanceTtl;
+        }
+
+        public long getBalanceMaximumSize() {
+            return balanceMaximumSize;
+        }
+
+        public void setBalanceMaximumSize(long balanceMaximumSize) {
+            this.balanceMaximumSize = balanceMaximumSize;
+        }
+    }
+
+    /**
+     * Message id deduplication settings
+     */
+    public static class Idempotency {
+
+        /**
+         * Minimum time an applied message id is remembered
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        /**
+         * Message ids each shard has room for per TTL window before its table first grows
+         */
+        private int capacityPerShard = 65_536;
+
+        /**
+         * Applied messages per second the whole ledger must remember for a full TTL; sizes
+         * the default maximum per shard with 2x headroom for bursts and uneven shards
+         */
+        private double expectedRate = 50.0;
+
+        /**
+         * Most message ids a shard remembers per TTL window; 0 derives it from
+         * {@code expected-rate}. Beyond it the oldest ids are forgotten before their TTL,
+         * which is logged and counted in {@code liquidity.idempotency.early-rotations}.
+         */
+        private int maxCapacityPerShard = 0;
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getCapacityPerShard() {
+            return capacityPerShard;
+        }
+
+        public void setCapacityPerShard(int capacityPerShard) {
+            this.capacityPerShard = capacityPerShard;
+        }
+
+        public double getExpectedRate() {
+            return expectedRate;
+        }
+
+        public void setExpectedRate(double expectedRate) {
+            this.expectedRate = expectedRate;
+        }
+
+        public int getMaxCapacityPerShard() {
+            return maxCapacityPerShard;
+        }
+
+        public void setMaxCapacityPerShard(int maxCapacityPerShard) {
+            this.maxCapacityPerShard = maxCapacityPerShard;
+        }
+
+        /**
+         * Maximum ids per shard per TTL window: as configured, or enough for
+         * {@code expected-rate} over the whole TTL spread across {@code shards}, twice over
+         */
+        public int maxCapacityPerShard(int shards) {
+            if (maxCapacityPerShard > 0) {
+                return Math.max(capacityPerShard, maxCapacityPerShard);
+            }
+            double perShard = expectedRate * ttl.toMillis() / 1000.0 * 2.0 / shards;
+            return (int) Math.max(capacityPerShard, Math.min(Integer.MAX_VALUE, Math.ceil(perShard)));
+        }
+    }
+
+    /**
+     * Write-ahead journal and snapshot settings
+     */
+    public static class Journal {
+
+        /**
+         * Whether applied mutations are journaled and recovered on startup
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory holding the per-shard journal segments and snapshots
+         */
+        private String directory = "data/liquidity";
+
+        /**
+         * Size of each memory-mapped journal segment file
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Number of journaled mutations after which a shard forces its segment to disk
+         */
+        private int fsyncBatchSize = 64;
+
+        /**
+         * Upper bound on how long a journaled mutation stays unforced
+         */
+        private Duration fsyncInterval = Duration.ofMillis(10);
+
+        /**
+         * How often a snapshot of every shard is written and covered segments are deleted
+         */
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public int getFsyncBatchSize() {
+            return fsyncBatchSize;
+        }
+
+        public void setFsyncBatchSize(int fsyncBatchSize) {
+            this.fsyncBatchSize = fsyncBatchSize;
+        }
+
+        public Duration getFsyncInterval() {
+            return fsyncInterval;
+        }
+
+        public void setFsyncInterval(Duration fsyncInterval) {
+            this.fsyncInterval = fsyncInterval;
+        }
+
+        public Duration getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(Duration snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+    }
+}
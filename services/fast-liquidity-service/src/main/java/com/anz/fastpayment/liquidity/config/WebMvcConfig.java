@@ -0,0 +1,43 @@
+package com.anz.fastpayment.liquidity.config;
+
+import com.anz.fastpayment.liquidity.admission.AdmissionInterceptor;
+import com.anz.fastpayment.liquidity.codec.LiquidityRequestConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC Configuration
+ * 
+ * Puts the streaming {@link LiquidityRequestConverter} ahead of the Jackson converter
+ * for the liquidity request types, and admits balance requests through the
+ * {@link AdmissionInterceptor} (the long-lived balance stream is not limited)
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<AdmissionInterceptor> admissionInterceptor;
+
+    public WebMvcConfig(ObjectMapper objectMapper, ObjectProvider<AdmissionInterceptor> admissionInterceptor) {
+        this.objectMapper = objectMapper;
+        this.admissionInterceptor = admissionInterceptor;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new LiquidityRequestConverter(objectMapper));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        admissionInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+                .addPathPatterns("/liquidity/balance/**")
+                .excludePathPatterns("/liquidity/balance/stream"));
+    }
+}
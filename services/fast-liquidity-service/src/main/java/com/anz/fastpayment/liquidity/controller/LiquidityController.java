@@ -1,5 +1,7 @@
 package com.anz.fastpayment.liquidity.controller;
 
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.feed.BalanceChangeFeed;
 import com.anz.fastpayment.liquidity.model.*;
 import com.anz.fastpayment.liquidity.service.LiquidityService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,15 +12,21 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
 
 /**
  * Liquidity Management Controller
@@ -27,8 +35,11 @@ import org.springframework.web.bind.annotation.*;
  * - Balance checking and authorization
  * - Balance updates from payment transactions
  * - Participant balance retrieval
+ * - Streaming balance changes for the Liquidity Management Console
  * 
- * Supports Singapore G3 and Hong Kong FPS payment schemes.
+ * Supports Singapore G3 and Hong Kong FPS payment schemes. Request bodies are
+ * decoded and validated in one pass by the LiquidityRequestConverter, so they are not
+ * validated again here; rejections are rendered by {@link LiquidityExceptionHandler}.
  */
 @RestController
 @RequestMapping("/liquidity")
@@ -39,10 +50,15 @@ public class LiquidityController {
     private static final Logger logger = LoggerFactory.getLogger(LiquidityController.class);
 
     private final LiquidityService liquidityService;
+    private final BalanceChangeFeed balanceChangeFeed;
+    private final Duration heartbeatInterval;
 
     @Autowired
-    public LiquidityController(LiquidityService liquidityService) {
+    public LiquidityController(LiquidityService liquidityService, BalanceChangeFeed balanceChangeFeed,
+                               LiquidityProperties properties) {
         this.liquidityService = liquidityService;
+        this.balanceChangeFeed = balanceChangeFeed;
+        this.heartbeatInterval = properties.getFeed().getHeartbeatInterval();
     }
 
     @Operation(
@@ -102,14 +118,14 @@ public class LiquidityController {
     })
     @PostMapping(value = "/balance/check", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<BalanceCheckResponse> checkBalance(
-        @Valid @RequestBody BalanceCheckRequest request) {
+        @RequestBody BalanceCheckRequest request) {
         
-        logger.info("Received balance check request for country: {}, currency: {}, amount: {}", 
+        logger.debug("Received balance check request for country: {}, currency: {}, amount: {}", 
                    request.getCountryCode(), request.getCurrency(), request.getAmount());
         
         BalanceCheckResponse response = liquidityService.checkBalance(request);
         
-        logger.info("Balance check completed - authorized: {}, requestId: {}", 
+        logger.debug("Balance check completed - authorized: {}, requestId: {}", 
                    response.isAuthorized(), response.getRequestId());
         
         return ResponseEntity.ok(response);
@@ -125,10 +141,14 @@ public class LiquidityController {
             Supports various transaction types:
             - DEBIT: Outbound payments (reduce balance)
             - CREDIT: Inbound payments (increase balance)
-            - RESERVE: Hold funds for pending transactions
-            - RELEASE: Release previously reserved funds
+            - RESERVE: Hold funds for pending transactions under the reference (or message ID)
+            - RELEASE: Release previously reserved funds for the same reference
+            
+            A DEBIT carrying the reference of an active reservation settles against that hold.
+            Holds that are neither settled nor released expire after the configured TTL.
             
-            All updates are atomic and include comprehensive audit trails.
+            All updates are atomic and include comprehensive audit trails. A message ID is
+            applied at most once per participant; a redelivery returns 409 with the original result.
             """
     )
     @ApiResponses(value = {
@@ -147,22 +167,70 @@ public class LiquidityController {
         ),
         @ApiResponse(
             responseCode = "409", 
-            description = "Duplicate transaction or balance conflict",
-            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            description = "Message ID already applied for this participant; body carries the original balances",
+            content = @Content(schema = @Schema(implementation = BalanceUpdateResponse.class))
         )
     })
     @PostMapping(value = "/balance/update", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<BalanceUpdateResponse> updateBalance(
-        @Valid @RequestBody BalanceUpdateRequest request) {
+        @RequestBody BalanceUpdateRequest request) {
         
-        logger.info("Received balance update request for participant: {}, messageId: {}, amount: {}", 
+        logger.debug("Received balance update request for participant: {}, messageId: {}, amount: {}", 
                    request.getParticipantId(), request.getMessageId(), request.getAmount());
         
         BalanceUpdateResponse response = liquidityService.updateBalance(request);
         
-        logger.info("Balance update completed - status: {}, transactionId: {}", 
+        logger.debug("Balance update completed - status: {}, transactionId: {}", 
                    response.getStatus(), response.getTransactionId());
         
+        if ("DUPLICATE".equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+        summary = "Update liquidity balances in a batch",
+        description = """
+            Apply up to 1000 balance updates in a single call. Updates are applied by each
+            participant's ledger shard in request order, and committed to the persistence
+            layer with one flush per shard rather than one per update.
+            
+            Every update gets its own result, in request order:
+            - SUCCESS: Update applied
+            - REJECTED: Not applied (see errorCode, e.g. INSUFFICIENT_FUNDS)
+            - DUPLICATE: Message ID already applied for this participant, earlier in the batch
+              or in a previous request; balances are those of the original application
+            
+            The batch status is SUCCESS, PARTIAL or REJECTED depending on how many updates applied.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200", 
+            description = "Batch processed; inspect per-update results",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = BalanceUpdateBatchResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400", 
+            description = "Empty, oversized or invalid batch",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    @PostMapping(value = "/balance/update:batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BalanceUpdateBatchResponse> updateBalances(
+        @RequestBody BalanceUpdateBatchRequest request) {
+        
+        logger.debug("Received balance update batch of {} updates", request.getUpdates().size());
+        
+        BalanceUpdateBatchResponse response = liquidityService.updateBalances(request);
+        
+        logger.debug("Balance update batch completed - status: {}, requestId: {}", 
+                   response.getStatus(), response.getRequestId());
+        
         return ResponseEntity.ok(response);
     }
 
@@ -205,15 +273,62 @@ public class LiquidityController {
         @Pattern(regexp = "^(SG|HK)$", message = "Country code must be SG or HK")
         String countryCode) {
         
-        logger.info("Received participant balance request for: {}, currency: {}, country: {}", 
+        logger.debug("Received participant balance request for: {}, currency: {}, country: {}", 
                    participantId, currency, countryCode);
         
         ParticipantBalanceResponse response = liquidityService.getParticipantBalance(
             participantId, currency, countryCode);
         
-        logger.info("Retrieved balance for participant: {}, current balance: {}", 
+        logger.debug("Retrieved balance for participant: {}, current balance: {}", 
                    participantId, response.getCurrentBalance());
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @Operation(
+        summary = "Stream balance changes",
+        description = """
+            Server-sent event stream of balance, reservation and net debit cap utilization
+            changes for a set of participants, for the Liquidity Management Console.
+            
+            Changes to one position within the coalescing window are merged into a single
+            `balance-change` event carrying the latest state and the net balance movement.
+            A client that reads slowly receives fewer, more coalesced events rather than
+            a growing backlog. Only changes after the subscription are streamed; fetch
+            the starting balances with GET /liquidity/balance/{participantId}.
+            Idle streams receive a comment line every heartbeat interval.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stream of balance change events",
+            content = @Content(
+                mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                schema = @Schema(implementation = BalanceChangeEvent.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid participant list",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    @GetMapping(value = "/balance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BalanceChangeEvent>> streamBalanceChanges(
+        @Parameter(description = "Participants to watch, all currencies and countries", example = "ANZBSGSG,DBSSSGSG")
+        @RequestParam
+        @Size(min = 1, max = BalanceChangeFeed.MAX_PARTICIPANTS_PER_SUBSCRIPTION,
+              message = "Between 1 and " + BalanceChangeFeed.MAX_PARTICIPANTS_PER_SUBSCRIPTION + " participants may be watched")
+        List<@Pattern(regexp = "^[A-Z]{8}$", message = "Participant ID must be 8 uppercase letters") String> participantIds) {
+
+        logger.info("Opening balance change stream for {} participants", participantIds.size());
+
+        Flux<ServerSentEvent<BalanceChangeEvent>> changes = balanceChangeFeed.subscribe(participantIds)
+            .map(event -> ServerSentEvent.builder(event).event("balance-change").build());
+        Flux<ServerSentEvent<BalanceChangeEvent>> heartbeats = Flux.interval(heartbeatInterval)
+            .onBackpressureDrop()
+            .map(tick -> ServerSentEvent.<BalanceChangeEvent>builder().comment("heartbeat").build());
+        return Flux.merge(changes, heartbeats);
+    }
+}
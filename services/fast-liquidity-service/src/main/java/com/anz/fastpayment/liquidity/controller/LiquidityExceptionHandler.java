@@ -0,0 +1,107 @@
+package com.anz.fastpayment.liquidity.controller;
+
+import com.anz.fastpayment.liquidity.admission.LiquidityOverloadedException;
+import com.anz.fastpayment.liquidity.cluster.OwnerRejectedException;
+import com.anz.fastpayment.liquidity.codec.RequestValidationException;
+import com.anz.fastpayment.liquidity.ledger.LedgerUnavailableException;
+import com.anz.fastpayment.liquidity.model.ErrorResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Liquidity Exception Handler
+ * 
+ * Turns rejected requests into a 400 {@link ErrorResponse} with error code
+ * VALIDATION_ERROR, whether the body failed while decoding or a path or query
+ * parameter failed its constraint. The violated fields are listed under
+ * {@code details.fieldErrors}. An amount that would take a balance out of range gets a
+ * 400 with INVALID_AMOUNT, and a request the service cannot resolve, such as a check
+ * without a participant for a country with no house participant, a 400 with
+ * VALIDATION_ERROR, as the RPC server answers them. Updates the ledger cannot take
+ * right now, because a shard is saturated or the balance store is too far behind, get
+ * a 503 with SERVICE_UNAVAILABLE so callers retry. Requests beyond the concurrency limit get a
+ * 429 with SERVICE_OVERLOADED and a Retry-After. A client error from the node a
+ * request was forwarded to is passed on with the owner's status and body.
+ */
+@RestControllerAdvice
+public class LiquidityExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiquidityExceptionHandler.class);
+
+    @ExceptionHandler(RequestValidationException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequest(RequestValidationException e) {
+        logger.debug("Rejected invalid request: {}", e.getFieldErrors());
+        return validationError(e.getMessage(), e.getFieldErrors());
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidParameter(ConstraintViolationException e) {
+        Map<String, String> fieldErrors = new LinkedHashMap<>();
+        for (ConstraintViolation<?> violation : e.getConstraintViolations()) {
+            String path = violation.getPropertyPath().toString();
+            fieldErrors.putIfAbsent(path.substring(path.lastIndexOf('.') + 1), violation.getMessage());
+        }
+        logger.debug("Rejected invalid parameters: {}", fieldErrors);
+        return validationError(String.join("; ", fieldErrors.values()), fieldErrors);
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleUnreadableBody(HttpMessageNotReadableException e) {
+        logger.debug("Rejected unreadable request body: {}", e.getMessage());
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse(ErrorResponse.ErrorCodes.VALIDATION_ERROR, "Request body is not valid JSON"));
+    }
+
+    @ExceptionHandler(ArithmeticException.class)
+    public ResponseEntity<ErrorResponse> handleAmountOutOfRange(ArithmeticException e) {
+        logger.debug("Rejected amount out of range: {}", e.getMessage());
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse(ErrorResponse.ErrorCodes.INVALID_AMOUNT, "Amount takes the balance out of range"));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleUnresolvableRequest(IllegalArgumentException e) {
+        logger.debug("Rejected request: {}", e.getMessage());
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse(ErrorResponse.ErrorCodes.VALIDATION_ERROR, e.getMessage()));
+    }
+
+    @ExceptionHandler(LedgerUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleLedgerUnavailable(LedgerUnavailableException e) {
+        logger.warn("Refused update: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponse(ErrorResponse.ErrorCodes.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+
+    @ExceptionHandler(LiquidityOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleOverloaded(LiquidityOverloadedException e) {
+        logger.debug("Shed request: {}", e.getMessage());
+        long retryAfterSeconds = Math.max(1L, (e.getRetryAfter().toMillis() + 999L) / 1000L);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(new ErrorResponse(ErrorResponse.ErrorCodes.SERVICE_OVERLOADED, e.getMessage()));
+    }
+
+    @ExceptionHandler(OwnerRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleOwnerRejected(OwnerRejectedException e) {
+        logger.debug("Owner rejected forwarded request with {}: {}", e.getStatus(), e.getMessage());
+        return ResponseEntity.status(e.getStatus()).body(e.getError());
+    }
+
+    private static ResponseEntity<ErrorResponse> validationError(String message, Map<String, String> fieldErrors) {
+        ErrorResponse error = new ErrorResponse(ErrorResponse.ErrorCodes.VALIDATION_ERROR, message);
+        error.setDetails(Map.of("fieldErrors", fieldErrors));
+        return ResponseEntity.badRequest().body(error);
+    }
+}
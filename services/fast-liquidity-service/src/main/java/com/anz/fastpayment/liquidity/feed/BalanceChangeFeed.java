@@ -0,0 +1,201 @@
+package com.anz.fastpayment.liquidity.feed;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutationListener;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.model.Amount;
+import com.anz.fastpayment.liquidity.model.BalanceChangeEvent;
+import com.anz.fastpayment.liquidity.netdebit.NetDebitCapTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance Change Feed
+ * 
+ * Pushes position changes to streaming subscribers, each watching a set of participants.
+ * 
+ * A mutation is merged into a pending slot per subscriber and position on the shard
+ * writer thread, so a burst of updates to one position becomes one event carrying the
+ * latest state and the net balance movement. Every coalesce window a single feed thread
+ * emits pending slots, but only as many as the subscriber has requested; a slow
+ * subscriber keeps coalescing in place, so it costs at most one slot per watched
+ * position and never holds back the ledger or other subscribers.
+ */
+@Component
+public class BalanceChangeFeed implements BalanceMutationListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceChangeFeed.class);
+
+    public static final int MAX_PARTICIPANTS_PER_SUBSCRIPTION = 100;
+
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+    private final NetDebitCapTracker netDebitCapTracker;
+
+    // Subscriptions by watched participant; arrays are replaced, never modified, so writers read without locking
+    private final Map<String, Subscription[]> byParticipant = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService flusher;
+
+    public BalanceChangeFeed(LiquidityProperties properties, NetDebitCapTracker netDebitCapTracker) {
+        this.netDebitCapTracker = netDebitCapTracker;
+        long windowMillis = properties.getFeed().getCoalesceWindow().toMillis();
+        if (windowMillis <= 0L) {
+            throw new IllegalArgumentException("liquidity.feed.coalesce-window must be at least 1ms");
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAll, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Changes to every position of the given participants, from the moment of subscription
+     */
+    public Flux<BalanceChangeEvent> subscribe(Collection<String> participantIds) {
+        Set<String> watched = Set.copyOf(participantIds);
+        if (watched.isEmpty() || watched.size() > MAX_PARTICIPANTS_PER_SUBSCRIPTION) {
+            throw new IllegalArgumentException("A subscription must watch between 1 and "
+                    + MAX_PARTICIPANTS_PER_SUBSCRIPTION + " participants");
+        }
+        return Flux.create(sink -> {
+            Subscription subscription = new Subscription(watched, sink);
+            register(subscription);
+            sink.onDispose(() -> unregister(subscription));
+        });
+    }
+
+    @Override
+    public void onMutation(BalanceMutation mutation) {
+        Subscription[] watching = byParticipant.get(mutation.key().participantId());
+        if (watching == null) {
+            return;
+        }
+        for (Subscription subscription : watching) {
+            subscription.pending.merge(mutation.key(), new Pending(mutation, mutation.balanceBefore(), 1),
+                    Pending::then);
+        }
+    }
+
+    public int subscriptionCount() {
+        return subscriptions.size();
+    }
+
+    private void register(Subscription subscription) {
+        subscriptions.add(subscription);
+        for (String participantId : subscription.participantIds) {
+            byParticipant.compute(participantId, (id, current) -> {
+                Subscription[] base = current != null ? current : NO_SUBSCRIPTIONS;
+                Subscription[] next = Arrays.copyOf(base, base.length + 1);
+                next[base.length] = subscription;
+                return next;
+            });
+        }
+        logger.debug("Balance feed subscription opened for {} participants", subscription.participantIds.size());
+    }
+
+    private void unregister(Subscription subscription) {
+        subscriptions.remove(subscription);
+        for (String participantId : subscription.participantIds) {
+            byParticipant.computeIfPresent(participantId, (id, current) -> {
+                Subscription[] next = Arrays.stream(current)
+                        .filter(s -> s != subscription)
+                        .toArray(Subscription[]::new);
+                return next.length > 0 ? next : null;
+            });
+        }
+        logger.debug("Balance feed subscription closed for {} participants", subscription.participantIds.size());
+    }
+
+    private void flushAll() {
+        for (Subscription subscription : subscriptions) {
+            try {
+                subscription.flush();
+            } catch (RuntimeException e) {
+                logger.warn("Balance feed subscription failed, closing it", e);
+                subscription.sink.error(e);
+            }
+        }
+    }
+
+    private BalanceChangeEvent toEvent(Pending pending) {
+        BalanceMutation latest = pending.latest();
+        PositionKey key = latest.key();
+
+        BalanceChangeEvent event = new BalanceChangeEvent();
+        event.setParticipantId(key.participantId());
+        event.setCurrency(key.currency());
+        event.setCountryCode(key.countryCode());
+        event.setCurrentBalance(Amount.ofUnits(latest.balanceAfter()));
+        event.setReservedAmount(Amount.ofUnits(latest.reservedAfter()));
+        event.setAvailableBalance(Amount.ofUnits(latest.balanceAfter() - latest.reservedAfter()));
+        event.setBalanceChange(Amount.ofUnits(latest.balanceAfter() - pending.balanceBefore()));
+        event.setNetDebitCapUtilization(netDebitCapTracker.utilizationAfter(latest));
+        event.setNetDebitCapLevel(netDebitCapTracker.levelAfter(latest).name());
+        event.setMutationCount(pending.mutations());
+        event.setLastTransactionAt(latest.appliedAt());
+        return event;
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        for (Subscription subscription : subscriptions) {
+            subscription.sink.complete();
+        }
+    }
+
+    /**
+     * Changes to one position not yet sent to a subscriber
+     */
+    private record Pending(BalanceMutation latest, long balanceBefore, int mutations) {
+
+        Pending then(Pending next) {
+            return new Pending(next.latest, balanceBefore, mutations + next.mutations);
+        }
+    }
+
+    private final class Subscription {
+
+        private final Set<String> participantIds;
+        private final FluxSink<BalanceChangeEvent> sink;
+        private final ConcurrentHashMap<PositionKey, Pending> pending = new ConcurrentHashMap<>();
+
+        Subscription(Set<String> participantIds, FluxSink<BalanceChangeEvent> sink) {
+            this.participantIds = participantIds;
+            this.sink = sink;
+        }
+
+        /**
+         * Emit pending changes up to the subscriber's outstanding demand; the rest keep coalescing
+         */
+        void flush() {
+            long demand = sink.requestedFromDownstream();
+            Iterator<PositionKey> keys = pending.keySet().iterator();
+            while (demand > 0L && keys.hasNext()) {
+                Pending changes = pending.remove(keys.next());
+                if (changes != null) {
+                    sink.next(toEvent(changes));
+                    demand--;
+                }
+            }
+        }
+    }
+}
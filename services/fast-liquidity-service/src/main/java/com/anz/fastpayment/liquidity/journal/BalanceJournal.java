@@ -0,0 +1,274 @@
+package com.anz.fastpayment.liquidity.journal;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.DurableMutationListener;
+import com.anz.fastpayment.liquidity.ledger.ShardState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Balance Journal
+ * 
+ * Write-ahead journal for the balance ledger. Every applied mutation is appended to
+ * a memory-mapped segment owned by its shard, on the shard's writer thread, before
+ * the caller sees the outcome. Segments are forced to disk every
+ * {@code fsync-batch-size} mutations, at the end of every batch (group commit) and
+ * at least every {@code fsync-interval}. A record is appended before the ledger applies
+ * the mutation in memory; if an append, roll or force fails the ledger refuses the
+ * command and stops the shard rather than acknowledge what the journal does not hold.
+ * 
+ * A snapshot of every shard is written every {@code snapshot-interval}; segments it
+ * fully covers are deleted. On startup {@link #recover(BalanceLedger)} loads the newest
+ * snapshot, replays the journal tail after it, and takes a fresh snapshot so the
+ * next start only replays what happened after this one.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "liquidity.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceJournal implements DurableMutationListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceJournal.class);
+
+    private static final long CAPTURE_TIMEOUT_SECONDS = 30;
+
+    private final Path directory;
+    private final Path journalDirectory;
+    private final int segmentSize;
+    private final int fsyncBatchSize;
+    private final long fsyncIntervalMillis;
+    private final long snapshotIntervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private BalanceLedger ledger;
+    private ShardJournal[] journals;
+
+    // Set once the journals are open; the ledger neither takes traffic nor expires
+    // reservations before that, so nothing is applied that the journal misses
+    private volatile boolean open;
+
+    public BalanceJournal(LiquidityProperties properties) {
+        LiquidityProperties.Journal config = properties.getJournal();
+        if (config.getFsyncBatchSize() < 1) {
+            throw new IllegalArgumentException("liquidity.journal.fsync-batch-size must be at least 1");
+        }
+        long segmentBytes = config.getSegmentSize().toBytes();
+        if (segmentBytes < JournalSegment.HEADER_SIZE + JournalCodec.MAX_RECORD_SIZE || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("liquidity.journal.segment-size must be between 8KB and 2GB");
+        }
+        this.directory = Paths.get(config.getDirectory());
+        this.journalDirectory = directory.resolve("journal");
+        this.segmentSize = (int) segmentBytes;
+        this.fsyncBatchSize = config.getFsyncBatchSize();
+        this.fsyncIntervalMillis = Math.max(1L, config.getFsyncInterval().toMillis());
+        this.snapshotIntervalMillis = config.getSnapshotInterval().toMillis();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void onMutation(BalanceMutation mutation) {
+        if (open) {
+            journals[mutation.shard()].append(mutation);
+        }
+    }
+
+    @Override
+    public void onGroupCommit(int shard) {
+        if (open) {
+            journals[shard].commit();
+        }
+    }
+
+    /**
+     * Restore the ledger from disk and start journaling. Must be called once, before the
+     * ledger accepts traffic or is {@link BalanceLedger#start() started}.
+     * 
+     * @throws IllegalStateException if the snapshot or journal cannot be read consistently;
+     *                               starting with wrong balances is worse than not starting
+     */
+    public void recover(BalanceLedger ledger) {
+        long started = System.nanoTime();
+        this.ledger = ledger;
+        try {
+            Files.createDirectories(journalDirectory);
+            deleteTemporaryFiles();
+
+            SnapshotFile.Contents snapshot = SnapshotFile.readLatest(directory);
+            List<Path> shardDirectories = shardDirectories();
+            JournalReplay replay = new JournalReplay(snapshot != null ? snapshot.shards().size() : shardDirectories.size());
+            if (snapshot != null) {
+                replay.load(snapshot);
+            }
+            for (Path shardDirectory : shardDirectories) {
+                replayShard(shardDirectory, replay);
+            }
+
+            ledger.restore(replay.positions(), replay.reservations(), replay.idempotencyEntries(), replay.sequences());
+            logger.info("Recovered {} positions and {} reservations from {} plus {} journaled mutations in {}ms",
+                    replay.positions().size(), replay.reservations().size(),
+                    snapshot != null ? snapshot.path().getFileName() : "an empty ledger",
+                    replay.replayed(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+            // Re-base on a fresh snapshot so old segments, possibly written under a
+            // different shard count, are never replayed again
+            List<ShardState> shards = captureAll();
+            writeSnapshot(shards);
+            deleteRecursively(journalDirectory);
+
+            journals = new ShardJournal[ledger.getShardCount()];
+            for (ShardState shard : shards) {
+                ShardJournal journal = new ShardJournal(shard.shard(),
+                        ShardJournal.directoryFor(journalDirectory, shard.shard()), segmentSize, fsyncBatchSize);
+                journal.open(shard.sequence() + 1);
+                journals[shard.shard()] = journal;
+            }
+            open = true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to recover balance ledger from " + directory.toAbsolutePath(), e);
+        }
+
+        scheduler.scheduleWithFixedDelay(this::flush, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        if (snapshotIntervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMillis, snapshotIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        logger.info("Balance journal open in {}, {} shards, fsync every {} mutations or {}ms",
+                directory.toAbsolutePath(), journals.length, fsyncBatchSize, fsyncIntervalMillis);
+    }
+
+    /**
+     * Write a snapshot of every shard and delete the journal segments it covers
+     */
+    public void snapshot() {
+        try {
+            List<ShardState> shards = captureAll();
+            writeSnapshot(shards);
+            for (ShardState shard : shards) {
+                journals[shard.shard()].deleteCoveredBy(shard.sequence());
+            }
+        } catch (IOException | RuntimeException e) {
+            // The journal still holds everything; try again next interval
+            logger.error("Ledger snapshot failed", e);
+        }
+    }
+
+    private void flush() {
+        for (ShardJournal journal : journals) {
+            try {
+                journal.flush();
+            } catch (RuntimeException e) {
+                logger.error("Journal flush failed", e);
+            }
+        }
+    }
+
+    private void replayShard(Path shardDirectory, JournalReplay replay) throws IOException {
+        int shard = Integer.parseInt(shardDirectory.getFileName().toString().substring("shard-".length()));
+        long skipThrough = replay.sequenceOf(shard);
+        List<Path> segments = ShardJournal.segments(shardDirectory);
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            if (!last && JournalSegment.firstSequenceOf(segments.get(i + 1)) <= skipThrough + 1) {
+                continue;
+            }
+            boolean clean = JournalSegment.read(segment, shard, replay::apply);
+            if (!clean) {
+                if (!last) {
+                    throw new IllegalStateException("Corrupt record inside journal segment " + segment);
+                }
+                // A crash mid-append leaves a torn record at the tail of the newest segment
+                logger.warn("Ignoring torn record at the end of journal segment {}", segment);
+            }
+        }
+    }
+
+    private List<ShardState> captureAll() throws IOException {
+        List<CompletableFuture<ShardState>> futures = new ArrayList<>(ledger.getShardCount());
+        for (int i = 0; i < ledger.getShardCount(); i++) {
+            futures.add(ledger.capture(i));
+        }
+        List<ShardState> shards = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<ShardState> future : futures) {
+                shards.add(future.get(CAPTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted capturing ledger shards", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Failed to capture ledger shards", e);
+        }
+        return shards;
+    }
+
+    private void writeSnapshot(List<ShardState> shards) throws IOException {
+        Path written = SnapshotFile.write(directory, Instant.now(), shards);
+        for (Path older : SnapshotFile.list(directory)) {
+            if (!older.equals(written)) {
+                Files.deleteIfExists(older);
+            }
+        }
+        logger.info("Wrote ledger snapshot {}", written.getFileName());
+    }
+
+    private List<Path> shardDirectories() throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files.filter(path -> Files.isDirectory(path) && path.getFileName().toString().startsWith("shard-"))
+                    .toList();
+        }
+    }
+
+    private void deleteTemporaryFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                if (!file.equals(root)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if (open) {
+            flush();
+        }
+        logger.info("Balance journal closed");
+    }
+}
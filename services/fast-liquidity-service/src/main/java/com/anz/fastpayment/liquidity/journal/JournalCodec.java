@@ -0,0 +1,165 @@
+package com.anz.fastpayment.liquidity.journal;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal Codec
+ * 
+ * Binary layout of one journaled {@link BalanceMutation}:
+ * <pre>
+ * int   length         whole record, written last so a zero marks the end of data
+ * int   crc32c         of every byte after this field
+ * long  sequence
+ * long  appliedAt      epoch nanos
+ * byte  transactionType
+ * long  amount, balanceBefore, balanceAfter, reservedAfter, reservationExpiresAt
+ * str   participantId, currency, countryCode, reservationId, messageId, reference, transactionId
+ * </pre>
+ * Strings are a signed short byte length (-1 for null) followed by UTF-8 bytes.
+ * The shard is implied by the segment the record lives in. The replicated mutation log
+ * of a cluster uses the same records, one per Kafka record.
+ */
+public final class JournalCodec {
+
+    /**
+     * Upper bound on an encoded record; segments roll when less than this remains
+     */
+    public static final int MAX_RECORD_SIZE = 4096;
+
+    private static final int LENGTH_OFFSET = 0;
+    private static final int CRC_OFFSET = 4;
+    private static final int BODY_OFFSET = 8;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private JournalCodec() {
+    }
+
+    /**
+     * Encode at the buffer's position and advance past the record
+     */
+    public static void encode(BalanceMutation mutation, ByteBuffer buffer, CRC32C crc) {
+        int start = buffer.position();
+        buffer.position(start + BODY_OFFSET);
+        buffer.putLong(mutation.sequence());
+        buffer.putLong(toEpochNanos(mutation.appliedAt()));
+        buffer.put((byte) mutation.transactionType().ordinal());
+        buffer.putLong(mutation.amount());
+        buffer.putLong(mutation.balanceBefore());
+        buffer.putLong(mutation.balanceAfter());
+        buffer.putLong(mutation.reservedAfter());
+        buffer.putLong(mutation.reservationExpiresAt());
+        putString(buffer, mutation.key().participantId());
+        putString(buffer, mutation.key().currency());
+        putString(buffer, mutation.key().countryCode());
+        putString(buffer, mutation.reservationId());
+        putString(buffer, mutation.messageId());
+        putString(buffer, mutation.reference());
+        putString(buffer, mutation.transactionId());
+        int end = buffer.position();
+
+        int limit = buffer.limit();
+        buffer.position(start + BODY_OFFSET).limit(end);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(limit).position(end);
+
+        buffer.putInt(start + CRC_OFFSET, (int) crc.getValue());
+        buffer.putInt(start + LENGTH_OFFSET, end - start);
+    }
+
+    /**
+     * Decode the record at the buffer's position and advance past it
+     * 
+     * @return The mutation, or null at the end of data or at a torn/corrupt record
+     */
+    public static BalanceMutation decode(int shard, ByteBuffer buffer, CRC32C crc) {
+        int start = buffer.position();
+        if (buffer.remaining() < BODY_OFFSET) {
+            return null;
+        }
+        int length = buffer.getInt(start + LENGTH_OFFSET);
+        if (length <= BODY_OFFSET || length > buffer.remaining() || length > MAX_RECORD_SIZE) {
+            return null;
+        }
+
+        int limit = buffer.limit();
+        buffer.position(start + BODY_OFFSET).limit(start + length);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(limit).position(start + BODY_OFFSET);
+        if ((int) crc.getValue() != buffer.getInt(start + CRC_OFFSET)) {
+            buffer.position(start);
+            return null;
+        }
+
+        long sequence = buffer.getLong();
+        Instant appliedAt = fromEpochNanos(buffer.getLong());
+        TransactionType type = TYPES[buffer.get()];
+        long amount = buffer.getLong();
+        long balanceBefore = buffer.getLong();
+        long balanceAfter = buffer.getLong();
+        long reservedAfter = buffer.getLong();
+        long reservationExpiresAt = buffer.getLong();
+        PositionKey key = new PositionKey(getString(buffer), getString(buffer), getString(buffer));
+        String reservationId = getString(buffer);
+        String messageId = getString(buffer);
+        String reference = getString(buffer);
+        String transactionId = getString(buffer);
+        buffer.position(start + length);
+
+        return new BalanceMutation(shard, sequence, key, type, amount, balanceBefore, balanceAfter, reservedAfter,
+                reservationId, reservationExpiresAt, messageId, reference, transactionId, appliedAt);
+    }
+
+    /**
+     * Write ASCII directly; fall back to an encoded copy only for non-ASCII text
+     */
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        int lengthAt = buffer.position();
+        buffer.position(lengthAt + 2);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                buffer.putShort(lengthAt, (short) bytes.length);
+                buffer.position(lengthAt + 2);
+                buffer.put(bytes);
+                return;
+            }
+            buffer.put((byte) c);
+        }
+        buffer.putShort(lengthAt, (short) value.length());
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toEpochNanos(Instant instant) {
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+
+    private static Instant fromEpochNanos(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND));
+    }
+}
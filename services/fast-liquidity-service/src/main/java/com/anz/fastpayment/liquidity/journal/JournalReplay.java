@@ -0,0 +1,142 @@
+package com.anz.fastpayment.liquidity.journal;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.IdempotencyIndex;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.ledger.ReservationState;
+import com.anz.fastpayment.liquidity.ledger.ShardState;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Journal Replay
+ * 
+ * Folds a snapshot and the journaled mutations after it back into positions, active
+ * reservations and remembered message ids. Every record carries the position's after-state, so replay
+ * never re-runs ledger rules; it only needs records of a shard in sequence order.
+ */
+final class JournalReplay {
+
+    private final Map<PositionKey, PositionState> positions = new HashMap<>();
+    private final Map<HoldKey, ReservationState> reservations = new HashMap<>();
+    private long[] sequences;
+    private long[] snapshotted;
+    private long[] idempotencyEntries = new long[IdempotencyIndex.STRIDE * 1024];
+    private int idempotencyLength;
+    private long replayed;
+
+    private record HoldKey(PositionKey key, String reservationId) {
+    }
+
+    JournalReplay(int shardCount) {
+        this.sequences = new long[shardCount];
+        this.snapshotted = new long[shardCount];
+    }
+
+    void load(SnapshotFile.Contents snapshot) {
+        for (ShardState shard : snapshot.shards()) {
+            for (PositionState position : shard.positions()) {
+                positions.put(position.key(), position);
+            }
+            for (ReservationState reservation : shard.reservations()) {
+                reservations.put(new HoldKey(reservation.key(), reservation.reservationId()), reservation);
+            }
+            long[] entries = shard.idempotencyEntries();
+            ensureIdempotencyCapacity(entries.length);
+            System.arraycopy(entries, 0, idempotencyEntries, idempotencyLength, entries.length);
+            idempotencyLength += entries.length;
+        }
+        sequences = snapshot.sequences();
+        snapshotted = sequences.clone();
+    }
+
+    /**
+     * Last sequence the snapshot reflects for a shard; journal records at or below it are skipped
+     */
+    long sequenceOf(int shard) {
+        return shard < snapshotted.length ? snapshotted[shard] : 0L;
+    }
+
+    /**
+     * Apply one journaled mutation
+     * 
+     * @throws IllegalStateException if the record repeats a sequence already journaled after the snapshot, or
+     *                               does not directly follow the last one applied for its shard
+     */
+    void apply(BalanceMutation mutation) {
+        int shard = mutation.shard();
+        if (shard >= sequences.length) {
+            sequences = Arrays.copyOf(sequences, shard + 1);
+            snapshotted = Arrays.copyOf(snapshotted, shard + 1);
+        }
+        if (mutation.sequence() <= snapshotted[shard]) {
+            return;
+        }
+        long expected = sequences[shard] + 1;
+        if (mutation.sequence() < expected) {
+            // Two records journaled under one sequence; replaying either would lose the other
+            throw new IllegalStateException("Repeated sequence " + mutation.sequence() + " in journal of shard "
+                    + shard + " after sequence " + sequences[shard]);
+        }
+        if (mutation.sequence() != expected) {
+            throw new IllegalStateException("Journal gap on shard " + shard + ": expected sequence "
+                    + expected + " but found " + mutation.sequence());
+        }
+        sequences[shard] = mutation.sequence();
+
+        PositionState previous = positions.get(mutation.key());
+        positions.put(mutation.key(), new PositionState(mutation.key(), mutation.balanceAfter(),
+                mutation.reservedAfter(), mutation.appliedAt(), previous != null ? previous.version() + 1 : 1L));
+
+        if (mutation.reservationId() != null) {
+            HoldKey hold = new HoldKey(mutation.key(), mutation.reservationId());
+            if (mutation.transactionType() == TransactionType.RESERVE) {
+                reservations.put(hold, new ReservationState(mutation.key(), mutation.reservationId(),
+                        Math.abs(mutation.amount()), mutation.reservationExpiresAt()));
+            } else {
+                // Settled by a debit, released, or expired
+                reservations.remove(hold);
+            }
+        }
+        ensureIdempotencyCapacity(IdempotencyIndex.STRIDE);
+        if (IdempotencyIndex.export(mutation, idempotencyEntries, idempotencyLength)) {
+            idempotencyLength += IdempotencyIndex.STRIDE;
+        }
+        replayed++;
+    }
+
+    private void ensureIdempotencyCapacity(int additional) {
+        if (idempotencyLength + additional > idempotencyEntries.length) {
+            idempotencyEntries = Arrays.copyOf(idempotencyEntries,
+                    Math.max(idempotencyEntries.length * 2, idempotencyLength + additional));
+        }
+    }
+
+    Collection<PositionState> positions() {
+        return positions.values();
+    }
+
+    Collection<ReservationState> reservations() {
+        return reservations.values();
+    }
+
+    /**
+     * Remembered message outcomes, snapshot entries first and then in journal order
+     */
+    long[] idempotencyEntries() {
+        return Arrays.copyOf(idempotencyEntries, idempotencyLength);
+    }
+
+    long[] sequences() {
+        return sequences;
+    }
+
+    long replayed() {
+        return replayed;
+    }
+}
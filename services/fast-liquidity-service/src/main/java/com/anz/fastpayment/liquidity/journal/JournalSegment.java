@@ -0,0 +1,111 @@
+package com.anz.fastpayment.liquidity.journal;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal Segment
+ * 
+ * One fixed-size, memory-mapped journal file. Records are appended by the shard
+ * writer thread; {@link #force()} may be called from any thread and only flushes
+ * the range written since the last force.
+ * 
+ * The file name is the sequence of its first record, zero padded, so a directory
+ * listing sorts segments in replay order.
+ */
+final class JournalSegment {
+
+    static final String SUFFIX = ".wal";
+
+    private static final int MAGIC = 0x4C514A4C; // "LQJL"
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+
+    // Written by the writer thread, read by whoever forces
+    private volatile int writePosition = HEADER_SIZE;
+    private volatile int forcedPosition = 0;
+
+    private JournalSegment(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    static Path pathFor(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+    }
+
+    static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    static JournalSegment create(Path directory, int shard, long firstSequence, int size) throws IOException {
+        Path path = pathFor(directory, firstSequence);
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(shard).putLong(firstSequence);
+            buffer.position(HEADER_SIZE);
+            return new JournalSegment(path, buffer);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    boolean hasRoomForRecord() {
+        return buffer.remaining() >= JournalCodec.MAX_RECORD_SIZE;
+    }
+
+    /**
+     * Append a record. Writer thread only.
+     */
+    void append(BalanceMutation mutation, CRC32C crc) {
+        JournalCodec.encode(mutation, buffer, crc);
+        writePosition = buffer.position();
+    }
+
+    /**
+     * Flush everything appended so far to the storage device
+     */
+    void force() {
+        int end = writePosition;
+        int from = forcedPosition;
+        if (end > from) {
+            buffer.force(from, end - from);
+            forcedPosition = end;
+        }
+    }
+
+    /**
+     * Read every intact record of a segment in order
+     * 
+     * @return Whether the segment ended cleanly rather than at a corrupt record
+     */
+    static boolean read(Path path, int shard, Consumer<BalanceMutation> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a journal segment: " + path);
+            }
+            buffer.position(HEADER_SIZE);
+            CRC32C crc = new CRC32C();
+            BalanceMutation mutation;
+            while ((mutation = JournalCodec.decode(shard, buffer, crc)) != null) {
+                consumer.accept(mutation);
+            }
+            return buffer.remaining() < Integer.BYTES || buffer.getInt(buffer.position()) == 0;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.anz.fastpayment.liquidity.journal;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Shard Journal
+ * 
+ * Append-only chain of {@link JournalSegment}s for one ledger shard. Appends and
+ * rolls happen on the shard writer thread, so no locking is needed; the journal
+ * flusher only ever forces the active segment. Once a force has failed the journal
+ * refuses every later append, since what it holds can no longer be trusted to be on disk.
+ */
+final class ShardJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardJournal.class);
+
+    private final int shard;
+    private final Path directory;
+    private final int segmentSize;
+    private final int fsyncBatchSize;
+    private final CRC32C crc = new CRC32C();
+
+    private volatile JournalSegment active;
+    private volatile RuntimeException failure;
+
+    // Writer-thread only
+    private int unforced;
+
+    ShardJournal(int shard, Path directory, int segmentSize, int fsyncBatchSize) {
+        this.shard = shard;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncBatchSize = fsyncBatchSize;
+    }
+
+    static Path directoryFor(Path journalRoot, int shard) {
+        return journalRoot.resolve("shard-" + shard);
+    }
+
+    /**
+     * Start a fresh segment for the next sequence the shard will produce
+     */
+    void open(long nextSequence) throws IOException {
+        Files.createDirectories(directory);
+        active = JournalSegment.create(directory, shard, nextSequence, segmentSize);
+    }
+
+    /**
+     * Journal one mutation, forcing once {@code fsyncBatchSize} mutations are pending.
+     * Writer thread only.
+     * 
+     * @throws RuntimeException if the record could not be written or forced, or an earlier force failed
+     */
+    void append(BalanceMutation mutation) {
+        checkHealthy();
+        JournalSegment segment = active;
+        if (!segment.hasRoomForRecord()) {
+            segment = roll(segment, mutation.sequence());
+        }
+        segment.append(mutation, crc);
+        if (++unforced >= fsyncBatchSize) {
+            force(segment);
+            unforced = 0;
+        }
+    }
+
+    /**
+     * Force pending mutations now. Writer thread only.
+     */
+    void commit() {
+        checkHealthy();
+        if (unforced > 0) {
+            force(active);
+            unforced = 0;
+        }
+    }
+
+    /**
+     * Force pending mutations from a thread other than the writer
+     */
+    void flush() {
+        JournalSegment segment = active;
+        if (segment != null && failure == null) {
+            force(segment);
+        }
+    }
+
+    private void force(JournalSegment segment) {
+        try {
+            segment.force();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    private void checkHealthy() {
+        RuntimeException failed = failure;
+        if (failed != null) {
+            throw new IllegalStateException("Journal of shard " + shard + " failed to force to disk", failed);
+        }
+    }
+
+    private JournalSegment roll(JournalSegment full, long nextSequence) {
+        force(full);
+        try {
+            JournalSegment next = JournalSegment.create(directory, shard, nextSequence, segmentSize);
+            active = next;
+            logger.debug("Shard {} journal rolled to {}", shard, next.path().getFileName());
+            return next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll journal for shard " + shard, e);
+        }
+    }
+
+    /**
+     * Delete segments whose every record is at or below {@code sequence}. A segment is
+     * fully covered when the segment after it starts no later than {@code sequence + 1},
+     * so the active segment is never deleted.
+     */
+    void deleteCoveredBy(long sequence) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (JournalSegment.firstSequenceOf(segments.get(i + 1)) > sequence + 1) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * Segment files of a shard directory in replay order
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(JournalSegment.SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
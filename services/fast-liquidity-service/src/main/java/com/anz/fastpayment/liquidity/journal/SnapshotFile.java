@@ -0,0 +1,187 @@
+package com.anz.fastpayment.liquidity.journal;
+
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.ledger.ReservationState;
+import com.anz.fastpayment.liquidity.ledger.ShardState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot File
+ * 
+ * Full copy of every shard at a consistent per-shard sequence. Written to a temporary
+ * file, forced, then atomically renamed, and closed by a CRC32C of its contents.
+ */
+final class SnapshotFile {
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+
+    private static final int MAGIC = 0x4C51534E; // "LQSN"
+    private static final int VERSION = 2;
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Snapshot contents
+     */
+    record Contents(Path path, Instant createdAt, List<ShardState> shards) {
+
+        long[] sequences() {
+            long[] sequences = new long[shards.size()];
+            for (ShardState shard : shards) {
+                sequences[shard.shard()] = shard.sequence();
+            }
+            return sequences;
+        }
+    }
+
+    static Path write(Path directory, Instant createdAt, List<ShardState> shards) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, createdAt.toEpochMilli(), SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        CRC32C crc = new CRC32C();
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(createdAt.toEpochMilli());
+            out.writeInt(shards.size());
+            for (ShardState shard : shards) {
+                out.writeInt(shard.shard());
+                out.writeLong(shard.sequence());
+                out.writeInt(shard.positions().size());
+                for (PositionState position : shard.positions()) {
+                    writeKey(out, position.key());
+                    out.writeLong(position.balance());
+                    out.writeLong(position.reserved());
+                    out.writeLong(position.lastTransactionAt() != null
+                            ? position.lastTransactionAt().toEpochMilli() : NO_TIMESTAMP);
+                    out.writeLong(position.version());
+                }
+                out.writeInt(shard.reservations().size());
+                for (ReservationState reservation : shard.reservations()) {
+                    writeKey(out, reservation.key());
+                    out.writeUTF(reservation.reservationId());
+                    out.writeLong(reservation.amount());
+                    out.writeLong(reservation.expiresAtMillis());
+                }
+                long[] idempotencyEntries = shard.idempotencyEntries();
+                out.writeInt(idempotencyEntries.length);
+                for (long value : idempotencyEntries) {
+                    out.writeLong(value);
+                }
+            }
+            out.flush();
+            // Trailer is outside the checksum it records
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    /**
+     * Read the newest snapshot in {@code directory}
+     * 
+     * @return The snapshot, or null if none has been written yet
+     * @throws IOException if the newest snapshot is unreadable or fails its checksum
+     */
+    static Contents readLatest(Path directory) throws IOException {
+        List<Path> snapshots = list(directory);
+        return snapshots.isEmpty() ? null : read(snapshots.get(snapshots.size() - 1));
+    }
+
+    static Contents read(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path))) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != VERSION) {
+                throw new IOException("Not a ledger snapshot: " + path);
+            }
+            Instant createdAt = Instant.ofEpochMilli(in.readLong());
+            int shardCount = in.readInt();
+            List<ShardState> shards = new ArrayList<>(shardCount);
+            for (int s = 0; s < shardCount; s++) {
+                int shard = in.readInt();
+                long sequence = in.readLong();
+                int positionCount = in.readInt();
+                List<PositionState> positions = new ArrayList<>(positionCount);
+                for (int i = 0; i < positionCount; i++) {
+                    PositionKey key = readKey(in);
+                    long balance = in.readLong();
+                    long reserved = in.readLong();
+                    long lastTransactionAt = in.readLong();
+                    positions.add(new PositionState(key, balance, reserved,
+                            lastTransactionAt != NO_TIMESTAMP ? Instant.ofEpochMilli(lastTransactionAt) : null,
+                            in.readLong()));
+                }
+                int reservationCount = in.readInt();
+                List<ReservationState> reservations = new ArrayList<>(reservationCount);
+                for (int i = 0; i < reservationCount; i++) {
+                    PositionKey key = readKey(in);
+                    reservations.add(new ReservationState(key, in.readUTF(), in.readLong(), in.readLong()));
+                }
+                long[] idempotencyEntries = new long[in.readInt()];
+                for (int i = 0; i < idempotencyEntries.length; i++) {
+                    idempotencyEntries[i] = in.readLong();
+                }
+                shards.add(new ShardState(shard, sequence, positions, reservations, idempotencyEntries));
+            }
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(file).readInt() != expected) {
+                throw new IOException("Ledger snapshot failed its checksum: " + path);
+            }
+            return new Contents(path, createdAt, shards);
+        }
+    }
+
+    /**
+     * Snapshot files in {@code directory}, oldest first
+     */
+    static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void writeKey(DataOutputStream out, PositionKey key) throws IOException {
+        out.writeUTF(key.participantId());
+        out.writeUTF(key.currency());
+        out.writeUTF(key.countryCode());
+    }
+
+    private static PositionKey readKey(DataInputStream in) throws IOException {
+        return new PositionKey(in.readUTF(), in.readUTF(), in.readUTF());
+    }
+}
@@ -0,0 +1,478 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.model.Amount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Balance Ledger
+ * 
+ * In-memory ledger of participant positions, partitioned by {@link PositionKey} into
+ * single-writer shards. Mutations are queued to the owning shard and applied in order
+ * by its writer thread; reads are served directly from memory without coordination.
+ * Durability attaches through {@link DurableMutationListener}, which a mutation must
+ * pass before it is applied; other side effects attach through
+ * {@link BalanceMutationListener}.
+ * 
+ * Each shard also owns the reservations held against its positions. A single ticker
+ * thread periodically hands every shard an expiry task, so abandoned holds are
+ * released by the same writer that created them.
+ */
+public class BalanceLedger implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceLedger.class);
+
+    private final LedgerShard[] shards;
+    private final long openingBalance;
+    private final long minimumBalance;
+    private final long writeTimeoutNanos;
+    private final ScheduledExecutorService expiryTicker;
+    private final long tickMillis;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicReference<Map<PositionKey, PositionState>> openCut = new AtomicReference<>();
+
+    public BalanceLedger(LiquidityProperties properties, List<BalanceMutationListener> listeners) {
+        LiquidityProperties.Ledger config = properties.getLedger();
+        LiquidityProperties.Reservation reservation = properties.getReservation();
+        LiquidityProperties.Idempotency idempotency = properties.getIdempotency();
+        if (config.getShards() < 1) {
+            throw new IllegalArgumentException("liquidity.ledger.shards must be at least 1");
+        }
+        this.openingBalance = Amount.toUnits(config.getOpeningBalance());
+        this.minimumBalance = Amount.toUnits(config.getMinimumBalance());
+        this.writeTimeoutNanos = config.getWriteTimeout().toNanos();
+
+        List<DurableMutationListener> durable = new ArrayList<>();
+        List<BalanceMutationListener> published = new ArrayList<>();
+        for (BalanceMutationListener listener : listeners) {
+            if (listener instanceof DurableMutationListener recorder) {
+                durable.add(recorder);
+            } else {
+                published.add(listener);
+            }
+        }
+        long tickMillis = reservation.getTick().toMillis();
+        long startMillis = System.currentTimeMillis();
+        int maxIdempotency = idempotency.maxCapacityPerShard(config.getShards());
+        this.shards = new LedgerShard[config.getShards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new LedgerShard(i, config.getQueueCapacity(), openingBalance, minimumBalance,
+                    reservation.getDefaultTtl().toMillis(),
+                    new HashedTimingWheel(reservation.getWheelSize(), tickMillis, startMillis),
+                    new IdempotencyIndex(i, idempotency.getCapacityPerShard(), maxIdempotency,
+                            idempotency.getTtl().toMillis(), startMillis),
+                    List.copyOf(durable), List.copyOf(published));
+        }
+
+        this.expiryTicker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-reservation-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.tickMillis = tickMillis;
+
+        logger.info("Balance ledger started with {} shards, reservation tick {}ms, up to {} message ids per shard per {}",
+                shards.length, tickMillis, maxIdempotency, idempotency.getTtl());
+    }
+
+    /**
+     * Start expiring reservations. Called once the ledger has been restored, so no expiry
+     * is applied to a shard its durable listeners are not yet recording.
+     */
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            expiryTicker.scheduleAtFixedRate(this::tickReservations, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Look up a position without creating it
+     * 
+     * @param key Position key
+     * @return The live position, or null if it has never been referenced
+     */
+    public ParticipantPosition find(PositionKey key) {
+        return shardFor(key).find(key);
+    }
+
+    /**
+     * Current balance of a position in scaled units, or the opening balance if it has never been referenced
+     */
+    public long balanceOf(PositionKey key) {
+        ParticipantPosition position = find(key);
+        return position != null ? position.getBalance() : openingBalance;
+    }
+
+    /**
+     * Apply a mutation on the owning shard and wait for it to be applied and committed
+     * 
+     * @param command Mutation to apply
+     * @return Outcome as decided by the shard writer
+     * @throws LedgerUnavailableException if the shard has stopped, is saturated or does not respond in time
+     */
+    public MutationResult apply(LedgerCommand command) {
+        LedgerShard shard = shardFor(command.key());
+        if (shard.failure() != null) {
+            throw new LedgerUnavailableException("Ledger shard " + shard.index() + " stopped: " + shard.failure());
+        }
+        CompletableFuture<MutationResult> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> shard.applyAndCommit(command), shard.writer());
+        } catch (RejectedExecutionException e) {
+            throw new LedgerUnavailableException("Ledger shard " + shard.index() + " is saturated", e);
+        }
+        return await(future, shard, writeTimeoutNanos);
+    }
+
+    /**
+     * Apply a batch of mutations and wait for all of them. Commands are grouped by
+     * shard, each shard applies its group in list order as one task and then
+     * group-commits once, and shards work on their groups in parallel.
+     * 
+     * A shard that has stopped, is saturated or does not finish its group in time does
+     * not fail the batch: its commands come back {@link MutationResult.Status#UNAVAILABLE}
+     * and the outcomes of the other shards are kept. Every command of one position is in
+     * the same group, so a retry of the unavailable ones keeps each position in order.
+     * 
+     * @param commands Mutations to apply
+     * @return One outcome per command, in the same order
+     * @throws LedgerUnavailableException if no shard could take its part of the batch
+     */
+    public List<MutationResult> applyBatch(List<LedgerCommand> commands) {
+        int size = commands.size();
+        MutationResult[] results = new MutationResult[size];
+
+        // Bucket command indices by shard, preserving list order within each shard
+        int[] shardOf = new int[size];
+        int[] counts = new int[shards.length];
+        for (int i = 0; i < size; i++) {
+            shardOf[i] = shardFor(commands.get(i).key()).index();
+            counts[shardOf[i]]++;
+        }
+        int[][] groups = new int[shards.length][];
+        int[] fill = new int[shards.length];
+        for (int i = 0; i < size; i++) {
+            int shard = shardOf[i];
+            if (groups[shard] == null) {
+                groups[shard] = new int[counts[shard]];
+            }
+            groups[shard][fill[shard]++] = i;
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[shards.length];
+        for (int s = 0; s < shards.length; s++) {
+            LedgerShard shard = shards[s];
+            int[] group = groups[s];
+            if (group == null || shard.failure() != null) {
+                continue;
+            }
+            try {
+                futures[s] = CompletableFuture.runAsync(
+                        () -> shard.applyGroup(commands, group, results), shard.writer());
+            } catch (RejectedExecutionException e) {
+                logger.warn("Ledger shard {} is saturated; {} commands of a batch left unavailable", s, group.length);
+            }
+        }
+
+        // Only a group whose task completed may report outcomes; the rest may still be running
+        long deadline = System.nanoTime() + writeTimeoutNanos;
+        boolean[] completed = new boolean[shards.length];
+        LedgerUnavailableException unavailable = null;
+        int completedGroups = 0;
+        for (int s = 0; s < shards.length; s++) {
+            if (groups[s] == null) {
+                continue;
+            }
+            if (futures[s] == null) {
+                unavailable = new LedgerUnavailableException("Ledger shard " + s + " did not take its part of the batch");
+                continue;
+            }
+            try {
+                await(futures[s], shards[s], Math.max(0L, deadline - System.nanoTime()));
+                completed[s] = true;
+                completedGroups++;
+            } catch (LedgerUnavailableException e) {
+                unavailable = e;
+                logger.warn("{}; {} commands of a batch left unavailable", e.getMessage(), groups[s].length);
+            }
+        }
+        if (completedGroups == 0 && unavailable != null) {
+            throw unavailable;
+        }
+
+        List<MutationResult> outcomes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            outcomes.add(completed[shardOf[i]] ? results[i]
+                    : MutationResult.unavailable(balanceOf(commands.get(i).key())));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Capture a consistent cut of one shard on its writer thread
+     * 
+     * @param shard Shard index
+     * @return Future completing with the shard's state once the writer reaches the capture task
+     */
+    public CompletableFuture<ShardState> capture(int shard) {
+        LedgerShard target = shards[shard];
+        try {
+            return CompletableFuture.supplyAsync(target::capture, target.writer());
+        } catch (RejectedExecutionException e) {
+            throw new LedgerUnavailableException("Ledger shard " + shard + " is saturated", e);
+        }
+    }
+
+    /**
+     * Open a consistent cut across all shards without stopping them. Each writer records
+     * its cut sequence and notifies {@link BalanceMutationListener#onCut} when it reaches
+     * the marker, then carries on; this waits until every shard has done so.
+     * 
+     * @param timeout Longest to wait for all shards to reach the marker
+     * @return The open cut, to be closed by the caller
+     * @throws IllegalStateException if another cut is already open
+     * @throws LedgerUnavailableException if a shard is saturated or does not reach the marker in time
+     */
+    public LedgerCut openCut(Duration timeout) {
+        Map<PositionKey, PositionState> images = new ConcurrentHashMap<>();
+        if (!openCut.compareAndSet(null, images)) {
+            throw new IllegalStateException("A ledger cut is already open");
+        }
+        try {
+            List<CompletableFuture<Long>> futures = new ArrayList<>(shards.length);
+            for (LedgerShard shard : shards) {
+                try {
+                    futures.add(CompletableFuture.supplyAsync(() -> shard.openCut(images, openCut), shard.writer()));
+                } catch (RejectedExecutionException e) {
+                    throw new LedgerUnavailableException("Ledger shard " + shard.index() + " is saturated", e);
+                }
+            }
+            long deadline = System.nanoTime() + timeout.toNanos();
+            long[] sequences = new long[shards.length];
+            for (LedgerShard shard : shards) {
+                sequences[shard.index()] = await(futures.get(shard.index()), shard,
+                        Math.max(0L, deadline - System.nanoTime()));
+            }
+            return new LedgerCut(this, images, sequences, Instant.now());
+        } catch (RuntimeException e) {
+            closeCut(images);
+            throw e;
+        }
+    }
+
+    void closeCut(Map<PositionKey, PositionState> images) {
+        if (openCut.compareAndSet(images, null)) {
+            for (LedgerShard shard : shards) {
+                shard.closeCut();
+            }
+        }
+    }
+
+    LedgerShard shard(int index) {
+        return shards[index];
+    }
+
+    /**
+     * Load recovered positions, reservations and remembered message ids, routing each to the shard that owns
+     * it under the current shard count. Intended for startup, or for a cluster node taking
+     * positions over, before traffic for them is accepted.
+     * 
+     * @param positions Recovered positions
+     * @param reservations Recovered active reservations
+     * @param idempotencyEntries Remembered message outcomes, {@link IdempotencyIndex#STRIDE} longs each, oldest first
+     * @param shardSequences Last applied sequence per shard, or null to start sequences afresh
+     *                       (for example because the shard count changed)
+     */
+    public void restore(Collection<PositionState> positions, Collection<ReservationState> reservations,
+                        long[] idempotencyEntries, long[] shardSequences) {
+        List<List<PositionState>> positionsByShard = new ArrayList<>(shards.length);
+        List<List<ReservationState>> reservationsByShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            positionsByShard.add(new ArrayList<>());
+            reservationsByShard.add(new ArrayList<>());
+        }
+        for (PositionState position : positions) {
+            positionsByShard.get(shardFor(position.key()).index()).add(position);
+        }
+        for (ReservationState reservation : reservations) {
+            reservationsByShard.get(shardFor(reservation.key()).index()).add(reservation);
+        }
+        long[][] idempotencyByShard = partitionIdempotency(idempotencyEntries);
+
+        for (LedgerShard shard : shards) {
+            int i = shard.index();
+            long sequence = shardSequences != null && shardSequences.length == shards.length ? shardSequences[i] : 0L;
+            CompletableFuture<Void> future = CompletableFuture.runAsync(
+                    () -> shard.restore(positionsByShard.get(i), reservationsByShard.get(i),
+                            idempotencyByShard[i], sequence), shard.writer());
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LedgerUnavailableException("Interrupted restoring ledger shard " + i, e);
+            } catch (ExecutionException e) {
+                throw new LedgerUnavailableException("Failed to restore ledger shard " + i, e.getCause());
+            }
+        }
+        logger.info("Restored {} positions, {} reservations and {} message ids into {} shards",
+                positions.size(), reservations.size(), idempotencyEntries.length / IdempotencyIndex.STRIDE,
+                shards.length);
+    }
+
+    /**
+     * Drop the positions selected by {@code keys}, with their reservations, from every
+     * shard, once traffic for them has stopped
+     * 
+     * @return Number of positions dropped
+     * @throws LedgerUnavailableException if a shard is saturated or does not finish in time
+     */
+    public int evict(Predicate<PositionKey> keys) {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(shards.length);
+        for (LedgerShard shard : shards) {
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> shard.evict(keys), shard.writer()));
+            } catch (RejectedExecutionException e) {
+                throw new LedgerUnavailableException("Ledger shard " + shard.index() + " is saturated", e);
+            }
+        }
+        int evicted = 0;
+        for (LedgerShard shard : shards) {
+            evicted += await(futures.get(shard.index()), shard, writeTimeoutNanos);
+        }
+        return evicted;
+    }
+
+    private long[][] partitionIdempotency(long[] entries) {
+        int[] counts = new int[shards.length];
+        for (int offset = 0; offset < entries.length; offset += IdempotencyIndex.STRIDE) {
+            counts[Math.floorMod(IdempotencyIndex.routeOf(entries, offset), shards.length)]++;
+        }
+        long[][] partitions = new long[shards.length][];
+        for (int i = 0; i < shards.length; i++) {
+            partitions[i] = new long[counts[i] * IdempotencyIndex.STRIDE];
+            counts[i] = 0;
+        }
+        for (int offset = 0; offset < entries.length; offset += IdempotencyIndex.STRIDE) {
+            int shard = Math.floorMod(IdempotencyIndex.routeOf(entries, offset), shards.length);
+            System.arraycopy(entries, offset, partitions[shard], counts[shard], IdempotencyIndex.STRIDE);
+            counts[shard] += IdempotencyIndex.STRIDE;
+        }
+        return partitions;
+    }
+
+    public long getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public long getMinimumBalance() {
+        return minimumBalance;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Shard that owns a position
+     */
+    public int shardOf(PositionKey key) {
+        return shardFor(key).index();
+    }
+
+    /**
+     * Why the ledger has stopped taking writes on some shard, or null while every shard is running
+     */
+    public String failure() {
+        for (LedgerShard shard : shards) {
+            String failure = shard.failure();
+            if (failure != null) {
+                return "shard " + shard.index() + ": " + failure;
+            }
+        }
+        return null;
+    }
+
+    public int getQueueDepth(int shard) {
+        return shards[shard].queueDepth();
+    }
+
+    public int getPositionCount(int shard) {
+        return shards[shard].positionCount();
+    }
+
+    /**
+     * Times the shard forgot message ids before their TTL because its idempotency index was full
+     */
+    public long getEarlyIdempotencyRotations(int shard) {
+        return shards[shard].earlyIdempotencyRotations();
+    }
+
+    @Override
+    public void close() {
+        expiryTicker.shutdownNow();
+        for (LedgerShard shard : shards) {
+            shard.writer().shutdown();
+        }
+        for (LedgerShard shard : shards) {
+            try {
+                if (!shard.writer().awaitTermination(5, TimeUnit.SECONDS)) {
+                    logger.warn("Ledger shard {} did not drain within 5s", shard.index());
+                    shard.writer().shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                shard.writer().shutdownNow();
+            }
+        }
+        logger.info("Balance ledger stopped");
+    }
+
+    private void tickReservations() {
+        for (LedgerShard shard : shards) {
+            try {
+                shard.writer().execute(shard.expiryTask());
+            } catch (RejectedExecutionException e) {
+                // Shard saturated or stopping; the wheel catches up on the next tick
+            }
+        }
+    }
+
+    LedgerShard shardFor(PositionKey key) {
+        return shards[Math.floorMod(key.spreadHash(), shards.length)];
+    }
+
+    private <T> T await(CompletableFuture<T> future, LedgerShard shard, long timeoutNanos) {
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new LedgerUnavailableException("Ledger shard " + shard.index() + " did not respond in time", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LedgerUnavailableException("Interrupted waiting for ledger shard " + shard.index(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new LedgerUnavailableException("Ledger shard " + shard.index() + " failed", e.getCause());
+        }
+    }
+}
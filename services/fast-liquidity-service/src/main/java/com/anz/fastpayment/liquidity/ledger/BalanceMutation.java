@@ -0,0 +1,29 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import com.anz.fastpayment.liquidity.model.TransactionType;
+
+import java.time.Instant;
+
+/**
+ * Balance Mutation
+ * 
+ * Event describing a mutation that has just been applied to a position.
+ * Amounts are scaled units; {@code sequence} is strictly increasing per shard.
+ * A RELEASE with no message id is a reservation expiring on its own.
+ * {@code reservationExpiresAt} is epoch millis for RESERVE and 0 otherwise.
+ */
+public record BalanceMutation(int shard,
+                              long sequence,
+                              PositionKey key,
+                              TransactionType transactionType,
+                              long amount,
+                              long balanceBefore,
+                              long balanceAfter,
+                              long reservedAfter,
+                              String reservationId,
+                              long reservationExpiresAt,
+                              String messageId,
+                              String reference,
+                              String transactionId,
+                              Instant appliedAt) {
+}
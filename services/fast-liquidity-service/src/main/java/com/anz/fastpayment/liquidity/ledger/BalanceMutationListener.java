@@ -0,0 +1,52 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import java.util.Collection;
+
+/**
+ * Balance Mutation Listener
+ * 
+ * Side-channel hook for everything that hangs off the ledger (durability, caching,
+ * alerting, streaming). Invoked on the shard writer thread right after a mutation is
+ * applied, so implementations must be fast and must never block. A failing listener
+ * is logged and skipped; the ledger never stalls for it. Listeners the ledger cannot
+ * acknowledge a mutation without implement {@link DurableMutationListener} instead.
+ */
+public interface BalanceMutationListener {
+
+    /**
+     * Called once for every applied mutation, in shard sequence order
+     * 
+     * @param mutation The mutation that was applied
+     */
+    void onMutation(BalanceMutation mutation);
+
+    /**
+     * Called on the shard writer thread after all mutations of one batch have been
+     * applied on that shard. Durable listeners flush here so a batch costs one write.
+     * 
+     * @param shard Shard that finished applying its part of the batch
+     */
+    default void onGroupCommit(int shard) {
+    }
+
+    /**
+     * Called on the shard writer thread when a {@link LedgerCut} is opened: every
+     * mutation up to and including {@code sequence} is inside the cut, every later one
+     * is after it
+     * 
+     * @param shard Shard the cut was taken on
+     * @param sequence Last sequence of the shard included in the cut
+     */
+    default void onCut(int shard, long sequence) {
+    }
+
+    /**
+     * Called on the shard writer thread after recovered or taken-over positions were
+     * loaded into the shard. They arrive as state, not as mutations.
+     * 
+     * @param shard Shard the positions were loaded into
+     * @param positions The loaded positions
+     */
+    default void onRestore(int shard, Collection<PositionState> positions) {
+    }
+}
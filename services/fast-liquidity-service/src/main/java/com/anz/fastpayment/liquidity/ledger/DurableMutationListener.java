@@ -0,0 +1,63 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+/**
+ * Durable Mutation Listener
+ *
+ * A {@link BalanceMutationListener} that records mutations the ledger must not
+ * acknowledge without. It is called on the shard writer thread before the mutation is
+ * applied in memory, and its failures are not swallowed: the command is refused and
+ * the shard stops taking writes, because an acknowledged change it failed to record
+ * would be lost on the next restart.
+ *
+ * A {@link LedgerUnavailableException} from {@link #prepare} or {@link #onCommit} is
+ * the one exception to that rule: it refuses the command (or the outcome of the task)
+ * but leaves the shard running, for a listener that can only record some positions
+ * right now and takes care of the rest itself. Every listener is prepared before any of
+ * them records the mutation, so a refusal never leaves it recorded by another.
+ */
+public interface DurableMutationListener extends BalanceMutationListener {
+
+    /**
+     * Check that a mutation can be recorded, before any listener records it
+     *
+     * @param mutation The mutation about to be recorded
+     * @throws LedgerUnavailableException if the mutation cannot be recorded here right now;
+     *                                    it is then refused and not applied
+     */
+    default void prepare(BalanceMutation mutation) {
+    }
+
+    /**
+     * Record a mutation before it is applied
+     *
+     * @param mutation The mutation about to be applied
+     * @throws RuntimeException if the mutation could not be recorded; it is then not applied
+     *                          and the shard stops, since other listeners may have recorded it
+     */
+    @Override
+    void onMutation(BalanceMutation mutation);
+
+    /**
+     * Make every mutation recorded so far for the shard durable
+     *
+     * @throws RuntimeException if that is not possible; the batch is then not acknowledged
+     */
+    @Override
+    default void onGroupCommit(int shard) {
+    }
+
+    /**
+     * Called on the writer thread after every task that may have applied mutations (a
+     * single command, a batch once it has group-committed, an expiry tick) and before
+     * any of its outcomes is returned. A listener that records asynchronously waits here,
+     * so a single command is acknowledged on the same terms as a batch.
+     *
+     * @throws LedgerUnavailableException if some of the task's mutations were not recorded;
+     *                                    its outcomes are not acknowledged, and the listener
+     *                                    must see to it that the positions concerned are
+     *                                    discarded rather than served
+     * @throws RuntimeException if the mutations could not be recorded; the shard then stops
+     */
+    default void onCommit(int shard) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed Timing Wheel
+ * 
+ * Expires large numbers of timeouts in O(1) per schedule/cancel without a task or
+ * heap node per timeout. Entries are intrusive (they carry their own links), are
+ * hashed into {@code wheelSize} buckets by deadline tick, and are collected as the
+ * wheel is advanced. Entries more than one revolution out simply stay in their
+ * bucket until their deadline tick is reached.
+ * 
+ * Not thread-safe: owned and advanced by a single shard writer thread.
+ */
+final class HashedTimingWheel {
+
+    /**
+     * Base class for anything that can be scheduled on the wheel
+     */
+    abstract static class Entry {
+        private long deadlineTick;
+        private Entry prev;
+        private Entry next;
+        private boolean scheduled;
+
+        boolean isScheduled() {
+            return scheduled;
+        }
+    }
+
+    private final Entry[] buckets;
+    private final int mask;
+    private final long tickMillis;
+    private final long startMillis;
+
+    private long currentTick;
+    private int size;
+
+    HashedTimingWheel(int wheelSize, long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.buckets = new Entry[capacity];
+        this.mask = capacity - 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Schedule an entry to expire at (or within one tick after) {@code deadlineMillis}
+     */
+    void schedule(Entry entry, long deadlineMillis) {
+        if (entry.scheduled) {
+            cancel(entry);
+        }
+        long elapsed = Math.max(0L, deadlineMillis - startMillis);
+        long tick = Math.max((elapsed + tickMillis - 1) / tickMillis, currentTick + 1);
+        entry.deadlineTick = tick;
+
+        int index = (int) (tick & mask);
+        Entry head = buckets[index];
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        buckets[index] = entry;
+        entry.scheduled = true;
+        size++;
+    }
+
+    /**
+     * Remove an entry before it expires; a no-op if it is not scheduled
+     */
+    void cancel(Entry entry) {
+        if (!entry.scheduled) {
+            return;
+        }
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            buckets[(int) (entry.deadlineTick & mask)] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.scheduled = false;
+        size--;
+    }
+
+    /**
+     * Advance the wheel to {@code nowMillis}, handing every due entry to {@code expired}.
+     * Catches up correctly after a stall longer than a full revolution.
+     * 
+     * @return Number of entries expired
+     */
+    int advance(long nowMillis, Consumer<Entry> expired) {
+        long targetTick = Math.max(0L, nowMillis - startMillis) / tickMillis;
+        if (targetTick <= currentTick) {
+            return 0;
+        }
+        long steps = Math.min(targetTick - currentTick, buckets.length);
+        int count = 0;
+        for (long step = 1; step <= steps; step++) {
+            int index = (int) ((currentTick + step) & mask);
+            Entry entry = buckets[index];
+            while (entry != null) {
+                Entry next = entry.next;
+                if (entry.deadlineTick <= targetTick) {
+                    cancel(entry);
+                    expired.accept(entry);
+                    count++;
+                }
+                entry = next;
+            }
+        }
+        currentTick = targetTick;
+        return count;
+    }
+
+    int size() {
+        return size;
+    }
+}
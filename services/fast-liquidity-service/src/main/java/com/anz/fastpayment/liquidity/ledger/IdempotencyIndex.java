@@ -0,0 +1,315 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Idempotency Index
+ * 
+ * Remembers the outcome of every applied command by participant and message id, so a
+ * redelivered or retried message returns its original result instead of being applied
+ * twice. Owned by a shard writer thread.
+ * 
+ * Entries are open-addressed in flat {@code long[]} tables, {@link #STRIDE} longs per slot:
+ * a 96-bit fingerprint of participant and message id, the position's routing hash, and the
+ * balances before and after. No strings are retained. Two generations are kept; the current
+ * one is retired after {@code ttl}, so an id is remembered for at least {@code ttl}.
+ * 
+ * A generation starts with room for {@code initialCapacity} ids and doubles whenever it
+ * fills, up to {@code maxCapacity}. Only a generation full at {@code maxCapacity} is
+ * retired early; that shortens retention below {@code ttl}, so every such rotation is
+ * logged and counted in {@link #earlyRotations()}.
+ */
+public final class IdempotencyIndex {
+
+    /**
+     * Longs per entry in tables and in exported state
+     */
+    public static final int STRIDE = 4;
+
+    private static final int FINGERPRINT = 0;
+    private static final int FINGERPRINT_AND_ROUTE = 1;
+    private static final int BALANCE_BEFORE = 2;
+    private static final int BALANCE_AFTER = 3;
+
+    private static final long ROUTE_MASK = 0xFFFF_FFFFL;
+
+    // Largest table whose long[] still fits in an array
+    private static final int MAX_SLOTS = 1 << 28;
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyIndex.class);
+
+    // Independent seed and multiplier per half of the fingerprint
+    private static final long SEED_HIGH = 0xCBF2_9CE4_8422_2325L;
+    private static final long PRIME_HIGH = 0x100_0000_01B3L;
+    private static final long SEED_LOW = 0xC2B2_AE3D_27D4_EB4FL;
+    private static final long PRIME_LOW = 0x9E37_79B9_7F4A_7C15L;
+
+    private final int shard;
+    private final int maxCapacity;
+    private final long ttlMillis;
+
+    private long[] current;
+    private long[] previous;
+    private int currentSize;
+    private int previousSize;
+    private long rotatedAtMillis;
+    private long rotateAtMillis;
+
+    // Written by the owning writer thread only
+    private volatile long earlyRotations;
+
+    IdempotencyIndex(int shard, int initialCapacity, int maxCapacity, long ttlMillis, long nowMillis) {
+        if (initialCapacity < 1 || maxCapacity < initialCapacity) {
+            throw new IllegalArgumentException("Idempotency capacity must be at least 1 and at most its maximum");
+        }
+        this.shard = shard;
+        this.maxCapacity = Math.min(maxCapacity, capacityOf(MAX_SLOTS));
+        this.ttlMillis = ttlMillis;
+        this.current = new long[slotsFor(initialCapacity) * STRIDE];
+        this.previous = new long[current.length];
+        this.rotatedAtMillis = nowMillis;
+        this.rotateAtMillis = nowMillis + ttlMillis;
+    }
+
+    /**
+     * Slots holding {@code capacity} ids at a load factor of at most 0.75
+     */
+    static int slotsFor(int capacity) {
+        long wanted = Math.max(2L, (capacity * 4L + 2L) / 3L);
+        return (int) Math.min(MAX_SLOTS, Long.highestOneBit(wanted - 1L) << 1);
+    }
+
+    private static int capacityOf(int slots) {
+        return slots - slots / 4;
+    }
+
+    /**
+     * Upper 64 bits of the fingerprint for a participant and message id
+     */
+    public static long fingerprintHigh(String participantId, String messageId) {
+        return hash(participantId, messageId, SEED_HIGH, PRIME_HIGH);
+    }
+
+    /**
+     * Lower 64 bits of the fingerprint, of which only the upper 32 are kept
+     */
+    public static long fingerprintLow(String participantId, String messageId) {
+        return hash(participantId, messageId, SEED_LOW, PRIME_LOW);
+    }
+
+    /**
+     * Write the exported form of an applied mutation's entry into {@code target}
+     * 
+     * @return Whether the mutation carries a message id and so has an entry
+     */
+    public static boolean export(BalanceMutation mutation, long[] target, int offset) {
+        if (mutation.messageId() == null) {
+            return false;
+        }
+        String participantId = mutation.key().participantId();
+        target[offset + FINGERPRINT] = fingerprintHigh(participantId, mutation.messageId());
+        target[offset + FINGERPRINT_AND_ROUTE] = withRoute(
+                fingerprintLow(participantId, mutation.messageId()), mutation.key().spreadHash());
+        target[offset + BALANCE_BEFORE] = mutation.balanceBefore();
+        target[offset + BALANCE_AFTER] = mutation.balanceAfter();
+        return true;
+    }
+
+    /**
+     * Routing hash of an exported entry, for placing it on a shard
+     */
+    static int routeOf(long[] entries, int offset) {
+        return (int) (entries[offset + FINGERPRINT_AND_ROUTE] & ROUTE_MASK);
+    }
+
+    /**
+     * Original outcome of a message, or null if it has not been applied within the TTL
+     */
+    MutationResult find(PositionKey key, String messageId) {
+        long high = fingerprintHigh(key.participantId(), messageId);
+        long low = withRoute(fingerprintLow(key.participantId(), messageId), key.spreadHash());
+        int slot = probe(current, high, low);
+        if (occupied(current, slot)) {
+            return MutationResult.duplicate(current[slot + BALANCE_BEFORE], current[slot + BALANCE_AFTER]);
+        }
+        slot = probe(previous, high, low);
+        if (occupied(previous, slot)) {
+            return MutationResult.duplicate(previous[slot + BALANCE_BEFORE], previous[slot + BALANCE_AFTER]);
+        }
+        return null;
+    }
+
+    /**
+     * Remember an applied command's outcome
+     */
+    void record(PositionKey key, String messageId, long balanceBefore, long balanceAfter) {
+        long high = fingerprintHigh(key.participantId(), messageId);
+        long low = withRoute(fingerprintLow(key.participantId(), messageId), key.spreadHash());
+        put(high, low, balanceBefore, balanceAfter);
+    }
+
+    /**
+     * Retire the older generation if the current one has reached its TTL
+     * 
+     * @return Number of entries dropped
+     */
+    int rotateIfDue(long nowMillis) {
+        return nowMillis >= rotateAtMillis ? rotate(nowMillis) : 0;
+    }
+
+    int size() {
+        return currentSize + previousSize;
+    }
+
+    /**
+     * Generations retired before their TTL because they were full at the maximum capacity
+     */
+    long earlyRotations() {
+        return earlyRotations;
+    }
+
+    /**
+     * Every live entry, oldest generation first, {@link #STRIDE} longs each
+     */
+    long[] export() {
+        long[] entries = new long[size() * STRIDE];
+        int offset = copyOccupied(previous, entries, 0);
+        copyOccupied(current, entries, offset);
+        return entries;
+    }
+
+    /**
+     * Load exported entries, oldest first, into the current generation
+     */
+    void load(long[] entries, int offset, int length) {
+        for (int i = offset; i < offset + length; i += STRIDE) {
+            put(entries[i + FINGERPRINT], entries[i + FINGERPRINT_AND_ROUTE],
+                    entries[i + BALANCE_BEFORE], entries[i + BALANCE_AFTER]);
+        }
+    }
+
+    private void put(long high, long low, long balanceBefore, long balanceAfter) {
+        if (currentSize >= Math.min(maxCapacity, capacityOf(current.length / STRIDE))) {
+            if (currentSize < maxCapacity) {
+                grow();
+            } else {
+                rotateEarly(System.currentTimeMillis());
+            }
+        }
+        int slot = probe(current, high, low);
+        if (!occupied(current, slot)) {
+            currentSize++;
+        }
+        current[slot + FINGERPRINT] = high;
+        current[slot + FINGERPRINT_AND_ROUTE] = low;
+        current[slot + BALANCE_BEFORE] = balanceBefore;
+        current[slot + BALANCE_AFTER] = balanceAfter;
+    }
+
+    /**
+     * Double the current generation and rehash its entries
+     */
+    private void grow() {
+        long[] old = current;
+        current = new long[old.length * 2];
+        for (int slot = 0; slot < old.length; slot += STRIDE) {
+            if (occupied(old, slot)) {
+                int target = probe(current, old[slot + FINGERPRINT], old[slot + FINGERPRINT_AND_ROUTE]);
+                System.arraycopy(old, slot, current, target, STRIDE);
+            }
+        }
+        logger.info("Shard {} idempotency index grew to {} ids per generation",
+                shard, capacityOf(current.length / STRIDE));
+    }
+
+    /**
+     * Bounded memory wins over retention; the oldest generation is dropped before its TTL
+     */
+    private void rotateEarly(long nowMillis) {
+        earlyRotations++;
+        logger.warn("Shard {} idempotency index is full at {} ids after {}s of its {}s TTL; forgetting {} ids early. "
+                        + "Raise liquidity.idempotency.expected-rate or max-capacity-per-shard",
+                shard, currentSize, (nowMillis - rotatedAtMillis) / 1000L, ttlMillis / 1000L, previousSize);
+        rotate(nowMillis);
+    }
+
+    private int rotate(long nowMillis) {
+        int dropped = previousSize;
+        long[] retired = previous;
+        Arrays.fill(retired, 0L);
+        previous = current;
+        previousSize = currentSize;
+        current = retired;
+        currentSize = 0;
+        rotatedAtMillis = nowMillis;
+        rotateAtMillis = nowMillis + ttlMillis;
+        return dropped;
+    }
+
+    /**
+     * Linear probe for the entry or the empty slot where it would go
+     */
+    private static int probe(long[] table, long high, long low) {
+        int mask = table.length / STRIDE - 1;
+        int index = (int) (high ^ (high >>> 32)) & mask;
+        while (true) {
+            int slot = index * STRIDE;
+            long h = table[slot + FINGERPRINT];
+            long l = table[slot + FINGERPRINT_AND_ROUTE];
+            if ((h == 0L && l == 0L) || (h == high && l == low)) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private static boolean occupied(long[] table, int slot) {
+        return table[slot + FINGERPRINT] != 0L || table[slot + FINGERPRINT_AND_ROUTE] != 0L;
+    }
+
+    private static int copyOccupied(long[] table, long[] target, int offset) {
+        for (int slot = 0; slot < table.length; slot += STRIDE) {
+            if (occupied(table, slot)) {
+                System.arraycopy(table, slot, target, offset, STRIDE);
+                offset += STRIDE;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Keep the upper half of the low fingerprint word and put the routing hash in the lower half.
+     * The result is never zero, as zero marks an empty slot.
+     */
+    private static long withRoute(long low, int route) {
+        long combined = (low & ~ROUTE_MASK) | (route & ROUTE_MASK);
+        return combined != 0L ? combined : 1L << 32;
+    }
+
+    private static long hash(String participantId, String messageId, long seed, long prime) {
+        long h = seed ^ participantId.length();
+        for (int i = 0; i < participantId.length(); i++) {
+            h = (h ^ participantId.charAt(i)) * prime;
+        }
+        h = (h ^ '|') * prime;
+        for (int i = 0; i < messageId.length(); i++) {
+            h = (h ^ messageId.charAt(i)) * prime;
+        }
+        return mix(h ^ messageId.length() ^ seed);
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51_AFD7_ED55_8CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CE_B9FE_1A85_EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
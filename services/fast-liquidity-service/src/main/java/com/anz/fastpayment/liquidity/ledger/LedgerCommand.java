@@ -0,0 +1,33 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import com.anz.fastpayment.liquidity.model.TransactionType;
+
+import java.util.Objects;
+
+/**
+ * Ledger Command
+ * 
+ * A single balance mutation to be applied by the shard that owns {@code key}.
+ * The amount is in signed scaled units: negative for debits, positive for credits.
+ * RESERVE, RELEASE and reservation-settling DEBITs identify the hold by
+ * {@link #reservationId()}.
+ */
+public record LedgerCommand(PositionKey key,
+                            TransactionType transactionType,
+                            long amount,
+                            String messageId,
+                            String reference,
+                            String transactionId) {
+
+    public LedgerCommand {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(transactionType, "transactionType");
+    }
+
+    /**
+     * The business reference identifies a reservation; the message id is the fallback
+     */
+    public String reservationId() {
+        return reference != null ? reference : messageId;
+    }
+}
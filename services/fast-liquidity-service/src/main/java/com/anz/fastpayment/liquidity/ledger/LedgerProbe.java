@@ -0,0 +1,35 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import com.anz.fastpayment.common.health.DependencyProbe;
+
+import java.time.Duration;
+
+/**
+ * Ledger Probe
+ * 
+ * Reports the ledger DOWN once any shard has stopped taking writes because a mutation
+ * could not be recorded durably. Reads only in-memory state.
+ */
+public class LedgerProbe implements DependencyProbe {
+
+    public static final String NAME = "ledger";
+
+    private final BalanceLedger ledger;
+
+    public LedgerProbe(BalanceLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void probe(Duration timeout) {
+        String failure = ledger.failure();
+        if (failure != null) {
+            throw new IllegalStateException("Ledger stopped taking writes on " + failure);
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import com.anz.fastpayment.liquidity.model.ErrorResponse;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Ledger Shard
+ * 
+ * Owns a disjoint subset of positions and their reservations. All mutations for
+ * those positions, including reservation expiry, are executed on a single dedicated
+ * writer thread, so position state is never contended; reads go straight to the
+ * position map from any thread.
+ * 
+ * Every mutation is handed to the {@link DurableMutationListener}s before it touches
+ * memory, and every writer task commits them before its outcomes are returned. If one
+ * of them fails the command is refused and the shard stops: every later command is
+ * refused with {@link LedgerUnavailableException} until the process is restarted and
+ * recovers from what was recorded.
+ */
+final class LedgerShard {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerShard.class);
+
+    private final int index;
+    private final long openingBalance;
+    private final long minimumBalance;
+    private final long reservationTtlMillis;
+    private final List<DurableMutationListener> durable;
+    private final List<BalanceMutationListener> listeners;
+
+    private final Map<PositionKey, ParticipantPosition> positions = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor writer;
+
+    // Writer-thread only
+    private final Map<Reservation.ReservationKey, Reservation> reservations = new HashMap<>();
+    private final HashedTimingWheel expiryWheel;
+    private final Consumer<HashedTimingWheel.Entry> onExpired = entry -> expire((Reservation) entry);
+    private final Runnable expiryTask = this::expireReservations;
+    private final IdempotencyIndex idempotency;
+    private long sequence;
+
+    // Pre-images of positions first written after the open cut, or null when no cut is
+    // open; written by the writer thread, read by whoever reads the cut
+    private volatile Map<PositionKey, PositionState> cutImages;
+
+    // Why the shard stopped taking writes, or null while it is running
+    private volatile String failure;
+
+    LedgerShard(int index, int queueCapacity, long openingBalance, long minimumBalance,
+                long reservationTtlMillis, HashedTimingWheel expiryWheel, IdempotencyIndex idempotency,
+                List<DurableMutationListener> durable, List<BalanceMutationListener> listeners) {
+        this.index = index;
+        this.openingBalance = openingBalance;
+        this.minimumBalance = minimumBalance;
+        this.reservationTtlMillis = reservationTtlMillis;
+        this.expiryWheel = expiryWheel;
+        this.idempotency = idempotency;
+        this.durable = durable;
+        this.listeners = listeners;
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ledger-shard-" + index);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    int index() {
+        return index;
+    }
+
+    ThreadPoolExecutor writer() {
+        return writer;
+    }
+
+    /**
+     * Task that advances the expiry wheel; submitted to the writer by the ledger ticker
+     */
+    Runnable expiryTask() {
+        return expiryTask;
+    }
+
+    ParticipantPosition find(PositionKey key) {
+        return positions.get(key);
+    }
+
+    int positionCount() {
+        return positions.size();
+    }
+
+    Collection<ParticipantPosition> positions() {
+        return positions.values();
+    }
+
+    int queueDepth() {
+        return writer.getQueue().size();
+    }
+
+    long earlyIdempotencyRotations() {
+        return idempotency.earlyRotations();
+    }
+
+    /**
+     * Why this shard stopped taking writes, or null while it is running; safe from any thread
+     */
+    String failure() {
+        return failure;
+    }
+
+    /**
+     * Apply a command to its position. Must only be called on this shard's writer thread.
+     * A message already applied within the idempotency TTL is not applied again; its
+     * original outcome is returned as a duplicate. Rejections are not remembered, so a
+     * rejected message may be retried. An amount that would overflow the position is
+     * rejected as {@code INVALID_AMOUNT}.
+     * 
+     * @throws LedgerUnavailableException if the shard has stopped, or stops because the
+     *                                    mutation could not be recorded durably
+     */
+    MutationResult apply(LedgerCommand command) {
+        if (failure != null) {
+            throw stopped();
+        }
+        String messageId = command.messageId();
+        if (messageId != null) {
+            MutationResult original = idempotency.find(command.key(), messageId);
+            if (original != null) {
+                return original;
+            }
+        }
+
+        ParticipantPosition position = positions.computeIfAbsent(command.key(),
+                key -> new ParticipantPosition(key, openingBalance));
+
+        MutationResult result;
+        try {
+            result = switch (command.transactionType()) {
+                case RESERVE -> reserve(position, command);
+                case RELEASE -> release(position, command);
+                case DEBIT, CREDIT -> post(position, command);
+            };
+        } catch (ArithmeticException e) {
+            // Overflow is detected before anything is recorded or applied
+            return MutationResult.rejected(position.getBalance(), ErrorResponse.ErrorCodes.INVALID_AMOUNT);
+        }
+        if (messageId != null && result.isApplied()) {
+            idempotency.record(command.key(), messageId, result.balanceBefore(), result.balanceAfter());
+        }
+        return result;
+    }
+
+    /**
+     * Apply a single command and commit it. Must only be called on this shard's writer thread.
+     *
+     * @throws LedgerUnavailableException if the shard has stopped, or the mutation could
+     *                                    not be recorded durably
+     */
+    MutationResult applyAndCommit(LedgerCommand command) {
+        MutationResult result = apply(command);
+        commitDurable();
+        return result;
+    }
+
+    /**
+     * Apply the commands at {@code indices} in order, then group-commit once. A command
+     * a durable listener refuses is reported {@link MutationResult.Status#UNAVAILABLE}
+     * without failing the rest. Must only be called on this shard's writer thread.
+     * 
+     * @throws LedgerUnavailableException if the shard has stopped, or stops before the
+     *                                    group is durable; no outcome of the group may be acknowledged
+     */
+    void applyGroup(List<LedgerCommand> commands, int[] indices, MutationResult[] results) {
+        for (int slot : indices) {
+            LedgerCommand command = commands.get(slot);
+            try {
+                results[slot] = apply(command);
+            } catch (LedgerUnavailableException e) {
+                results[slot] = MutationResult.unavailable(balanceOf(command.key()));
+            }
+        }
+        if (failure != null) {
+            throw stopped();
+        }
+        for (DurableMutationListener listener : durable) {
+            try {
+                listener.onGroupCommit(index);
+            } catch (RuntimeException e) {
+                throw stop("group commit of " + listener.getClass().getSimpleName() + " failed", e);
+            }
+        }
+        commitDurable();
+        for (BalanceMutationListener listener : listeners) {
+            try {
+                listener.onGroupCommit(index);
+            } catch (RuntimeException e) {
+                logger.error("Group commit of {} failed on shard {}", listener.getClass().getSimpleName(), index, e);
+            }
+        }
+    }
+
+    private long balanceOf(PositionKey key) {
+        ParticipantPosition position = positions.get(key);
+        return position != null ? position.getBalance() : openingBalance;
+    }
+
+    /**
+     * Post a debit or credit. A debit whose reservation id matches an active hold
+     * settles against that hold instead of the free balance.
+     */
+    private MutationResult post(ParticipantPosition position, LedgerCommand command) {
+        long before = position.getBalance();
+        long after = Math.addExact(before, command.amount());
+
+        Reservation hold = null;
+        if (command.amount() < 0L) {
+            hold = reservations.get(new Reservation.ReservationKey(command.key(), command.reservationId()));
+        }
+        long reservedAfter = position.getReserved() - (hold != null ? hold.amount() : 0L);
+
+        if (command.amount() < 0L && after - reservedAfter < minimumBalance) {
+            return MutationResult.rejected(before, ErrorResponse.ErrorCodes.INSUFFICIENT_FUNDS);
+        }
+
+        commit(position, command, after, reservedAfter, hold != null ? hold.id().reservationId() : null, 0L);
+        if (hold != null) {
+            removeReservation(hold);
+        }
+        return MutationResult.applied(before, after);
+    }
+
+    private MutationResult reserve(ParticipantPosition position, LedgerCommand command) {
+        long balance = position.getBalance();
+        Reservation.ReservationKey id = new Reservation.ReservationKey(command.key(), command.reservationId());
+        if (reservations.containsKey(id)) {
+            return MutationResult.rejected(balance, ErrorResponse.ErrorCodes.DUPLICATE_TRANSACTION);
+        }
+
+        long amount = Math.abs(command.amount());
+        long reservedAfter = Math.addExact(position.getReserved(), amount);
+        if (balance - reservedAfter < minimumBalance) {
+            return MutationResult.rejected(balance, ErrorResponse.ErrorCodes.INSUFFICIENT_FUNDS);
+        }
+
+        long expiresAt = System.currentTimeMillis() + reservationTtlMillis;
+        commit(position, command, balance, reservedAfter, id.reservationId(), expiresAt);
+
+        Reservation reservation = new Reservation(id, amount, expiresAt);
+        reservations.put(id, reservation);
+        expiryWheel.schedule(reservation, expiresAt);
+        return MutationResult.applied(balance, balance);
+    }
+
+    private MutationResult release(ParticipantPosition position, LedgerCommand command) {
+        long balance = position.getBalance();
+        Reservation hold = reservations.get(new Reservation.ReservationKey(command.key(), command.reservationId()));
+        if (hold == null) {
+            return MutationResult.rejected(balance, ErrorResponse.ErrorCodes.RESERVATION_NOT_FOUND);
+        }
+
+        commit(position, command, balance, position.getReserved() - hold.amount(), hold.id().reservationId(), 0L);
+        removeReservation(hold);
+        return MutationResult.applied(balance, balance);
+    }
+
+    /**
+     * Advance the expiry wheel and release every hold that has passed its deadline.
+     * Runs on the writer thread like any other mutation.
+     */
+    void expireReservations() {
+        if (failure != null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int expired = expiryWheel.advance(now, onExpired);
+        if (expired > 0) {
+            try {
+                commitDurable();
+            } catch (LedgerUnavailableException e) {
+                logger.warn("Shard {} could not record every expired reservation: {}", index, e.getMessage());
+            }
+            logger.info("Shard {} released {} expired reservations, {} still active",
+                    index, expired, expiryWheel.size());
+        }
+        int forgotten = idempotency.rotateIfDue(now);
+        if (forgotten > 0) {
+            logger.info("Shard {} forgot {} message ids past their idempotency TTL", index, forgotten);
+        }
+    }
+
+    private void expire(Reservation reservation) {
+        ParticipantPosition position = positions.get(reservation.id().position());
+        long balance = position.getBalance();
+        long reservedAfter = position.getReserved() - reservation.amount();
+        try {
+            commit(position, new BalanceMutation(index, sequence + 1, position.getKey(), TransactionType.RELEASE,
+                    reservation.amount(), balance, balance, reservedAfter, reservation.id().reservationId(), 0L,
+                    null, null, null, Instant.now()));
+        } catch (LedgerUnavailableException e) {
+            // Not writable here any more; the hold goes when its position is discarded
+            logger.debug("Shard {} left expired reservation {} in place: {}",
+                    index, reservation.id().reservationId(), e.getMessage());
+            return;
+        }
+        reservations.remove(reservation.id());
+    }
+
+    /**
+     * Copy every position and reservation of this shard. Must run on the writer thread.
+     */
+    ShardState capture() {
+        List<PositionState> positionStates = new ArrayList<>(positions.size());
+        for (ParticipantPosition position : positions.values()) {
+            positionStates.add(position.toState());
+        }
+        List<ReservationState> reservationStates = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations.values()) {
+            reservationStates.add(new ReservationState(reservation.id().position(), reservation.id().reservationId(),
+                    reservation.amount(), reservation.expiresAtMillis()));
+        }
+        return new ShardState(index, sequence, positionStates, reservationStates, idempotency.export());
+    }
+
+    /**
+     * Open a cut at the current sequence by recording, from now on, the state each
+     * position had before its first later write. O(1); must run on the writer thread.
+     * 
+     * @param images Map the pre-images go into, shared by every shard of the cut
+     * @param openCut The ledger's open cut; if it is no longer {@code images} the cut was
+     *                abandoned before this task ran and nothing is recorded
+     * @return Last sequence included in the cut, or -1 if the cut was abandoned
+     */
+    long openCut(Map<PositionKey, PositionState> images, AtomicReference<Map<PositionKey, PositionState>> openCut) {
+        cutImages = images;
+        if (openCut.get() != images) {
+            // Either the closer already cleared the cut or it will clear it after this check
+            cutImages = null;
+            return -1L;
+        }
+        for (BalanceMutationListener listener : listeners) {
+            try {
+                listener.onCut(index, sequence);
+            } catch (RuntimeException e) {
+                logger.error("Cut handling of {} failed on shard {}", listener.getClass().getSimpleName(), index, e);
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Stop recording pre-images; safe from any thread once the cut has been cleared on the ledger
+     */
+    void closeCut() {
+        cutImages = null;
+    }
+
+    /**
+     * State of a position as of the open cut; safe from any thread
+     */
+    static PositionState stateAtCut(ParticipantPosition position, Map<PositionKey, PositionState> images) {
+        PositionState before = images.get(position.getKey());
+        if (before != null) {
+            return before;
+        }
+        // The writer stores the pre-image before its first write after the cut, so if
+        // this read saw any such write the pre-image is visible by now
+        PositionState live = position.toState();
+        before = images.get(position.getKey());
+        return before != null ? before : live;
+    }
+
+    private void preserveForCut(ParticipantPosition position) {
+        Map<PositionKey, PositionState> images = cutImages;
+        if (images != null && !images.containsKey(position.getKey())) {
+            images.put(position.getKey(), position.toState());
+        }
+    }
+
+    /**
+     * Load recovered state into this shard. Must run on the writer thread before traffic
+     * for the restored positions is accepted. Listeners see the positions through
+     * {@link BalanceMutationListener#onRestore}, not as mutations; holds already past
+     * their deadline are released on the next expiry tick.
+     */
+    void restore(Collection<PositionState> positionStates, Collection<ReservationState> reservationStates,
+                 long[] idempotencyEntries, long restoredSequence) {
+        for (PositionState state : positionStates) {
+            positions.put(state.key(), new ParticipantPosition(state));
+        }
+        for (ReservationState state : reservationStates) {
+            Reservation.ReservationKey id = new Reservation.ReservationKey(state.key(), state.reservationId());
+            Reservation reservation = new Reservation(id, state.amount(), state.expiresAtMillis());
+            reservations.put(id, reservation);
+            expiryWheel.schedule(reservation, state.expiresAtMillis());
+        }
+        idempotency.load(idempotencyEntries, 0, idempotencyEntries.length);
+        sequence = Math.max(sequence, restoredSequence);
+        for (BalanceMutationListener listener : listeners) {
+            try {
+                listener.onRestore(index, positionStates);
+            } catch (RuntimeException e) {
+                logger.error("Restore handling of {} failed on shard {}", listener.getClass().getSimpleName(), index, e);
+            }
+        }
+    }
+
+    /**
+     * Drop the positions selected by {@code keys} and their reservations, when another
+     * node has taken them over. Must run on the writer thread. Nothing is published to
+     * listeners; remembered message ids stay until they age out.
+     * 
+     * @return Number of positions dropped
+     */
+    int evict(Predicate<PositionKey> keys) {
+        int evicted = 0;
+        for (Iterator<PositionKey> it = positions.keySet().iterator(); it.hasNext(); ) {
+            if (keys.test(it.next())) {
+                it.remove();
+                evicted++;
+            }
+        }
+        for (Iterator<Reservation> it = reservations.values().iterator(); it.hasNext(); ) {
+            Reservation reservation = it.next();
+            if (keys.test(reservation.id().position())) {
+                it.remove();
+                expiryWheel.cancel(reservation);
+            }
+        }
+        return evicted;
+    }
+
+    private void removeReservation(Reservation reservation) {
+        reservations.remove(reservation.id());
+        expiryWheel.cancel(reservation);
+    }
+
+    private void commit(ParticipantPosition position, LedgerCommand command, long balanceAfter,
+                        long reservedAfter, String reservationId, long reservationExpiresAt) {
+        commit(position, new BalanceMutation(index, sequence + 1, command.key(), command.transactionType(),
+                command.amount(), position.getBalance(), balanceAfter, reservedAfter, reservationId, reservationExpiresAt,
+                command.messageId(), command.reference(), command.transactionId(), Instant.now()));
+    }
+
+    /**
+     * Record a mutation durably, then apply it to the position and publish it. Nothing
+     * changes in memory if it cannot be recorded.
+     */
+    private void commit(ParticipantPosition position, BalanceMutation mutation) {
+        for (DurableMutationListener listener : durable) {
+            try {
+                listener.prepare(mutation);
+            } catch (LedgerUnavailableException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw stop(listener.getClass().getSimpleName() + " failed at sequence " + mutation.sequence(), e);
+            }
+        }
+        for (DurableMutationListener listener : durable) {
+            try {
+                listener.onMutation(mutation);
+            } catch (RuntimeException e) {
+                throw stop(listener.getClass().getSimpleName() + " failed at sequence " + mutation.sequence(), e);
+            }
+        }
+        sequence = mutation.sequence();
+        preserveForCut(position);
+        position.apply(mutation.balanceAfter(), mutation.reservedAfter(), mutation.appliedAt());
+        publish(mutation);
+    }
+
+    /**
+     * Let every durable listener commit what this task recorded. All of them are asked
+     * even after one refuses, and the first refusal is thrown.
+     */
+    private void commitDurable() {
+        LedgerUnavailableException refused = null;
+        for (DurableMutationListener listener : durable) {
+            try {
+                listener.onCommit(index);
+            } catch (LedgerUnavailableException e) {
+                if (refused == null) {
+                    refused = e;
+                }
+            } catch (RuntimeException e) {
+                throw stop("commit of " + listener.getClass().getSimpleName() + " failed", e);
+            }
+        }
+        if (refused != null) {
+            throw refused;
+        }
+    }
+
+    /**
+     * Stop taking writes; the first failure is the one reported
+     */
+    private LedgerUnavailableException stop(String reason, RuntimeException cause) {
+        if (failure == null) {
+            failure = reason;
+            logger.error("Ledger shard {} stopped taking writes: {}", index, reason, cause);
+        }
+        return new LedgerUnavailableException("Ledger shard " + index + " stopped: " + reason, cause);
+    }
+
+    private LedgerUnavailableException stopped() {
+        return new LedgerUnavailableException("Ledger shard " + index + " stopped: " + failure);
+    }
+
+    private void publish(BalanceMutation mutation) {
+        for (BalanceMutationListener listener : listeners) {
+            try {
+                listener.onMutation(mutation);
+            } catch (RuntimeException e) {
+                // A failing side-channel must never undo or stall the ledger
+                logger.error("Mutation listener {} failed on shard {} sequence {}",
+                        listener.getClass().getSimpleName(), index, mutation.sequence(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+/**
+ * Ledger Unavailable Exception
+ * 
+ * Thrown when a shard writer cannot accept or complete a mutation in time
+ * (queue full, write timeout, or ledger shutting down)
+ */
+public class LedgerUnavailableException extends RuntimeException {
+
+    public LedgerUnavailableException(String message) {
+        super(message);
+    }
+
+    public LedgerUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
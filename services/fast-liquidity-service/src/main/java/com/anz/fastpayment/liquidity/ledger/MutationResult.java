@@ -0,0 +1,56 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import com.anz.fastpayment.liquidity.model.ErrorResponse;
+
+/**
+ * Mutation Result
+ * 
+ * Outcome of a {@link LedgerCommand} as decided by the owning shard writer, in scaled units
+ */
+public record MutationResult(Status status,
+                             long balanceBefore,
+                             long balanceAfter,
+                             String errorCode) {
+
+    public enum Status {
+        APPLIED,
+        REJECTED,
+        /**
+         * Message was already applied; balances are those of the original application
+         */
+        DUPLICATE,
+        /**
+         * The ledger could not take the command; it may be retried, and if it was applied
+         * after all the retry comes back as a duplicate
+         */
+        UNAVAILABLE
+    }
+
+    static MutationResult applied(long before, long after) {
+        return new MutationResult(Status.APPLIED, before, after, null);
+    }
+
+    static MutationResult rejected(long balance, String errorCode) {
+        return new MutationResult(Status.REJECTED, balance, balance, errorCode);
+    }
+
+    static MutationResult duplicate(long before, long after) {
+        return new MutationResult(Status.DUPLICATE, before, after, ErrorResponse.ErrorCodes.DUPLICATE_TRANSACTION);
+    }
+
+    static MutationResult unavailable(long balance) {
+        return new MutationResult(Status.UNAVAILABLE, balance, balance, ErrorResponse.ErrorCodes.SERVICE_UNAVAILABLE);
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+
+    public boolean isDuplicate() {
+        return status == Status.DUPLICATE;
+    }
+
+    public boolean isUnavailable() {
+        return status == Status.UNAVAILABLE;
+    }
+}
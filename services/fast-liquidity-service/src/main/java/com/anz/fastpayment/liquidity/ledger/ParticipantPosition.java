@@ -0,0 +1,80 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import java.time.Instant;
+
+/**
+ * Participant Position
+ * 
+ * Live balance for a single {@link PositionKey}, held as scaled {@link com.anz.fastpayment.liquidity.model.Amount}
+ * units. Only the owning shard's writer thread changes it, by publishing a new immutable
+ * {@link PositionState} through one volatile reference, so any thread may read it without
+ * locking. Readers that need more than one field take {@link #getState()} once; separate
+ * getter calls may straddle a write.
+ */
+public final class ParticipantPosition {
+
+    private final PositionKey key;
+
+    private volatile PositionState state;
+
+    ParticipantPosition(PositionKey key, long openingBalance) {
+        this.key = key;
+        this.state = new PositionState(key, openingBalance, 0L, null, 0L);
+    }
+
+    ParticipantPosition(PositionState state) {
+        this.key = state.key();
+        this.state = state;
+    }
+
+    public PositionKey getKey() {
+        return key;
+    }
+
+    /**
+     * Balance, reserved amount, last transaction time and version as of one write
+     */
+    public PositionState getState() {
+        return state;
+    }
+
+    public long getBalance() {
+        return state.balance();
+    }
+
+    /**
+     * Total held by active reservations, in scaled units
+     */
+    public long getReserved() {
+        return state.reserved();
+    }
+
+    /**
+     * Balance not held by reservations, in scaled units
+     */
+    public long getAvailable() {
+        PositionState current = state;
+        return current.balance() - current.reserved();
+    }
+
+    public Instant getLastTransactionAt() {
+        return state.lastTransactionAt();
+    }
+
+    /**
+     * Number of mutations applied to this position since it was opened
+     */
+    public long getVersion() {
+        return state.version();
+    }
+
+    PositionState toState() {
+        return state;
+    }
+
+    // Writer-thread only
+
+    void apply(long newBalance, long newReserved, Instant appliedAt) {
+        this.state = new PositionState(key, newBalance, newReserved, appliedAt, state.version() + 1);
+    }
+}
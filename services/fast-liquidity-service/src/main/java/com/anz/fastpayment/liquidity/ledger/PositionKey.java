@@ -0,0 +1,31 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import java.util.Objects;
+
+/**
+ * Position Key
+ * 
+ * Identifies a single liquidity position: one participant, in one currency, under one country scheme.
+ * Also used to route the position to its owning ledger shard.
+ */
+public record PositionKey(String participantId, String currency, String countryCode) {
+
+    public PositionKey {
+        Objects.requireNonNull(participantId, "participantId");
+        Objects.requireNonNull(currency, "currency");
+        Objects.requireNonNull(countryCode, "countryCode");
+    }
+
+    /**
+     * Spread the hash so that keys sharing a participant prefix still land on different shards
+     */
+    int spreadHash() {
+        int h = hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return participantId + "/" + currency + "/" + countryCode;
+    }
+}
@@ -0,0 +1,16 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import java.time.Instant;
+
+/**
+ * Position State
+ * 
+ * Point-in-time copy of a {@link ParticipantPosition}, used for snapshots and recovery.
+ * Amounts are scaled units.
+ */
+public record PositionState(PositionKey key,
+                            long balance,
+                            long reserved,
+                            Instant lastTransactionAt,
+                            long version) {
+}
@@ -0,0 +1,41 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+/**
+ * Reservation
+ * 
+ * Funds held against a position's available balance under a reservation id until
+ * they are settled, released, or expire. Owned by the shard writer thread.
+ */
+final class Reservation extends HashedTimingWheel.Entry {
+
+    private final ReservationKey id;
+    private final long amount;
+    private final long expiresAtMillis;
+
+    Reservation(ReservationKey id, long amount, long expiresAtMillis) {
+        this.id = id;
+        this.amount = amount;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    ReservationKey id() {
+        return id;
+    }
+
+    /**
+     * Held amount in scaled units, always positive
+     */
+    long amount() {
+        return amount;
+    }
+
+    long expiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * Reservation ids are scoped to the position they hold funds against
+     */
+    record ReservationKey(PositionKey position, String reservationId) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+/**
+ * Reservation State
+ * 
+ * Point-in-time copy of an active reservation, used for snapshots and recovery.
+ * The amount is the positive held amount in scaled units.
+ */
+public record ReservationState(PositionKey key,
+                               String reservationId,
+                               long amount,
+                               long expiresAtMillis) {
+}
@@ -0,0 +1,18 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import java.util.List;
+
+/**
+ * Shard State
+ * 
+ * Consistent cut of one ledger shard, captured on its writer thread. Every mutation
+ * with a sequence up to and including {@code sequence} is reflected in it; none after.
+ * {@code idempotencyEntries} holds the shard's remembered message outcomes, flattened
+ * {@link IdempotencyIndex#STRIDE} longs per entry, oldest first.
+ */
+public record ShardState(int shard,
+                         long sequence,
+                         List<PositionState> positions,
+                         List<ReservationState> reservations,
+                         long[] idempotencyEntries) {
+}
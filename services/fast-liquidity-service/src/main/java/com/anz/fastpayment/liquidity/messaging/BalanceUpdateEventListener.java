@@ -0,0 +1,217 @@
+package com.anz.fastpayment.liquidity.messaging;
+
+import com.anz.fastpayment.liquidity.config.KafkaConsumerConfig;
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.LedgerUnavailableException;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateBatchRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateBatchResponse;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateResponse;
+import com.anz.fastpayment.liquidity.model.ErrorResponse;
+import com.anz.fastpayment.liquidity.service.LiquidityService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Balance Update Event Listener
+ * 
+ * Consumes balance update events published by the inward and outward processors, so
+ * they can hand off liquidity updates without waiting on an HTTP call.
+ * 
+ * Events are keyed by participant id, so each participant's updates live in one
+ * partition and arrive in order. Every poll is applied as one ledger batch: each shard
+ * applies its participants' updates in offset order, shards run in parallel, and each
+ * shard group-commits once. The offsets are committed only after that returns; if the
+ * ledger cannot take the batch, or any part of it, the batch is read again after
+ * {@code redelivery-interval} and the updates already applied come back as duplicates.
+ *
+ * A batch that fails with any other exception is applied one update at a time, and the
+ * first update that still fails is handed to the container's error handler as the
+ * batch's failed record: the offsets before it are committed, it is retried and
+ * eventually dead-lettered, and the updates behind it are redelivered. Updates are not
+ * fanned out to per-participant workers here; the ledger's single-writer shards already
+ * apply different participants in parallel and each participant in order.
+ *
+ * Events that cannot be deserialized or fail validation are published to the
+ * dead-letter topic before the batch is applied; if that fails, the whole batch is
+ * redelivered, so the offsets never move past an event that was neither applied nor
+ * dead-lettered.
+ */
+@Component
+@ConditionalOnProperty(prefix = "liquidity.kafka", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceUpdateEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceUpdateEventListener.class);
+
+    private final LiquidityService liquidityService;
+    private final Validator validator;
+    private final ConsumerRecordRecoverer deadLetters;
+    private final Duration redeliveryInterval;
+    private final Counter appliedCounter;
+    private final Counter rejectedCounter;
+    private final Counter duplicateCounter;
+    private final Counter invalidCounter;
+
+    public BalanceUpdateEventListener(LiquidityService liquidityService, Validator validator,
+                                      ConsumerRecordRecoverer deadLetters, LiquidityProperties properties,
+                                      MeterRegistry meterRegistry) {
+        this.liquidityService = liquidityService;
+        this.validator = validator;
+        this.deadLetters = deadLetters;
+        this.redeliveryInterval = properties.getKafka().getRedeliveryInterval();
+        this.appliedCounter = outcomeCounter(meterRegistry, "applied");
+        this.rejectedCounter = outcomeCounter(meterRegistry, "rejected");
+        this.duplicateCounter = outcomeCounter(meterRegistry, "duplicate");
+        this.invalidCounter = outcomeCounter(meterRegistry, "invalid");
+    }
+
+    @KafkaListener(topics = "${liquidity.kafka.topics.balance-updates}",
+            containerFactory = KafkaConsumerConfig.BALANCE_UPDATE_CONTAINER_FACTORY)
+    public void onBalanceUpdates(List<ConsumerRecord<String, BalanceUpdateRequest>> records, Acknowledgment ack) {
+        List<BalanceUpdateRequest> updates = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, BalanceUpdateRequest>> sources = new ArrayList<>(records.size());
+        try {
+            for (ConsumerRecord<String, BalanceUpdateRequest> record : records) {
+                BalanceUpdateRequest update = accept(record);
+                if (update != null) {
+                    updates.add(update);
+                    sources.add(record);
+                }
+            }
+        } catch (KafkaException e) {
+            redeliver(ack, records.size(), "dead-letter topic unavailable: " + e.getMessage());
+            return;
+        }
+
+        if (!updates.isEmpty()) {
+            BalanceUpdateBatchResponse response;
+            try {
+                response = liquidityService.updateBalances(new BalanceUpdateBatchRequest(updates));
+            } catch (LedgerUnavailableException e) {
+                redeliver(ack, records.size(), e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Balance update batch of {} failed, applying it one update at a time: {}",
+                        updates.size(), e.getMessage());
+                applyOneByOne(updates, sources, ack);
+                return;
+            }
+            long unavailable = response.getResults().stream()
+                    .filter(result -> ErrorResponse.ErrorCodes.SERVICE_UNAVAILABLE.equals(result.getErrorCode()))
+                    .count();
+            if (unavailable > 0) {
+                redeliver(ack, records.size(), unavailable + " of " + updates.size() + " updates not applied");
+                return;
+            }
+            appliedCounter.increment(response.getAppliedCount());
+            rejectedCounter.increment(response.getRejectedCount());
+            duplicateCounter.increment(response.getDuplicateCount());
+            for (BalanceUpdateResponse result : response.getResults()) {
+                if ("REJECTED".equals(result.getStatus())) {
+                    logger.warn("Balance update rejected for participant: {}, errorCode: {}, requestId: {}",
+                            result.getParticipantId(), result.getErrorCode(), response.getRequestId());
+                }
+            }
+        }
+
+        // Applied and group-committed; only now may the offsets move on
+        ack.acknowledge();
+    }
+
+    /**
+     * Apply the updates of a failed batch in order, to find the one at fault. It is
+     * thrown as the batch's failed record, so the error handler commits the offsets
+     * before it and retries it on its own.
+     */
+    private void applyOneByOne(List<BalanceUpdateRequest> updates,
+                               List<ConsumerRecord<String, BalanceUpdateRequest>> sources, Acknowledgment ack) {
+        for (int i = 0; i < updates.size(); i++) {
+            ConsumerRecord<String, BalanceUpdateRequest> source = sources.get(i);
+            BalanceUpdateBatchResponse response;
+            try {
+                response = liquidityService.updateBalances(new BalanceUpdateBatchRequest(List.of(updates.get(i))));
+            } catch (LedgerUnavailableException e) {
+                redeliver(ack, sources.size(), e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("Balance update at " + source.topic() + "-"
+                        + source.partition() + "@" + source.offset() + " failed: " + e.getMessage(), e, source);
+            }
+            BalanceUpdateResponse result = response.getResults().get(0);
+            if (ErrorResponse.ErrorCodes.SERVICE_UNAVAILABLE.equals(result.getErrorCode())) {
+                redeliver(ack, sources.size(), "update not applied");
+                return;
+            }
+            appliedCounter.increment(response.getAppliedCount());
+            rejectedCounter.increment(response.getRejectedCount());
+            duplicateCounter.increment(response.getDuplicateCount());
+        }
+        ack.acknowledge();
+    }
+
+    /**
+     * Read the whole batch again after {@code redelivery-interval}, without counting it
+     * as a failure; the ledger (or dead-letter topic) is expected to take it once it recovers
+     */
+    private void redeliver(Acknowledgment ack, int records, String reason) {
+        logger.warn("Could not take a batch of {} balance updates, redelivering in {} ms: {}",
+                records, redeliveryInterval.toMillis(), reason);
+        ack.nack(0, redeliveryInterval);
+    }
+
+    /**
+     * The event to apply, or null if it can never be applied and has been dead-lettered
+     *
+     * @throws KafkaException if the event could not be dead-lettered
+     */
+    private BalanceUpdateRequest accept(ConsumerRecord<String, BalanceUpdateRequest> record) {
+        BalanceUpdateRequest update = record.value();
+        if (update == null) {
+            logger.error("Dead-lettering undeserializable balance update at {}-{}@{}",
+                    record.topic(), record.partition(), record.offset());
+            deadLetters.accept(record, new IllegalArgumentException("Undeserializable balance update"));
+            invalidCounter.increment();
+            return null;
+        }
+        Set<ConstraintViolation<BalanceUpdateRequest>> violations = validator.validate(update);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<BalanceUpdateRequest> first = violations.iterator().next();
+            logger.error("Dead-lettering invalid balance update at {}-{}@{}, messageId: {}: {} {}",
+                    record.topic(), record.partition(), record.offset(), update.getMessageId(),
+                    first.getPropertyPath(), first.getMessage());
+            deadLetters.accept(record, new ConstraintViolationException(violations));
+            invalidCounter.increment();
+            return null;
+        }
+        if (!update.getParticipantId().equals(record.key())) {
+            logger.warn("Balance update at {}-{}@{} keyed {} but for participant {}; ordering is only guaranteed per key",
+                    record.topic(), record.partition(), record.offset(), record.key(), update.getParticipantId());
+        }
+        return update;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("liquidity.kafka.balance.updates")
+                .description("Balance update events consumed from Kafka by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
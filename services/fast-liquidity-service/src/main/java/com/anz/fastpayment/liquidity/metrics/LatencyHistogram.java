@@ -0,0 +1,152 @@
+package com.anz.fastpayment.liquidity.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency Histogram
+ *
+ * HDR-style log-linear histogram of latencies: every power of two is split into
+ * {@value #SUB_BUCKETS} linear buckets, so a recorded value is off by at most about 6%
+ * at any magnitude. The unit is chosen so that the anchor (the tightest SLA) is an
+ * exact power of two; every SLA that is a power-of-two multiple of it (50, 100 and
+ * 200ms) therefore falls exactly on a bucket boundary and counts within it are exact.
+ *
+ * Recording is a few shifts and one atomic increment, with no allocation; values
+ * beyond the top bucket (about 250 times the anchor) are counted in it. Counts are
+ * cumulative since start.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // The anchor is 2^ANCHOR_MAGNITUDE units...
+    private static final int ANCHOR_MAGNITUDE = 16;
+    // ...and the top bucket ends at 2^MAX_MAGNITUDE units
+    private static final int MAX_MAGNITUDE = ANCHOR_MAGNITUDE + 8;
+    private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long anchorNanos;
+    private final long topNanos;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param anchorNanos Latency that falls exactly on a bucket boundary, along with its
+     *                    power-of-two multiples
+     */
+    public LatencyHistogram(long anchorNanos) {
+        this.anchorNanos = anchorNanos;
+        this.topNanos = anchorNanos << (MAX_MAGNITUDE - ANCHOR_MAGNITUDE);
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalNanos.add(value);
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    private int indexOf(long nanos) {
+        if (nanos >= topNanos) {
+            return BUCKETS - 1;
+        }
+        long units = (nanos << ANCHOR_MAGNITUDE) / anchorNanos;
+        if (units < SUB_BUCKETS) {
+            return (int) units;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(units);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS
+                + (int) (units >>> (magnitude - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+    }
+
+    /**
+     * Upper bound of a bucket, in nanoseconds
+     */
+    private double upperBoundNanos(int index) {
+        long upperUnits;
+        if (index < SUB_BUCKETS) {
+            upperUnits = index + 1L;
+        } else {
+            int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+            upperUnits = (subBucket + 1L) << (magnitude - SUB_BUCKET_BITS);
+        }
+        return (double) upperUnits * anchorNanos / (1L << ANCHOR_MAGNITUDE);
+    }
+
+    /**
+     * Consistent-enough copy of the counts for reporting; recording carries on meanwhile
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    public final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public double meanNanos() {
+            return count == 0L ? 0.0 : (double) totalNanos / count;
+        }
+
+        public long maxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Latency at or below which {@code quantile} of the samples fall, to bucket precision
+         */
+        public double valueAtQuantileNanos(double quantile) {
+            if (count == 0L) {
+                return 0.0;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundNanos(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        /**
+         * Samples faster than {@code thresholdNanos}; exact when the threshold is a
+         * power-of-two multiple of the anchor
+         */
+        public long countBelow(long thresholdNanos) {
+            int last = indexOf(thresholdNanos) - 1;
+            long within = 0L;
+            for (int i = 0; i <= last; i++) {
+                within += counts[i];
+            }
+            return within;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.anz.fastpayment.liquidity.metrics;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Liquidity Actuator Endpoint
+ *
+ * {@code GET /actuator/liquidity}: latency of every liquidity operation against its
+ * SLA (percentiles, counts within the 50/100/200ms buckets and breaches), each ledger
+ * shard's queue depth, positions, requests and breaches, and the participants
+ * breaching their SLA most often. Read from the {@link LiquidityLatencyRecorder}; the
+ * same figures are scraped from {@code /actuator/prometheus}.
+ */
+@Component
+@Endpoint(id = "liquidity")
+public class LiquidityEndpoint {
+
+    private static final int HOT_PARTICIPANTS = 20;
+    private static final Duration[] SLA_BUCKETS = {Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(200)};
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] QUANTILE_NAMES = {"p50Ms", "p90Ms", "p99Ms", "p999Ms"};
+
+    private final LiquidityLatencyRecorder recorder;
+    private final BalanceLedger ledger;
+
+    public LiquidityEndpoint(LiquidityLatencyRecorder recorder, BalanceLedger ledger) {
+        this.recorder = recorder;
+        this.ledger = ledger;
+    }
+
+    @ReadOperation
+    public Map<String, Object> liquidity() {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (LiquidityOperation operation : LiquidityOperation.values()) {
+            operations.put(operation.getTag(), operationReport(operation));
+        }
+
+        List<Map<String, Object>> shards = new ArrayList<>(ledger.getShardCount());
+        for (int shard = 0; shard < ledger.getShardCount(); shard++) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("shard", shard);
+            report.put("queueDepth", ledger.getQueueDepth(shard));
+            report.put("positions", ledger.getPositionCount(shard));
+            report.put("requests", recorder.shardRequests(shard));
+            report.put("slaBreaches", recorder.shardBreaches(shard));
+            shards.add(report);
+        }
+
+        List<Map<String, Object>> hotParticipants = new ArrayList<>();
+        for (LiquidityLatencyRecorder.ParticipantLoad load : recorder.hotParticipants(HOT_PARTICIPANTS)) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("participantId", load.participantId());
+            report.put("requests", load.requests());
+            report.put("slaBreaches", load.breaches());
+            report.put("meanMs", millis(load.meanNanos()));
+            hotParticipants.add(report);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("operations", operations);
+        body.put("shards", shards);
+        body.put("hotParticipants", hotParticipants);
+        return body;
+    }
+
+    private Map<String, Object> operationReport(LiquidityOperation operation) {
+        LatencyHistogram.Snapshot histogram = recorder.histogram(operation);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("slaMs", operation.getSla().toMillis());
+        report.put("count", histogram.count());
+        report.put("slaBreaches", recorder.breaches(operation));
+        report.put("meanMs", millis(histogram.meanNanos()));
+        for (int i = 0; i < QUANTILES.length; i++) {
+            report.put(QUANTILE_NAMES[i], millis(histogram.valueAtQuantileNanos(QUANTILES[i])));
+        }
+        report.put("maxMs", millis(histogram.maxNanos()));
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (Duration bucket : SLA_BUCKETS) {
+            buckets.put("<" + bucket.toMillis() + "ms", histogram.countBelow(bucket.toNanos()));
+        }
+        report.put("buckets", buckets);
+        return report;
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
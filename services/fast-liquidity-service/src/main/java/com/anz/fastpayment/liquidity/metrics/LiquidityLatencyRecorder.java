@@ -0,0 +1,212 @@
+package com.anz.fastpayment.liquidity.metrics;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import com.anz.fastpayment.liquidity.ledger.ParticipantPosition;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Liquidity Latency Recorder
+ *
+ * Records how long every liquidity operation took against its SLA, broken down so an
+ * SLA problem can be traced to the participant or shard causing it: a
+ * {@link LatencyHistogram} and SLA-breach count per operation, request and breach
+ * counts per ledger shard, and the same per participant for hot-spot detection.
+ * Recording on the request thread is a handful of atomic increments and a map lookup,
+ * with no allocation once a participant has been seen.
+ *
+ * Everything is also published through Micrometer: {@code liquidity.operation.latency}
+ * timers with buckets at the 50/100/200ms SLAs, breach counters per operation, shard
+ * and participant, and shard queue depths. A participant is only tracked individually
+ * once it has a ledger position some update has changed, so ids from requests that were
+ * refused never become tags, and at most {@value #MAX_TRACKED_PARTICIPANTS} are tracked;
+ * the rest are counted under {@value #OTHER_PARTICIPANTS}.
+ */
+@Component
+public class LiquidityLatencyRecorder {
+
+    static final int MAX_TRACKED_PARTICIPANTS = 2048;
+    static final String OTHER_PARTICIPANTS = "other";
+
+    private static final LiquidityOperation[] OPERATIONS = LiquidityOperation.values();
+
+    private final BalanceLedger ledger;
+    private final MeterRegistry meterRegistry;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+    private final Timer[] timers = new Timer[OPERATIONS.length];
+    private final long[] slaNanos = new long[OPERATIONS.length];
+    private final Counter[] operationBreaches = new Counter[OPERATIONS.length];
+    private final LongAdder[] shardRequests;
+    private final Counter[] shardBreaches;
+    private final Map<String, ParticipantLoad> participants = new ConcurrentHashMap<>();
+
+    public LiquidityLatencyRecorder(BalanceLedger ledger, MeterRegistry meterRegistry) {
+        this.ledger = ledger;
+        this.meterRegistry = meterRegistry;
+        for (LiquidityOperation operation : OPERATIONS) {
+            int i = operation.ordinal();
+            histograms[i] = new LatencyHistogram(LiquidityOperation.SLA_ANCHOR.toNanos());
+            slaNanos[i] = operation.getSla().toNanos();
+            timers[i] = Timer.builder("liquidity.operation.latency")
+                    .description("Latency of liquidity operations, bucketed at the SLAs")
+                    .tag("operation", operation.getTag())
+                    .serviceLevelObjectives(Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(200))
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .register(meterRegistry);
+            operationBreaches[i] = Counter.builder("liquidity.sla.breaches")
+                    .description("Liquidity operations slower than their SLA")
+                    .tag("operation", operation.getTag())
+                    .register(meterRegistry);
+        }
+
+        int shards = ledger.getShardCount();
+        this.shardRequests = new LongAdder[shards];
+        this.shardBreaches = new Counter[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            String tag = Integer.toString(shard);
+            shardRequests[shard] = new LongAdder();
+            shardBreaches[shard] = Counter.builder("liquidity.shard.sla.breaches")
+                    .description("Liquidity operations on the shard slower than their SLA")
+                    .tag("shard", tag)
+                    .register(meterRegistry);
+            int index = shard;
+            Gauge.builder("liquidity.ledger.queue.depth", ledger, l -> l.getQueueDepth(index))
+                    .description("Commands waiting for the shard writer")
+                    .tag("shard", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Record an operation that started at {@code startNanos} ({@link System#nanoTime})
+     *
+     * @param key Position the operation was on, or null if it failed before one was known
+     */
+    public void record(LiquidityOperation operation, PositionKey key, long startNanos) {
+        record(operation, key, startNanos, System.nanoTime());
+    }
+
+    /**
+     * Record an operation over {@code startNanos} to {@code endNanos}; batches record
+     * each of their updates over the same interval
+     */
+    public void record(LiquidityOperation operation, PositionKey key, long startNanos, long endNanos) {
+        long elapsed = endNanos - startNanos;
+        int i = operation.ordinal();
+        histograms[i].record(elapsed);
+        timers[i].record(elapsed, TimeUnit.NANOSECONDS);
+        boolean breached = elapsed > slaNanos[i];
+        if (breached) {
+            operationBreaches[i].increment();
+        }
+        if (key == null) {
+            return;
+        }
+
+        int shard = ledger.shardOf(key);
+        shardRequests[shard].increment();
+        if (breached) {
+            shardBreaches[shard].increment();
+        }
+        ParticipantLoad load = participantLoad(key);
+        load.requests.increment();
+        load.totalNanos.add(elapsed);
+        if (breached) {
+            load.breaches.increment();
+        }
+    }
+
+    private ParticipantLoad participantLoad(PositionKey key) {
+        ParticipantLoad load = participants.get(key.participantId());
+        if (load != null) {
+            return load;
+        }
+        // A rejected command leaves a version-0 position behind; only a mutated one proves the participant exists
+        ParticipantPosition position = ledger.find(key);
+        boolean known = position != null && position.getVersion() > 0L;
+        String tracked = known && participants.size() < MAX_TRACKED_PARTICIPANTS
+                ? key.participantId() : OTHER_PARTICIPANTS;
+        return participants.computeIfAbsent(tracked, this::newParticipantLoad);
+    }
+
+    private ParticipantLoad newParticipantLoad(String participantId) {
+        Counter breaches = Counter.builder("liquidity.participant.sla.breaches")
+                .description("Liquidity operations on the participant slower than their SLA")
+                .tag("participant", participantId)
+                .register(meterRegistry);
+        return new ParticipantLoad(participantId, breaches);
+    }
+
+    public LatencyHistogram.Snapshot histogram(LiquidityOperation operation) {
+        return histograms[operation.ordinal()].snapshot();
+    }
+
+    public long breaches(LiquidityOperation operation) {
+        return (long) operationBreaches[operation.ordinal()].count();
+    }
+
+    public long shardRequests(int shard) {
+        return shardRequests[shard].sum();
+    }
+
+    public long shardBreaches(int shard) {
+        return (long) shardBreaches[shard].count();
+    }
+
+    /**
+     * Participants with the most SLA breaches, then the most requests
+     */
+    public List<ParticipantLoad> hotParticipants(int limit) {
+        List<ParticipantLoad> loads = new ArrayList<>(participants.values());
+        loads.sort(Comparator.comparingLong(ParticipantLoad::breaches).reversed()
+                .thenComparing(Comparator.comparingLong(ParticipantLoad::requests).reversed()));
+        return loads.size() > limit ? loads.subList(0, limit) : loads;
+    }
+
+    /**
+     * Request, breach and latency totals of one participant
+     */
+    public static final class ParticipantLoad {
+
+        private final String participantId;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final Counter breaches;
+
+        private ParticipantLoad(String participantId, Counter breaches) {
+            this.participantId = participantId;
+            this.breaches = breaches;
+        }
+
+        public String participantId() {
+            return participantId;
+        }
+
+        public long requests() {
+            return requests.sum();
+        }
+
+        public long breaches() {
+            return (long) breaches.count();
+        }
+
+        public double meanNanos() {
+            long count = requests.sum();
+            return count == 0L ? 0.0 : (double) totalNanos.sum() / count;
+        }
+    }
+}
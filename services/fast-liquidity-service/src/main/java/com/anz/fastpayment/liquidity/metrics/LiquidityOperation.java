@@ -0,0 +1,38 @@
+package com.anz.fastpayment.liquidity.metrics;
+
+import java.time.Duration;
+
+/**
+ * Liquidity Operation
+ *
+ * The operations whose latency is tracked against their documented SLA: balance checks
+ * within 200ms, balance updates and reservations within 100ms, balance reads within 50ms
+ */
+public enum LiquidityOperation {
+
+    CHECK("check", Duration.ofMillis(200)),
+    UPDATE("update", Duration.ofMillis(100)),
+    RESERVATION("reservation", Duration.ofMillis(100)),
+    BALANCE_READ("balance-read", Duration.ofMillis(50));
+
+    /**
+     * The tightest SLA; every SLA above is a power-of-two multiple of it
+     */
+    static final Duration SLA_ANCHOR = Duration.ofMillis(50);
+
+    private final String tag;
+    private final Duration sla;
+
+    LiquidityOperation(String tag, Duration sla) {
+        this.tag = tag;
+        this.sla = sla;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public Duration getSla() {
+        return sla;
+    }
+}
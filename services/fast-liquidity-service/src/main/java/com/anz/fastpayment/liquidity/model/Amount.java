@@ -0,0 +1,299 @@
+package com.anz.fastpayment.liquidity.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount
+ *
+ * Immutable fixed-point monetary amount stored as a {@code long} count of
+ * 10^-5 units, the scale enforced by the API amount format. Arithmetic and
+ * threshold comparisons work on the raw units and never allocate.
+ *
+ * On the wire an amount is a JSON string such as {@code "-50000.00"}; the
+ * Jackson (de)serializer reads and writes it directly against the token buffer.
+ */
+@Schema(type = "string", pattern = "^-?[0-9]+(\\.[0-9]{1,5})?$", example = "-50000.00",
+        description = "Decimal amount with up to 5 decimal places")
+@JsonSerialize(using = Amount.Serializer.class)
+@JsonDeserialize(using = Amount.Deserializer.class)
+public final class Amount implements Comparable<Amount> {
+
+    public static final int SCALE = 5;
+
+    /**
+     * Units per 1.00 of currency
+     */
+    public static final long UNIT = 100_000L;
+
+    /**
+     * Minimum number of decimals rendered, so whole amounts read as "1500000.00"
+     */
+    private static final int MIN_RENDERED_DECIMALS = 2;
+
+    private static final int BASIS_POINTS = 10_000;
+
+    /**
+     * Longest rendering: sign, 14 integer digits, point and 5 decimals
+     */
+    public static final int MAX_CHARS = 21;
+
+    public static final Amount ZERO = new Amount(0L);
+
+    private final long units;
+
+    private Amount(long units) {
+        this.units = units;
+    }
+
+    public static Amount ofUnits(long units) {
+        if (units == Long.MIN_VALUE) {
+            throw new ArithmeticException("Amount out of range");
+        }
+        return units == 0L ? ZERO : new Amount(units);
+    }
+
+    public static Amount of(BigDecimal value) {
+        return ofUnits(toUnits(value));
+    }
+
+    /**
+     * Convert a decimal to units, rejecting values with more than 5 decimal places
+     */
+    public static long toUnits(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static Amount parse(CharSequence text) {
+        char[] chars = text.toString().toCharArray();
+        return ofUnits(parseUnits(chars, 0, chars.length));
+    }
+
+    /**
+     * Parse {@code ^-?[0-9]+(\.[0-9]{1,5})?$} from a character buffer into units without allocating
+     *
+     * @throws NumberFormatException if the text does not match the amount format
+     * @throws ArithmeticException if the value does not fit in a long at scale 5
+     */
+    public static long parseUnits(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && buffer[i] == '-') {
+            negative = true;
+            i++;
+        }
+        long units = 0L;
+        int integerDigits = 0;
+        while (i < end && buffer[i] != '.') {
+            units = accumulate(units, buffer[i++]);
+            integerDigits++;
+        }
+        if (integerDigits == 0) {
+            throw new NumberFormatException("Amount must start with a digit");
+        }
+        int decimals = 0;
+        if (i < end) {
+            i++; // '.'
+            if (i == end) {
+                throw new NumberFormatException("Amount must have digits after the decimal point");
+            }
+            while (i < end) {
+                if (++decimals > SCALE) {
+                    throw new NumberFormatException("Amount must have at most " + SCALE + " decimal places");
+                }
+                units = accumulate(units, buffer[i++]);
+            }
+        }
+        units = scale(units, SCALE - decimals);
+        return negative ? -units : units;
+    }
+
+    public long units() {
+        return units;
+    }
+
+    public int signum() {
+        return Long.signum(units);
+    }
+
+    public boolean isNegative() {
+        return units < 0L;
+    }
+
+    public Amount plus(Amount other) {
+        return ofUnits(Math.addExact(units, other.units));
+    }
+
+    public Amount minus(Amount other) {
+        return ofUnits(Math.subtractExact(units, other.units));
+    }
+
+    public Amount negate() {
+        return ofUnits(-units);
+    }
+
+    public Amount abs() {
+        return units < 0L ? negate() : this;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /**
+     * Whether {@code value < base * basisPoints / 10000}, evaluated exactly in 128 bits
+     *
+     * @param value Units being compared
+     * @param base Units the fraction is taken of
+     * @param basisPoints Fraction of {@code base} in basis points (2000 = 20%)
+     */
+    public static boolean isBelowFraction(long value, long base, int basisPoints) {
+        return compareProducts(value, BASIS_POINTS, base, basisPoints) < 0;
+    }
+
+    /**
+     * Basis points for a ratio such as 0.8, for use with {@link #isBelowFraction}
+     */
+    public static int toBasisPoints(double ratio) {
+        return (int) Math.round(ratio * BASIS_POINTS);
+    }
+
+    /**
+     * Signed 128-bit comparison of {@code a*b} and {@code c*d}
+     */
+    static int compareProducts(long a, long b, long c, long d) {
+        long high1 = Math.multiplyHigh(a, b);
+        long high2 = Math.multiplyHigh(c, d);
+        if (high1 != high2) {
+            return Long.compare(high1, high2);
+        }
+        return Long.compareUnsigned(a * b, c * d);
+    }
+
+    /**
+     * Render into {@code buffer} (at least {@link #MAX_CHARS} long) and return the number of characters written
+     */
+    public int writeTo(char[] buffer) {
+        return format(units, buffer);
+    }
+
+    static int format(long units, char[] buffer) {
+        long magnitude = Math.abs(units);
+        long whole = magnitude / UNIT;
+        long fraction = magnitude % UNIT;
+
+        int decimals = SCALE;
+        while (decimals > MIN_RENDERED_DECIMALS && fraction % 10 == 0) {
+            fraction /= 10;
+            decimals--;
+        }
+
+        // Write right to left, then shift to the start of the buffer
+        int pos = MAX_CHARS;
+        for (int d = 0; d < decimals; d++) {
+            buffer[--pos] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        buffer[--pos] = '.';
+        do {
+            buffer[--pos] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole != 0);
+        if (units < 0L) {
+            buffer[--pos] = '-';
+        }
+        int length = MAX_CHARS - pos;
+        System.arraycopy(buffer, pos, buffer, 0, length);
+        return length;
+    }
+
+    private static long accumulate(long units, char c) {
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Amount must be numeric with up to " + SCALE + " decimal places");
+        }
+        return Math.addExact(Math.multiplyExact(units, 10L), c - '0');
+    }
+
+    private static long scale(long units, int decimalsMissing) {
+        for (int i = 0; i < decimalsMissing; i++) {
+            units = Math.multiplyExact(units, 10L);
+        }
+        return units;
+    }
+
+    @Override
+    public int compareTo(Amount other) {
+        return Long.compare(units, other.units);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Amount other && units == other.units);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(units);
+    }
+
+    @Override
+    public String toString() {
+        char[] buffer = new char[MAX_CHARS];
+        return new String(buffer, 0, format(units, buffer));
+    }
+
+    /**
+     * Writes an amount as a JSON string straight from a character buffer
+     */
+    public static final class Serializer extends StdSerializer<Amount> {
+
+        public Serializer() {
+            super(Amount.class);
+        }
+
+        @Override
+        public void serialize(Amount value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            char[] buffer = new char[MAX_CHARS];
+            gen.writeString(buffer, 0, value.writeTo(buffer));
+        }
+    }
+
+    /**
+     * Reads an amount from a JSON string or number token using the parser's own
+     * character buffer, so no intermediate String or BigDecimal is created
+     */
+    public static final class Deserializer extends StdDeserializer<Amount> {
+
+        public Deserializer() {
+            super(Amount.class);
+        }
+
+        @Override
+        public Amount deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NUMBER_INT
+                    && token != JsonToken.VALUE_NUMBER_FLOAT) {
+                return (Amount) ctxt.handleUnexpectedToken(Amount.class, p);
+            }
+            try {
+                return ofUnits(parseUnits(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()));
+            } catch (NumberFormatException | ArithmeticException e) {
+                return (Amount) ctxt.handleWeirdStringValue(Amount.class, p.getText(),
+                        "Amount must be numeric with up to %d decimal places", SCALE);
+            }
+        }
+    }
+}
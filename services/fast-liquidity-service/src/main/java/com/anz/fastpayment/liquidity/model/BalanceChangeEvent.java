@@ -0,0 +1,153 @@
+package com.anz.fastpayment.liquidity.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * Balance Change Event
+ * 
+ * One streamed change to a position: its state after the latest mutation, and how
+ * much its balance moved across all mutations coalesced into this event
+ */
+@Schema(description = "Coalesced change to one participant position, streamed to the Liquidity Management Console")
+public class BalanceChangeEvent {
+
+    @Schema(description = "Participant identifier", example = "ANZBSGSG")
+    @JsonProperty("participantId")
+    private String participantId;
+
+    @Schema(description = "Currency code", example = "SGD")
+    @JsonProperty("currency")
+    private String currency;
+
+    @Schema(description = "Country code of the payment scheme", example = "SG")
+    @JsonProperty("countryCode")
+    private String countryCode;
+
+    @Schema(description = "Current total balance", example = "1450000.00")
+    @JsonProperty("currentBalance")
+    private Amount currentBalance;
+
+    @Schema(description = "Available balance after reserved amounts", example = "1350000.00")
+    @JsonProperty("availableBalance")
+    private Amount availableBalance;
+
+    @Schema(description = "Amount currently reserved for pending transactions", example = "100000.00")
+    @JsonProperty("reservedAmount")
+    private Amount reservedAmount;
+
+    @Schema(description = "Net balance movement since the previous event for this position", example = "-50000.00")
+    @JsonProperty("balanceChange")
+    private Amount balanceChange;
+
+    @Schema(description = "Current utilization of net debit cap (0.0 to 1.0)", example = "0.3")
+    @JsonProperty("netDebitCapUtilization")
+    private Double netDebitCapUtilization;
+
+    @Schema(description = "Net debit cap utilization band", example = "NORMAL",
+            allowableValues = {"NORMAL", "WARNING", "ALERT", "CRITICAL", "EXCEEDED"})
+    @JsonProperty("netDebitCapLevel")
+    private String netDebitCapLevel;
+
+    @Schema(description = "Number of mutations coalesced into this event", example = "3")
+    @JsonProperty("mutationCount")
+    private int mutationCount;
+
+    @Schema(description = "Timestamp of the latest mutation", example = "2025-01-15T10:30:00.123Z")
+    @JsonProperty("lastTransactionAt")
+    private Instant lastTransactionAt;
+
+    // Constructors
+    public BalanceChangeEvent() {}
+
+    // Getters and Setters
+    public String getParticipantId() {
+        return participantId;
+    }
+
+    public void setParticipantId(String participantId) {
+        this.participantId = participantId;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public void setCountryCode(String countryCode) {
+        this.countryCode = countryCode;
+    }
+
+    public Amount getCurrentBalance() {
+        return currentBalance;
+    }
+
+    public void setCurrentBalance(Amount currentBalance) {
+        this.currentBalance = currentBalance;
+    }
+
+    public Amount getAvailableBalance() {
+        return availableBalance;
+    }
+
+    public void setAvailableBalance(Amount availableBalance) {
+        this.availableBalance = availableBalance;
+    }
+
+    public Amount getReservedAmount() {
+        return reservedAmount;
+    }
+
+    public void setReservedAmount(Amount reservedAmount) {
+        this.reservedAmount = reservedAmount;
+    }
+
+    public Amount getBalanceChange() {
+        return balanceChange;
+    }
+
+    public void setBalanceChange(Amount balanceChange) {
+        this.balanceChange = balanceChange;
+    }
+
+    public Double getNetDebitCapUtilization() {
+        return netDebitCapUtilization;
+    }
+
+    public void setNetDebitCapUtilization(Double netDebitCapUtilization) {
+        this.netDebitCapUtilization = netDebitCapUtilization;
+    }
+
+    public String getNetDebitCapLevel() {
+        return netDebitCapLevel;
+    }
+
+    public void setNetDebitCapLevel(String netDebitCapLevel) {
+        this.netDebitCapLevel = netDebitCapLevel;
+    }
+
+    public int getMutationCount() {
+        return mutationCount;
+    }
+
+    public void setMutationCount(int mutationCount) {
+        this.mutationCount = mutationCount;
+    }
+
+    public Instant getLastTransactionAt() {
+        return lastTransactionAt;
+    }
+
+    public void setLastTransactionAt(Instant lastTransactionAt) {
+        this.lastTransactionAt = lastTransactionAt;
+    }
+}
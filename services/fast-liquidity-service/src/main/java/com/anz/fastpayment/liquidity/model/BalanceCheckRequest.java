@@ -37,9 +37,8 @@ public class BalanceCheckRequest {
     @Schema(description = "Amount to check (negative for debits, positive for credits)", 
             example = "-50000.00")
     @JsonProperty("amount")
-    @NotBlank(message = "Amount is required")
-    @Pattern(regexp = "^-?[0-9]+(\\.[0-9]{1,5})?$", message = "Amount must be numeric with up to 5 decimal places")
-    private String amount;
+    @NotNull(message = "Amount is required")
+    private Amount amount;
 
     @Schema(description = "Type of transaction being checked", 
             example = "DEBIT", allowableValues = {"DEBIT", "CREDIT"})
@@ -56,7 +55,7 @@ public class BalanceCheckRequest {
     // Constructors
     public BalanceCheckRequest() {}
 
-    public BalanceCheckRequest(String countryCode, String currency, String amount, TransactionType transactionType) {
+    public BalanceCheckRequest(String countryCode, String currency, Amount amount, TransactionType transactionType) {
         this.countryCode = countryCode;
         this.currency = currency;
         this.amount = amount;
@@ -88,11 +87,11 @@ public class BalanceCheckRequest {
         this.currency = currency;
     }
 
-    public String getAmount() {
+    public Amount getAmount() {
         return amount;
     }
 
-    public void setAmount(String amount) {
+    public void setAmount(Amount amount) {
         this.amount = amount;
     }
 
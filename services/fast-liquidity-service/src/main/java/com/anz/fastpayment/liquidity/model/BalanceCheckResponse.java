@@ -24,11 +24,11 @@ public class BalanceCheckResponse {
 
     @Schema(description = "Current available balance", example = "1500000.00")
     @JsonProperty("currentBalance")
-    private String currentBalance;
+    private Amount currentBalance;
 
     @Schema(description = "What the balance would be after the transaction", example = "1450000.00")
     @JsonProperty("projectedBalance")
-    private String projectedBalance;
+    private Amount projectedBalance;
 
     @Schema(description = "Currency code", example = "SGD")
     @JsonProperty("currency")
@@ -36,11 +36,11 @@ public class BalanceCheckResponse {
 
     @Schema(description = "Minimum balance threshold", example = "0.00")
     @JsonProperty("minimumBalance")
-    private String minimumBalance;
+    private Amount minimumBalance;
 
     @Schema(description = "Maximum amount available for debits", example = "1500000.00")
     @JsonProperty("availableAmount")
-    private String availableAmount;
+    private Amount availableAmount;
 
     @Schema(description = "Response timestamp", example = "2025-01-15T10:30:00.123Z")
     @JsonProperty("timestamp")
@@ -61,8 +61,8 @@ public class BalanceCheckResponse {
     // Constructors
     public BalanceCheckResponse() {}
 
-    public BalanceCheckResponse(String status, boolean authorized, String currentBalance, 
-                               String projectedBalance, String currency, Instant timestamp, String requestId) {
+    public BalanceCheckResponse(String status, boolean authorized, Amount currentBalance, 
+                               Amount projectedBalance, String currency, Instant timestamp, String requestId) {
         this.status = status;
         this.authorized = authorized;
         this.currentBalance = currentBalance;
@@ -89,19 +89,19 @@ public class BalanceCheckResponse {
         this.authorized = authorized;
     }
 
-    public String getCurrentBalance() {
+    public Amount getCurrentBalance() {
         return currentBalance;
     }
 
-    public void setCurrentBalance(String currentBalance) {
+    public void setCurrentBalance(Amount currentBalance) {
         this.currentBalance = currentBalance;
     }
 
-    public String getProjectedBalance() {
+    public Amount getProjectedBalance() {
         return projectedBalance;
     }
 
-    public void setProjectedBalance(String projectedBalance) {
+    public void setProjectedBalance(Amount projectedBalance) {
         this.projectedBalance = projectedBalance;
     }
 
@@ -113,19 +113,19 @@ public class BalanceCheckResponse {
         this.currency = currency;
     }
 
-    public String getMinimumBalance() {
+    public Amount getMinimumBalance() {
         return minimumBalance;
     }
 
-    public void setMinimumBalance(String minimumBalance) {
+    public void setMinimumBalance(Amount minimumBalance) {
         this.minimumBalance = minimumBalance;
     }
 
-    public String getAvailableAmount() {
+    public Amount getAvailableAmount() {
         return availableAmount;
     }
 
-    public void setAvailableAmount(String availableAmount) {
+    public void setAvailableAmount(Amount availableAmount) {
         this.availableAmount = availableAmount;
     }
 
@@ -0,0 +1,50 @@
+package com.anz.fastpayment.liquidity.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Balance Update Batch Request
+ * 
+ * Request object for applying several balance updates in one call
+ */
+@Schema(description = "Batch of balance updates applied and committed together")
+public class BalanceUpdateBatchRequest {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    @Schema(description = "Updates to apply, in order. Updates for the same participant are applied in list order")
+    @JsonProperty("updates")
+    @NotEmpty(message = "At least one update is required")
+    @Size(max = MAX_BATCH_SIZE, message = "A batch cannot exceed 1000 updates")
+    @Valid
+    private List<BalanceUpdateRequest> updates;
+
+    // Constructors
+    public BalanceUpdateBatchRequest() {}
+
+    public BalanceUpdateBatchRequest(List<BalanceUpdateRequest> updates) {
+        this.updates = updates;
+    }
+
+    // Getters and Setters
+    public List<BalanceUpdateRequest> getUpdates() {
+        return updates;
+    }
+
+    public void setUpdates(List<BalanceUpdateRequest> updates) {
+        this.updates = updates;
+    }
+
+    @Override
+    public String toString() {
+        return "BalanceUpdateBatchRequest{" +
+                "updates=" + (updates != null ? updates.size() : 0) +
+                '}';
+    }
+}
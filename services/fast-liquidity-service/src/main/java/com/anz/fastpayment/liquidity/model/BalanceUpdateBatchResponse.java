@@ -0,0 +1,105 @@
+package com.anz.fastpayment.liquidity.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Balance Update Batch Response
+ * 
+ * Response object for batch balance update operations, with one result per submitted update
+ */
+@Schema(description = "Response from batch balance update operation")
+public class BalanceUpdateBatchResponse {
+
+    @Schema(description = "Batch status: SUCCESS if every update applied, PARTIAL if some did, REJECTED if none did",
+            example = "PARTIAL", allowableValues = {"SUCCESS", "PARTIAL", "REJECTED"})
+    @JsonProperty("status")
+    private String status;
+
+    @Schema(description = "Number of updates applied", example = "98")
+    @JsonProperty("appliedCount")
+    private int appliedCount;
+
+    @Schema(description = "Number of updates rejected (insufficient funds, unknown reservation, ...)", example = "1")
+    @JsonProperty("rejectedCount")
+    private int rejectedCount;
+
+    @Schema(description = "Number of updates skipped as duplicates", example = "1")
+    @JsonProperty("duplicateCount")
+    private int duplicateCount;
+
+    @Schema(description = "Per-update results, in the same order as the request")
+    @JsonProperty("results")
+    private List<BalanceUpdateResponse> results;
+
+    @Schema(description = "When the batch was committed", example = "2025-01-15T10:30:00.456Z")
+    @JsonProperty("processedAt")
+    private Instant processedAt;
+
+    @Schema(description = "Request identifier", example = "BAT-20250115-103000-001")
+    @JsonProperty("requestId")
+    private String requestId;
+
+    // Constructors
+    public BalanceUpdateBatchResponse() {}
+
+    // Getters and Setters
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+
+    public void setAppliedCount(int appliedCount) {
+        this.appliedCount = appliedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(int rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    public void setDuplicateCount(int duplicateCount) {
+        this.duplicateCount = duplicateCount;
+    }
+
+    public List<BalanceUpdateResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BalanceUpdateResponse> results) {
+        this.results = results;
+    }
+
+    public Instant getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(Instant processedAt) {
+        this.processedAt = processedAt;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+}
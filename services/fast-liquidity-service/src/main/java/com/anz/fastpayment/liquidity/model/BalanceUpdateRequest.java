@@ -41,9 +41,8 @@ public class BalanceUpdateRequest {
     @Schema(description = "Amount to add/subtract (negative for debits, positive for credits)", 
             example = "-50000.00")
     @JsonProperty("amount")
-    @NotBlank(message = "Amount is required")
-    @Pattern(regexp = "^-?[0-9]+(\\.[0-9]{1,5})?$", message = "Amount must be numeric with up to 5 decimal places")
-    private String amount;
+    @NotNull(message = "Amount is required")
+    private Amount amount;
 
     @Schema(description = "Type of balance operation", example = "DEBIT", 
             allowableValues = {"DEBIT", "CREDIT", "RESERVE", "RELEASE"})
@@ -90,7 +89,7 @@ public class BalanceUpdateRequest {
     public BalanceUpdateRequest() {}
 
     public BalanceUpdateRequest(String countryCode, String participantId, String currency, 
-                               String amount, TransactionType transactionType, String messageType, 
+                               Amount amount, TransactionType transactionType, String messageType, 
                                String messageId, Instant timestamp) {
         this.countryCode = countryCode;
         this.participantId = participantId;
@@ -127,11 +126,11 @@ public class BalanceUpdateRequest {
         this.currency = currency;
     }
 
-    public String getAmount() {
+    public Amount getAmount() {
         return amount;
     }
 
-    public void setAmount(String amount) {
+    public void setAmount(Amount amount) {
         this.amount = amount;
     }
 
@@ -14,7 +14,7 @@ import java.util.List;
 @Schema(description = "Response from balance update operation")
 public class BalanceUpdateResponse {
 
-    @Schema(description = "Operation status", example = "SUCCESS", allowableValues = {"SUCCESS", "REJECTED"})
+    @Schema(description = "Operation status", example = "SUCCESS", allowableValues = {"SUCCESS", "REJECTED", "DUPLICATE"})
     @JsonProperty("status")
     private String status;
 
@@ -33,15 +33,15 @@ public class BalanceUpdateResponse {
 
     @Schema(description = "Balance before the update", example = "1550000.00")
     @JsonProperty("balanceBefore")
-    private String balanceBefore;
+    private Amount balanceBefore;
 
     @Schema(description = "Balance after the update", example = "1500000.00")
     @JsonProperty("balanceAfter")
-    private String balanceAfter;
+    private Amount balanceAfter;
 
     @Schema(description = "Actual amount that was processed", example = "-50000.00")
     @JsonProperty("amountProcessed")
-    private String amountProcessed;
+    private Amount amountProcessed;
 
     @Schema(description = "When the update was processed", example = "2025-01-15T10:30:00.456Z")
     @JsonProperty("processedAt")
@@ -51,6 +51,10 @@ public class BalanceUpdateResponse {
     @JsonProperty("requestId")
     private String requestId;
 
+    @Schema(description = "Error code when the update was not applied", example = "INSUFFICIENT_FUNDS")
+    @JsonProperty("errorCode")
+    private String errorCode;
+
     @Schema(description = "Any warnings generated during processing")
     @JsonProperty("warnings")
     private List<String> warnings;
@@ -58,7 +62,7 @@ public class BalanceUpdateResponse {
     // Constructors
     public BalanceUpdateResponse() {}
 
-    public BalanceUpdateResponse(String status, String transactionId, String balanceAfter, Instant processedAt) {
+    public BalanceUpdateResponse(String status, String transactionId, Amount balanceAfter, Instant processedAt) {
         this.status = status;
         this.transactionId = transactionId;
         this.balanceAfter = balanceAfter;
@@ -98,27 +102,27 @@ public class BalanceUpdateResponse {
         this.currency = currency;
     }
 
-    public String getBalanceBefore() {
+    public Amount getBalanceBefore() {
         return balanceBefore;
     }
 
-    public void setBalanceBefore(String balanceBefore) {
+    public void setBalanceBefore(Amount balanceBefore) {
         this.balanceBefore = balanceBefore;
     }
 
-    public String getBalanceAfter() {
+    public Amount getBalanceAfter() {
         return balanceAfter;
     }
 
-    public void setBalanceAfter(String balanceAfter) {
+    public void setBalanceAfter(Amount balanceAfter) {
         this.balanceAfter = balanceAfter;
     }
 
-    public String getAmountProcessed() {
+    public Amount getAmountProcessed() {
         return amountProcessed;
     }
 
-    public void setAmountProcessed(String amountProcessed) {
+    public void setAmountProcessed(Amount amountProcessed) {
         this.amountProcessed = amountProcessed;
     }
 
@@ -138,6 +142,14 @@ public class BalanceUpdateResponse {
         this.requestId = requestId;
     }
 
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+
     public List<String> getWarnings() {
         return warnings;
     }
@@ -120,5 +120,7 @@ public class ErrorResponse {
         public static final String NET_DEBIT_CAP_EXCEEDED = "NET_DEBIT_CAP_EXCEEDED";
         public static final String UNAUTHORIZED_TRANSACTION = "UNAUTHORIZED_TRANSACTION";
         public static final String SERVICE_UNAVAILABLE = "SERVICE_UNAVAILABLE";
+        public static final String SERVICE_OVERLOADED = "SERVICE_OVERLOADED";
+        public static final String RESERVATION_NOT_FOUND = "RESERVATION_NOT_FOUND";
     }
 }
\ No newline at end of file
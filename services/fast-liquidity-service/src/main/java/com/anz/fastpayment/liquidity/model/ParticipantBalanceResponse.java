@@ -23,19 +23,19 @@ public class ParticipantBalanceResponse {
 
     @Schema(description = "Current total balance", example = "1500000.00")
     @JsonProperty("currentBalance")
-    private String currentBalance;
+    private Amount currentBalance;
 
     @Schema(description = "Available balance after reserved amounts", example = "1400000.00")
     @JsonProperty("availableBalance")
-    private String availableBalance;
+    private Amount availableBalance;
 
     @Schema(description = "Amount currently reserved for pending transactions", example = "100000.00")
     @JsonProperty("reservedAmount")
-    private String reservedAmount;
+    private Amount reservedAmount;
 
     @Schema(description = "Maximum net debit cap for this participant", example = "5000000.00")
     @JsonProperty("netDebitCapLimit")
-    private String netDebitCapLimit;
+    private Amount netDebitCapLimit;
 
     @Schema(description = "Current utilization of net debit cap (0.0 to 1.0)", example = "0.3")
     @JsonProperty("netDebitCapUtilization")
@@ -43,9 +43,9 @@ public class ParticipantBalanceResponse {
 
     @Schema(description = "Minimum balance threshold", example = "0.00")
     @JsonProperty("minimumBalance")
-    private String minimumBalance;
+    private Amount minimumBalance;
 
-    @Schema(description = "Response timestamp", example = "2025-01-15T10:30:00.123Z")
+    @Schema(description = "Time the balance was read from the ledger; cached reads keep the original time", example = "2025-01-15T10:30:00.123Z")
     @JsonProperty("timestamp")
     private Instant timestamp;
 
@@ -56,8 +56,8 @@ public class ParticipantBalanceResponse {
     // Constructors
     public ParticipantBalanceResponse() {}
 
-    public ParticipantBalanceResponse(String participantId, String currency, String currentBalance, 
-                                    String availableBalance, Instant timestamp) {
+    public ParticipantBalanceResponse(String participantId, String currency, Amount currentBalance, 
+                                    Amount availableBalance, Instant timestamp) {
         this.participantId = participantId;
         this.currency = currency;
         this.currentBalance = currentBalance;
@@ -82,35 +82,35 @@ public class ParticipantBalanceResponse {
         this.currency = currency;
     }
 
-    public String getCurrentBalance() {
+    public Amount getCurrentBalance() {
         return currentBalance;
     }
 
-    public void setCurrentBalance(String currentBalance) {
+    public void setCurrentBalance(Amount currentBalance) {
         this.currentBalance = currentBalance;
     }
 
-    public String getAvailableBalance() {
+    public Amount getAvailableBalance() {
         return availableBalance;
     }
 
-    public void setAvailableBalance(String availableBalance) {
+    public void setAvailableBalance(Amount availableBalance) {
         this.availableBalance = availableBalance;
     }
 
-    public String getReservedAmount() {
+    public Amount getReservedAmount() {
         return reservedAmount;
     }
 
-    public void setReservedAmount(String reservedAmount) {
+    public void setReservedAmount(Amount reservedAmount) {
         this.reservedAmount = reservedAmount;
     }
 
-    public String getNetDebitCapLimit() {
+    public Amount getNetDebitCapLimit() {
         return netDebitCapLimit;
     }
 
-    public void setNetDebitCapLimit(String netDebitCapLimit) {
+    public void setNetDebitCapLimit(Amount netDebitCapLimit) {
         this.netDebitCapLimit = netDebitCapLimit;
     }
 
@@ -122,11 +122,11 @@ public class ParticipantBalanceResponse {
         this.netDebitCapUtilization = netDebitCapUtilization;
     }
 
-    public String getMinimumBalance() {
+    public Amount getMinimumBalance() {
         return minimumBalance;
     }
 
-    public void setMinimumBalance(String minimumBalance) {
+    public void setMinimumBalance(Amount minimumBalance) {
         this.minimumBalance = minimumBalance;
     }
 
@@ -0,0 +1,46 @@
+package com.anz.fastpayment.liquidity.netdebit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Net Debit Cap Alert Listener
+ * 
+ * Logs net debit cap threshold crossings and counts them by level and direction
+ */
+@Component
+public class NetDebitCapAlertListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NetDebitCapAlertListener.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public NetDebitCapAlertListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener
+    public void onThresholdCrossed(NetDebitCapEvent event) {
+        String direction = event.isEscalation() ? "up" : "down";
+        Counter.builder("liquidity.ndc.threshold.crossings")
+                .description("Net debit cap utilization threshold crossings")
+                .tag("level", event.level().name())
+                .tag("direction", direction)
+                .register(meterRegistry)
+                .increment();
+
+        if (event.isEscalation() && event.level().isMoreSevereThan(NetDebitCapLevel.WARNING)) {
+            logger.warn("Net debit cap {} for participant: {}, currency: {}, utilization: {}, net debit: {}, limit: {}",
+                    event.level(), event.participantId(), event.currency(),
+                    String.format("%.4f", event.utilization()), event.netDebit(), event.limit());
+        } else {
+            logger.info("Net debit cap level {} -> {} for participant: {}, currency: {}, utilization: {}",
+                    event.previousLevel(), event.level(), event.participantId(), event.currency(),
+                    String.format("%.4f", event.utilization()));
+        }
+    }
+}
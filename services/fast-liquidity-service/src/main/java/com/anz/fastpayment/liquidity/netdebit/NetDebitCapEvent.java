@@ -0,0 +1,27 @@
+package com.anz.fastpayment.liquidity.netdebit;
+
+import com.anz.fastpayment.liquidity.model.Amount;
+
+import java.time.Instant;
+
+/**
+ * Net Debit Cap Event
+ * 
+ * Published when a position's net debit cap utilization moves into a different
+ * {@link NetDebitCapLevel}, in either direction. Not published for mutations that
+ * stay within the same band.
+ */
+public record NetDebitCapEvent(String participantId,
+                               String currency,
+                               String countryCode,
+                               NetDebitCapLevel previousLevel,
+                               NetDebitCapLevel level,
+                               Amount netDebit,
+                               Amount limit,
+                               double utilization,
+                               Instant occurredAt) {
+
+    public boolean isEscalation() {
+        return level.isMoreSevereThan(previousLevel);
+    }
+}
@@ -0,0 +1,18 @@
+package com.anz.fastpayment.liquidity.netdebit;
+
+/**
+ * Net Debit Cap Level
+ * 
+ * Band a participant's net debit cap utilization falls into, in increasing severity
+ */
+public enum NetDebitCapLevel {
+    NORMAL,
+    WARNING,
+    ALERT,
+    CRITICAL,
+    EXCEEDED;
+
+    public boolean isMoreSevereThan(NetDebitCapLevel other) {
+        return compareTo(other) > 0;
+    }
+}
@@ -0,0 +1,296 @@
+package com.anz.fastpayment.liquidity.netdebit;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutationListener;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.model.Amount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Net Debit Cap Tracker
+ * 
+ * Tracks each position's net debit cap utilization as mutations are applied. A
+ * position's net debit is how far it has fallen below its balance at the start of the
+ * settlement cycle, plus any funds held by reservations; utilization is that over the
+ * participant's cap. Every ledger cut starts a new cycle, so the cap applies to what a
+ * participant owes since the last settlement.
+ * 
+ * The start-of-cycle balance is the balance before the position's first mutation in
+ * the cycle, recorded when that mutation is seen, so a cut costs O(1) per shard. Like
+ * the settlement report, the first cycle after a restart (or after a cluster node takes
+ * positions over) starts from the positions as they were loaded.
+ * 
+ * Each mutation already carries the position's after-state, so the new level is an
+ * O(1) comparison against precomputed thresholds on the shard writer thread. Only a
+ * change of {@link NetDebitCapLevel} publishes a {@link NetDebitCapEvent}, handed to a
+ * dedicated thread so listeners never stall the ledger.
+ */
+@Component
+public class NetDebitCapTracker implements BalanceMutationListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NetDebitCapTracker.class);
+
+    private static final int EVENT_QUEUE_CAPACITY = 10_000;
+
+    private static final NetDebitCapLevel[] LEVELS = NetDebitCapLevel.values();
+
+    private final long defaultLimit;
+    private final Map<String, Long> limits = new HashMap<>();
+    private final boolean monitoringEnabled;
+
+    // Basis points at which each level above NORMAL starts, indexed by ordinal
+    private final int[] levelBasisPoints = new int[LEVELS.length];
+
+    // Positions above NORMAL, one map per shard, each touched only by that shard's writer
+    private final Map<PositionKey, Exposure>[] levels;
+
+    // Cycle each shard is in, advanced by its writer at every cut
+    private final AtomicLongArray cycles;
+
+    // Balance each position started its cycle with; an entry of an older cycle is stale
+    private final Map<PositionKey, CycleStart> cycleStarts = new ConcurrentHashMap<>();
+
+    private final ApplicationEventPublisher publisher;
+    private final ThreadPoolExecutor eventExecutor;
+
+    @SuppressWarnings("unchecked")
+    public NetDebitCapTracker(LiquidityProperties properties, ApplicationEventPublisher publisher) {
+        LiquidityProperties.NetDebitCap config = properties.getNetDebitCap();
+        LiquidityProperties.Thresholds thresholds = properties.getThresholds();
+        this.defaultLimit = Amount.toUnits(config.getDefaultLimit());
+        for (Map.Entry<String, BigDecimal> limit : config.getLimits().entrySet()) {
+            limits.put(limit.getKey(), Amount.toUnits(limit.getValue()));
+        }
+        this.monitoringEnabled = config.isMonitoringEnabled();
+
+        levelBasisPoints[NetDebitCapLevel.WARNING.ordinal()] = Amount.toBasisPoints(thresholds.getWarningPercentage());
+        levelBasisPoints[NetDebitCapLevel.ALERT.ordinal()] = Amount.toBasisPoints(config.getAlertThreshold());
+        levelBasisPoints[NetDebitCapLevel.CRITICAL.ordinal()] = Amount.toBasisPoints(thresholds.getCriticalPercentage());
+        levelBasisPoints[NetDebitCapLevel.EXCEEDED.ordinal()] = Amount.toBasisPoints(1.0);
+        for (int i = NetDebitCapLevel.ALERT.ordinal(); i < LEVELS.length; i++) {
+            if (levelBasisPoints[i] < levelBasisPoints[i - 1]) {
+                throw new IllegalArgumentException("Net debit cap thresholds must be warning <= alert <= critical <= 1.0");
+            }
+        }
+
+        this.levels = new Map[properties.getLedger().getShards()];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new HashMap<>();
+        }
+        this.cycles = new AtomicLongArray(levels.length);
+
+        this.publisher = publisher;
+        this.eventExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EVENT_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ndc-events");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void onMutation(BalanceMutation mutation) {
+        PositionKey key = mutation.key();
+        int shard = mutation.shard();
+        long cycle = cycles.get(shard);
+        CycleStart start = cycleStarts.get(key);
+        if (start == null || start.cycle() != cycle) {
+            start = new CycleStart(shard, cycle, mutation.balanceBefore());
+            cycleStarts.put(key, start);
+        }
+        long netDebit = netDebit(start.balance(), mutation.balanceAfter(), mutation.reservedAfter());
+        update(shard, key, netDebit, mutation.reservedAfter(), mutation.appliedAt());
+    }
+
+    /**
+     * Start a new cycle on the shard: every position's net debit drops to what its
+     * reservations hold, and levels that change with it are published
+     */
+    @Override
+    public void onCut(int shard, long sequence) {
+        cycles.incrementAndGet(shard);
+        Instant now = Instant.now();
+        Map<PositionKey, Exposure> shardLevels = levels[shard];
+        for (Iterator<Map.Entry<PositionKey, Exposure>> it = shardLevels.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<PositionKey, Exposure> entry = it.next();
+            PositionKey key = entry.getKey();
+            Exposure exposure = entry.getValue();
+            long limit = limitOf(key.participantId());
+            NetDebitCapLevel level = levelOf(exposure.reserved(), limit);
+            if (level == exposure.level()) {
+                continue;
+            }
+            if (level == NetDebitCapLevel.NORMAL) {
+                it.remove();
+            } else {
+                entry.setValue(new Exposure(level, exposure.reserved()));
+            }
+            if (monitoringEnabled) {
+                publish(new NetDebitCapEvent(key.participantId(), key.currency(), key.countryCode(), exposure.level(),
+                        level, Amount.ofUnits(exposure.reserved()), Amount.ofUnits(limit),
+                        utilization(exposure.reserved(), limit), now));
+            }
+        }
+    }
+
+    /**
+     * Start loaded positions on a new cycle and seed their levels, without publishing
+     * anything: nothing about them changed
+     */
+    @Override
+    public void onRestore(int shard, Collection<PositionState> positions) {
+        long cycle = cycles.get(shard);
+        Map<PositionKey, Exposure> shardLevels = levels[shard];
+        for (PositionState position : positions) {
+            cycleStarts.put(position.key(), new CycleStart(shard, cycle, position.balance()));
+            NetDebitCapLevel level = levelOf(position.reserved(), limitOf(position.key().participantId()));
+            if (level == NetDebitCapLevel.NORMAL) {
+                shardLevels.remove(position.key());
+            } else {
+                shardLevels.put(position.key(), new Exposure(level, position.reserved()));
+            }
+        }
+    }
+
+    private void update(int shard, PositionKey key, long netDebit, long reserved, Instant at) {
+        long limit = limitOf(key.participantId());
+        NetDebitCapLevel level = levelOf(netDebit, limit);
+
+        Map<PositionKey, Exposure> shardLevels = levels[shard];
+        Exposure previous = level == NetDebitCapLevel.NORMAL
+                ? shardLevels.remove(key)
+                : shardLevels.put(key, new Exposure(level, reserved));
+        NetDebitCapLevel previousLevel = previous != null ? previous.level() : NetDebitCapLevel.NORMAL;
+        if (previousLevel != level && monitoringEnabled) {
+            publish(new NetDebitCapEvent(key.participantId(), key.currency(), key.countryCode(), previousLevel, level,
+                    Amount.ofUnits(netDebit), Amount.ofUnits(limit), utilization(netDebit, limit), at));
+        }
+    }
+
+    /**
+     * Net debit of a position in scaled units, never negative
+     */
+    public long netDebitOf(PositionState position) {
+        if (position == null) {
+            return 0L;
+        }
+        return netDebit(cycleStartOf(position.key(), position.balance()), position.balance(), position.reserved());
+    }
+
+    /**
+     * Net debit cap of a participant in scaled units
+     */
+    public long limitOf(String participantId) {
+        Long limit = limits.get(participantId);
+        return limit != null ? limit : defaultLimit;
+    }
+
+    /**
+     * Utilization of a position's net debit cap, where 1.0 is fully used
+     */
+    public double utilizationOf(PositionState position, String participantId) {
+        return utilization(netDebitOf(position), limitOf(participantId));
+    }
+
+    /**
+     * Whether taking on {@code additionalDebit} more units keeps the position within its cap
+     */
+    public boolean isWithinCap(PositionState position, String participantId, long additionalDebit) {
+        long limit = limitOf(participantId);
+        return limit <= 0L || Math.addExact(netDebitOf(position), additionalDebit) <= limit;
+    }
+
+    /**
+     * Level a position would be at with {@code additionalDebit} more units of net debit
+     */
+    public NetDebitCapLevel levelAfter(PositionState position, String participantId, long additionalDebit) {
+        return levelOf(Math.addExact(netDebitOf(position), additionalDebit), limitOf(participantId));
+    }
+
+    /**
+     * Utilization of a position's net debit cap right after {@code mutation} was applied
+     */
+    public double utilizationAfter(BalanceMutation mutation) {
+        return utilization(netDebitAfter(mutation), limitOf(mutation.key().participantId()));
+    }
+
+    /**
+     * Level a position is at right after {@code mutation} was applied
+     */
+    public NetDebitCapLevel levelAfter(BalanceMutation mutation) {
+        return levelOf(netDebitAfter(mutation), limitOf(mutation.key().participantId()));
+    }
+
+    private long netDebitAfter(BalanceMutation mutation) {
+        return netDebit(cycleStartOf(mutation.key(), mutation.balanceBefore()),
+                mutation.balanceAfter(), mutation.reservedAfter());
+    }
+
+    /**
+     * Balance the position started its current cycle with, or {@code fallback} if it has
+     * not moved in this cycle yet
+     */
+    private long cycleStartOf(PositionKey key, long fallback) {
+        CycleStart start = cycleStarts.get(key);
+        return start != null && start.cycle() == cycles.get(start.shard()) ? start.balance() : fallback;
+    }
+
+    private static long netDebit(long cycleStart, long balance, long reserved) {
+        return Math.max(0L, cycleStart - balance + reserved);
+    }
+
+    private NetDebitCapLevel levelOf(long netDebit, long limit) {
+        if (limit <= 0L) {
+            return NetDebitCapLevel.NORMAL;
+        }
+        for (int i = LEVELS.length - 1; i > 0; i--) {
+            if (!Amount.isBelowFraction(netDebit, limit, levelBasisPoints[i])) {
+                return LEVELS[i];
+            }
+        }
+        return NetDebitCapLevel.NORMAL;
+    }
+
+    private static double utilization(long netDebit, long limit) {
+        return limit > 0L ? (double) netDebit / limit : 0.0;
+    }
+
+    private void publish(NetDebitCapEvent event) {
+        try {
+            eventExecutor.execute(() -> publisher.publishEvent(event));
+        } catch (RejectedExecutionException e) {
+            logger.error("Dropped net debit cap event for {}/{}: {} -> {}, event queue full",
+                    event.participantId(), event.currency(), event.previousLevel(), event.level());
+        }
+    }
+
+    @Override
+    public void close() {
+        eventExecutor.shutdown();
+    }
+
+    private record Exposure(NetDebitCapLevel level, long reserved) {
+    }
+
+    private record CycleStart(int shard, long cycle, long balance) {
+    }
+}
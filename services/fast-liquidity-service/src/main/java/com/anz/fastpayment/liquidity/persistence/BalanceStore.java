@@ -0,0 +1,22 @@
+package com.anz.fastpayment.liquidity.persistence;
+
+import java.util.List;
+
+/**
+ * Balance Store
+ * 
+ * Durable copy of position balances, written behind the in-memory ledger by
+ * {@link BalanceWriteBehind}
+ */
+public interface BalanceStore {
+
+    /**
+     * Upsert the given rows in one commit. Rows carry complete state, so writing a row
+     * again is harmless.
+     * 
+     * @param rows At most one row per position
+     * @throws BalanceStoreRejectedException if the store refused the rows themselves; none was written
+     * @throws RuntimeException if the commit failed; none, some or all rows may have been written
+     */
+    void write(List<PositionRow> rows);
+}
@@ -0,0 +1,14 @@
+package com.anz.fastpayment.liquidity.persistence;
+
+/**
+ * Balance Store Rejected Exception
+ * 
+ * Thrown when the balance store refuses a commit because of the rows it holds rather
+ * than because it is unreachable, so writing the same rows again fails the same way
+ */
+public class BalanceStoreRejectedException extends RuntimeException {
+
+    public BalanceStoreRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
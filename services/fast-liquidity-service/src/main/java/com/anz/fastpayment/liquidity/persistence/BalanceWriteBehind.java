@@ -0,0 +1,424 @@
+package com.anz.fastpayment.liquidity.persistence;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutationListener;
+import com.anz.fastpayment.liquidity.ledger.LedgerUnavailableException;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.ledger.ShardState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Balance Write-Behind
+ *
+ * Keeps the {@link BalanceStore} (Spanner) following the in-memory ledger without
+ * putting it on the update path. Ledger writers only record the latest state of each
+ * position they change in a map, so a position updated many times between flushes is
+ * written once. A single flusher thread drains the map every {@code flush-interval}, or
+ * sooner once {@code flush-size} positions are waiting, and upserts the rows in commits
+ * of at most {@code max-batch-size}. A failed commit keeps its rows, merged with newer
+ * changes, and is retried with exponential backoff up to {@code max-retry-backoff}.
+ * A commit the store refuses for its contents is retried one row at a time, and a row
+ * it still refuses on its own is dropped and counted, so it cannot hold back the rest.
+ *
+ * The age of the oldest change not yet committed is published as
+ * {@code liquidity.persistence.lag}. Once it exceeds {@code max-lag}, {@link #admit()}
+ * holds updates back: under the BLOCK policy for up to {@code block-timeout} while the
+ * flusher catches up, under SHED at once, by refusing them with a
+ * {@link LedgerUnavailableException}. Balance checks are never held back.
+ *
+ * The journal stays the ledger's durability mechanism; the store is a copy for
+ * reporting and reconciliation. After the journal is replayed every position is
+ * enqueued again by {@link #resync}, so changes that never reached the store before a
+ * crash are written on restart.
+ */
+@Component
+public class BalanceWriteBehind implements BalanceMutationListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceWriteBehind.class);
+
+    // nanoTime value meaning "nothing waiting"
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final boolean enabled;
+    private final BalanceStore store;
+    private final long flushIntervalNanos;
+    private final int flushSize;
+    private final int maxBatchSize;
+    private final long maxLagNanos;
+    private final LiquidityProperties.Persistence.OverloadPolicy overloadPolicy;
+    private final long blockTimeoutNanos;
+    private final long maxRetryBackoffNanos;
+    private final long shutdownTimeoutMillis;
+
+    // Changed since the last drain; written by ledger writers, drained by the flusher
+    private final ConcurrentHashMap<PositionKey, PositionRow> dirty = new ConcurrentHashMap<>();
+    private final AtomicInteger dirtyCount = new AtomicInteger();
+    private final AtomicLong dirtySince = new AtomicLong(NONE);
+
+    // Drained but not yet committed; flusher thread only, except inFlightSince
+    private final Map<PositionKey, PositionRow> batch = new LinkedHashMap<>();
+    private long batchSince = NONE;
+    private volatile long inFlightSince = NONE;
+    private volatile int batchSize;
+
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progressed = progressLock.newCondition();
+
+    private final Timer flushTimer;
+    private final Counter rowsCounter;
+    private final Counter failedCounter;
+    private final Counter shedCounter;
+    private final Counter rejectedCounter;
+
+    private final Thread flusher;
+    private volatile boolean running;
+
+    @Autowired
+    public BalanceWriteBehind(LiquidityProperties properties, ObjectProvider<BalanceStore> store,
+                              MeterRegistry meterRegistry) {
+        this(properties, store.getIfAvailable(), meterRegistry);
+    }
+
+    public BalanceWriteBehind(LiquidityProperties properties, BalanceStore store, MeterRegistry meterRegistry) {
+        LiquidityProperties.Persistence config = properties.getPersistence();
+        this.enabled = config.isEnabled();
+        this.store = store;
+        this.flushIntervalNanos = config.getFlushInterval().toNanos();
+        this.flushSize = config.getFlushSize();
+        this.maxBatchSize = config.getMaxBatchSize();
+        this.maxLagNanos = config.getMaxLag().toNanos();
+        this.overloadPolicy = config.getOverloadPolicy();
+        this.blockTimeoutNanos = config.getBlockTimeout().toNanos();
+        this.maxRetryBackoffNanos = config.getMaxRetryBackoff().toNanos();
+        this.shutdownTimeoutMillis = config.getShutdownTimeout().toMillis();
+
+        this.flushTimer = Timer.builder("liquidity.persistence.flush.duration")
+                .description("Time to commit one batch of position rows")
+                .register(meterRegistry);
+        this.rowsCounter = Counter.builder("liquidity.persistence.rows")
+                .description("Position rows committed to the balance store")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("liquidity.persistence.failures")
+                .description("Balance store commits that failed and will be retried")
+                .register(meterRegistry);
+        this.shedCounter = Counter.builder("liquidity.persistence.shed")
+                .description("Updates refused because the balance store fell too far behind")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("liquidity.persistence.rejected")
+                .description("Position rows dropped because the balance store refused them")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            this.flusher = null;
+            logger.warn("Balance persistence is disabled; positions live only in the ledger and its journal");
+            return;
+        }
+        if (store == null) {
+            throw new IllegalStateException("liquidity.persistence is enabled but no BalanceStore is configured");
+        }
+        if (maxBatchSize < 1 || flushSize < 1) {
+            throw new IllegalArgumentException("liquidity.persistence.flush-size and max-batch-size must be positive");
+        }
+        meterRegistry.gauge("liquidity.persistence.lag", this, w -> w.lagNanos() / 1e9);
+        meterRegistry.gauge("liquidity.persistence.pending", this, BalanceWriteBehind::pending);
+
+        this.running = true;
+        this.flusher = new Thread(this::run, "balance-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Writing balances behind every {} ms, {} rows per commit",
+                TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos), maxBatchSize);
+    }
+
+    @Override
+    public void onMutation(BalanceMutation mutation) {
+        if (enabled) {
+            enqueue(new PositionRow(mutation.key(), mutation.balanceAfter(), mutation.reservedAfter(),
+                    mutation.appliedAt(), mutation.shard(), mutation.sequence()));
+        }
+    }
+
+    /**
+     * Enqueue every position of the ledger. Called once the journal has been replayed and
+     * before the ledger takes traffic.
+     */
+    public void resync(BalanceLedger ledger) {
+        if (!enabled) {
+            return;
+        }
+        int positions = 0;
+        for (int shard = 0; shard < ledger.getShardCount(); shard++) {
+            ShardState state = ledger.capture(shard).join();
+            resync(state.positions(), state.shard(), state.sequence());
+            positions += state.positions().size();
+        }
+        logger.info("Enqueued {} recovered positions for the balance store", positions);
+    }
+
+    /**
+     * Enqueue positions loaded into the ledger without mutations, such as those of a
+     * partition taken over from another node (shard -1, with the log offset as sequence)
+     */
+    public void resync(Collection<PositionState> positions, int shard, long sequence) {
+        if (!enabled) {
+            return;
+        }
+        for (PositionState position : positions) {
+            // Created by a refused command and never mutated; there is nothing to write
+            if (position.version() == 0L) {
+                continue;
+            }
+            enqueue(new PositionRow(position.key(), position.balance(), position.reserved(),
+                    position.lastTransactionAt(), shard, sequence));
+        }
+    }
+
+    /**
+     * Wait until every change enqueued so far has been committed, when positions are
+     * handed over to another node
+     *
+     * @return Whether everything was committed within the timeout
+     */
+    public boolean awaitFlushed(Duration timeout) {
+        if (!enabled) {
+            return true;
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        LockSupport.unpark(flusher);
+        progressLock.lock();
+        try {
+            while (pending() > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    return false;
+                }
+                // Nothing signals when the flusher finds nothing to write, so poll as well
+                progressed.awaitNanos(Math.min(remaining, flushIntervalNanos));
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    /**
+     * Hold back an update while the store is more than {@code max-lag} behind
+     *
+     * @throws LedgerUnavailableException if the lag did not recover in time
+     */
+    public void admit() {
+        if (!enabled || lagNanos() <= maxLagNanos) {
+            return;
+        }
+        if (overloadPolicy == LiquidityProperties.Persistence.OverloadPolicy.BLOCK && awaitLag()) {
+            return;
+        }
+        shedCounter.increment();
+        throw new LedgerUnavailableException("Balance store is " + TimeUnit.NANOSECONDS.toMillis(lagNanos())
+                + " ms behind; update refused");
+    }
+
+    private boolean awaitLag() {
+        long remaining = blockTimeoutNanos;
+        progressLock.lock();
+        try {
+            while (lagNanos() > maxLagNanos) {
+                if (remaining <= 0L) {
+                    return false;
+                }
+                remaining = progressed.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    /**
+     * Age of the oldest change not yet committed, 0 if there is none
+     */
+    long lagNanos() {
+        long now = System.nanoTime();
+        long lag = 0L;
+        long inFlight = inFlightSince;
+        if (inFlight != NONE) {
+            lag = now - inFlight;
+        }
+        long waiting = dirtySince.get();
+        if (waiting != NONE) {
+            lag = Math.max(lag, now - waiting);
+        }
+        return lag;
+    }
+
+    /**
+     * Positions changed and not yet committed
+     */
+    int pending() {
+        return dirtyCount.get() + batchSize;
+    }
+
+    private void enqueue(PositionRow row) {
+        if (dirty.put(row.key(), row) != null) {
+            return;
+        }
+        dirtySince.compareAndSet(NONE, System.nanoTime());
+        if (dirtyCount.incrementAndGet() == flushSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void run() {
+        long backoff = 0L;
+        while (running) {
+            LockSupport.parkNanos(backoff > 0L ? backoff : flushIntervalNanos);
+            if (flush()) {
+                backoff = 0L;
+            } else {
+                backoff = backoff == 0L ? flushIntervalNanos : Math.min(backoff * 2, maxRetryBackoffNanos);
+            }
+        }
+        if (!flush()) {
+            logger.error("{} positions were not written to the balance store before shutdown; "
+                    + "they are written again after the journal is replayed on restart", pending());
+        }
+    }
+
+    /**
+     * Drain the changed positions into the batch and commit it
+     *
+     * @return Whether everything drained has been committed
+     */
+    private boolean flush() {
+        drain();
+        if (batch.isEmpty()) {
+            return true;
+        }
+        List<PositionRow> rows = new ArrayList<>(batch.values());
+        for (int from = 0; from < rows.size(); from += maxBatchSize) {
+            List<PositionRow> chunk = rows.subList(from, Math.min(rows.size(), from + maxBatchSize));
+            try {
+                write(chunk);
+            } catch (BalanceStoreRejectedException e) {
+                if (!writeEach(chunk)) {
+                    return false;
+                }
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                logger.warn("Failed to write {} positions to the balance store, {} ms behind: {}",
+                        batch.size(), TimeUnit.NANOSECONDS.toMillis(lagNanos()), e.getMessage());
+                return false;
+            }
+        }
+        batchSince = NONE;
+        inFlightSince = NONE;
+        progressLock.lock();
+        try {
+            progressed.signalAll();
+        } finally {
+            progressLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Write the rows of a refused commit one at a time, dropping those the store refuses
+     * on their own
+     *
+     * @return Whether every row was written or dropped
+     */
+    private boolean writeEach(List<PositionRow> chunk) {
+        for (PositionRow row : chunk) {
+            try {
+                write(List.of(row));
+            } catch (BalanceStoreRejectedException e) {
+                // The journal still holds the position; it is written again on the next resync
+                rejectedCounter.increment();
+                logger.error("Balance store refused position {} at shard {} sequence {}; dropped until the next resync",
+                        row.key(), row.shard(), row.sequence(), e);
+                batch.remove(row.key());
+                batchSize = batch.size();
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                logger.warn("Failed to write position {} to the balance store, {} ms behind: {}",
+                        row.key(), TimeUnit.NANOSECONDS.toMillis(lagNanos()), e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(List<PositionRow> rows) {
+        long start = System.nanoTime();
+        store.write(rows);
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        rowsCounter.increment(rows.size());
+        for (PositionRow row : rows) {
+            batch.remove(row.key());
+        }
+        batchSize = batch.size();
+    }
+
+    private void drain() {
+        long since = dirtySince.getAndSet(NONE);
+        if (since == NONE) {
+            return;
+        }
+        // Carry the clock over before taking the entries so the lag never reads low
+        if (batchSince == NONE || since - batchSince < 0L) {
+            batchSince = since;
+        }
+        inFlightSince = batchSince;
+        // Entries added after the reset restart the clock; taking them now as well only
+        // makes the lag read a little high until the next drain
+        for (Iterator<PositionKey> keys = dirty.keySet().iterator(); keys.hasNext(); ) {
+            PositionRow row = dirty.remove(keys.next());
+            if (row != null) {
+                dirtyCount.decrementAndGet();
+                batch.put(row.key(), row);
+            }
+        }
+        batchSize = batch.size();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(shutdownTimeoutMillis);
+    }
+}
@@ -0,0 +1,20 @@
+package com.anz.fastpayment.liquidity.persistence;
+
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+
+import java.time.Instant;
+
+/**
+ * Position Row
+ * 
+ * Latest state of one position as written to the balance store. Amounts are scaled
+ * units; {@code shard} and {@code sequence} identify the last mutation reflected.
+ * {@code lastTransactionAt} is null for a position no transaction has reached yet.
+ */
+public record PositionRow(PositionKey key,
+                          long balance,
+                          long reserved,
+                          Instant lastTransactionAt,
+                          int shard,
+                          long sequence) {
+}
@@ -0,0 +1,90 @@
+package com.anz.fastpayment.liquidity.persistence;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.model.Amount;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Value;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Spanner Balance Store
+ * 
+ * Upserts position rows into {@code liquidity.persistence.table} (see
+ * {@code db/spanner/V1__participant_balances.sql}) with blind insert-or-update
+ * mutations. Each row holds a position's complete state, so no read is needed and the
+ * commit can go through {@link DatabaseClient#writeAtLeastOnce}, a single round trip
+ * that may be replayed safely. Commits run through the {@code spanner} circuit breaker,
+ * so while Spanner is down attempts fail fast instead of waiting out RPC deadlines.
+ * Rows Spanner refuses as invalid are reported as a {@link BalanceStoreRejectedException}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "liquidity.persistence", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SpannerBalanceStore implements BalanceStore {
+
+    // Errors caused by the mutations themselves; anything else may succeed on retry
+    private static final Set<ErrorCode> REJECTIONS = EnumSet.of(ErrorCode.INVALID_ARGUMENT,
+            ErrorCode.FAILED_PRECONDITION, ErrorCode.OUT_OF_RANGE);
+
+    private final DatabaseClient databaseClient;
+    private final CircuitBreaker circuitBreaker;
+    private final String table;
+
+    public SpannerBalanceStore(DatabaseClient databaseClient, CircuitBreakerRegistry circuitBreakers,
+                               LiquidityProperties properties) {
+        this.databaseClient = databaseClient;
+        this.circuitBreaker = circuitBreakers.circuitBreaker("spanner");
+        this.table = properties.getPersistence().getTable();
+    }
+
+    @Override
+    public void write(List<PositionRow> rows) {
+        List<Mutation> mutations = new ArrayList<>(rows.size());
+        for (PositionRow row : rows) {
+            mutations.add(Mutation.newInsertOrUpdateBuilder(table)
+                    .set("ParticipantId").to(row.key().participantId())
+                    .set("Currency").to(row.key().currency())
+                    .set("CountryCode").to(row.key().countryCode())
+                    .set("Balance").to(numeric(row.balance()))
+                    .set("Reserved").to(numeric(row.reserved()))
+                    .set("LastTransactionAt").to(timestamp(row.lastTransactionAt()))
+                    .set("LedgerShard").to(row.shard())
+                    .set("LedgerSequence").to(row.sequence())
+                    .set("UpdatedAt").to(Value.COMMIT_TIMESTAMP)
+                    .build());
+        }
+        try {
+            circuitBreaker.executeRunnable(() -> databaseClient.writeAtLeastOnce(mutations));
+        } catch (SpannerException e) {
+            if (REJECTIONS.contains(e.getErrorCode())) {
+                throw new BalanceStoreRejectedException("Spanner refused " + rows.size() + " position rows: "
+                        + e.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    private static BigDecimal numeric(long units) {
+        return BigDecimal.valueOf(units, Amount.SCALE);
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        if (instant == null) {
+            return null;
+        }
+        return Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano());
+    }
+}
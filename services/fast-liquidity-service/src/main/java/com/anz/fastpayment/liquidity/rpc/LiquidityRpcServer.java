@@ -0,0 +1,316 @@
+package com.anz.fastpayment.liquidity.rpc;
+
+import com.anz.fastpayment.liquidity.client.BalanceCheck;
+import com.anz.fastpayment.liquidity.client.BalanceCheckResult;
+import com.anz.fastpayment.liquidity.client.LiquidityRpcException;
+import com.anz.fastpayment.liquidity.client.LiquidityWire;
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.model.Amount;
+import com.anz.fastpayment.liquidity.model.BalanceCheckRequest;
+import com.anz.fastpayment.liquidity.model.BalanceCheckResponse;
+import com.anz.fastpayment.liquidity.model.ErrorResponse;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+import com.anz.fastpayment.liquidity.service.LiquidityService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Liquidity RPC Server
+ *
+ * Answers balance checks from the payment processors over persistent
+ * {@link LiquidityWire} connections on {@code liquidity.rpc.port}, alongside the REST
+ * API that external callers keep using. Each connection has a virtual thread reading
+ * its frames; every decoded check is answered on a virtual thread of its own through
+ * {@link LiquidityService#checkBalance}, so a slow check never holds up the ones behind
+ * it, and replies go back in completion order under the connection's write lock. A
+ * reply is flushed by the last writer in line, so a client pipelining many checks gets
+ * them back in few writes. At most {@code liquidity.rpc.max-in-flight} checks of one
+ * connection are in progress; beyond that its next frame is not read until one finishes.
+ *
+ * Checks are validated against the same constraints as the REST request, and a check
+ * that fails them is answered with a VALIDATION_ERROR frame rather than closing the
+ * connection.
+ */
+@Component
+@ConditionalOnProperty(prefix = "liquidity.rpc", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LiquidityRpcServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiquidityRpcServer.class);
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10L;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000L;
+
+    private final LiquidityService liquidityService;
+    private final Validator validator;
+    private final int maxConnections;
+    private final int maxInFlight;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    private final Counter authorizedCounter;
+    private final Counter declinedCounter;
+    private final Counter invalidCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean closed;
+
+    public LiquidityRpcServer(LiquidityService liquidityService, Validator validator,
+                              LiquidityProperties properties, MeterRegistry meterRegistry) throws IOException {
+        LiquidityProperties.Rpc config = properties.getRpc();
+        this.liquidityService = liquidityService;
+        this.validator = validator;
+        this.maxConnections = config.getMaxConnections();
+        this.maxInFlight = config.getMaxInFlight();
+        this.serverSocket = new ServerSocket(config.getPort(), config.getBacklog(),
+                config.getBindAddress() != null ? InetAddress.getByName(config.getBindAddress()) : null);
+
+        this.authorizedCounter = outcomeCounter(meterRegistry, "authorized");
+        this.declinedCounter = outcomeCounter(meterRegistry, "declined");
+        this.invalidCounter = outcomeCounter(meterRegistry, "invalid");
+        this.failedCounter = outcomeCounter(meterRegistry, "error");
+        Gauge.builder("liquidity.rpc.connections", connections, Set::size)
+                .description("Open processor RPC connections")
+                .register(meterRegistry);
+
+        Thread acceptor = new Thread(this::accept, "liquidity-rpc-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Liquidity RPC listening on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    /**
+     * Port the server is listening on, also when {@code liquidity.rpc.port} is 0
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("liquidity.rpc.checks")
+                .description("Balance checks received over RPC")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void accept() {
+        long backoffMillis = 0L;
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+                backoffMillis = 0L;
+            } catch (IOException e) {
+                if (closed) {
+                    break;
+                }
+                // A persistent failure (out of file descriptors) must not spin the acceptor
+                backoffMillis = Math.min(Math.max(backoffMillis * 2, MIN_ACCEPT_BACKOFF_MILLIS), MAX_ACCEPT_BACKOFF_MILLIS);
+                logger.error("Liquidity RPC accept failed; retrying in {} ms", backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            if (connections.size() >= maxConnections) {
+                logger.warn("Refusing RPC connection from {}: {} connections already open",
+                        socket.getRemoteSocketAddress(), maxConnections);
+                closeQuietly(socket);
+                continue;
+            }
+            connections.add(socket);
+            Thread.ofVirtual()
+                    .name("liquidity-rpc-" + socket.getPort())
+                    .start(() -> serve(socket));
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+            LiquidityWire.readHandshake(in);
+            LiquidityWire.writeHandshake(out);
+            logger.info("Processor connected over RPC from {}", socket.getRemoteSocketAddress());
+
+            Replies replies = new Replies(socket, out);
+            LiquidityWire.FrameReader reader = new LiquidityWire.FrameReader();
+            while (reader.next(in)) {
+                if (reader.type() != LiquidityWire.CHECK_REQUEST) {
+                    throw new LiquidityRpcException(LiquidityRpcException.PROTOCOL_ERROR,
+                            "Unexpected frame type " + reader.type());
+                }
+                int correlationId = reader.correlationId();
+                BalanceCheck check;
+                try {
+                    check = LiquidityWire.readCheck(reader);
+                } catch (LiquidityRpcException e) {
+                    invalidCounter.increment();
+                    LiquidityWire.FrameWriter writer = new LiquidityWire.FrameWriter();
+                    LiquidityWire.writeError(writer, correlationId, ErrorResponse.ErrorCodes.VALIDATION_ERROR, e.getMessage());
+                    replies.send(writer);
+                    continue;
+                }
+                replies.inFlight.acquire();
+                Thread.ofVirtual().start(() -> {
+                    try {
+                        LiquidityWire.FrameWriter writer = new LiquidityWire.FrameWriter();
+                        handle(correlationId, check, writer);
+                        replies.send(writer);
+                    } finally {
+                        replies.inFlight.release();
+                    }
+                });
+            }
+            // Let the checks already read finish before the socket closes
+            replies.inFlight.acquire(maxInFlight);
+            logger.info("Processor at {} closed its RPC connection", socket.getRemoteSocketAddress());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SocketException e) {
+            if (!closed) {
+                logger.info("RPC connection from {} dropped: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } catch (IOException | LiquidityRpcException e) {
+            logger.warn("Closing RPC connection from {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Reply side of one connection: frames are written whole under the lock, and the
+     * writer that finds nobody queued behind it flushes for everyone before it
+     */
+    private final class Replies {
+
+        private final Socket socket;
+        private final OutputStream out;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+
+        Replies(Socket socket, OutputStream out) {
+            this.socket = socket;
+            this.out = out;
+        }
+
+        void send(LiquidityWire.FrameWriter writer) {
+            lock.lock();
+            try {
+                writer.writeTo(out);
+                if (!lock.hasQueuedThreads()) {
+                    out.flush();
+                }
+            } catch (IOException | LiquidityRpcException e) {
+                // The reading thread sees the socket close and ends the connection
+                if (!closed) {
+                    logger.info("RPC reply to {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                }
+                closeQuietly(socket);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Answer {@code check} into {@code writer}
+     */
+    private void handle(int correlationId, BalanceCheck check, LiquidityWire.FrameWriter writer) {
+        BalanceCheckRequest request;
+        try {
+            request = toRequest(check);
+        } catch (ArithmeticException e) {
+            invalidCounter.increment();
+            LiquidityWire.writeError(writer, correlationId, ErrorResponse.ErrorCodes.VALIDATION_ERROR, e.getMessage());
+            return;
+        }
+
+        Set<ConstraintViolation<BalanceCheckRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            invalidCounter.increment();
+            LiquidityWire.writeError(writer, correlationId, ErrorResponse.ErrorCodes.VALIDATION_ERROR,
+                    violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining("; ")));
+            return;
+        }
+
+        try {
+            BalanceCheckResponse response = liquidityService.checkBalance(request);
+            (response.isAuthorized() ? authorizedCounter : declinedCounter).increment();
+            LiquidityWire.writeResult(writer, correlationId, toResult(response));
+        } catch (ArithmeticException e) {
+            invalidCounter.increment();
+            LiquidityWire.writeError(writer, correlationId, ErrorResponse.ErrorCodes.INVALID_AMOUNT,
+                    "Amount takes the balance out of range");
+        } catch (IllegalArgumentException e) {
+            invalidCounter.increment();
+            LiquidityWire.writeError(writer, correlationId, ErrorResponse.ErrorCodes.VALIDATION_ERROR, e.getMessage());
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            logger.error("RPC balance check failed for request: {}", request, e);
+            LiquidityWire.writeError(writer, correlationId, ErrorResponse.ErrorCodes.SYSTEM_ERROR,
+                    "Balance check failed");
+        }
+    }
+
+    private static BalanceCheckRequest toRequest(BalanceCheck check) {
+        BalanceCheckRequest request = new BalanceCheckRequest(check.countryCode(), check.currency(),
+                Amount.ofUnits(check.amount()), TransactionType.valueOf(check.transactionType().name()));
+        request.setParticipantId(check.participantId());
+        request.setReference(check.reference());
+        return request;
+    }
+
+    private static BalanceCheckResult toResult(BalanceCheckResponse response) {
+        return new BalanceCheckResult(response.isAuthorized(),
+                response.getCurrentBalance().units(),
+                response.getProjectedBalance().units(),
+                response.getMinimumBalance().units(),
+                response.getAvailableAmount().units(),
+                response.getRequestId(),
+                response.getRejectionReason(),
+                response.getWarnings(),
+                response.getTimestamp());
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        connections.forEach(LiquidityRpcServer::closeQuietly);
+    }
+}
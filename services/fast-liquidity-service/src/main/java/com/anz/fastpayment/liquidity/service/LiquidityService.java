@@ -25,6 +25,14 @@ public interface LiquidityService {
      */
     BalanceUpdateResponse updateBalance(BalanceUpdateRequest request);
 
+    /**
+     * Apply several balance updates in one call and commit them together
+     * 
+     * @param request Batch of balance update requests
+     * @return Batch response with one result per update, in request order
+     */
+    BalanceUpdateBatchResponse updateBalances(BalanceUpdateBatchRequest request);
+
     /**
      * Get current balance information for a participant
      * 
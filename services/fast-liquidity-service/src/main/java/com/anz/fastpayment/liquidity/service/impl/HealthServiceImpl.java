@@ -1,12 +1,16 @@
 package com.anz.fastpayment.liquidity.service.impl;
 
+import com.anz.fastpayment.common.health.DataSourceProbe;
+import com.anz.fastpayment.common.health.DependencyHealthMonitor;
+import com.anz.fastpayment.common.health.KafkaProbe;
+import com.anz.fastpayment.common.health.ProbeResult;
+import com.anz.fastpayment.common.health.RedisProbe;
+import com.anz.fastpayment.common.health.SpannerProbe;
 import com.anz.fastpayment.liquidity.model.HealthResponse;
 import com.anz.fastpayment.liquidity.service.HealthService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.actuate.health.Health;
-import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.stereotype.Service;
 
 import java.lang.management.ManagementFactory;
@@ -19,16 +23,24 @@ import java.util.Map;
 /**
  * Health Service Implementation
  * 
- * Provides health check functionality for the liquidity service
- * 
- * TODO: Implement actual health checks for Spanner, Kafka, Redis
- * This is a basic implementation for initial setup
+ * Reports the health of the liquidity service from the latest background probe of
+ * each dependency held by the {@link DependencyHealthMonitor}, so a health check
+ * never waits on Spanner, Kafka, Redis or the database.
  */
 @Service
 public class HealthServiceImpl implements HealthService {
 
     private static final Logger logger = LoggerFactory.getLogger(HealthServiceImpl.class);
 
+    /**
+     * Names the probes report under, mapped to the names this API has always used
+     */
+    private static final Map<String, String> SERVICE_NAMES = Map.of(
+            DataSourceProbe.NAME, HealthResponse.ServiceNames.DATABASE,
+            KafkaProbe.NAME, HealthResponse.ServiceNames.MESSAGE_QUEUE,
+            RedisProbe.NAME, HealthResponse.ServiceNames.REDIS,
+            SpannerProbe.NAME, HealthResponse.ServiceNames.SPANNER);
+
     @Value("${spring.application.name:fast-liquidity-service}")
     private String applicationName;
 
@@ -37,6 +49,12 @@ public class HealthServiceImpl implements HealthService {
 
     private final Instant startTime = Instant.now();
 
+    private final DependencyHealthMonitor dependencyHealthMonitor;
+
+    public HealthServiceImpl(DependencyHealthMonitor dependencyHealthMonitor) {
+        this.dependencyHealthMonitor = dependencyHealthMonitor;
+    }
+
     @Override
     public HealthResponse checkHealth() {
         logger.debug("Performing health check");
@@ -44,8 +62,10 @@ public class HealthServiceImpl implements HealthService {
         HealthResponse response = new HealthResponse();
 
         try {
+            Map<String, ProbeResult> probes = dependencyHealthMonitor.snapshot();
+
             // Check individual services
-            Map<String, String> serviceStatuses = checkServiceHealth();
+            Map<String, String> serviceStatuses = checkServiceHealth(probes);
             response.setServices(serviceStatuses);
 
             // Determine overall status
@@ -59,7 +79,7 @@ public class HealthServiceImpl implements HealthService {
             // Add errors if any services are down
             if (HealthResponse.Status.DEGRADED.equals(overallStatus) || 
                 HealthResponse.Status.DOWN.equals(overallStatus)) {
-                response.setErrors(getServiceErrors(serviceStatuses));
+                response.setErrors(getServiceErrors(probes));
             }
 
             logger.debug("Health check completed - status: {}", overallStatus);
@@ -73,37 +93,15 @@ public class HealthServiceImpl implements HealthService {
         return response;
     }
 
-    private Map<String, String> checkServiceHealth() {
+    private Map<String, String> checkServiceHealth(Map<String, ProbeResult> probes) {
         Map<String, String> serviceStatuses = new HashMap<>();
-
-        // TODO: Implement actual health checks
-        // For now, returning mock statuses
-        serviceStatuses.put(HealthResponse.ServiceNames.DATABASE, checkDatabaseHealth());
-        serviceStatuses.put(HealthResponse.ServiceNames.MESSAGE_QUEUE, checkKafkaHealth());
-        serviceStatuses.put(HealthResponse.ServiceNames.REDIS, checkRedisHealth());
-        serviceStatuses.put(HealthResponse.ServiceNames.SPANNER, checkSpannerHealth());
-
+        probes.forEach((dependency, result) ->
+                serviceStatuses.put(serviceName(dependency), result.status().name()));
         return serviceStatuses;
     }
 
-    private String checkDatabaseHealth() {
-        // TODO: Implement actual database health check
-        return HealthResponse.Status.UP;
-    }
-
-    private String checkKafkaHealth() {
-        // TODO: Implement actual Kafka health check
-        return HealthResponse.Status.UP;
-    }
-
-    private String checkRedisHealth() {
-        // TODO: Implement actual Redis health check
-        return HealthResponse.Status.UP;
-    }
-
-    private String checkSpannerHealth() {
-        // TODO: Implement actual Spanner health check
-        return HealthResponse.Status.UP;
+    private static String serviceName(String dependency) {
+        return SERVICE_NAMES.getOrDefault(dependency, dependency);
     }
 
     private String determineOverallStatus(Map<String, String> serviceStatuses) {
@@ -120,10 +118,10 @@ public class HealthServiceImpl implements HealthService {
         }
     }
 
-    private List<String> getServiceErrors(Map<String, String> serviceStatuses) {
-        return serviceStatuses.entrySet().stream()
-                .filter(entry -> HealthResponse.Status.DOWN.equals(entry.getValue()))
-                .map(entry -> entry.getKey() + " service is down")
+    private List<String> getServiceErrors(Map<String, ProbeResult> probes) {
+        return probes.values().stream()
+                .filter(ProbeResult::isDown)
+                .map(result -> serviceName(result.dependency()) + " service is down: " + result.error())
                 .toList();
     }
 
@@ -1,144 +1,374 @@
 package com.anz.fastpayment.liquidity.service.impl;
 
+import com.anz.fastpayment.common.id.IdGenerator;
+import com.anz.fastpayment.liquidity.audit.AuditDecision;
+import com.anz.fastpayment.liquidity.audit.AuditTrail;
+import com.anz.fastpayment.liquidity.cache.BalanceNearCache;
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import com.anz.fastpayment.liquidity.ledger.LedgerCommand;
+import com.anz.fastpayment.liquidity.ledger.MutationResult;
+import com.anz.fastpayment.liquidity.ledger.ParticipantPosition;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.metrics.LiquidityLatencyRecorder;
+import com.anz.fastpayment.liquidity.metrics.LiquidityOperation;
 import com.anz.fastpayment.liquidity.model.*;
+import com.anz.fastpayment.liquidity.netdebit.NetDebitCapLevel;
+import com.anz.fastpayment.liquidity.netdebit.NetDebitCapTracker;
+import com.anz.fastpayment.liquidity.persistence.BalanceWriteBehind;
 import com.anz.fastpayment.liquidity.service.LiquidityService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 /**
  * Liquidity Service Implementation
  * 
- * Implementation of core liquidity management business logic
- * 
- * TODO: Replace with actual implementation using Spanner, Redis, and Kafka
- * This is a basic stub implementation for initial setup and testing
+ * Implementation of core liquidity management business logic backed by the
+ * in-memory sharded {@link BalanceLedger}, with net debit caps enforced through
+ * the {@link NetDebitCapTracker}. Every decision reaches the {@link AuditTrail}:
+ * applied updates through the ledger, checks and refused updates from here. Every
+ * operation's latency goes to the {@link LiquidityLatencyRecorder}.
  */
 @Service
 public class LiquidityServiceImpl implements LiquidityService {
 
     private static final Logger logger = LoggerFactory.getLogger(LiquidityServiceImpl.class);
 
-    // Mock data for initial setup - replace with actual data layer
-    private static final BigDecimal MOCK_BALANCE = new BigDecimal("1500000.00");
-    private static final BigDecimal MOCK_MIN_BALANCE = new BigDecimal("0.00");
+    // Warning thresholds as basis points of the balance before the transaction
+    private static final int CHECK_WARNING_BASIS_POINTS = Amount.toBasisPoints(0.2);
+    private static final int UPDATE_WARNING_BASIS_POINTS = Amount.toBasisPoints(0.8);
+
+    private final BalanceLedger ledger;
+    private final NetDebitCapTracker netDebitCapTracker;
+    private final BalanceNearCache balanceCache;
+    private final IdGenerator idGenerator;
+    private final AuditTrail auditTrail;
+    private final BalanceWriteBehind writeBehind;
+    private final LiquidityLatencyRecorder latencyRecorder;
+    private final Map<String, String> houseParticipants;
+
+    public LiquidityServiceImpl(BalanceLedger ledger, NetDebitCapTracker netDebitCapTracker,
+                                BalanceNearCache balanceCache, IdGenerator idGenerator,
+                                AuditTrail auditTrail, BalanceWriteBehind writeBehind,
+                                LiquidityLatencyRecorder latencyRecorder, LiquidityProperties properties) {
+        this.ledger = ledger;
+        this.netDebitCapTracker = netDebitCapTracker;
+        this.balanceCache = balanceCache;
+        this.idGenerator = idGenerator;
+        this.auditTrail = auditTrail;
+        this.writeBehind = writeBehind;
+        this.latencyRecorder = latencyRecorder;
+        this.houseParticipants = Map.copyOf(properties.getLedger().getHouseParticipants());
+    }
 
     @Override
     public BalanceCheckResponse checkBalance(BalanceCheckRequest request) {
-        logger.info("Processing balance check for country: {}, amount: {}", 
+        long started = System.nanoTime();
+        logger.debug("Processing balance check for country: {}, amount: {}", 
                    request.getCountryCode(), request.getAmount());
 
         // Generate request ID
-        String requestId = "CHK-" + System.currentTimeMillis();
+        String requestId = idGenerator.next("CHK-");
 
-        try {
-            // Parse amount
-            BigDecimal amount = new BigDecimal(request.getAmount());
-            BigDecimal currentBalance = MOCK_BALANCE;
-            BigDecimal projectedBalance = currentBalance.add(amount);
-
-            // Check authorization logic
-            boolean authorized = projectedBalance.compareTo(MOCK_MIN_BALANCE) >= 0;
-
-            // Create response
-            BalanceCheckResponse response = new BalanceCheckResponse();
-            response.setStatus("SUCCESS");
-            response.setAuthorized(authorized);
-            response.setCurrentBalance(currentBalance.toString());
-            response.setProjectedBalance(projectedBalance.toString());
-            response.setCurrency(request.getCurrency());
-            response.setMinimumBalance(MOCK_MIN_BALANCE.toString());
-            response.setAvailableAmount(currentBalance.toString());
-            response.setTimestamp(Instant.now());
-            response.setRequestId(requestId);
-
-            // Add warnings if needed
-            List<String> warnings = new ArrayList<>();
-            if (!authorized) {
-                response.setRejectionReason("Insufficient funds for transaction");
-                warnings.add("Transaction would result in negative balance");
-            } else if (projectedBalance.compareTo(currentBalance.multiply(new BigDecimal("0.2"))) < 0) {
+        // All balance arithmetic is on scaled long units
+        long amount = request.getAmount().units();
+        String participantId = resolveParticipant(request);
+        PositionKey key = new PositionKey(participantId, request.getCurrency(), request.getCountryCode());
+        PositionState position = stateOf(key);
+        long currentBalance = position != null ? position.balance() : ledger.getOpeningBalance();
+        long availableBalance = position != null ? position.balance() - position.reserved() : currentBalance;
+        long minimumBalance = ledger.getMinimumBalance();
+        long projectedBalance = Math.addExact(currentBalance, amount);
+
+        // Credits are always authorized; debits must keep unreserved funds above the minimum
+        // and the participant's net debit within its cap
+        boolean sufficientFunds = amount >= 0L || Math.addExact(availableBalance, amount) >= minimumBalance;
+        long additionalDebit = Math.max(0L, -amount);
+        boolean withinCap = netDebitCapTracker.isWithinCap(position, participantId, additionalDebit);
+        boolean authorized = sufficientFunds && withinCap;
+
+        // Create response
+        BalanceCheckResponse response = new BalanceCheckResponse();
+        response.setStatus("SUCCESS");
+        response.setAuthorized(authorized);
+        response.setCurrentBalance(Amount.ofUnits(currentBalance));
+        response.setProjectedBalance(Amount.ofUnits(projectedBalance));
+        response.setCurrency(request.getCurrency());
+        response.setMinimumBalance(Amount.ofUnits(minimumBalance));
+        response.setAvailableAmount(Amount.ofUnits(Math.max(0L, availableBalance - minimumBalance)));
+        response.setTimestamp(Instant.now());
+        response.setRequestId(requestId);
+
+        // Add warnings if needed
+        List<String> warnings = new ArrayList<>();
+        if (!sufficientFunds) {
+            response.setRejectionReason("Insufficient funds for transaction");
+            warnings.add("Transaction would result in negative balance");
+        } else if (!withinCap) {
+            response.setRejectionReason("Net debit cap exceeded");
+            warnings.add("Transaction would take net debit beyond the participant's cap");
+        } else {
+            if (Amount.isBelowFraction(projectedBalance, currentBalance, CHECK_WARNING_BASIS_POINTS)) {
                 warnings.add("Transaction would bring balance below warning threshold");
             }
-            response.setWarnings(warnings);
+            NetDebitCapLevel capLevel = netDebitCapTracker.levelAfter(position, participantId, additionalDebit);
+            if (capLevel != NetDebitCapLevel.NORMAL) {
+                warnings.add("Net debit cap utilization would be at " + capLevel + " level");
+            }
+        }
+        response.setWarnings(warnings);
 
-            logger.info("Balance check completed - authorized: {}, requestId: {}", authorized, requestId);
-            return response;
+        String declineCode = authorized ? null
+                : !sufficientFunds ? ErrorResponse.ErrorCodes.INSUFFICIENT_FUNDS
+                : ErrorResponse.ErrorCodes.NET_DEBIT_CAP_EXCEEDED;
+        auditTrail.record(new AuditDecision(AuditDecision.Kind.CHECK, key, request.getTransactionType(), amount,
+                currentBalance, declineCode, null, requestId, response.getTimestamp()));
 
-        } catch (NumberFormatException e) {
-            logger.error("Invalid amount format: {}", request.getAmount(), e);
-            throw new IllegalArgumentException("Invalid amount format: " + request.getAmount());
-        }
+        latencyRecorder.record(LiquidityOperation.CHECK, key, started);
+        logger.debug("Balance check completed - authorized: {}, requestId: {}", authorized, requestId);
+        return response;
     }
 
     @Override
     public BalanceUpdateResponse updateBalance(BalanceUpdateRequest request) {
-        logger.info("Processing balance update for participant: {}, messageId: {}, amount: {}", 
+        long started = System.nanoTime();
+        logger.debug("Processing balance update for participant: {}, messageId: {}, amount: {}", 
                    request.getParticipantId(), request.getMessageId(), request.getAmount());
 
         // Generate transaction and request IDs
-        String transactionId = "TXN-" + System.currentTimeMillis();
-        String requestId = "REQ-" + System.currentTimeMillis();
+        String transactionId = idGenerator.next("TXN-");
+        String requestId = idGenerator.next("REQ-");
 
+        // Applied by the shard that owns this position; a refusal counts against the SLA too
+        LedgerCommand command = toCommand(request, transactionId);
+        MutationResult result;
         try {
-            // Parse amount
-            BigDecimal amount = new BigDecimal(request.getAmount());
-            BigDecimal balanceBefore = MOCK_BALANCE;
-            BigDecimal balanceAfter = balanceBefore.add(amount);
-
-            // Create response
-            BalanceUpdateResponse response = new BalanceUpdateResponse();
-            response.setStatus("SUCCESS");
-            response.setTransactionId(transactionId);
-            response.setParticipantId(request.getParticipantId());
-            response.setCurrency(request.getCurrency());
-            response.setBalanceBefore(balanceBefore.toString());
-            response.setBalanceAfter(balanceAfter.toString());
-            response.setAmountProcessed(amount.toString());
-            response.setProcessedAt(Instant.now());
-            response.setRequestId(requestId);
-
-            // Add warnings if needed
-            List<String> warnings = new ArrayList<>();
-            if (balanceAfter.compareTo(balanceBefore.multiply(new BigDecimal("0.8"))) < 0) {
-                warnings.add("Balance approaching minimum threshold");
-            }
-            response.setWarnings(warnings);
+            writeBehind.admit();
+            auditTrail.admit();
+            result = ledger.apply(command);
+        } finally {
+            latencyRecorder.record(operationOf(command), command.key(), started);
+        }
+        Instant processedAt = Instant.now();
+        auditRefusal(request, result, requestId, processedAt);
+        BalanceUpdateResponse response = toUpdateResponse(request, result, transactionId, requestId, processedAt);
 
-            logger.info("Balance update completed - transactionId: {}", transactionId);
-            return response;
+        logger.debug("Balance update completed - status: {}, transactionId: {}", response.getStatus(), transactionId);
+        return response;
+    }
+
+    @Override
+    public BalanceUpdateBatchResponse updateBalances(BalanceUpdateBatchRequest request) {
+        long started = System.nanoTime();
+        List<BalanceUpdateRequest> updates = request.getUpdates();
+        logger.debug("Processing balance update batch of {} updates", updates.size());
 
-        } catch (NumberFormatException e) {
-            logger.error("Invalid amount format: {}", request.getAmount(), e);
-            throw new IllegalArgumentException("Invalid amount format: " + request.getAmount());
+        String requestId = idGenerator.next("BAT-");
+
+        List<LedgerCommand> commands = new ArrayList<>(updates.size());
+        String[] transactionIds = new String[updates.size()];
+        for (int i = 0; i < updates.size(); i++) {
+            transactionIds[i] = idGenerator.next("TXN-");
+            commands.add(toCommand(updates.get(i), transactionIds[i]));
         }
+
+        // One task and one group commit per shard touched by the batch. A message repeated
+        // within the batch reaches its shard in order, so only the first one is applied.
+        List<MutationResult> outcomes;
+        try {
+            writeBehind.admit();
+            auditTrail.admit();
+            outcomes = ledger.applyBatch(commands);
+        } finally {
+            long finished = System.nanoTime();
+            for (LedgerCommand command : commands) {
+                latencyRecorder.record(operationOf(command), command.key(), started, finished);
+            }
+        }
+
+        Instant processedAt = Instant.now();
+        List<BalanceUpdateResponse> results = new ArrayList<>(updates.size());
+        int applied = 0;
+        int rejected = 0;
+        int duplicates = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            MutationResult outcome = outcomes.get(i);
+            auditRefusal(updates.get(i), outcome, requestId, processedAt);
+            results.add(toUpdateResponse(updates.get(i), outcome, transactionIds[i], requestId, processedAt));
+            if (outcome.isApplied()) {
+                applied++;
+            } else if (outcome.isDuplicate()) {
+                duplicates++;
+            } else {
+                rejected++;
+            }
+        }
+
+        BalanceUpdateBatchResponse response = new BalanceUpdateBatchResponse();
+        response.setStatus(applied == updates.size() ? "SUCCESS" : applied > 0 ? "PARTIAL" : "REJECTED");
+        response.setAppliedCount(applied);
+        response.setRejectedCount(rejected);
+        response.setDuplicateCount(duplicates);
+        response.setResults(results);
+        response.setProcessedAt(processedAt);
+        response.setRequestId(requestId);
+
+        logger.debug("Balance update batch completed - applied: {}, rejected: {}, duplicates: {}, requestId: {}",
+                applied, rejected, duplicates, requestId);
+        return response;
     }
 
     @Override
     public ParticipantBalanceResponse getParticipantBalance(String participantId, String currency, String countryCode) {
-        logger.info("Retrieving balance for participant: {}, currency: {}, country: {}", 
+        long started = System.nanoTime();
+        logger.debug("Retrieving balance for participant: {}, currency: {}, country: {}", 
                    participantId, currency, countryCode);
 
-        // Mock response - replace with actual data retrieval
+        // Served from the near cache until the position is next mutated
+        PositionKey key = new PositionKey(participantId, currency, countryCode);
+        ParticipantBalanceResponse response = balanceCache.get(key, this::loadParticipantBalance);
+        latencyRecorder.record(LiquidityOperation.BALANCE_READ, key, started);
+
+        logger.debug("Retrieved balance for participant: {}, balance: {}", participantId, response.getCurrentBalance());
+        return response;
+    }
+
+    private ParticipantBalanceResponse loadParticipantBalance(PositionKey key) {
+        String participantId = key.participantId();
+        PositionState position = stateOf(key);
+        long currentBalance = position != null ? position.balance() : ledger.getOpeningBalance();
+        long reservedAmount = position != null ? position.reserved() : 0L;
+
         ParticipantBalanceResponse response = new ParticipantBalanceResponse();
         response.setParticipantId(participantId);
-        response.setCurrency(currency);
-        response.setCurrentBalance(MOCK_BALANCE.toString());
-        response.setAvailableBalance(MOCK_BALANCE.subtract(new BigDecimal("100000.00")).toString());
-        response.setReservedAmount("100000.00");
-        response.setNetDebitCapLimit("5000000.00");
-        response.setNetDebitCapUtilization(0.3);
-        response.setMinimumBalance(MOCK_MIN_BALANCE.toString());
+        response.setCurrency(key.currency());
+        response.setCurrentBalance(Amount.ofUnits(currentBalance));
+        response.setAvailableBalance(Amount.ofUnits(currentBalance - reservedAmount));
+        response.setReservedAmount(Amount.ofUnits(reservedAmount));
+        response.setNetDebitCapLimit(Amount.ofUnits(netDebitCapTracker.limitOf(participantId)));
+        response.setNetDebitCapUtilization(netDebitCapTracker.utilizationOf(position, participantId));
+        response.setMinimumBalance(Amount.ofUnits(ledger.getMinimumBalance()));
         response.setTimestamp(Instant.now());
-        response.setLastTransactionAt(Instant.now().minusSeconds(300)); // 5 minutes ago
+        response.setLastTransactionAt(position != null ? position.lastTransactionAt() : null);
+        return response;
+    }
+
+    /**
+     * One consistent read of a position, or null if it has never been referenced
+     */
+    private PositionState stateOf(PositionKey key) {
+        ParticipantPosition position = ledger.find(key);
+        return position != null ? position.getState() : null;
+    }
+
+    /**
+     * Applied updates are audited by the ledger as mutations; record the ones it refused
+     */
+    private void auditRefusal(BalanceUpdateRequest request, MutationResult result, String requestId,
+                              Instant processedAt) {
+        if (result.isApplied()) {
+            return;
+        }
+        AuditDecision.Kind kind = result.isDuplicate() ? AuditDecision.Kind.DUPLICATE : AuditDecision.Kind.REJECTED;
+        PositionKey key = new PositionKey(request.getParticipantId(), request.getCurrency(), request.getCountryCode());
+        auditTrail.record(new AuditDecision(kind, key, request.getTransactionType(), request.getAmount().units(),
+                result.balanceBefore(), result.errorCode(), request.getMessageId(), requestId, processedAt));
+    }
+
+    private static LiquidityOperation operationOf(LedgerCommand command) {
+        return command.transactionType() == TransactionType.RESERVE || command.transactionType() == TransactionType.RELEASE
+                ? LiquidityOperation.RESERVATION : LiquidityOperation.UPDATE;
+    }
+
+    private static LedgerCommand toCommand(BalanceUpdateRequest request, String transactionId) {
+        PositionKey key = new PositionKey(request.getParticipantId(),
+                request.getCurrency(), request.getCountryCode());
+        return new LedgerCommand(key, request.getTransactionType(), request.getAmount().units(),
+                request.getMessageId(), request.getReference(), transactionId);
+    }
+
+    private static BalanceUpdateResponse toUpdateResponse(BalanceUpdateRequest request, MutationResult result,
+                                                          String transactionId, String requestId, Instant processedAt) {
+        long balanceBefore = result.balanceBefore();
+        long balanceAfter = result.balanceAfter();
+
+        if (result.isDuplicate()) {
+            return toDuplicateResponse(request, result, requestId, processedAt);
+        }
 
-        logger.info("Retrieved balance for participant: {}, balance: {}", participantId, response.getCurrentBalance());
+        BalanceUpdateResponse response = new BalanceUpdateResponse();
+        response.setStatus(result.isApplied() ? "SUCCESS" : "REJECTED");
+        response.setTransactionId(transactionId);
+        response.setParticipantId(request.getParticipantId());
+        response.setCurrency(request.getCurrency());
+        response.setBalanceBefore(Amount.ofUnits(balanceBefore));
+        response.setBalanceAfter(Amount.ofUnits(balanceAfter));
+        response.setAmountProcessed(result.isApplied() ? request.getAmount() : Amount.ZERO);
+        response.setErrorCode(result.errorCode());
+        response.setProcessedAt(processedAt);
+        response.setRequestId(requestId);
+
+        // Add warnings if needed
+        List<String> warnings = new ArrayList<>();
+        if (!result.isApplied()) {
+            warnings.add(rejectionWarning(result.errorCode()));
+        } else if (Amount.isBelowFraction(balanceAfter, balanceBefore, UPDATE_WARNING_BASIS_POINTS)) {
+            warnings.add("Balance approaching minimum threshold");
+        }
+        response.setWarnings(warnings);
         return response;
     }
-}
\ No newline at end of file
+
+    /**
+     * A message that was already applied reports the balances of its original application
+     * and processes nothing now
+     */
+    private static BalanceUpdateResponse toDuplicateResponse(BalanceUpdateRequest request, MutationResult original,
+                                                             String requestId, Instant processedAt) {
+        BalanceUpdateResponse response = new BalanceUpdateResponse();
+        response.setStatus("DUPLICATE");
+        response.setParticipantId(request.getParticipantId());
+        response.setCurrency(request.getCurrency());
+        response.setBalanceBefore(Amount.ofUnits(original.balanceBefore()));
+        response.setBalanceAfter(Amount.ofUnits(original.balanceAfter()));
+        response.setAmountProcessed(Amount.ZERO);
+        response.setErrorCode(ErrorResponse.ErrorCodes.DUPLICATE_TRANSACTION);
+        response.setProcessedAt(processedAt);
+        response.setRequestId(requestId);
+        response.setWarnings(List.of("Message " + request.getMessageId() + " was already applied"));
+        return response;
+    }
+
+    private static String rejectionWarning(String errorCode) {
+        return switch (errorCode) {
+            case ErrorResponse.ErrorCodes.DUPLICATE_TRANSACTION -> "Reservation already exists for this reference";
+            case ErrorResponse.ErrorCodes.RESERVATION_NOT_FOUND -> "Reservation not found, already settled or expired";
+            case ErrorResponse.ErrorCodes.INVALID_AMOUNT -> "Amount would overflow the position balance";
+            case ErrorResponse.ErrorCodes.SERVICE_UNAVAILABLE -> "Ledger could not take this update now; retry it";
+            default -> "Insufficient funds for transaction";
+        };
+    }
+
+    /**
+     * Balance checks may omit the participant for in-house payments; fall back to the
+     * configured house participant for the country
+     */
+    private String resolveParticipant(BalanceCheckRequest request) {
+        if (request.getParticipantId() != null) {
+            return request.getParticipantId();
+        }
+        String house = houseParticipants.get(request.getCountryCode());
+        if (house == null) {
+            throw new IllegalArgumentException("No participant supplied and no house participant configured for country: "
+                    + request.getCountryCode());
+        }
+        return house;
+    }
+}
@@ -0,0 +1,85 @@
+package com.anz.fastpayment.liquidity.settlement;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+
+/**
+ * Cycle Activity
+ * 
+ * Running totals of the mutations applied to one position during a settlement cycle,
+ * folded from the mutation stream in sequence order. Amounts are scaled units.
+ * Owned by the shard writer until the cycle is handed to reconciliation.
+ */
+final class CycleActivity {
+
+    private long openingBalance;
+    private long closingBalance;
+    private long closingReserved;
+    private long debits;
+    private long credits;
+    private long mutations;
+    private long breaks;
+
+    void record(BalanceMutation mutation) {
+        if (mutations == 0L) {
+            openingBalance = mutation.balanceBefore();
+        } else if (mutation.balanceBefore() != closingBalance) {
+            breaks++;
+        }
+        long movement = mutation.balanceAfter() - mutation.balanceBefore();
+        if (movement < 0L) {
+            debits -= movement;
+        } else {
+            credits += movement;
+        }
+        closingBalance = mutation.balanceAfter();
+        closingReserved = mutation.reservedAfter();
+        mutations++;
+    }
+
+    /**
+     * Fold a later stretch of the same position's activity into this one
+     */
+    CycleActivity append(CycleActivity later) {
+        if (later.openingBalance != closingBalance) {
+            breaks++;
+        }
+        debits += later.debits;
+        credits += later.credits;
+        closingBalance = later.closingBalance;
+        closingReserved = later.closingReserved;
+        mutations += later.mutations;
+        breaks += later.breaks;
+        return this;
+    }
+
+    long openingBalance() {
+        return openingBalance;
+    }
+
+    long closingBalance() {
+        return closingBalance;
+    }
+
+    long closingReserved() {
+        return closingReserved;
+    }
+
+    long debits() {
+        return debits;
+    }
+
+    long credits() {
+        return credits;
+    }
+
+    long mutations() {
+        return mutations;
+    }
+
+    /**
+     * Mutations whose balance before did not continue from the previous balance after
+     */
+    long breaks() {
+        return breaks;
+    }
+}
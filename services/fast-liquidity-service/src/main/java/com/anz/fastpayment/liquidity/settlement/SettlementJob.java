@@ -0,0 +1,250 @@
+package com.anz.fastpayment.liquidity.settlement;
+
+import com.anz.fastpayment.common.id.IdGenerator;
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import com.anz.fastpayment.liquidity.ledger.LedgerCut;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.model.Amount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settlement Job
+ * 
+ * Closes a settlement cycle on the {@code liquidity.settlement.cron} schedule. A
+ * {@link LedgerCut} fixes every position at one point without pausing the ledger;
+ * the mutations each shard applied before its cut, collected by the
+ * {@link SettlementRecorder}, are then reconciled against the cut in parallel across
+ * participants on a dedicated fork/join pool, sized well below the core count so the
+ * shard writers keep theirs. The resulting {@link SettlementReport} is written to
+ * {@code liquidity.settlement.directory} and summarised in the log and metrics.
+ */
+@Component
+@ConditionalOnProperty(prefix = "liquidity.settlement", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SettlementJob implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SettlementJob.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final BalanceLedger ledger;
+    private final SettlementRecorder recorder;
+    private final IdGenerator idGenerator;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final CronExpression cron;
+    private final ZoneId zone;
+    private final Duration cutTimeout;
+
+    private final ForkJoinPool pool;
+    private final ScheduledExecutorService scheduler;
+
+    private final Timer durationTimer;
+    private final Counter discrepancyCounter;
+    private final MeterRegistry meterRegistry;
+
+    // Guarded by this
+    private Instant cycleStartedAt = Instant.now();
+    private Map<PositionKey, Long> previousClosing = Map.of();
+
+    public SettlementJob(BalanceLedger ledger, SettlementRecorder recorder, IdGenerator idGenerator,
+                         ObjectMapper objectMapper, LiquidityProperties properties,
+                         MeterRegistry meterRegistry) throws IOException {
+        LiquidityProperties.Settlement config = properties.getSettlement();
+        this.ledger = ledger;
+        this.recorder = recorder;
+        this.idGenerator = idGenerator;
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(config.getDirectory());
+        this.cron = CronExpression.parse(config.getCron());
+        this.zone = ZoneId.of(config.getZone());
+        this.cutTimeout = config.getCutTimeout();
+        this.meterRegistry = meterRegistry;
+        Files.createDirectories(directory);
+
+        this.durationTimer = Timer.builder("liquidity.settlement.duration")
+                .description("Time to cut the ledger, reconcile and write a settlement report")
+                .register(meterRegistry);
+        this.discrepancyCounter = Counter.builder("liquidity.settlement.discrepancies")
+                .description("Positions that did not reconcile at a settlement cut")
+                .register(meterRegistry);
+
+        this.pool = new ForkJoinPool(config.getParallelism(), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("settlement-worker-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "settlement-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNext();
+        logger.info("Settlement cycles close on '{}' ({}), reports written to {}",
+                config.getCron(), zone, directory);
+    }
+
+    /**
+     * Close the current cycle now: cut the ledger, reconcile and write the report
+     * 
+     * @return The cycle's report
+     * @throws IOException if the report cannot be written; the cycle is still closed
+     */
+    public synchronized SettlementReport settle() throws IOException {
+        long started = System.nanoTime();
+        List<PositionState> positions;
+        Map<PositionKey, CycleActivity> activity;
+        Instant cutAt;
+        long[] sequences;
+        try (LedgerCut cut = ledger.openCut(cutTimeout)) {
+            activity = recorder.collect();
+            positions = cut.positions();
+            cutAt = cut.getTakenAt();
+            sequences = new long[cut.getShardCount()];
+            for (int shard = 0; shard < sequences.length; shard++) {
+                sequences[shard] = cut.sequence(shard);
+            }
+            logger.debug("Ledger cut read with {} positions preserved from concurrent writes",
+                    cut.getPreservedCount());
+        }
+
+        Map<PositionKey, PositionState> byKey = new HashMap<>(positions.size() * 2);
+        for (PositionState state : positions) {
+            byKey.put(state.key(), state);
+        }
+        List<List<PositionKey>> participants = groupByParticipant(byKey, activity);
+        List<SettlementReport.Entry> entries = pool.invoke(
+                new SettlementReconciliation(participants, byKey, activity, previousClosing));
+
+        SettlementReport report = summarise(cutAt, sequences, participants.size(), entries);
+        Map<PositionKey, Long> closing = new HashMap<>(byKey.size() * 2);
+        byKey.forEach((key, state) -> closing.put(key, state.balance()));
+        previousClosing = closing;
+        cycleStartedAt = cutAt;
+
+        durationTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        discrepancyCounter.increment(report.discrepancies());
+        if (report.discrepancies() > 0) {
+            logger.error("Settlement cycle {} cut at {}: {} of {} positions did not reconcile",
+                    report.cycleId(), cutAt, report.discrepancies(), report.positions());
+        } else {
+            logger.info("Settlement cycle {} cut at {}: {} positions of {} participants reconciled",
+                    report.cycleId(), cutAt, report.positions(), report.participants());
+        }
+        write(report);
+        return report;
+    }
+
+    private List<List<PositionKey>> groupByParticipant(Map<PositionKey, PositionState> cut,
+                                                       Map<PositionKey, CycleActivity> activity) {
+        Map<String, List<PositionKey>> byParticipant = new TreeMap<>();
+        for (PositionKey key : cut.keySet()) {
+            byParticipant.computeIfAbsent(key.participantId(), id -> new ArrayList<>()).add(key);
+        }
+        for (PositionKey key : activity.keySet()) {
+            if (!cut.containsKey(key)) {
+                byParticipant.computeIfAbsent(key.participantId(), id -> new ArrayList<>()).add(key);
+            }
+        }
+        Comparator<PositionKey> order = Comparator.comparing(PositionKey::currency)
+                .thenComparing(PositionKey::countryCode);
+        List<List<PositionKey>> participants = new ArrayList<>(byParticipant.values());
+        participants.forEach(keys -> keys.sort(order));
+        return participants;
+    }
+
+    private SettlementReport summarise(Instant cutAt, long[] sequences, int participants,
+                                       List<SettlementReport.Entry> entries) {
+        Map<String, long[]> sums = new TreeMap<>();
+        int discrepancies = 0;
+        for (SettlementReport.Entry entry : entries) {
+            long[] sum = sums.computeIfAbsent(entry.currency(), currency -> new long[4]);
+            sum[0]++;
+            sum[1] += entry.debits().units();
+            sum[2] += entry.credits().units();
+            sum[3] += entry.closingBalance().units();
+            if (entry.status() == SettlementReport.Status.DISCREPANCY) {
+                discrepancies++;
+            }
+        }
+        List<SettlementReport.CurrencyTotal> totals = new ArrayList<>(sums.size());
+        sums.forEach((currency, sum) -> totals.add(new SettlementReport.CurrencyTotal(currency, (int) sum[0],
+                Amount.ofUnits(sum[1]), Amount.ofUnits(sum[2]), Amount.ofUnits(sum[3]))));
+        return new SettlementReport(idGenerator.next("STL-"), cycleStartedAt, cutAt, sequences, participants,
+                entries.size(), discrepancies, totals, entries);
+    }
+
+    private void write(SettlementReport report) throws IOException {
+        String name = "settlement-" + FILE_TIMESTAMP.format(report.cutAt().atZone(zone));
+        Path temporary = directory.resolve(name + ".json.tmp");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporary.toFile(), report);
+        Files.move(temporary, directory.resolve(name + ".json"), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void scheduleNext() {
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        ZonedDateTime next = cron.next(now);
+        if (next == null) {
+            logger.warn("Settlement cron never fires again; no further cycles are scheduled");
+            return;
+        }
+        scheduler.schedule(this::runScheduled, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void runScheduled() {
+        String outcome = "success";
+        try {
+            settle();
+        } catch (Exception e) {
+            // The ledger keeps running; if the cut was never taken the next cycle also covers this one
+            outcome = "failure";
+            logger.error("Settlement cycle failed", e);
+        } finally {
+            Counter.builder("liquidity.settlement.runs")
+                    .description("Settlement cycles closed, by outcome")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+            scheduleNext();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        pool.shutdownNow();
+    }
+}
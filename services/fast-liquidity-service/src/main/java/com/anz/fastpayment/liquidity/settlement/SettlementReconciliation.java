@@ -0,0 +1,129 @@
+package com.anz.fastpayment.liquidity.settlement;
+
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.model.Amount;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Settlement Reconciliation
+ * 
+ * Fork/join task reconciling a range of participants. Each position's balance at the
+ * cut must equal its opening balance plus the cycle's net movement, its reserved
+ * amount must equal the one left by its last mutation, its mutations must chain
+ * (each starts from the balance the previous one left) and its opening balance must
+ * carry forward the previous cycle's closing balance. Positions of one participant
+ * are never split across tasks, and all inputs are read-only.
+ */
+final class SettlementReconciliation extends RecursiveTask<List<SettlementReport.Entry>> {
+
+    /**
+     * Participants reconciled directly rather than split further
+     */
+    private static final int THRESHOLD = 64;
+
+    private final List<List<PositionKey>> participants;
+    private final int from;
+    private final int to;
+    private final Map<PositionKey, PositionState> cut;
+    private final Map<PositionKey, CycleActivity> activity;
+    private final Map<PositionKey, Long> previousClosing;
+
+    /**
+     * @param participants Keys of each participant's positions, in report order
+     * @param cut Position states at the cut
+     * @param activity Mutations applied during the cycle, folded per position
+     * @param previousClosing Balances at the previous cut, empty for the first cycle after a restart
+     */
+    SettlementReconciliation(List<List<PositionKey>> participants, Map<PositionKey, PositionState> cut,
+                             Map<PositionKey, CycleActivity> activity, Map<PositionKey, Long> previousClosing) {
+        this(participants, 0, participants.size(), cut, activity, previousClosing);
+    }
+
+    private SettlementReconciliation(List<List<PositionKey>> participants, int from, int to,
+                                     Map<PositionKey, PositionState> cut, Map<PositionKey, CycleActivity> activity,
+                                     Map<PositionKey, Long> previousClosing) {
+        this.participants = participants;
+        this.from = from;
+        this.to = to;
+        this.cut = cut;
+        this.activity = activity;
+        this.previousClosing = previousClosing;
+    }
+
+    @Override
+    protected List<SettlementReport.Entry> compute() {
+        if (to - from <= THRESHOLD) {
+            List<SettlementReport.Entry> entries = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                for (PositionKey key : participants.get(i)) {
+                    entries.add(reconcile(key));
+                }
+            }
+            return entries;
+        }
+        int middle = (from + to) >>> 1;
+        SettlementReconciliation left = new SettlementReconciliation(participants, from, middle, cut, activity,
+                previousClosing);
+        SettlementReconciliation right = new SettlementReconciliation(participants, middle, to, cut, activity,
+                previousClosing);
+        left.fork();
+        List<SettlementReport.Entry> entries = right.compute();
+        List<SettlementReport.Entry> leftEntries = left.join();
+        leftEntries.addAll(entries);
+        return leftEntries;
+    }
+
+    private SettlementReport.Entry reconcile(PositionKey key) {
+        PositionState state = cut.get(key);
+        CycleActivity cycle = activity.get(key);
+        Long previous = previousClosing.get(key);
+        List<String> discrepancies = new ArrayList<>(0);
+
+        long closing = state != null ? state.balance() : cycle.closingBalance();
+        long reserved = state != null ? state.reserved() : cycle.closingReserved();
+        long opening;
+        if (cycle != null) {
+            opening = cycle.openingBalance();
+            if (state == null) {
+                discrepancies.add("Position has mutations in the cycle but is missing from the cut");
+            }
+            if (cycle.breaks() > 0L) {
+                discrepancies.add(cycle.breaks() + " mutations do not continue from the preceding balance");
+            }
+            long expected = opening - cycle.debits() + cycle.credits();
+            if (expected != closing) {
+                discrepancies.add("Opening balance plus net movement is " + Amount.ofUnits(expected)
+                        + " but the cut balance is " + Amount.ofUnits(closing));
+            }
+            if (cycle.closingReserved() != reserved) {
+                discrepancies.add("Reserved amount left by the last mutation is " + Amount.ofUnits(cycle.closingReserved())
+                        + " but the cut holds " + Amount.ofUnits(reserved));
+            }
+        } else {
+            opening = previous != null ? previous : closing;
+            if (opening != closing) {
+                discrepancies.add("Balance moved from " + Amount.ofUnits(opening) + " to " + Amount.ofUnits(closing)
+                        + " without any mutation in the cycle");
+            }
+        }
+        if (previous != null && cycle != null && previous != opening) {
+            discrepancies.add("Opening balance " + Amount.ofUnits(opening)
+                    + " does not carry forward the previous closing balance " + Amount.ofUnits(previous));
+        }
+
+        return new SettlementReport.Entry(key.participantId(), key.currency(), key.countryCode(),
+                Amount.ofUnits(opening),
+                Amount.ofUnits(cycle != null ? cycle.debits() : 0L),
+                Amount.ofUnits(cycle != null ? cycle.credits() : 0L),
+                Amount.ofUnits(closing),
+                Amount.ofUnits(reserved),
+                cycle != null ? cycle.mutations() : 0L,
+                discrepancies.isEmpty() ? SettlementReport.Status.MATCHED : SettlementReport.Status.DISCREPANCY,
+                discrepancies);
+    }
+}
@@ -0,0 +1,73 @@
+package com.anz.fastpayment.liquidity.settlement;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutationListener;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Settlement Recorder
+ * 
+ * Folds the mutation stream into per-position {@link CycleActivity} on each shard's
+ * writer thread, in a map that only that writer touches. When the shard reaches a
+ * ledger cut the map is set aside as the completed cycle and a fresh one started, so
+ * every mutation lands on exactly one side of the cut. If a completed cycle is never
+ * collected (for example because opening the cut failed on another shard) the next
+ * cycle is appended to it rather than lost.
+ */
+@Component
+@ConditionalOnProperty(prefix = "liquidity.settlement", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SettlementRecorder implements BalanceMutationListener {
+
+    // Writer-thread only, one per shard
+    private final Map<PositionKey, CycleActivity>[] current;
+    private final AtomicReferenceArray<Map<PositionKey, CycleActivity>> completed;
+
+    @SuppressWarnings("unchecked")
+    public SettlementRecorder(LiquidityProperties properties) {
+        int shards = properties.getLedger().getShards();
+        this.current = new Map[shards];
+        for (int i = 0; i < shards; i++) {
+            current[i] = new HashMap<>();
+        }
+        this.completed = new AtomicReferenceArray<>(shards);
+    }
+
+    @Override
+    public void onMutation(BalanceMutation mutation) {
+        current[mutation.shard()].computeIfAbsent(mutation.key(), key -> new CycleActivity()).record(mutation);
+    }
+
+    @Override
+    public void onCut(int shard, long sequence) {
+        Map<PositionKey, CycleActivity> cycle = current[shard];
+        current[shard] = new HashMap<>();
+        Map<PositionKey, CycleActivity> uncollected = completed.get(shard);
+        if (uncollected != null) {
+            cycle.forEach((key, activity) -> uncollected.merge(key, activity, CycleActivity::append));
+            cycle = uncollected;
+        }
+        completed.set(shard, cycle);
+    }
+
+    /**
+     * Take the activity of every shard's completed cycle, leaving nothing behind.
+     * Call only after the cut that completed it has been opened on every shard.
+     */
+    Map<PositionKey, CycleActivity> collect() {
+        Map<PositionKey, CycleActivity> all = new HashMap<>();
+        for (int shard = 0; shard < completed.length(); shard++) {
+            Map<PositionKey, CycleActivity> cycle = completed.getAndSet(shard, null);
+            if (cycle != null) {
+                all.putAll(cycle);
+            }
+        }
+        return all;
+    }
+}
@@ -0,0 +1,59 @@
+package com.anz.fastpayment.liquidity.settlement;
+
+import com.anz.fastpayment.liquidity.model.Amount;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Settlement Report
+ * 
+ * Outcome of one settlement cycle: every position's balance at the cycle's ledger cut,
+ * reconciled against the mutations applied to it since the previous cut, with totals
+ * per currency. Written as JSON under {@code liquidity.settlement.directory}.
+ * 
+ * {@code cycleStartedAt} is the previous cut, or service start for the first cycle
+ * after a restart, in which case opening balances cannot be carried forward and are
+ * taken from the first mutation of the cycle.
+ */
+public record SettlementReport(String cycleId,
+                               Instant cycleStartedAt,
+                               Instant cutAt,
+                               long[] shardSequences,
+                               int participants,
+                               int positions,
+                               int discrepancies,
+                               List<CurrencyTotal> totals,
+                               List<Entry> entries) {
+
+    public enum Status {
+        MATCHED,
+        DISCREPANCY
+    }
+
+    /**
+     * One position's movement over the cycle
+     */
+    public record Entry(String participantId,
+                        String currency,
+                        String countryCode,
+                        Amount openingBalance,
+                        Amount debits,
+                        Amount credits,
+                        Amount closingBalance,
+                        Amount reservedAmount,
+                        long mutations,
+                        Status status,
+                        List<String> discrepancies) {
+    }
+
+    /**
+     * Sum over every position held in one currency
+     */
+    public record CurrencyTotal(String currency,
+                                int positions,
+                                Amount debits,
+                                Amount credits,
+                                Amount closingBalance) {
+    }
+}
@@ -0,0 +1,14 @@
+-- Latest balance of every liquidity position, written behind the in-memory ledger
+-- by BalanceWriteBehind. Amounts are NUMERIC with 5 decimal places, as in the ledger.
+-- LedgerShard/LedgerSequence identify the last ledger mutation reflected in the row.
+CREATE TABLE ParticipantBalances (
+  ParticipantId     STRING(35) NOT NULL,
+  Currency          STRING(3) NOT NULL,
+  CountryCode       STRING(2) NOT NULL,
+  Balance           NUMERIC NOT NULL,
+  Reserved          NUMERIC NOT NULL,
+  LastTransactionAt TIMESTAMP,
+  LedgerShard       INT64 NOT NULL,
+  LedgerSequence    INT64 NOT NULL,
+  UpdatedAt         TIMESTAMP NOT NULL OPTIONS (allow_commit_timestamp = true),
+) PRIMARY KEY (ParticipantId, Currency, CountryCode)
@@ -0,0 +1,81 @@
+package com.anz.fastpayment.liquidity.journal;
+
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalCodecTest {
+
+    private static final PositionKey KEY = new PositionKey("DBSSSGSG", "SGD", "SG");
+
+    private final CRC32C crc = new CRC32C();
+
+    @Test
+    void roundTripsEveryField() {
+        BalanceMutation mutation = new BalanceMutation(3, 42L, KEY, TransactionType.RESERVE, -150_00L,
+                1_000_00L, 1_000_00L, 150_00L, "REF-1", 1_700_000_000_000L, "MSG-1", "REF-1", "TXN-1",
+                Instant.parse("2025-01-15T10:30:00.123456789Z"));
+        ByteBuffer buffer = ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE);
+
+        JournalCodec.encode(mutation, buffer, crc);
+        int written = buffer.position();
+        buffer.flip();
+
+        assertThat(JournalCodec.decode(3, buffer, crc)).isEqualTo(mutation);
+        assertThat(buffer.position()).isEqualTo(written);
+    }
+
+    @Test
+    void roundTripsNullAndNonAsciiStrings() {
+        BalanceMutation mutation = new BalanceMutation(0, 1L, new PositionKey("Zürich-Bank", "SGD", "SG"),
+                TransactionType.RELEASE, 5L, 10L, 10L, 0L, "REF-é", 0L, null, null, null, Instant.EPOCH);
+        ByteBuffer buffer = ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE);
+
+        JournalCodec.encode(mutation, buffer, crc);
+        buffer.flip();
+
+        assertThat(JournalCodec.decode(0, buffer, crc)).isEqualTo(mutation);
+    }
+
+    @Test
+    void stopsAtZeroLengthEndOfData() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        assertThat(JournalCodec.decode(0, buffer, crc)).isNull();
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    void rejectsRecordFailingItsChecksum() {
+        ByteBuffer buffer = ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE);
+        JournalCodec.encode(debit(1L), buffer, crc);
+        int end = buffer.position();
+        buffer.put(end - 1, (byte) (buffer.get(end - 1) ^ 0x01));
+        buffer.flip();
+
+        assertThat(JournalCodec.decode(0, buffer, crc)).isNull();
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    void rejectsRecordCutShortOfItsLength() {
+        ByteBuffer buffer = ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE);
+        JournalCodec.encode(debit(1L), buffer, crc);
+        buffer.limit(buffer.position() - 3).position(0);
+
+        assertThat(JournalCodec.decode(0, buffer, crc)).isNull();
+    }
+
+    static BalanceMutation debit(long sequence) {
+        return new BalanceMutation(0, sequence, KEY, TransactionType.DEBIT, -10_00L, 100_00L * sequence,
+                100_00L * sequence - 10_00L, 0L, null, 0L, "MSG-" + sequence, null, "TXN-" + sequence,
+                Instant.ofEpochMilli(1_700_000_000_000L + sequence));
+    }
+}
@@ -0,0 +1,188 @@
+package com.anz.fastpayment.liquidity.journal;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceLedger;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.IdempotencyIndex;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.ledger.ReservationState;
+import com.anz.fastpayment.liquidity.ledger.ShardState;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static com.anz.fastpayment.liquidity.journal.JournalCodecTest.debit;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournalReplayTest {
+
+    private static final PositionKey KEY = new PositionKey("DBSSSGSG", "SGD", "SG");
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void foldsSnapshotAndJournalTail() {
+        PositionState snapshotted = new PositionState(KEY, 500_00L, 0L, Instant.EPOCH, 7L);
+        JournalReplay replay = new JournalReplay(1);
+        replay.load(new SnapshotFile.Contents(directory, Instant.EPOCH,
+                List.of(new ShardState(0, 1L, List.of(snapshotted), List.of(), new long[0]))));
+
+        replay.apply(debit(1L));
+        replay.apply(debit(2L));
+        replay.apply(debit(3L));
+
+        assertThat(replay.replayed()).isEqualTo(2L);
+        assertThat(replay.sequences()).containsExactly(3L);
+        PositionState position = replay.positions().iterator().next();
+        assertThat(position.balance()).isEqualTo(debit(3L).balanceAfter());
+        assertThat(position.version()).isEqualTo(9L);
+        assertThat(replay.idempotencyEntries()).hasSize(2 * IdempotencyIndex.STRIDE);
+    }
+
+    @Test
+    void tracksReservationsUntilSettledOrReleased() {
+        JournalReplay replay = new JournalReplay(1);
+        replay.apply(hold(1L, TransactionType.RESERVE, "REF-1"));
+        replay.apply(hold(2L, TransactionType.RESERVE, "REF-2"));
+        replay.apply(hold(3L, TransactionType.RELEASE, "REF-1"));
+
+        assertThat(replay.reservations()).extracting(ReservationState::reservationId).containsExactly("REF-2");
+        assertThat(replay.reservations().iterator().next().amount()).isEqualTo(25_00L);
+    }
+
+    @Test
+    void refusesGapInSequence() {
+        JournalReplay replay = new JournalReplay(1);
+        replay.apply(debit(1L));
+
+        assertThatThrownBy(() -> replay.apply(debit(3L)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("expected sequence 2");
+    }
+
+    @Test
+    void refusesRepeatedSequenceAfterSnapshot() {
+        JournalReplay replay = new JournalReplay(1);
+        replay.apply(debit(1L));
+        replay.apply(debit(2L));
+
+        assertThatThrownBy(() -> replay.apply(debit(2L)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Repeated sequence 2");
+    }
+
+    @Test
+    void segmentReadStopsAtTornTail() throws IOException {
+        Path shardDirectory = Files.createDirectories(directory.resolve("journal").resolve("shard-0"));
+        Path segment = writeSegment(shardDirectory, 1L, debit(1L), debit(2L), debit(3L));
+        tear(segment, recordOffset(3), debit(3L));
+
+        List<BalanceMutation> read = new ArrayList<>();
+        boolean clean = JournalSegment.read(segment, 0, read::add);
+
+        assertThat(clean).isFalse();
+        assertThat(read).containsExactly(debit(1L), debit(2L));
+    }
+
+    @Test
+    void recoveryIgnoresTornTailOfNewestSegment() throws IOException {
+        Path shardDirectory = Files.createDirectories(directory.resolve("journal").resolve("shard-0"));
+        Path segment = writeSegment(shardDirectory, 1L, debit(1L), debit(2L), debit(3L));
+        tear(segment, recordOffset(3), debit(3L));
+
+        LiquidityProperties properties = properties();
+        try (BalanceLedger ledger = new BalanceLedger(properties, List.of());
+             BalanceJournal journal = new BalanceJournal(properties)) {
+            journal.recover(ledger);
+
+            assertThat(ledger.find(KEY).getBalance()).isEqualTo(debit(2L).balanceAfter());
+        }
+        assertThat(SnapshotFile.list(directory)).hasSize(1);
+    }
+
+    @Test
+    void recoveryRefusesCorruptRecordInsideOlderSegment() throws IOException {
+        Path shardDirectory = Files.createDirectories(directory.resolve("journal").resolve("shard-0"));
+        Path older = writeSegment(shardDirectory, 1L, debit(1L), debit(2L));
+        writeSegment(shardDirectory, 3L, debit(3L));
+        tear(older, recordOffset(2), debit(2L));
+
+        LiquidityProperties properties = properties();
+        try (BalanceLedger ledger = new BalanceLedger(properties, List.of());
+             BalanceJournal journal = new BalanceJournal(properties)) {
+            assertThatThrownBy(() -> journal.recover(ledger))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Corrupt record");
+        }
+    }
+
+    private LiquidityProperties properties() {
+        LiquidityProperties properties = new LiquidityProperties();
+        properties.getLedger().setShards(1);
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getJournal().setSegmentSize(DataSize.ofBytes(SEGMENT_SIZE));
+        properties.getJournal().setSnapshotInterval(Duration.ZERO);
+        return properties;
+    }
+
+    private static Path writeSegment(Path shardDirectory, long firstSequence, BalanceMutation... mutations)
+            throws IOException {
+        JournalSegment segment = JournalSegment.create(shardDirectory, 0, firstSequence, SEGMENT_SIZE);
+        CRC32C crc = new CRC32C();
+        for (BalanceMutation mutation : mutations) {
+            segment.append(mutation, crc);
+        }
+        segment.force();
+        return segment.path();
+    }
+
+    /**
+     * File offset of the n-th record (1-based) of a segment holding debit(1), debit(2), ...
+     */
+    private static int recordOffset(int n) {
+        int offset = JournalSegment.HEADER_SIZE;
+        for (long sequence = 1; sequence < n; sequence++) {
+            offset += encodedLength(debit(sequence));
+        }
+        return offset;
+    }
+
+    /**
+     * Zero the second half of a record whose length made it to disk, as a crash mid-append can
+     */
+    private static void tear(Path segment, int offset, BalanceMutation record) throws IOException {
+        int length = encodedLength(record);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(length / 2), offset + length - length / 2);
+        }
+    }
+
+    private static int encodedLength(BalanceMutation mutation) {
+        ByteBuffer buffer = ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE);
+        JournalCodec.encode(mutation, buffer, new CRC32C());
+        return buffer.position();
+    }
+
+    private static BalanceMutation hold(long sequence, TransactionType type, String reservationId) {
+        return new BalanceMutation(0, sequence, KEY, type, type == TransactionType.RESERVE ? -25_00L : 25_00L,
+                100_00L, 100_00L, 25_00L, reservationId, type == TransactionType.RESERVE ? 1_700_000_300_000L : 0L,
+                "MSG-" + sequence, reservationId, "TXN-" + sequence, Instant.ofEpochMilli(1_700_000_000_000L));
+    }
+}
@@ -0,0 +1,118 @@
+package com.anz.fastpayment.liquidity.journal;
+
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.ledger.ReservationState;
+import com.anz.fastpayment.liquidity.ledger.ShardState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotFileTest {
+
+    private static final PositionKey KEY = new PositionKey("DBSSSGSG", "SGD", "SG");
+    private static final PositionKey UNTOUCHED = new PositionKey("OCBCSGSG", "SGD", "SG");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEveryShard() throws IOException {
+        List<ShardState> shards = List.of(
+                new ShardState(0, 12L,
+                        List.of(new PositionState(KEY, 900_00L, 25_00L, Instant.ofEpochMilli(1_700_000_000_000L), 4L)),
+                        List.of(new ReservationState(KEY, "REF-1", 25_00L, 1_700_000_300_000L)),
+                        new long[]{1L, 2L, 3L, 4L}),
+                new ShardState(1, 0L, List.of(new PositionState(UNTOUCHED, 0L, 0L, null, 0L)), List.of(), new long[0]));
+
+        Path written = SnapshotFile.write(directory, Instant.ofEpochMilli(1_700_000_000_000L), shards);
+        SnapshotFile.Contents contents = SnapshotFile.read(written);
+
+        assertThat(contents.createdAt()).isEqualTo(Instant.ofEpochMilli(1_700_000_000_000L));
+        assertThat(contents.sequences()).containsExactly(12L, 0L);
+        assertThat(contents.shards()).hasSize(2);
+        ShardState first = contents.shards().get(0);
+        assertThat(first.positions()).isEqualTo(shards.get(0).positions());
+        assertThat(first.reservations()).isEqualTo(shards.get(0).reservations());
+        assertThat(first.idempotencyEntries()).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(contents.shards().get(1).positions()).isEqualTo(shards.get(1).positions());
+    }
+
+    @Test
+    void readsNewestSnapshot() throws IOException {
+        SnapshotFile.write(directory, Instant.ofEpochMilli(1_000L), List.of(emptyShard(1L)));
+        SnapshotFile.write(directory, Instant.ofEpochMilli(2_000L), List.of(emptyShard(2L)));
+
+        assertThat(SnapshotFile.readLatest(directory).sequences()).containsExactly(2L);
+    }
+
+    @Test
+    void noSnapshotYet() throws IOException {
+        assertThat(SnapshotFile.readLatest(directory)).isNull();
+    }
+
+    @Test
+    void refusesSnapshotFailingItsChecksum() throws IOException {
+        Path written = SnapshotFile.write(directory, Instant.ofEpochMilli(1_000L), List.of(emptyShard(5L)));
+        byte[] bytes = Files.readAllBytes(written);
+        bytes[20] ^= 0x01;
+        Files.write(written, bytes);
+
+        assertThatThrownBy(() -> SnapshotFile.read(written))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    @Test
+    void refusesVersionOneSnapshot() throws IOException {
+        Path written = writeVersionOne(directory.resolve("snapshot-00000000000000001000.snap"));
+
+        assertThatThrownBy(() -> SnapshotFile.read(written))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a ledger snapshot");
+    }
+
+    private static ShardState emptyShard(long sequence) {
+        return new ShardState(0, sequence, List.of(), List.of(), new long[0]);
+    }
+
+    /**
+     * Layout of the first snapshot format, without remembered message ids
+     */
+    private static Path writeVersionOne(Path path) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x4C51534E);
+        out.writeInt(1);
+        out.writeLong(1_000L);
+        out.writeInt(1);
+        out.writeInt(0);
+        out.writeLong(9L);
+        out.writeInt(1);
+        out.writeUTF(KEY.participantId());
+        out.writeUTF(KEY.currency());
+        out.writeUTF(KEY.countryCode());
+        out.writeLong(400_00L);
+        out.writeLong(0L);
+        out.writeLong(1_000L);
+        out.writeLong(3L);
+        out.writeInt(0);
+        out.flush();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        Files.write(path, bytes.toByteArray());
+        return path;
+    }
+}
@@ -0,0 +1,152 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.model.ErrorResponse;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BalanceLedgerTest {
+
+    private static final PositionKey KEY = new PositionKey("DBSSSGSG", "SGD", "SG");
+
+    private BalanceLedger ledger;
+
+    @AfterEach
+    void close() {
+        if (ledger != null) {
+            ledger.close();
+        }
+    }
+
+    @Test
+    void failedDurableRecordRefusesCommandAndStopsShard() {
+        AtomicBoolean failing = new AtomicBoolean();
+        List<BalanceMutation> published = new ArrayList<>();
+        ledger = ledger(List.of(recorder(failing), (BalanceMutationListener) published::add));
+
+        assertThat(ledger.apply(credit("MSG-1", 100_00L)).isApplied()).isTrue();
+        failing.set(true);
+
+        assertThatThrownBy(() -> ledger.apply(credit("MSG-2", 50_00L)))
+                .isInstanceOf(LedgerUnavailableException.class);
+        assertThat(ledger.find(KEY).getBalance()).isEqualTo(100_00L);
+        assertThat(published).hasSize(1);
+        assertThat(ledger.failure()).contains("shard 0");
+
+        failing.set(false);
+        assertThatThrownBy(() -> ledger.apply(credit("MSG-3", 50_00L)))
+                .isInstanceOf(LedgerUnavailableException.class);
+    }
+
+    @Test
+    void singleCommandWaitsForCommitAndKeepsShardRunningWhenRefused() {
+        AtomicBoolean refusing = new AtomicBoolean();
+        List<Integer> commits = new ArrayList<>();
+        DurableMutationListener log = new DurableMutationListener() {
+            @Override
+            public void onMutation(BalanceMutation mutation) {
+            }
+
+            @Override
+            public void onCommit(int shard) {
+                commits.add(shard);
+                if (refusing.get()) {
+                    throw new LedgerUnavailableException("partition moved");
+                }
+            }
+        };
+        ledger = ledger(List.of(log));
+
+        assertThat(ledger.apply(credit("MSG-1", 100_00L)).isApplied()).isTrue();
+        assertThat(commits).containsExactly(0);
+
+        refusing.set(true);
+        assertThatThrownBy(() -> ledger.apply(credit("MSG-2", 50_00L)))
+                .isInstanceOf(LedgerUnavailableException.class)
+                .hasMessageContaining("partition moved");
+        assertThat(ledger.failure()).isNull();
+
+        refusing.set(false);
+        assertThat(ledger.apply(credit("MSG-3", 50_00L)).isApplied()).isTrue();
+    }
+
+    @Test
+    void overflowingAmountIsRejectedNotThrown() {
+        ledger = ledger(List.of());
+
+        assertThat(ledger.apply(credit("MSG-1", 100_00L)).isApplied()).isTrue();
+        MutationResult overflow = ledger.apply(credit("MSG-2", Long.MAX_VALUE));
+
+        assertThat(overflow.status()).isEqualTo(MutationResult.Status.REJECTED);
+        assertThat(overflow.errorCode()).isEqualTo(ErrorResponse.ErrorCodes.INVALID_AMOUNT);
+        assertThat(ledger.find(KEY).getBalance()).isEqualTo(100_00L);
+    }
+
+    @Test
+    void batchKeepsAppliedOutcomesWhenStoppedShardCannotTakeItsPart() {
+        AtomicBoolean failing = new AtomicBoolean();
+        LiquidityProperties properties = new LiquidityProperties();
+        properties.getLedger().setShards(2);
+        properties.getLedger().setOpeningBalance(BigDecimal.ZERO);
+        ledger = new BalanceLedger(properties, List.of(recorder(failing)));
+        PositionKey other = Stream.of("ANZBSGSG", "OCBCSGSG", "UOVBSGSG", "CITISGSG")
+                .map(participant -> new PositionKey(participant, "SGD", "SG"))
+                .filter(key -> ledger.shardOf(key) != ledger.shardOf(KEY))
+                .findFirst().orElseThrow();
+
+        failing.set(true);
+        assertThatThrownBy(() -> ledger.apply(credit("MSG-1", 100_00L)))
+                .isInstanceOf(LedgerUnavailableException.class);
+        failing.set(false);
+
+        List<MutationResult> results = ledger.applyBatch(List.of(credit("MSG-2", 100_00L),
+                new LedgerCommand(other, TransactionType.CREDIT, 100_00L, "MSG-3", null, "TXN-MSG-3")));
+
+        assertThat(results.get(0).isUnavailable()).isTrue();
+        assertThat(results.get(0).errorCode()).isEqualTo(ErrorResponse.ErrorCodes.SERVICE_UNAVAILABLE);
+        assertThat(results.get(1).isApplied()).isTrue();
+        assertThat(ledger.find(other).getBalance()).isEqualTo(100_00L);
+    }
+
+    @Test
+    void failingOptionalListenerNeverStallsLedger() {
+        BalanceMutationListener broken = mutation -> {
+            throw new IllegalStateException("cache is down");
+        };
+        ledger = ledger(List.of(broken));
+
+        assertThat(ledger.apply(credit("MSG-1", 100_00L)).isApplied()).isTrue();
+        assertThat(ledger.apply(credit("MSG-2", 100_00L)).isApplied()).isTrue();
+        assertThat(ledger.failure()).isNull();
+        assertThat(ledger.find(KEY).getBalance()).isEqualTo(200_00L);
+    }
+
+    private static BalanceLedger ledger(List<BalanceMutationListener> listeners) {
+        LiquidityProperties properties = new LiquidityProperties();
+        properties.getLedger().setShards(1);
+        properties.getLedger().setOpeningBalance(BigDecimal.ZERO);
+        return new BalanceLedger(properties, listeners);
+    }
+
+    private static DurableMutationListener recorder(AtomicBoolean failing) {
+        return mutation -> {
+            if (failing.get()) {
+                throw new IllegalStateException("disk full");
+            }
+        };
+    }
+
+    private static LedgerCommand credit(String messageId, long amount) {
+        return new LedgerCommand(KEY, TransactionType.CREDIT, amount, messageId, null, "TXN-" + messageId);
+    }
+}
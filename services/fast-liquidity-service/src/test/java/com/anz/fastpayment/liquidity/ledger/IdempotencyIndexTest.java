@@ -0,0 +1,53 @@
+package com.anz.fastpayment.liquidity.ledger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyIndexTest {
+
+    private static final PositionKey KEY = new PositionKey("DBSSSGSG", "SGD", "SG");
+    private static final long TTL = 86_400_000L;
+
+    @Test
+    void growsInsteadOfForgettingWithinTtl() {
+        IdempotencyIndex index = new IdempotencyIndex(0, 16, 1_000, TTL, 0L);
+
+        for (int i = 0; i < 500; i++) {
+            index.record(KEY, "MSG-" + i, i, i + 1L);
+        }
+
+        assertThat(index.size()).isEqualTo(500);
+        assertThat(index.earlyRotations()).isZero();
+        MutationResult first = index.find(KEY, "MSG-0");
+        assertThat(first.isDuplicate()).isTrue();
+        assertThat(first.balanceAfter()).isEqualTo(1L);
+        assertThat(index.find(KEY, "MSG-499").balanceBefore()).isEqualTo(499L);
+        assertThat(index.find(KEY, "MSG-500")).isNull();
+    }
+
+    @Test
+    void countsRotationForcedByMaximumCapacity() {
+        IdempotencyIndex index = new IdempotencyIndex(0, 16, 64, TTL, 0L);
+
+        for (int i = 0; i < 64 * 3; i++) {
+            index.record(KEY, "MSG-" + i, 0L, 1L);
+        }
+
+        assertThat(index.earlyRotations()).isEqualTo(2L);
+        assertThat(index.find(KEY, "MSG-0")).isNull();
+        assertThat(index.find(KEY, "MSG-" + (64 * 3 - 1))).isNotNull();
+    }
+
+    @Test
+    void rotationAtTtlIsNotEarly() {
+        IdempotencyIndex index = new IdempotencyIndex(0, 16, 64, TTL, 0L);
+        index.record(KEY, "MSG-1", 0L, 1L);
+
+        assertThat(index.rotateIfDue(TTL)).isZero();
+        assertThat(index.find(KEY, "MSG-1")).isNotNull();
+        assertThat(index.rotateIfDue(2 * TTL)).isEqualTo(1);
+        assertThat(index.find(KEY, "MSG-1")).isNull();
+        assertThat(index.earlyRotations()).isZero();
+    }
+}
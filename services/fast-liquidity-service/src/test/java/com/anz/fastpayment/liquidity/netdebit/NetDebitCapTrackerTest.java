@@ -0,0 +1,78 @@
+package com.anz.fastpayment.liquidity.netdebit;
+
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.ledger.BalanceMutation;
+import com.anz.fastpayment.liquidity.ledger.PositionKey;
+import com.anz.fastpayment.liquidity.ledger.PositionState;
+import com.anz.fastpayment.liquidity.model.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class NetDebitCapTrackerTest {
+
+    private static final PositionKey KEY = new PositionKey("DBSSSGSG", "SGD", "SG");
+
+    private NetDebitCapTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        LiquidityProperties properties = new LiquidityProperties();
+        properties.getLedger().setShards(1);
+        properties.getNetDebitCap().getLimits().put(KEY.participantId(), new BigDecimal("1000.00"));
+        tracker = new NetDebitCapTracker(properties, event -> {
+        });
+    }
+
+    @AfterEach
+    void close() {
+        tracker.close();
+    }
+
+    @Test
+    void measuresNetDebitFromBalanceAtStartOfCycle() {
+        BalanceMutation first = post(500_00L, -400_00L);
+        tracker.onMutation(first);
+        assertThat(tracker.utilizationAfter(first)).isCloseTo(0.9, within(1e-9));
+        assertThat(tracker.levelAfter(first)).isEqualTo(NetDebitCapLevel.ALERT);
+
+        BalanceMutation second = post(-400_00L, -600_00L);
+        tracker.onMutation(second);
+        assertThat(tracker.levelAfter(second)).isEqualTo(NetDebitCapLevel.EXCEEDED);
+    }
+
+    @Test
+    void settlementCutStartsNewCycle() {
+        tracker.onMutation(post(0L, -1_100_00L));
+
+        tracker.onCut(0, 1L);
+        BalanceMutation afterCut = post(-1_100_00L, -1_200_00L);
+        tracker.onMutation(afterCut);
+
+        assertThat(tracker.utilizationAfter(afterCut)).isCloseTo(0.1, within(1e-9));
+        assertThat(tracker.levelAfter(afterCut)).isEqualTo(NetDebitCapLevel.NORMAL);
+    }
+
+    @Test
+    void restoredPositionsStartCycleFromLoadedBalance() {
+        tracker.onMutation(post(0L, -900_00L));
+
+        tracker.onRestore(0, List.of(new PositionState(KEY, -2_000_00L, 0L, Instant.now(), 7L)));
+        BalanceMutation afterRestore = post(-2_000_00L, -2_300_00L);
+        tracker.onMutation(afterRestore);
+
+        assertThat(tracker.utilizationAfter(afterRestore)).isCloseTo(0.3, within(1e-9));
+    }
+
+    private static BalanceMutation post(long before, long after) {
+        return new BalanceMutation(0, 1L, KEY, after < before ? TransactionType.DEBIT : TransactionType.CREDIT,
+                after - before, before, after, 0L, null, 0L, "MSG-" + after, null, null, Instant.now());
+    }
+}
@@ -0,0 +1,186 @@
+package com.anz.fastpayment.liquidity.rpc;
+
+import com.anz.fastpayment.liquidity.client.BalanceCheck;
+import com.anz.fastpayment.liquidity.client.BalanceCheckResult;
+import com.anz.fastpayment.liquidity.client.LiquidityWire;
+import com.anz.fastpayment.liquidity.client.TransactionType;
+import com.anz.fastpayment.liquidity.config.LiquidityProperties;
+import com.anz.fastpayment.liquidity.model.Amount;
+import com.anz.fastpayment.liquidity.model.BalanceCheckRequest;
+import com.anz.fastpayment.liquidity.model.BalanceCheckResponse;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateBatchRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateBatchResponse;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateRequest;
+import com.anz.fastpayment.liquidity.model.BalanceUpdateResponse;
+import com.anz.fastpayment.liquidity.model.ErrorResponse;
+import com.anz.fastpayment.liquidity.model.ParticipantBalanceResponse;
+import com.anz.fastpayment.liquidity.service.LiquidityService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiquidityRpcServerTest {
+
+    private static final String SLOW = "SLOW";
+    private static final int CHECKS = 32;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private LiquidityRpcServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        LiquidityProperties properties = new LiquidityProperties();
+        properties.getRpc().setPort(0);
+        properties.getRpc().setBindAddress("127.0.0.1");
+        server = new LiquidityRpcServer(new StubLiquidityService(),
+                Validation.buildDefaultValidatorFactory().getValidator(), properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        release.countDown();
+        server.close();
+    }
+
+    @Test
+    void answersPipelinedChecksAsTheyComplete() throws IOException {
+        try (Socket socket = connect()) {
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            handshake(out, in);
+
+            // The first check is held until every other one has been answered
+            LiquidityWire.FrameWriter writer = new LiquidityWire.FrameWriter();
+            send(writer, out, 0, check(SLOW));
+            for (int i = 1; i <= CHECKS; i++) {
+                send(writer, out, i, check("REF-" + i));
+            }
+            out.flush();
+
+            LiquidityWire.FrameReader reader = new LiquidityWire.FrameReader();
+            List<Integer> answered = new ArrayList<>();
+            for (int i = 1; i <= CHECKS; i++) {
+                assertThat(reader.next(in)).isTrue();
+                assertThat(reader.type()).isEqualTo(LiquidityWire.CHECK_RESPONSE);
+                BalanceCheckResult result = LiquidityWire.readResult(reader);
+                assertThat(result.requestId()).isEqualTo("REF-" + reader.correlationId());
+                answered.add(reader.correlationId());
+            }
+            assertThat(answered).containsExactlyInAnyOrderElementsOf(IntStream.rangeClosed(1, CHECKS).boxed().toList());
+
+            release.countDown();
+            assertThat(reader.next(in)).isTrue();
+            assertThat(reader.correlationId()).isZero();
+            assertThat(LiquidityWire.readResult(reader).requestId()).isEqualTo(SLOW);
+        }
+    }
+
+    @Test
+    void answersInvalidCheckWithoutClosingConnection() throws IOException {
+        try (Socket socket = connect()) {
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            handshake(out, in);
+
+            LiquidityWire.FrameWriter writer = new LiquidityWire.FrameWriter();
+            send(writer, out, 1, new BalanceCheck("DBSSSGSG", "SG", "sgd", -1L, TransactionType.DEBIT, "BAD"));
+            send(writer, out, 2, check("GOOD"));
+            out.flush();
+
+            LiquidityWire.FrameReader reader = new LiquidityWire.FrameReader();
+            for (int i = 0; i < 2; i++) {
+                assertThat(reader.next(in)).isTrue();
+                if (reader.correlationId() == 1) {
+                    assertThat(reader.type()).isEqualTo(LiquidityWire.ERROR);
+                    assertThat(LiquidityWire.readError(reader).getErrorCode())
+                            .isEqualTo(ErrorResponse.ErrorCodes.VALIDATION_ERROR);
+                } else {
+                    assertThat(reader.correlationId()).isEqualTo(2);
+                    assertThat(LiquidityWire.readResult(reader).requestId()).isEqualTo("GOOD");
+                }
+            }
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", server.getPort());
+        socket.setSoTimeout(5_000);
+        return socket;
+    }
+
+    private static void handshake(OutputStream out, InputStream in) throws IOException {
+        LiquidityWire.writeHandshake(out);
+        LiquidityWire.readHandshake(in);
+    }
+
+    private static void send(LiquidityWire.FrameWriter writer, OutputStream out, int correlationId, BalanceCheck check)
+            throws IOException {
+        LiquidityWire.writeCheck(writer, correlationId, check);
+        writer.writeTo(out);
+    }
+
+    private static BalanceCheck check(String reference) {
+        return new BalanceCheck("DBSSSGSG", "SG", "SGD", -10_000_000L, TransactionType.DEBIT, reference);
+    }
+
+    /**
+     * Answers every check with its reference as the request id, holding {@value #SLOW} back until released
+     */
+    private final class StubLiquidityService implements LiquidityService {
+
+        @Override
+        public BalanceCheckResponse checkBalance(BalanceCheckRequest request) {
+            if (SLOW.equals(request.getReference())) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            BalanceCheckResponse response = new BalanceCheckResponse();
+            response.setStatus("SUCCESS");
+            response.setAuthorized(true);
+            response.setCurrentBalance(Amount.ofUnits(100_000_000L));
+            response.setProjectedBalance(Amount.ofUnits(100_000_000L + request.getAmount().units()));
+            response.setMinimumBalance(Amount.ZERO);
+            response.setAvailableAmount(Amount.ofUnits(100_000_000L));
+            response.setRequestId(request.getReference());
+            response.setWarnings(List.of());
+            response.setTimestamp(Instant.now());
+            return response;
+        }
+
+        @Override
+        public BalanceUpdateResponse updateBalance(BalanceUpdateRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BalanceUpdateBatchResponse updateBalances(BalanceUpdateBatchRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ParticipantBalanceResponse getParticipantBalance(String participantId, String currency,
+                                                                String countryCode) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.anz.fastpayment.router.classify;
+
+/**
+ * Message Classification
+ *
+ * What the leading bytes of an inbound message say about it, enough to route it
+ * without parsing it
+ *
+ * @param family      ISO 20022, SNM or unknown
+ * @param messageType Routing type such as {@code PACS.008} or {@code SNM.SIGNON};
+ *                    null when unknown
+ * @param version     Variant and version such as {@code 001.13}; null if not stated
+ * @param messageId   Business message id (BAH {@code BizMsgIdr}, else the group header
+ *                    message id), or null if not within the sniffed bytes
+ * @param sender      BIC of the sending agent (BAH {@code Fr}, else the instructing or
+ *                    assigning agent), or null if not within the sniffed bytes
+ */
+public record MessageClassification(Family family, String messageType, String version, String messageId,
+                                    String sender) {
+
+    public static final MessageClassification UNKNOWN =
+            new MessageClassification(Family.UNKNOWN, null, null, null, null);
+
+    public enum Family {
+        ISO20022,
+        SNM,
+        UNKNOWN
+    }
+
+    public boolean isKnown() {
+        return family != Family.UNKNOWN;
+    }
+
+    /**
+     * Key that keeps one sender's messages in order on one partition: the sender, or
+     * the message id when the sender is not known; null if neither is
+     */
+    public String partitionKey() {
+        return sender != null ? sender : messageId;
+    }
+}
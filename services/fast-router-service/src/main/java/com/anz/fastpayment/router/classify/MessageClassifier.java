@@ -0,0 +1,494 @@
+package com.anz.fastpayment.router.classify;
+
+import com.anz.fastpayment.router.transform.MappingPlan;
+import com.anz.fastpayment.router.transform.TransformationConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Message Classifier
+ *
+ * Classifies an inbound message for routing from its leading bytes alone: message
+ * type and version, business message id and sender, which gives the partition key.
+ * The full parse is left to whoever consumes the message.
+ *
+ * ISO 20022 messages are read from the business application header when there is
+ * one ({@code MsgDefIdr}, {@code BizMsgIdr} and the {@code Fr} BIC), and scanning
+ * stops at its end tag. Otherwise the type comes from the {@code Document}
+ * namespace, or its message element when there is no namespace, and the id and
+ * sender from the group header (the assignment for camt.056). SNM messages are
+ * recognised by an {@code SNM} root or message element, or a non-XML payload
+ * starting with {@code SNM}, in any case.
+ *
+ * The bytes are scanned in place, tag by tag, as ASCII-compatible text. Only the
+ * values picked out become strings, and at most {@code app.router.sniff-bytes} of the
+ * payload are looked at. A message that cannot be classified from those bytes is
+ * {@link MessageClassification#UNKNOWN} and needs a full parse. Thread-safe.
+ */
+@Component
+public class MessageClassifier {
+
+    private static final String ISO_NAMESPACE_PREFIX = "urn:iso:std:iso:20022:tech:xsd:";
+    private static final String SNM = "SNM";
+
+    private static final byte[] APP_HDR = ascii("AppHdr");
+    private static final byte[] MSG_DEF_IDR = ascii("MsgDefIdr");
+    private static final byte[] BIZ_MSG_IDR = ascii("BizMsgIdr");
+    private static final byte[] FR = ascii("Fr");
+    private static final byte[] BICFI = ascii("BICFI");
+    private static final byte[] DOCUMENT = ascii("Document");
+    private static final byte[] GRP_HDR = ascii("GrpHdr");
+    private static final byte[] ASSGNMT = ascii("Assgnmt");
+    private static final byte[] MSG_ID = ascii("MsgId");
+    private static final byte[] ID = ascii("Id");
+    private static final byte[] INSTG_AGT = ascii("InstgAgt");
+    private static final byte[] ASSGNR = ascii("Assgnr");
+    private static final byte[] SNM_BYTES = ascii(SNM);
+    private static final byte[] XMLNS = ascii("xmlns");
+
+    private final TransformationConfig transformationConfig;
+    private final int sniffBytes;
+
+    public MessageClassifier(TransformationConfig transformationConfig,
+                             @Value("${app.router.sniff-bytes}") int sniffBytes) {
+        this.transformationConfig = transformationConfig;
+        this.sniffBytes = sniffBytes;
+    }
+
+    public MessageClassification classify(byte[] payload) {
+        return classify(payload, 0, payload.length);
+    }
+
+    public MessageClassification classify(byte[] payload, int offset, int length) {
+        int end = offset + Math.min(length, sniffBytes);
+        int i = offset;
+        // UTF-8 byte order mark
+        if (end - i >= 3 && payload[i] == (byte) 0xEF && payload[i + 1] == (byte) 0xBB
+                && payload[i + 2] == (byte) 0xBF) {
+            i += 3;
+        }
+        while (i < end && isSpace(payload[i])) {
+            i++;
+        }
+        if (i >= end) {
+            return MessageClassification.UNKNOWN;
+        }
+        if (payload[i] != '<') {
+            return classifyText(payload, i, end);
+        }
+        Scan scan = new Scan(payload);
+        scan.run(i, end);
+        return scan.result();
+    }
+
+    /**
+     * A non-XML payload: only an SNM marker such as {@code SNM.SIGNON|...} is recognised
+     */
+    private static MessageClassification classifyText(byte[] payload, int start, int end) {
+        if (end - start < SNM_BYTES.length || !regionEqualsIgnoreCase(payload, start, SNM_BYTES)) {
+            return MessageClassification.UNKNOWN;
+        }
+        int tokenEnd = start;
+        while (tokenEnd < end && isTokenByte(payload[tokenEnd])) {
+            tokenEnd++;
+        }
+        String name = new String(payload, start, tokenEnd - start, StandardCharsets.US_ASCII);
+        return new MessageClassification(MessageClassification.Family.SNM, snmType(name), null, null, null);
+    }
+
+    /**
+     * {@code SNMSignOn}, {@code SNM.SIGNON} and {@code snm.signon} all route as {@code SNM.SIGNON}
+     */
+    private static String snmType(String name) {
+        int start = SNM.length();
+        while (start < name.length() && ".:_- ".indexOf(name.charAt(start)) >= 0) {
+            start++;
+        }
+        return start < name.length() ? SNM + "." + name.substring(start).toUpperCase(Locale.ROOT) : SNM;
+    }
+
+    /**
+     * The routing classification of an ISO 20022 definition such as {@code pacs.008.001.13}
+     */
+    private static MessageClassification iso(String definition, String messageId, String sender) {
+        int first = definition.indexOf('.');
+        int second = first < 0 ? -1 : definition.indexOf('.', first + 1);
+        String type = (second < 0 ? definition : definition.substring(0, second)).toUpperCase(Locale.ROOT);
+        String version = second < 0 || second + 1 == definition.length() ? null : definition.substring(second + 1);
+        return new MessageClassification(MessageClassification.Family.ISO20022, type, version, messageId, sender);
+    }
+
+    /**
+     * One pass over the tags of a payload, remembering where it is in the header it is
+     * reading and capturing the text of the few elements it wants
+     */
+    private final class Scan {
+
+        private static final int NONE = 0;
+        private static final int DEFINITION = 1;
+        private static final int BAH_MESSAGE_ID = 2;
+        private static final int BAH_SENDER = 3;
+        private static final int MESSAGE_ID = 4;
+        private static final int SENDER = 5;
+
+        private final byte[] buf;
+        private int depth;
+        private boolean done;
+        private int capture = NONE;
+
+        // Depth of each element of interest while it is open, otherwise -1
+        private int appHdrDepth = -1;
+        private int fromDepth = -1;
+        private int documentDepth = -1;
+        private int messageDepth = -1;
+        private int headerDepth = -1;
+        private int agentDepth = -1;
+
+        private String definition;
+        private String bahMessageId;
+        private String bahSender;
+        private String namespace;
+        private String messageElement;
+        private String messageId;
+        private String sender;
+        private String snmElement;
+
+        private Scan(byte[] buf) {
+            this.buf = buf;
+        }
+
+        private void run(int start, int end) {
+            int i = start;
+            while (i < end && !done) {
+                if (buf[i] != '<') {
+                    int next = indexOf(buf, (byte) '<', i, end);
+                    if (next < 0) {
+                        // Text cut off by the end of the window
+                        return;
+                    }
+                    if (capture != NONE) {
+                        captured(i, next);
+                    }
+                    i = next;
+                    continue;
+                }
+                if (i + 1 >= end) {
+                    return;
+                }
+                byte next = buf[i + 1];
+                if (next == '?') {
+                    i = skipPast(buf, i + 2, end, "?>");
+                    continue;
+                }
+                if (next == '!') {
+                    i = startsWith(buf, i, end, "<!--") ? skipPast(buf, i + 4, end, "-->")
+                            : startsWith(buf, i, end, "<![CDATA[") ? skipPast(buf, i + 9, end, "]]>")
+                            : skipPast(buf, i + 2, end, ">");
+                    continue;
+                }
+                capture = NONE;
+                if (next == '/') {
+                    int close = indexOf(buf, (byte) '>', i, end);
+                    if (close < 0) {
+                        return;
+                    }
+                    depth--;
+                    endElement(depth);
+                    i = close + 1;
+                    continue;
+                }
+                int close = tagEnd(i + 1, end);
+                if (close < 0) {
+                    return;
+                }
+                boolean empty = buf[close - 1] == '/';
+                startElement(i + 1, empty ? close - 1 : close);
+                if (empty) {
+                    endElement(depth);
+                } else {
+                    depth++;
+                }
+                i = close + 1;
+            }
+        }
+
+        private void startElement(int nameStart, int tagLimit) {
+            int nameEnd = nameStart;
+            int local = nameStart;
+            while (nameEnd < tagLimit && !isSpace(buf[nameEnd])) {
+                if (buf[nameEnd] == ':') {
+                    local = nameEnd + 1;
+                }
+                nameEnd++;
+            }
+            int d = depth;
+            if (d == 0 && startsWithName(local, nameEnd, SNM_BYTES)) {
+                snmElement = string(local, nameEnd);
+                done = true;
+                return;
+            }
+
+            if (appHdrDepth >= 0) {
+                if (d == appHdrDepth + 1) {
+                    if (is(local, nameEnd, MSG_DEF_IDR)) {
+                        capture = DEFINITION;
+                    } else if (is(local, nameEnd, BIZ_MSG_IDR)) {
+                        capture = BAH_MESSAGE_ID;
+                    } else if (is(local, nameEnd, FR)) {
+                        fromDepth = d;
+                    }
+                } else if (fromDepth >= 0 && bahSender == null && is(local, nameEnd, BICFI)) {
+                    capture = BAH_SENDER;
+                }
+                return;
+            }
+            if (documentDepth < 0) {
+                if (is(local, nameEnd, APP_HDR)) {
+                    appHdrDepth = d;
+                } else if (is(local, nameEnd, DOCUMENT)) {
+                    documentDepth = d;
+                    namespace = namespaceOf(nameStart, local, nameEnd, tagLimit);
+                }
+                return;
+            }
+            if (messageDepth < 0) {
+                if (d == documentDepth + 1) {
+                    messageDepth = d;
+                    messageElement = string(local, nameEnd);
+                    if (startsWithName(local, nameEnd, SNM_BYTES)) {
+                        snmElement = messageElement;
+                        done = true;
+                    }
+                }
+                return;
+            }
+            if (d == messageDepth + 1) {
+                if (headerDepth < 0 && (is(local, nameEnd, GRP_HDR) || is(local, nameEnd, ASSGNMT))) {
+                    headerDepth = d;
+                } else {
+                    // Past the header: nothing more to learn
+                    done = true;
+                }
+                return;
+            }
+            if (headerDepth < 0) {
+                return;
+            }
+            if (d == headerDepth + 1) {
+                if (messageId == null && (is(local, nameEnd, MSG_ID) || is(local, nameEnd, ID))) {
+                    capture = MESSAGE_ID;
+                } else if (is(local, nameEnd, INSTG_AGT) || is(local, nameEnd, ASSGNR)) {
+                    agentDepth = d;
+                }
+            } else if (agentDepth >= 0 && sender == null && is(local, nameEnd, BICFI)) {
+                capture = SENDER;
+            }
+        }
+
+        private void endElement(int d) {
+            if (d == fromDepth) {
+                fromDepth = -1;
+            } else if (d == agentDepth) {
+                agentDepth = -1;
+            } else if (d == appHdrDepth) {
+                appHdrDepth = -1;
+                // The header says all that is needed
+                done = definition != null;
+            } else if (d == headerDepth || d == messageDepth || d == documentDepth) {
+                done = true;
+            }
+        }
+
+        private void captured(int start, int end) {
+            while (start < end && isSpace(buf[start])) {
+                start++;
+            }
+            while (end > start && isSpace(buf[end - 1])) {
+                end--;
+            }
+            if (start == end) {
+                return;
+            }
+            String value = string(start, end);
+            switch (capture) {
+                case DEFINITION -> definition = value;
+                case BAH_MESSAGE_ID -> bahMessageId = value;
+                case BAH_SENDER -> bahSender = value;
+                case MESSAGE_ID -> messageId = value;
+                case SENDER -> sender = value;
+                default -> {
+                }
+            }
+            capture = NONE;
+        }
+
+        private MessageClassification result() {
+            String id = bahMessageId != null ? bahMessageId : messageId;
+            String from = bahSender != null ? bahSender : sender;
+            String def = definition;
+            if (def == null && namespace != null && namespace.startsWith(ISO_NAMESPACE_PREFIX)) {
+                def = namespace.substring(ISO_NAMESPACE_PREFIX.length());
+            }
+            if (def == null && messageElement != null && snmElement == null) {
+                MappingPlan plan = transformationConfig.forMessageElement(messageElement);
+                def = plan != null ? plan.definition() : null;
+            }
+            if (def != null && !def.regionMatches(true, 0, SNM, 0, SNM.length())) {
+                return iso(def, id, from);
+            }
+            String snm = def != null ? def : snmElement;
+            if (snm != null) {
+                return new MessageClassification(MessageClassification.Family.SNM, snmType(snm), null, id, from);
+            }
+            return MessageClassification.UNKNOWN;
+        }
+
+        /**
+         * The namespace a start tag declares for its own prefix, or null
+         */
+        private String namespaceOf(int nameStart, int local, int nameEnd, int tagLimit) {
+            int prefixLength = local > nameStart ? local - 1 - nameStart : 0;
+            int k = nameEnd;
+            while (k < tagLimit) {
+                while (k < tagLimit && isSpace(buf[k])) {
+                    k++;
+                }
+                int attribute = k;
+                while (k < tagLimit && buf[k] != '=' && !isSpace(buf[k])) {
+                    k++;
+                }
+                int attributeEnd = k;
+                while (k < tagLimit && isSpace(buf[k])) {
+                    k++;
+                }
+                if (k >= tagLimit || buf[k] != '=') {
+                    return null;
+                }
+                k++;
+                while (k < tagLimit && isSpace(buf[k])) {
+                    k++;
+                }
+                if (k >= tagLimit || (buf[k] != '"' && buf[k] != '\'')) {
+                    return null;
+                }
+                byte quote = buf[k];
+                int value = ++k;
+                while (k < tagLimit && buf[k] != quote) {
+                    k++;
+                }
+                int valueEnd = k++;
+                boolean declaresPrefix = prefixLength == 0
+                        ? is(attribute, attributeEnd, XMLNS)
+                        : attributeEnd - attribute == XMLNS.length + 1 + prefixLength
+                        && regionEquals(buf, attribute, attribute + XMLNS.length, XMLNS)
+                        && buf[attribute + XMLNS.length] == ':'
+                        && Arrays.equals(buf, attribute + XMLNS.length + 1, attributeEnd,
+                        buf, nameStart, nameStart + prefixLength);
+                if (declaresPrefix) {
+                    return string(value, valueEnd);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Index of the {@code >} closing the tag from {@code start}, skipping quoted values
+         */
+        private int tagEnd(int start, int end) {
+            byte quote = 0;
+            for (int k = start; k < end; k++) {
+                byte b = buf[k];
+                if (quote != 0) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        private boolean is(int start, int end, byte[] name) {
+            return end - start == name.length && regionEquals(buf, start, end, name);
+        }
+
+        private boolean startsWithName(int start, int end, byte[] prefix) {
+            return end - start >= prefix.length && regionEqualsIgnoreCase(buf, start, prefix);
+        }
+
+        private String string(int start, int end) {
+            return new String(buf, start, end - start, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static boolean regionEquals(byte[] buf, int start, int end, byte[] expected) {
+        return end - start == expected.length && Arrays.equals(buf, start, end, expected, 0, expected.length);
+    }
+
+    /**
+     * Whether the bytes from {@code start} spell {@code expected}, an upper-case ASCII word, in any case
+     */
+    private static boolean regionEqualsIgnoreCase(byte[] buf, int start, byte[] expected) {
+        for (int k = 0; k < expected.length; k++) {
+            // Clearing bit 5 upper-cases an ASCII letter and leaves no other byte equal to one
+            if ((buf[start + k] & ~0x20) != expected[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] buf, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int k = 0; k < prefix.length(); k++) {
+            if (buf[start + k] != prefix.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index just past the next {@code terminator} from {@code start}, or {@code end} if
+     * it is not within the window
+     */
+    private static int skipPast(byte[] buf, int start, int end, String terminator) {
+        for (int k = start; k <= end - terminator.length(); k++) {
+            if (startsWith(buf, k, end, terminator)) {
+                return k + terminator.length();
+            }
+        }
+        return end;
+    }
+
+    private static int indexOf(byte[] buf, byte b, int start, int end) {
+        for (int k = start; k < end; k++) {
+            if (buf[k] == b) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static boolean isTokenByte(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9')
+                || b == '.' || b == '_' || b == '-' || b == ':';
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,55 @@
+package com.anz.fastpayment.router.config;
+
+import com.anz.fastpayment.router.dedupe.DuplicateDetector;
+import com.anz.fastpayment.router.dedupe.TimeSlicedBloomFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Duplicate Detection Configuration
+ *
+ * Wires the duplicate detector over Redis, with its in-process filter sized for
+ * {@code duplicate-cache-ttl-minutes}, and subscribes it to the ids other router
+ * instances record; the detector reloads its filter whenever that subscription comes up
+ */
+@Configuration
+public class DuplicateDetectionConfig {
+
+    @Bean
+    public TimeSlicedBloomFilter duplicateFilter(
+            @Value("${app.router.duplicate-cache-ttl-minutes}") long ttlMinutes,
+            @Value("${app.router.duplicate-filter.slices}") int slices,
+            @Value("${app.router.duplicate-filter.expected-messages}") long expectedMessages,
+            @Value("${app.router.duplicate-filter.false-positive-rate}") double falsePositiveRate) {
+        return new TimeSlicedBloomFilter(Duration.ofMinutes(ttlMinutes), slices, expectedMessages,
+                falsePositiveRate);
+    }
+
+    @Bean
+    public DuplicateDetector duplicateDetector(
+            TimeSlicedBloomFilter duplicateFilter, StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+            @Value("${app.router.duplicate-cache-ttl-minutes}") long ttlMinutes,
+            @Value("${app.router.duplicate-filter.flush-interval-ms}") long flushIntervalMs,
+            @Value("${app.router.duplicate-filter.max-batch-size}") int maxBatchSize,
+            @Value("${app.router.duplicate-filter.max-pending}") int maxPending) {
+        return new DuplicateDetector(duplicateFilter, redisTemplate, Duration.ofMinutes(ttlMinutes),
+                flushIntervalMs, maxBatchSize, maxPending, meterRegistry);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer duplicateListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    DuplicateDetector duplicateDetector) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(duplicateDetector, new ChannelTopic(DuplicateDetector.CHANNEL));
+        return container;
+    }
+}
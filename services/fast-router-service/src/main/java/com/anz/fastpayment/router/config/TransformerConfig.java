@@ -0,0 +1,37 @@
+package com.anz.fastpayment.router.config;
+
+import com.anz.fastpayment.router.transform.StreamingMessageTransformer;
+import com.anz.fastpayment.router.transform.TransformationConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Transformer Configuration
+ *
+ * Loads transformation-config.json once at startup and wires the streaming ISO 20022
+ * to unified JSON transformer over it
+ */
+@Configuration
+public class TransformerConfig {
+
+    @Bean
+    public TransformationConfig transformationConfig(
+            @Value("${app.router.transformation-config}") Resource resource, ObjectMapper objectMapper)
+            throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return TransformationConfig.load(in, objectMapper);
+        }
+    }
+
+    @Bean
+    public StreamingMessageTransformer messageTransformer(TransformationConfig transformationConfig,
+                                                          ObjectMapper objectMapper) {
+        return new StreamingMessageTransformer(transformationConfig, objectMapper.getFactory());
+    }
+}
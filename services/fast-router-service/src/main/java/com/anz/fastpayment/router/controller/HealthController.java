@@ -1,6 +1,9 @@
 package com.anz.fastpayment.router.controller;
 
+import com.anz.fastpayment.common.health.DependencyHealthMonitor;
+import com.anz.fastpayment.common.health.ProbeResult;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,6 +15,8 @@ import java.util.Map;
 
 /**
  * Health check controller for Fast Router Service
+ * 
+ * Answers from the latest background probe of each dependency, never by calling one
  */
 @RestController
 @RequestMapping("/health")
@@ -23,20 +28,38 @@ public class HealthController {
     @Value("${app.version}")
     private String appVersion;
 
+    private final DependencyHealthMonitor dependencyHealthMonitor;
+
+    public HealthController(DependencyHealthMonitor dependencyHealthMonitor) {
+        this.dependencyHealthMonitor = dependencyHealthMonitor;
+    }
+
     @GetMapping
     public ResponseEntity<Map<String, Object>> health() {
+        Map<String, ProbeResult> probes = dependencyHealthMonitor.snapshot();
+
+        Map<String, String> components = new HashMap<>();
+        Map<String, String> errors = new HashMap<>();
+        int down = 0;
+        for (ProbeResult result : probes.values()) {
+            components.put(result.dependency(), result.status().name());
+            if (result.isDown()) {
+                errors.put(result.dependency(), result.error());
+                down++;
+            }
+        }
+        String status = down == 0 ? "UP" : down < probes.size() ? "DEGRADED" : "DOWN";
+
         Map<String, Object> health = new HashMap<>();
-        health.put("status", "UP");
+        health.put("status", status);
         health.put("service", appName);
         health.put("version", appVersion);
         health.put("timestamp", LocalDateTime.now());
-        
-        Map<String, String> components = new HashMap<>();
-        components.put("kafka", "UP");
-        components.put("redis", "UP");
-        components.put("spanner", "UP");
         health.put("components", components);
-        
-        return ResponseEntity.ok(health);
+        if (!errors.isEmpty()) {
+            health.put("errors", errors);
+        }
+
+        return ResponseEntity.status(down == 0 ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(health);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,413 @@
+package com.anz.fastpayment.router.dedupe;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Duplicate Detector
+ *
+ * Tells whether a message id was seen in the last {@code duplicate-cache-ttl-minutes},
+ * by this router instance or any other, without a Redis round trip for the messages
+ * that are new. Redis holds one key per id with the TTL and is the record all instances
+ * share. In front of it sits a {@link TimeSlicedBloomFilter} covering the same window:
+ * <ul>
+ *   <li>A filter miss means the id is new. It is added to the filter and queued, and a
+ *       single writer thread stores queued ids in Redis with pipelined
+ *       {@code SET NX EX} batches, every {@code flush-interval-ms} or sooner once
+ *       {@code max-batch-size} are waiting.</li>
+ *   <li>A filter hit may be a false positive, so it is never taken as a duplicate on its
+ *       own. Ids still queued are duplicates; anything else is settled with
+ *       {@code SET NX} in Redis.</li>
+ * </ul>
+ *
+ * Each batch written is also published on {@value #CHANNEL}, and every instance adds
+ * the ids published by the others to its own filter. Pub/sub delivers at most once and
+ * only while subscribed, so every time the subscription comes up (on startup and after
+ * the listener container reconnects) the filter is reloaded from the keys in Redis, and
+ * until that has finished every id is checked in Redis.
+ *
+ * What this guarantees across instances is therefore weaker than within one: a repeat
+ * is caught if it reaches the instance that saw the original, or another instance that
+ * has received the original's batch or loaded it from Redis. A repeat that reaches
+ * another instance before that (within a few milliseconds of the original, or while that
+ * instance's subscription is down and not yet reloaded) is let through. The writer
+ * notices when its {@code SET NX} finds the key already there and counts it as
+ * {@code router.duplicate.late}, so every such repeat is counted unless Redis itself was
+ * unreachable.
+ *
+ * When Redis cannot be reached, messages are let through rather than dropped, and
+ * queued ids are kept and retried. At most {@code max-pending} ids are queued; past that
+ * each new id is settled with a synchronous {@code SET NX} instead, and is neither queued
+ * nor published, so an outage cannot grow the queue without bound.
+ */
+public class DuplicateDetector implements MessageListener, SubscriptionListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateDetector.class);
+
+    public static final String KEY_PREFIX = "router:dedupe:";
+    public static final String CHANNEL = "router:dedupe:recorded";
+
+    private static final byte[] CHANNEL_BYTES = CHANNEL.getBytes(StandardCharsets.UTF_8);
+    private static final String RECORDED = "1";
+    private static final byte[] RECORDED_BYTES = RECORDED.getBytes(StandardCharsets.UTF_8);
+    private static final int SCAN_COUNT = 1000;
+    private static final long MAX_RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final TimeSlicedBloomFilter filter;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Expiration expiration;
+    private final long flushIntervalNanos;
+    private final int maxBatchSize;
+    private final int maxPending;
+    // Tags this instance's batches on the channel so it can skip its own
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Ids recorded here and not yet written: TRUE still to be stored in Redis, FALSE
+    // already stored there by a lookup and only to be published
+    private final ConcurrentHashMap<String, Boolean> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final Counter filterDuplicates;
+    private final Counter redisDuplicates;
+    private final Counter lateDuplicates;
+    private final Counter redisLookups;
+    private final Counter lookupFailures;
+    private final Counter writeFailures;
+
+    private final Thread writer;
+    private volatile boolean running;
+    private volatile boolean warm;
+    // Guarded by this: a loader thread is running, and a reload was asked for since it started its scan
+    private boolean loading;
+    private boolean reloadRequested;
+
+    public DuplicateDetector(TimeSlicedBloomFilter filter, StringRedisTemplate redisTemplate, Duration ttl,
+                             long flushIntervalMs, int maxBatchSize, int maxPending, MeterRegistry meterRegistry) {
+        if (flushIntervalMs < 1 || maxBatchSize < 1 || maxPending < maxBatchSize) {
+            throw new IllegalArgumentException("Duplicate filter flush interval and batch size must be positive, "
+                    + "and max pending at least one batch");
+        }
+        this.filter = filter;
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.expiration = Expiration.from(ttl);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.maxBatchSize = maxBatchSize;
+        this.maxPending = maxPending;
+
+        this.filterDuplicates = Counter.builder("router.duplicate.detected")
+                .description("Duplicate messages detected")
+                .tag("source", "local")
+                .register(meterRegistry);
+        this.redisDuplicates = Counter.builder("router.duplicate.detected")
+                .description("Duplicate messages detected")
+                .tag("source", "redis")
+                .register(meterRegistry);
+        this.lateDuplicates = Counter.builder("router.duplicate.late")
+                .description("Repeats let through because another instance recorded the id at the same time")
+                .register(meterRegistry);
+        this.redisLookups = Counter.builder("router.duplicate.redis.lookups")
+                .description("Message ids checked in Redis after a duplicate filter hit")
+                .register(meterRegistry);
+        this.lookupFailures = Counter.builder("router.duplicate.failures")
+                .description("Redis errors while checking or recording message ids")
+                .tag("operation", "lookup")
+                .register(meterRegistry);
+        this.writeFailures = Counter.builder("router.duplicate.failures")
+                .description("Redis errors while checking or recording message ids")
+                .tag("operation", "write")
+                .register(meterRegistry);
+        meterRegistry.gauge("router.duplicate.pending", this, DuplicateDetector::pending);
+
+        this.running = true;
+        this.writer = new Thread(this::run, "duplicate-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Duplicate filter covers {} min in {} slices of {} bits with {} hashes",
+                ttl.toMinutes(), filter.getSlices(), filter.getBitsPerSlice(), filter.getHashCount());
+    }
+
+    /**
+     * Check a message id and record it if it is new
+     *
+     * @param messageId Business message id; null is never a duplicate
+     * @return Whether the id was already recorded within the TTL. False when Redis could
+     *         not confirm it, so a message is never dropped on a guess
+     */
+    public boolean isDuplicate(String messageId) {
+        if (messageId == null) {
+            return false;
+        }
+        long hash = TimeSlicedBloomFilter.hash(messageId);
+        if (warm && !filter.mightContain(hash) && pendingCount.get() < maxPending) {
+            // Queued before it is added, so an id in the filter is always queued or in Redis
+            if (!record(messageId, Boolean.TRUE)) {
+                return true;
+            }
+            filter.add(hash);
+            return false;
+        }
+        if (pending.containsKey(messageId)) {
+            filterDuplicates.increment();
+            return true;
+        }
+        return confirm(messageId, hash);
+    }
+
+    /**
+     * Add the ids another instance has written to the filter
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int end = body.indexOf('\n');
+        if (end < 0 || body.startsWith(instanceId + '\n')) {
+            return;
+        }
+        while (end < body.length()) {
+            int start = end + 1;
+            end = body.indexOf('\n', start);
+            if (end < 0) {
+                end = body.length();
+            }
+            if (end > start) {
+                filter.add(TimeSlicedBloomFilter.hash(body.substring(start, end)));
+            }
+        }
+    }
+
+    /**
+     * Reload the filter from the ids in Redis, in the background, each time the channel
+     * subscription comes up: batches published while it was down were never received.
+     * Until the reload has finished every id is checked in Redis.
+     */
+    @Override
+    public synchronized void onChannelSubscribed(byte[] channel, long count) {
+        warm = false;
+        reloadRequested = true;
+        if (!loading) {
+            loading = true;
+            Thread loader = new Thread(this::load, "duplicate-filter-loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+    }
+
+    /**
+     * Batches published from now on are missed, so stop trusting filter misses
+     */
+    @Override
+    public synchronized void onChannelUnsubscribed(byte[] channel, long count) {
+        warm = false;
+    }
+
+    boolean isWarm() {
+        return warm;
+    }
+
+    int pending() {
+        return pendingCount.get();
+    }
+
+    private boolean confirm(String messageId, long hash) {
+        redisLookups.increment();
+        Boolean stored;
+        try {
+            stored = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + messageId, RECORDED, ttl);
+        } catch (RuntimeException e) {
+            lookupFailures.increment();
+            logger.warn("Could not check message {} for duplicates, letting it through: {}", messageId,
+                    e.getMessage());
+            return false;
+        }
+        if (Boolean.FALSE.equals(stored)) {
+            redisDuplicates.increment();
+            return true;
+        }
+        if (pendingCount.get() >= maxPending) {
+            // Stored, and too much is waiting to queue it for publishing as well
+            filter.add(hash);
+            return false;
+        }
+        if (!record(messageId, Boolean.FALSE)) {
+            // Recorded here in the meantime; the lookup has stored it, so only publish it
+            pending.replace(messageId, Boolean.TRUE, Boolean.FALSE);
+            return true;
+        }
+        filter.add(hash);
+        return false;
+    }
+
+    /**
+     * @return False if the id was already waiting to be written, which makes it a duplicate
+     */
+    private boolean record(String messageId, Boolean store) {
+        if (pending.putIfAbsent(messageId, store) != null) {
+            filterDuplicates.increment();
+            return false;
+        }
+        if (pendingCount.incrementAndGet() == maxBatchSize) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    private void load() {
+        long backoff = flushIntervalNanos;
+        while (running) {
+            synchronized (this) {
+                reloadRequested = false;
+            }
+            try {
+                long start = System.nanoTime();
+                long loaded = redisTemplate.execute((RedisCallback<Long>) this::scan);
+                logger.info("Loaded {} recorded message ids into the duplicate filter in {} ms", loaded,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                if (loaded()) {
+                    return;
+                }
+                // Resubscribed during the scan, which may not cover what was missed
+                continue;
+            } catch (RuntimeException e) {
+                logger.warn("Could not load the duplicate filter from Redis, checking every message there "
+                        + "until it loads: {}", e.getMessage());
+            }
+            LockSupport.parkNanos(backoff);
+            backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_NANOS);
+        }
+        synchronized (this) {
+            loading = false;
+        }
+    }
+
+    /**
+     * @return Whether the filter is now warm, false if another reload was asked for meanwhile
+     */
+    private synchronized boolean loaded() {
+        if (reloadRequested) {
+            return false;
+        }
+        warm = true;
+        loading = false;
+        return true;
+    }
+
+    private Long scan(RedisConnection connection) {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(SCAN_COUNT).build();
+        long loaded = 0L;
+        try (Cursor<byte[]> keys = connection.keyCommands().scan(options)) {
+            while (keys.hasNext()) {
+                String key = new String(keys.next(), StandardCharsets.UTF_8);
+                filter.add(TimeSlicedBloomFilter.hash(key.substring(KEY_PREFIX.length())));
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private void run() {
+        long backoff = 0L;
+        while (running) {
+            LockSupport.parkNanos(backoff > 0L ? backoff : flushIntervalNanos);
+            if (flush()) {
+                backoff = 0L;
+            } else {
+                backoff = backoff == 0L ? flushIntervalNanos : Math.min(backoff * 2, MAX_RETRY_BACKOFF_NANOS);
+            }
+        }
+        if (!flush()) {
+            logger.warn("{} message ids were not written to Redis before shutdown", pending());
+        }
+    }
+
+    /**
+     * Write every id waiting, in pipelined batches
+     *
+     * @return Whether everything taken has been written
+     */
+    private boolean flush() {
+        if (pending.isEmpty()) {
+            return true;
+        }
+        List<String> batch = new ArrayList<>(maxBatchSize);
+        for (String messageId : pending.keySet()) {
+            batch.add(messageId);
+            if (batch.size() == maxBatchSize && !write(batch)) {
+                return false;
+            }
+        }
+        return batch.isEmpty() || write(batch);
+    }
+
+    private boolean write(List<String> batch) {
+        List<String> stored = new ArrayList<>(batch.size());
+        StringBuilder published = new StringBuilder(instanceId);
+        for (String messageId : batch) {
+            if (Boolean.TRUE.equals(pending.get(messageId))) {
+                stored.add(messageId);
+            }
+            published.append('\n').append(messageId);
+        }
+        byte[] message = published.toString().getBytes(StandardCharsets.UTF_8);
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                RedisStringCommands strings = connection.stringCommands();
+                for (String messageId : stored) {
+                    strings.set((KEY_PREFIX + messageId).getBytes(StandardCharsets.UTF_8), RECORDED_BYTES,
+                            expiration, RedisStringCommands.SetOption.ifAbsent());
+                }
+                connection.publish(CHANNEL_BYTES, message);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            writeFailures.increment();
+            logger.warn("Failed to write {} message ids to Redis, {} waiting: {}", batch.size(), pending(),
+                    e.getMessage());
+            return false;
+        }
+        for (int i = 0; i < stored.size(); i++) {
+            if (Boolean.FALSE.equals(results.get(i))) {
+                lateDuplicates.increment();
+                logger.warn("Message {} was recorded by another instance at the same time and let through",
+                        stored.get(i));
+            }
+        }
+        for (String messageId : batch) {
+            pending.remove(messageId);
+        }
+        pendingCount.addAndGet(-batch.size());
+        batch.clear();
+        return true;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
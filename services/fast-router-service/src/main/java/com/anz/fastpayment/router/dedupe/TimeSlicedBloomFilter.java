@@ -0,0 +1,188 @@
+package com.anz.fastpayment.router.dedupe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-Sliced Bloom Filter
+ *
+ * Remembers keys for at least a window, in a ring of Bloom filters that each take the
+ * keys added during one slice of it. With {@code slices} slices covering the window,
+ * the ring holds two more: the one being filled and the next one, which is cleared
+ * ahead of time when the previous slice ends. Moving to a new slice therefore never
+ * clears bits that writers or readers may still be using, and a key stays visible for
+ * between the window and the window plus one slice.
+ *
+ * There are no false negatives within the window. The false-positive rate is the
+ * configured rate while each slice holds no more than its share of the expected keys.
+ * Bits are set atomically, so any number of threads may add and test concurrently.
+ */
+public final class TimeSlicedBloomFilter {
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[][] ring;
+    private final int ringSize;
+    private final int liveSlices;
+    private final long sliceNanos;
+    private final long mask;
+    private final int hashCount;
+    private final LongSupplier nanoClock;
+    private final long origin;
+
+    // Slice being filled; only advanced under the monitor, after the next slice is cleared
+    private volatile long epoch;
+
+    /**
+     * @param window            How long keys must be remembered
+     * @param slices            Slices the window is divided into
+     * @param expectedKeys      Keys expected to be added over one window
+     * @param falsePositiveRate Target rate of {@link #mightContain} answering true for a
+     *                          key never added, over all slices together
+     */
+    public TimeSlicedBloomFilter(Duration window, int slices, long expectedKeys, double falsePositiveRate) {
+        this(window, slices, expectedKeys, falsePositiveRate, System::nanoTime);
+    }
+
+    TimeSlicedBloomFilter(Duration window, int slices, long expectedKeys, double falsePositiveRate,
+                          LongSupplier nanoClock) {
+        if (window.isNegative() || window.isZero() || slices < 1 || expectedKeys < 1) {
+            throw new IllegalArgumentException("Window, slices and expected keys must be positive");
+        }
+        if (!(falsePositiveRate > 0.0 && falsePositiveRate < 1.0)) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        this.sliceNanos = Math.max(1L, window.toNanos() / slices);
+        this.liveSlices = slices + 1;
+        this.ringSize = slices + 2;
+
+        // A lookup tests every live slice, so each gets an equal share of the rate
+        double sliceRate = falsePositiveRate / liveSlices;
+        long sliceKeys = Math.max(1L, (expectedKeys + slices - 1) / slices);
+        double ln2 = Math.log(2.0);
+        long bits = (long) Math.ceil(-sliceKeys * Math.log(sliceRate) / (ln2 * ln2));
+        long words = Long.highestOneBit(Math.max(64L, bits) - 1L) << 1 >>> 6;
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filter slice of " + bits + " bits is too large");
+        }
+        this.mask = (words << 6) - 1L;
+        this.hashCount = Math.max(1, (int) Math.round(-Math.log(sliceRate) / ln2));
+
+        this.ring = new long[ringSize][];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new long[(int) words];
+        }
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    /**
+     * 64-bit hash of a key, to be passed to {@link #add} and {@link #mightContain}
+     */
+    public static long hash(CharSequence key) {
+        // FNV-1a over the UTF-16 code units, then the MurmurHash3 finalizer
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = key.length(); i < n; i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    public void add(long hash) {
+        long[] bits = ring[slot(currentEpoch())];
+        long h2 = mix(hash) | 1L;
+        long index = hash;
+        for (int i = 0; i < hashCount; i++, index += h2) {
+            long bit = index & mask;
+            long word = 1L << bit;
+            if (((long) BITS.getVolatile(bits, (int) (bit >>> 6)) & word) == 0L) {
+                BITS.getAndBitwiseOr(bits, (int) (bit >>> 6), word);
+            }
+        }
+    }
+
+    /**
+     * @return False if the key was certainly not added within the window; true if it
+     *         probably was
+     */
+    public boolean mightContain(long hash) {
+        long current = currentEpoch();
+        long h2 = mix(hash) | 1L;
+        long oldest = Math.max(0L, current - liveSlices + 1);
+        // Newest first: a repeat is most likely to be recent
+        for (long e = current; e >= oldest; e--) {
+            if (contains(ring[slot(e)], hash, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getSlices() {
+        return liveSlices - 1;
+    }
+
+    public long getBitsPerSlice() {
+        return mask + 1L;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private boolean contains(long[] bits, long hash, long h2) {
+        long index = hash;
+        for (int i = 0; i < hashCount; i++, index += h2) {
+            long bit = index & mask;
+            if (((long) BITS.getVolatile(bits, (int) (bit >>> 6)) & (1L << bit)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long currentEpoch() {
+        long now = (nanoClock.getAsLong() - origin) / sliceNanos;
+        long current = epoch;
+        if (now > current) {
+            advance(now);
+            current = epoch;
+        }
+        return current;
+    }
+
+    private synchronized void advance(long to) {
+        long from = epoch;
+        if (to <= from) {
+            return;
+        }
+        // Clear the slices from the one after the next slice up to the one after the
+        // new slice. The one about to be filled was cleared when the previous slice
+        // ended, unless the filter sat idle for longer than a slice. The slice still
+        // being filled is left alone even then: any stale bits only add false positives.
+        int keep = slot(from);
+        for (long e = Math.max(from + 2, to + 2 - ringSize); e <= to + 1; e++) {
+            int slot = slot(e);
+            if (slot != keep) {
+                Arrays.fill(ring[slot], 0L);
+            }
+        }
+        epoch = to;
+    }
+
+    private int slot(long epoch) {
+        return (int) (epoch % ringSize);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb34fe63a9ec5L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
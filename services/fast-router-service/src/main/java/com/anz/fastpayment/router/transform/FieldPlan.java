@@ -0,0 +1,71 @@
+package com.anz.fastpayment.router.transform;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Field Plan
+ *
+ * One compiled unified field: the element (or attribute) it is read from, its name
+ * pre-encoded for the JSON generator, and either the value type it is written as or
+ * the plan of the object it opens. Immutable.
+ */
+public final class FieldPlan {
+
+    private final SerializedString name;
+    private final String source;
+    private final boolean array;
+    private final ValueType type;
+    private final ObjectPlan object;
+    private final boolean transactions;
+
+    FieldPlan(String name, String source, boolean array, ValueType type, ObjectPlan object, boolean transactions) {
+        this.name = new SerializedString(name);
+        // Interned so that lookups mostly succeed on identity against the parser's names
+        this.source = source.intern();
+        this.array = array;
+        this.type = type;
+        this.object = object;
+        this.transactions = transactions;
+    }
+
+    public SerializableString name() {
+        return name;
+    }
+
+    /**
+     * Local name of the element, or of the attribute for an attribute field
+     */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * Whether every repetition of the element is collected into a JSON array
+     */
+    public boolean isArray() {
+        return array;
+    }
+
+    /**
+     * Type the element's text is written as; null for an object field
+     */
+    public ValueType type() {
+        return type;
+    }
+
+    /**
+     * Plan of the object the element opens; null for a value field. Shared by every
+     * field that uses the same named transform.
+     */
+    public ObjectPlan object() {
+        return object;
+    }
+
+    /**
+     * Whether each entry counts as a transaction of the message
+     */
+    public boolean countsTransactions() {
+        return transactions;
+    }
+}
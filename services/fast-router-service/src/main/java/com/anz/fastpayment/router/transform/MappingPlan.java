@@ -0,0 +1,15 @@
+package com.anz.fastpayment.router.transform;
+
+/**
+ * Mapping Plan
+ *
+ * The compiled mapping rules of one ISO 20022 message definition from
+ * transformation-config.json
+ *
+ * @param definition     Message definition and version, e.g. {@code pacs.008.001.13}
+ * @param unifiedType    Unified message type it maps to, e.g. {@code PACS_008}
+ * @param messageElement Local name of the message element under {@code Document}
+ * @param root           Plan of the unified message object, opened by the message element
+ */
+public record MappingPlan(String definition, String unifiedType, String messageElement, ObjectPlan root) {
+}
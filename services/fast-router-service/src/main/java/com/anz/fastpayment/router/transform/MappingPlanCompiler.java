@@ -0,0 +1,246 @@
+package com.anz.fastpayment.router.transform;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mapping Plan Compiler
+ *
+ * Compiles transformation-config.json into a {@link MappingPlan} per message
+ * definition. Every rule is resolved here, once: named transforms to a single shared
+ * {@link ObjectPlan} each (so recursive templates are fine), data types to a
+ * {@link ValueType}, and field names to pre-encoded JSON strings. Transforming a
+ * message then only walks the plans.
+ *
+ * The whole config is checked, including templates no message uses, and the first
+ * problem found fails with an {@link IllegalArgumentException} naming its path:
+ * unknown transforms, data type conversions or rule keys, rules with no source, two
+ * fields mapping the same element, or {@code _text} alongside mapped child elements.
+ */
+final class MappingPlanCompiler {
+
+    private static final String TRANSACTIONS_FIELD = "transactionInformation";
+    private static final String DOCUMENT_ROOT = "documentRoot";
+    private static final String TEXT = "_text";
+    private static final char ATTRIBUTE = '@';
+    private static final Set<String> RULE_KEYS = Set.of("source", "fields", "transform", "array", "fixed");
+    private static final Set<String> TEMPLATE_KEYS = Set.of("fields", "dataTypes");
+
+    private final JsonNode templates;
+    private final Map<String, ValueType> conversions = new HashMap<>();
+    private final Map<String, ObjectPlan> compiledTemplates = new HashMap<>();
+
+    MappingPlanCompiler(JsonNode config) {
+        this.templates = config.path("transformationTemplates");
+        Iterator<Map.Entry<String, JsonNode>> entries = config.path("dataTypeConversions").fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> conversion = entries.next();
+            String jsonType = conversion.getValue().path("type").asText("");
+            try {
+                conversions.put(conversion.getKey(), ValueType.ofJsonType(jsonType));
+            } catch (IllegalArgumentException e) {
+                throw invalid("dataTypeConversions." + conversion.getKey(), "unsupported type '" + jsonType + "'");
+            }
+        }
+    }
+
+    List<MappingPlan> compile(JsonNode messageTypes) {
+        if (!messageTypes.isObject() || messageTypes.isEmpty()) {
+            throw invalid("messageTypes", "no message types defined");
+        }
+        List<MappingPlan> plans = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> types = messageTypes.fields();
+        while (types.hasNext()) {
+            Map.Entry<String, JsonNode> type = types.next();
+            plans.add(compileMessage(type.getKey(), type.getValue()));
+        }
+        // Templates no message uses yet must still be valid
+        Iterator<String> names = templates.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            template(name, "transformationTemplates." + name);
+        }
+        return plans;
+    }
+
+    private MappingPlan compileMessage(String definition, JsonNode type) {
+        String path = "messageTypes." + definition;
+        String unifiedType = type.path("unifiedType").asText("");
+        if (unifiedType.isEmpty()) {
+            throw invalid(path, "no unifiedType");
+        }
+        JsonNode rules = type.path("mappingRules");
+        String documentRoot = rules.path(DOCUMENT_ROOT).asText("");
+        String messageElement = documentRoot.substring(documentRoot.lastIndexOf('/') + 1);
+        if (messageElement.isEmpty()) {
+            throw invalid(path + ".mappingRules", "no documentRoot");
+        }
+        ObjectPlan root = new ObjectPlan(definition);
+        define(root, rules, null, path + ".mappingRules", true);
+        return new MappingPlan(definition, unifiedType, messageElement, root);
+    }
+
+    private void define(ObjectPlan plan, JsonNode fields, JsonNode dataTypes, String path, boolean messageRoot) {
+        if (fields == null || !fields.isObject()) {
+            throw invalid(path, "fields must be an object");
+        }
+        List<FieldPlan> children = new ArrayList<>();
+        List<FieldPlan> attributes = new ArrayList<>();
+        FieldPlan text = null;
+        List<String> fixedNames = new ArrayList<>();
+        List<String> fixedValues = new ArrayList<>();
+        Set<String> values = new HashSet<>();
+
+        Iterator<Map.Entry<String, JsonNode>> entries = fields.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            String name = entry.getKey();
+            JsonNode rule = entry.getValue();
+            String fieldPath = path + "." + name;
+            if (messageRoot && DOCUMENT_ROOT.equals(name)) {
+                continue;
+            }
+
+            if (rule.isTextual()) {
+                String source = rule.asText();
+                ValueType type = typeOf(dataTypes, name, fieldPath);
+                values.add(name);
+                if (TEXT.equals(source)) {
+                    if (text != null) {
+                        throw invalid(fieldPath, "_text is already mapped to " + text.name().getValue());
+                    }
+                    text = new FieldPlan(name, source, false, type, null, false);
+                } else if (!source.isEmpty() && source.charAt(0) == ATTRIBUTE && source.length() > 1) {
+                    attributes.add(new FieldPlan(name, source.substring(1), false, type, null, false));
+                } else if (!source.isEmpty() && source.charAt(0) != ATTRIBUTE) {
+                    children.add(new FieldPlan(name, source, false, type, null, false));
+                } else {
+                    throw invalid(fieldPath, "'" + source + "' is not an element or attribute name");
+                }
+                continue;
+            }
+            if (!rule.isObject()) {
+                throw invalid(fieldPath, "must be an element name or a rule object");
+            }
+
+            Iterator<String> keys = rule.fieldNames();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (!RULE_KEYS.contains(key)) {
+                    throw invalid(fieldPath, "unknown rule key '" + key + "'");
+                }
+            }
+            if (rule.has("fixed")) {
+                if (!rule.get("fixed").isValueNode() || rule.size() != 1) {
+                    throw invalid(fieldPath, "a fixed value must be a plain value on its own");
+                }
+                fixedNames.add(name);
+                fixedValues.add(rule.get("fixed").asText());
+                continue;
+            }
+            String source = rule.path("source").asText("");
+            if (source.isEmpty() || !rule.get("source").isTextual()) {
+                throw invalid(fieldPath, "no source element");
+            }
+            JsonNode array = rule.get("array");
+            if (array != null && !array.isBoolean()) {
+                throw invalid(fieldPath, "array must be true or false");
+            }
+            if (rule.has("fields") && rule.has("transform")) {
+                throw invalid(fieldPath, "has both fields and a transform");
+            }
+
+            ObjectPlan object = null;
+            if (rule.has("fields")) {
+                object = new ObjectPlan(fieldPath);
+                define(object, rule.get("fields"), null, fieldPath + ".fields", false);
+            } else if (rule.has("transform")) {
+                object = template(rule.get("transform").asText(""), fieldPath + ".transform");
+            }
+            ValueType type = null;
+            if (object == null) {
+                type = typeOf(dataTypes, name, fieldPath);
+                values.add(name);
+            }
+            children.add(new FieldPlan(name, source, array != null && array.booleanValue(), type, object,
+                    messageRoot && TRANSACTIONS_FIELD.equals(name)));
+        }
+
+        checkDistinct(children, path, "element");
+        checkDistinct(attributes, path, "attribute");
+        if (text != null && !children.isEmpty()) {
+            throw invalid(path, "maps _text alongside child elements");
+        }
+        if (dataTypes != null) {
+            Iterator<String> typed = dataTypes.fieldNames();
+            while (typed.hasNext()) {
+                String name = typed.next();
+                if (!values.contains(name)) {
+                    throw invalid(path, "dataTypes names " + name + ", which is not a value field");
+                }
+            }
+        }
+        plan.define(children, attributes, text, fixedNames, fixedValues);
+    }
+
+    /**
+     * The shared plan of a named transform, compiling it on first use. The plan is
+     * registered before its fields are compiled so that a template can refer to itself.
+     */
+    private ObjectPlan template(String name, String path) {
+        ObjectPlan plan = compiledTemplates.get(name);
+        if (plan != null) {
+            return plan;
+        }
+        JsonNode template = templates.get(name);
+        if (template == null || !template.isObject()) {
+            throw invalid(path, "unknown transform '" + name + "'");
+        }
+        Iterator<String> keys = template.fieldNames();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!TEMPLATE_KEYS.contains(key)) {
+                throw invalid("transformationTemplates." + name, "unknown template key '" + key + "'");
+            }
+        }
+        plan = new ObjectPlan(name);
+        compiledTemplates.put(name, plan);
+        define(plan, template.get("fields"), template.get("dataTypes"), "transformationTemplates." + name + ".fields",
+                false);
+        return plan;
+    }
+
+    private ValueType typeOf(JsonNode dataTypes, String name, String path) {
+        JsonNode conversion = dataTypes != null ? dataTypes.get(name) : null;
+        if (conversion == null) {
+            return ValueType.STRING;
+        }
+        ValueType type = conversions.get(conversion.asText());
+        if (type == null) {
+            throw invalid(path, "unknown data type '" + conversion.asText() + "'");
+        }
+        return type;
+    }
+
+    private static void checkDistinct(List<FieldPlan> fields, String path, String kind) {
+        Map<String, FieldPlan> bySource = new HashMap<>();
+        for (FieldPlan field : fields) {
+            FieldPlan other = bySource.putIfAbsent(field.source(), field);
+            if (other != null) {
+                throw invalid(path, other.name().getValue() + " and " + field.name().getValue()
+                        + " both map " + kind + " " + field.source());
+            }
+        }
+    }
+
+    private static IllegalArgumentException invalid(String path, String problem) {
+        return new IllegalArgumentException("Invalid transformation config at " + path + ": " + problem);
+    }
+}
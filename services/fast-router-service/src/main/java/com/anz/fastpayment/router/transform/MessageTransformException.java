@@ -0,0 +1,19 @@
+package com.anz.fastpayment.router.transform;
+
+/**
+ * Message Transform Exception
+ *
+ * An inbound message that could not be transformed into the unified format: not well
+ * formed, not a supported ISO 20022 message, or carrying a value its mapping cannot
+ * convert. Whatever was written to the output before the failure must be discarded.
+ */
+public class MessageTransformException extends RuntimeException {
+
+    public MessageTransformException(String message) {
+        super(message);
+    }
+
+    public MessageTransformException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,100 @@
+package com.anz.fastpayment.router.transform;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.util.List;
+
+/**
+ * Object Plan
+ *
+ * How one unified JSON object is written from the element that opens it: the fields
+ * mapped from its child elements in an open-addressed table keyed by element name,
+ * the fields mapped from its attributes, the field (if any) taking its own text and
+ * the fixed values it always carries. A named transform compiles to one plan, shared
+ * by every field that uses it.
+ *
+ * A plan is defined once by {@link MappingPlanCompiler} before the config holding it
+ * is published, and is immutable from then on.
+ */
+public final class ObjectPlan {
+
+    private static final FieldPlan[] NO_FIELDS = new FieldPlan[0];
+
+    private final String description;
+    private FieldPlan[] children = NO_FIELDS;
+    private int mask;
+    private FieldPlan[] attributes = NO_FIELDS;
+    private FieldPlan text;
+    private SerializableString[] fixedNames = new SerializableString[0];
+    private String[] fixedValues = new String[0];
+
+    ObjectPlan(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Define the plan; a plan may refer to itself through its children, so it is
+     * created first and defined once they are compiled
+     */
+    void define(List<FieldPlan> childFields, List<FieldPlan> attributeFields, FieldPlan textField,
+                List<String> fixedFieldNames, List<String> fixedFieldValues) {
+        // At most half full, so probes stay short
+        int capacity = Integer.highestOneBit(Math.max(1, childFields.size()) * 2 - 1) << 1;
+        FieldPlan[] table = new FieldPlan[capacity];
+        for (FieldPlan field : childFields) {
+            int slot = field.source().hashCode() & (capacity - 1);
+            while (table[slot] != null) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table[slot] = field;
+        }
+        this.children = table;
+        this.mask = capacity - 1;
+        this.attributes = attributeFields.toArray(NO_FIELDS);
+        this.text = textField;
+        this.fixedNames = new SerializableString[fixedFieldNames.size()];
+        for (int i = 0; i < fixedNames.length; i++) {
+            fixedNames[i] = new SerializedString(fixedFieldNames.get(i));
+        }
+        this.fixedValues = fixedFieldValues.toArray(new String[0]);
+    }
+
+    /**
+     * The field mapping the child element {@code localName}, or null if it is not mapped
+     */
+    public FieldPlan field(String localName) {
+        FieldPlan[] table = children;
+        for (int slot = localName.hashCode() & mask; ; slot = (slot + 1) & mask) {
+            FieldPlan field = table[slot];
+            if (field == null || field.source() == localName || field.source().equals(localName)) {
+                return field;
+            }
+        }
+    }
+
+    FieldPlan[] attributes() {
+        return attributes;
+    }
+
+    /**
+     * The field taking the element's own text; only set when no child is mapped, so the
+     * element is read whole as soon as its attributes are written
+     */
+    public FieldPlan text() {
+        return text;
+    }
+
+    SerializableString[] fixedNames() {
+        return fixedNames;
+    }
+
+    String[] fixedValues() {
+        return fixedValues;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,278 @@
+package com.anz.fastpayment.router.transform;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Streaming Message Transformer
+ *
+ * Transforms an inbound ISO 20022 message into the unified JSON format in a single
+ * StAX pass, following the {@link MappingPlan} compiled for its message definition
+ * from transformation-config.json. Each mapped element is written to the JSON output
+ * as soon as it is read and unmapped elements are skipped unread, so no tree of the
+ * document is ever built: memory is bounded by the nesting depth of the message, not
+ * its size, and a pacs.008 batch of any number of transactions transforms in time
+ * linear in its length. Per element the work is one probe of the current object's
+ * field table; field names are written pre-encoded.
+ *
+ * Output follows document order; the XSD sequences keep repetitions of an element
+ * together, so each array is written in one piece. A repeated element mapped to a
+ * single value keeps its first occurrence.
+ *
+ * The message is located by the {@code Document} element, so a business application
+ * header ahead of it is skipped, and identified by the Document namespace or,
+ * failing that, by its message element. Thread-safe.
+ */
+public class StreamingMessageTransformer {
+
+    private static final String DOCUMENT = "Document";
+    private static final int INITIAL_DEPTH = 16;
+
+    private final TransformationConfig config;
+    private final XMLInputFactory xmlInputFactory;
+    private final JsonFactory jsonFactory;
+
+    public StreamingMessageTransformer(TransformationConfig config, JsonFactory jsonFactory) {
+        this.config = config;
+        this.jsonFactory = jsonFactory;
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        // Inbound messages are untrusted: no DTDs and no external entities
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    }
+
+    /**
+     * Transform the XML message read from {@code xml} into unified JSON written to
+     * {@code json}. Neither stream is closed.
+     *
+     * @throws MessageTransformException if the message cannot be transformed; the
+     *                                   output written so far is then incomplete
+     */
+    public TransformResult transform(InputStream xml, OutputStream json) {
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlInputFactory.createXMLStreamReader(xml);
+            MappingPlan plan = enterMessage(reader);
+            try (JsonGenerator generator = jsonFactory.createGenerator(json, JsonEncoding.UTF8)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                int transactions = writeMessage(reader, generator, plan.root());
+                return new TransformResult(plan.definition(), plan.unifiedType(), transactions);
+            }
+        } catch (XMLStreamException e) {
+            throw new MessageTransformException("Malformed XML message: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new MessageTransformException("Failed to write unified message: " + e.getMessage(), e);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Advance to the message element under {@code Document} and find its plan
+     */
+    private MappingPlan enterMessage(XMLStreamReader reader) throws XMLStreamException {
+        while (!isStart(reader, DOCUMENT)) {
+            if (!reader.hasNext()) {
+                throw new MessageTransformException("No ISO 20022 Document element in message");
+            }
+            reader.next();
+        }
+        MappingPlan plan = config.forNamespace(reader.getNamespaceURI());
+        reader.nextTag();
+        String messageElement = reader.getLocalName();
+        if (plan == null) {
+            plan = config.forMessageElement(messageElement);
+        }
+        if (plan == null) {
+            throw new MessageTransformException("Unsupported message " + messageElement
+                    + " in namespace " + reader.getNamespaceURI());
+        }
+        if (!plan.messageElement().equals(messageElement)) {
+            throw new MessageTransformException("Expected " + plan.messageElement() + " for "
+                    + plan.definition() + " but found " + messageElement);
+        }
+        return plan;
+    }
+
+    private int writeMessage(XMLStreamReader reader, JsonGenerator json, ObjectPlan root)
+            throws XMLStreamException, IOException {
+        Frame[] frames = new Frame[INITIAL_DEPTH];
+        int depth = 0;
+        int transactions = 0;
+        frames[0] = new Frame();
+        frames[0].open(root);
+        json.writeStartObject();
+        writeFixed(json, root);
+
+        while (depth >= 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                closeArray(json, frames[depth]);
+                json.writeEndObject();
+                depth--;
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            Frame frame = frames[depth];
+            FieldPlan field = frame.plan.field(reader.getLocalName());
+            if (frame.array != null && frame.array != field) {
+                closeArray(json, frame);
+            }
+            if (field == null || !enterField(json, frame, field)) {
+                skipElement(reader);
+                continue;
+            }
+            ObjectPlan object = field.object();
+            if (object == null) {
+                writeValue(json, field, reader.getElementText());
+                continue;
+            }
+            if (field.countsTransactions() && depth == 0) {
+                transactions++;
+            }
+            json.writeStartObject();
+            writeFixed(json, object);
+            writeAttributes(reader, json, object);
+            FieldPlan text = object.text();
+            if (text != null) {
+                // Value element such as an amount: its text and attributes make the whole object
+                json.writeFieldName(text.name());
+                writeValue(json, text, reader.getElementText());
+                json.writeEndObject();
+                continue;
+            }
+            if (++depth == frames.length) {
+                frames = Arrays.copyOf(frames, depth * 2);
+            }
+            if (frames[depth] == null) {
+                frames[depth] = new Frame();
+            }
+            frames[depth].open(object);
+        }
+        return transactions;
+    }
+
+    /**
+     * Write the field name, or open its array, for an element about to be written;
+     * false if the element repeats a single-valued field and is to be skipped
+     */
+    private static boolean enterField(JsonGenerator json, Frame frame, FieldPlan field) throws IOException {
+        if (field.isArray()) {
+            if (frame.array == null) {
+                json.writeFieldName(field.name());
+                json.writeStartArray();
+                frame.array = field;
+            }
+            return true;
+        }
+        if (field == frame.last) {
+            return false;
+        }
+        frame.last = field;
+        json.writeFieldName(field.name());
+        return true;
+    }
+
+    private static void writeFixed(JsonGenerator json, ObjectPlan object) throws IOException {
+        SerializableString[] names = object.fixedNames();
+        String[] values = object.fixedValues();
+        for (int i = 0; i < names.length; i++) {
+            json.writeFieldName(names[i]);
+            json.writeString(values[i]);
+        }
+    }
+
+    private static void writeAttributes(XMLStreamReader reader, JsonGenerator json, ObjectPlan object)
+            throws IOException {
+        for (FieldPlan attribute : object.attributes()) {
+            String value = reader.getAttributeValue(null, attribute.source());
+            if (value != null) {
+                json.writeFieldName(attribute.name());
+                writeValue(json, attribute, value);
+            }
+        }
+    }
+
+    private static void writeValue(JsonGenerator json, FieldPlan field, String text) throws IOException {
+        try {
+            switch (field.type()) {
+                case NUMBER -> json.writeNumber(new BigDecimal(text.trim()));
+                case INTEGER -> json.writeNumber(Long.parseLong(text.trim()));
+                case BOOLEAN -> json.writeBoolean(Boolean.parseBoolean(text.trim()));
+                default -> json.writeString(text);
+            }
+        } catch (NumberFormatException e) {
+            throw new MessageTransformException("Field " + field.name().getValue() + " is not a valid "
+                    + field.type().name().toLowerCase() + ": " + text, e);
+        }
+    }
+
+    private static void closeArray(JsonGenerator json, Frame frame) throws IOException {
+        if (frame.array != null) {
+            json.writeEndArray();
+            frame.array = null;
+        }
+    }
+
+    /**
+     * Skip the element just started, through its end tag
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static boolean isStart(XMLStreamReader reader, String localName) {
+        return reader.getEventType() == XMLStreamConstants.START_ELEMENT && localName.equals(reader.getLocalName());
+    }
+
+    private static void closeQuietly(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+                // Nothing was held open beyond the caller's stream
+            }
+        }
+    }
+
+    /**
+     * An open JSON object: its plan, and the array or single-valued field last written
+     * to it. Reused for every object opened at the same depth.
+     */
+    private static final class Frame {
+
+        private ObjectPlan plan;
+        private FieldPlan array;
+        private FieldPlan last;
+
+        private void open(ObjectPlan objectPlan) {
+            this.plan = objectPlan;
+            this.array = null;
+            this.last = null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.anz.fastpayment.router.transform;
+
+/**
+ * Transform Result
+ *
+ * What a transformation found out about the message while writing it
+ *
+ * @param definition   Message definition the input was read as, e.g. {@code pacs.008.001.13}
+ * @param unifiedType  Unified message type written, e.g. {@code PACS_008}
+ * @param transactions Entries written to the top-level {@code transactionInformation} array
+ */
+public record TransformResult(String definition, String unifiedType, int transactions) {
+}
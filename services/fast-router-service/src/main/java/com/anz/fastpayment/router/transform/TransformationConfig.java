@@ -0,0 +1,59 @@
+package com.anz.fastpayment.router.transform;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Transformation Config
+ *
+ * transformation-config.json compiled at startup into a {@link MappingPlan} for each
+ * supported message definition, looked up by the namespace or the message element of
+ * an inbound message. An invalid config fails to load. Immutable once loaded.
+ */
+public final class TransformationConfig {
+
+    static final String ISO_NAMESPACE_PREFIX = "urn:iso:std:iso:20022:tech:xsd:";
+
+    private final Map<String, MappingPlan> byNamespace = new LinkedHashMap<>();
+    private final Map<String, MappingPlan> byMessageElement = new HashMap<>();
+
+    private TransformationConfig(JsonNode root) {
+        for (MappingPlan plan : new MappingPlanCompiler(root).compile(root.path("messageTypes"))) {
+            byNamespace.put(ISO_NAMESPACE_PREFIX + plan.definition(), plan);
+            byMessageElement.put(plan.messageElement(), plan);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the config is invalid
+     */
+    public static TransformationConfig load(InputStream in, ObjectMapper objectMapper) throws IOException {
+        return new TransformationConfig(objectMapper.readTree(in));
+    }
+
+    public Collection<MappingPlan> plans() {
+        return byNamespace.values();
+    }
+
+    /**
+     * Plan for a {@code Document} namespace such as
+     * {@code urn:iso:std:iso:20022:tech:xsd:pacs.008.001.13}, or null if not supported
+     */
+    public MappingPlan forNamespace(String namespaceUri) {
+        return namespaceUri != null ? byNamespace.get(namespaceUri) : null;
+    }
+
+    /**
+     * Plan for a message element such as {@code FIToFICstmrCdtTrf}, or null if not supported
+     */
+    public MappingPlan forMessageElement(String localName) {
+        return byMessageElement.get(localName);
+    }
+}
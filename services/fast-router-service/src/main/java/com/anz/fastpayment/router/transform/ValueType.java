@@ -0,0 +1,28 @@
+package com.anz.fastpayment.router.transform;
+
+/**
+ * Value Type
+ *
+ * JSON type a mapped value is written as, resolved at compile time from the
+ * {@code dataTypes} of its object and the {@code dataTypeConversions} of the config
+ */
+public enum ValueType {
+
+    STRING,
+    NUMBER,
+    INTEGER,
+    BOOLEAN;
+
+    /**
+     * The value type of a conversion's JSON schema {@code type}
+     */
+    static ValueType ofJsonType(String jsonType) {
+        return switch (jsonType) {
+            case "string" -> STRING;
+            case "number" -> NUMBER;
+            case "integer" -> INTEGER;
+            case "boolean" -> BOOLEAN;
+            default -> throw new IllegalArgumentException("Unsupported JSON type: " + jsonType);
+        };
+    }
+}
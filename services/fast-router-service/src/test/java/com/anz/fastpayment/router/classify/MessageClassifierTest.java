@@ -0,0 +1,129 @@
+package com.anz.fastpayment.router.classify;
+
+import com.anz.fastpayment.router.transform.TransformationConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageClassifierTest {
+
+    private static final String ISO = "urn:iso:std:iso:20022:tech:xsd:";
+
+    private static final String PACS_008 = "<Document xmlns=\"" + ISO + "pacs.008.001.13\">"
+            + "<FIToFICstmrCdtTrf><GrpHdr><MsgId>MSG-008</MsgId><CreDtTm>2025-01-01T00:00:00</CreDtTm>"
+            + "<InstgAgt><FinInstnId><BICFI>ANZBSGSX</BICFI></FinInstnId></InstgAgt></GrpHdr>"
+            + "<CdtTrfTxInf><PmtId><EndToEndId>E2E</EndToEndId></PmtId></CdtTrfTxInf>"
+            + "</FIToFICstmrCdtTrf></Document>";
+
+    private static TransformationConfig config;
+
+    @BeforeAll
+    static void loadConfig() throws IOException {
+        try (InputStream in = MessageClassifierTest.class.getResourceAsStream("/mappings/transformation-config.json")) {
+            config = TransformationConfig.load(in, new ObjectMapper());
+        }
+    }
+
+    @Test
+    void readsBusinessApplicationHeader() {
+        String xml = "<BusMsgEnvlp><AppHdr xmlns=\"urn:iso:std:iso:20022:tech:xsd:head.001.001.02\">"
+                + "<Fr><FIId><FinInstnId><BICFI>DBSSSGSG</BICFI></FinInstnId></FIId></Fr>"
+                + "<To><FIId><FinInstnId><BICFI>ANZBSGSX</BICFI></FinInstnId></FIId></To>"
+                + "<BizMsgIdr>BAH-1</BizMsgIdr><MsgDefIdr>pacs.008.001.13</MsgDefIdr></AppHdr>"
+                + PACS_008 + "</BusMsgEnvlp>";
+
+        MessageClassification classification = classify(xml);
+
+        assertThat(classification).isEqualTo(new MessageClassification(MessageClassification.Family.ISO20022,
+                "PACS.008", "001.13", "BAH-1", "DBSSSGSG"));
+        assertThat(classification.partitionKey()).isEqualTo("DBSSSGSG");
+    }
+
+    @Test
+    void readsDocumentNamespaceAndGroupHeader() {
+        MessageClassification classification = classify("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + PACS_008);
+
+        assertThat(classification).isEqualTo(new MessageClassification(MessageClassification.Family.ISO20022,
+                "PACS.008", "001.13", "MSG-008", "ANZBSGSX"));
+    }
+
+    @Test
+    void readsPrefixedNamespaceAndAssignment() {
+        String xml = "<doc:Document xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xmlns:doc=\""
+                + ISO + "camt.056.001.11\"><doc:FIToFIPmtCxlReq><doc:Assgnmt><doc:Id>ASG-1</doc:Id>"
+                + "<doc:Assgnr><doc:Agt><doc:FinInstnId><doc:BICFI>OCBCSGSG</doc:BICFI></doc:FinInstnId>"
+                + "</doc:Agt></doc:Assgnr></doc:Assgnmt><doc:Undrlyg/></doc:FIToFIPmtCxlReq></doc:Document>";
+
+        assertThat(classify(xml)).isEqualTo(new MessageClassification(MessageClassification.Family.ISO20022,
+                "CAMT.056", "001.11", "ASG-1", "OCBCSGSG"));
+    }
+
+    @Test
+    void fallsBackToMessageElementWithoutNamespace() {
+        String xml = "<Document><FIToFIPmtRvsl><GrpHdr><MsgId>REV-1</MsgId></GrpHdr></FIToFIPmtRvsl></Document>";
+
+        assertThat(classify(xml)).isEqualTo(new MessageClassification(MessageClassification.Family.ISO20022,
+                "PACS.007", "001.13", "REV-1", null));
+    }
+
+    @Test
+    void classifiesWhatFitsInSniffedBytes() {
+        byte[] payload = PACS_008.getBytes(StandardCharsets.UTF_8);
+
+        MessageClassification beforeMessageId = new MessageClassifier(config, PACS_008.indexOf("<MsgId>") + 3)
+                .classify(payload);
+        MessageClassification insideDocumentTag = new MessageClassifier(config, PACS_008.indexOf("pacs.008"))
+                .classify(payload);
+
+        assertThat(beforeMessageId).isEqualTo(new MessageClassification(MessageClassification.Family.ISO20022,
+                "PACS.008", "001.13", null, null));
+        assertThat(insideDocumentTag).isEqualTo(MessageClassification.UNKNOWN);
+    }
+
+    @Test
+    void skipsCommentsAndCdata() {
+        String xml = "<!-- <Document xmlns=\"" + ISO + "pacs.003.001.11\"> -->"
+                + "<Document xmlns=\"" + ISO + "pacs.008.001.13\"><FIToFICstmrCdtTrf><GrpHdr>"
+                + "<!-- <MsgId>FAKE-ID</MsgId> --><MsgId>MSG-1</MsgId>"
+                + "<CreDtTm><![CDATA[<InstgAgt><FinInstnId><BICFI>FAKEBIC</BICFI>]]></CreDtTm>"
+                + "<InstgAgt><FinInstnId><BICFI>UOVBSGSG</BICFI></FinInstnId></InstgAgt>"
+                + "</GrpHdr></FIToFICstmrCdtTrf></Document>";
+
+        assertThat(classify(xml)).isEqualTo(new MessageClassification(MessageClassification.Family.ISO20022,
+                "PACS.008", "001.13", "MSG-1", "UOVBSGSG"));
+    }
+
+    @Test
+    void recognisesSnmTextInAnyCase() {
+        assertThat(classify("SNM.SIGNON|ANZBSGSX").messageType()).isEqualTo("SNM.SIGNON");
+        assertThat(classify("snm.signon|ANZBSGSX").messageType()).isEqualTo("SNM.SIGNON");
+        assertThat(classify("  SNMSignOff").messageType()).isEqualTo("SNM.SIGNOFF");
+        assertThat(classify("SNM").messageType()).isEqualTo("SNM");
+        assertThat(classify("snm.echo").family()).isEqualTo(MessageClassification.Family.SNM);
+        assertThat(classify("SN")).isEqualTo(MessageClassification.UNKNOWN);
+        assertThat(classify("PING")).isEqualTo(MessageClassification.UNKNOWN);
+    }
+
+    @Test
+    void recognisesSnmElementInAnyCase() {
+        assertThat(classify("<SNMSignOn><Bic>ANZBSGSX</Bic></SNMSignOn>").messageType()).isEqualTo("SNM.SIGNON");
+        assertThat(classify("<snmSignOn/>").messageType()).isEqualTo("SNM.SIGNON");
+        assertThat(classify("<Document><snmEcho/></Document>").messageType()).isEqualTo("SNM.ECHO");
+    }
+
+    @Test
+    void unknownWithoutAnythingToRouteOn() {
+        assertThat(classify("")).isEqualTo(MessageClassification.UNKNOWN);
+        assertThat(classify("<Envelope><Body/></Envelope>")).isEqualTo(MessageClassification.UNKNOWN);
+    }
+
+    private static MessageClassification classify(String payload) {
+        return new MessageClassifier(config, 4096).classify(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,37 @@
+package com.anz.fastpayment.common.health;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Data Source Probe
+ * 
+ * Borrows a pooled connection and validates it against the database
+ */
+public class DataSourceProbe implements DependencyProbe {
+
+    public static final String NAME = "database";
+
+    private final DataSource dataSource;
+
+    public DataSourceProbe(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void probe(Duration timeout) throws SQLException {
+        int seconds = (int) Math.max(1L, timeout.toSeconds());
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid(seconds)) {
+                throw new SQLException("Connection failed validation");
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.anz.fastpayment.common.health;
+
+import com.google.cloud.spanner.DatabaseClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Dependency Health Auto-Configuration
+ * 
+ * Provides a {@link DependencyHealthMonitor} and registers a probe for each dependency
+ * client the service actually has (Kafka admin, Redis connection factory, Spanner
+ * database client, JDBC data source). Services add their own probes as
+ * {@link DependencyProbe} beans. With {@code fast.health.enabled=false} the monitor
+ * runs no probes.
+ */
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration",
+        "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration",
+        "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+        "com.google.cloud.spring.autoconfigure.spanner.GcpSpannerAutoConfiguration"
+})
+@ConditionalOnClass(MeterRegistry.class)
+@EnableConfigurationProperties(DependencyHealthProperties.class)
+public class DependencyHealthAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(MeterRegistry.class)
+    public DependencyHealthMonitor dependencyHealthMonitor(ObjectProvider<DependencyProbe> probes,
+                                                           DependencyHealthProperties properties,
+                                                           MeterRegistry meterRegistry) {
+        List<DependencyProbe> enabled = properties.isEnabled() ? probes.orderedStream().toList() : List.of();
+        return new DependencyHealthMonitor(enabled, properties, meterRegistry);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(KafkaAdmin.class)
+    static class KafkaProbeConfiguration {
+
+        @Bean
+        @ConditionalOnBean(KafkaAdmin.class)
+        @ConditionalOnMissingBean(KafkaProbe.class)
+        KafkaProbe kafkaProbe(KafkaAdmin kafkaAdmin) {
+            return new KafkaProbe(kafkaAdmin.getConfigurationProperties());
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(RedisConnectionFactory.class)
+    static class RedisProbeConfiguration {
+
+        @Bean
+        @ConditionalOnBean(RedisConnectionFactory.class)
+        @ConditionalOnMissingBean(RedisProbe.class)
+        RedisProbe redisProbe(RedisConnectionFactory connectionFactory) {
+            return new RedisProbe(connectionFactory);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(DatabaseClient.class)
+    static class SpannerProbeConfiguration {
+
+        @Bean
+        @ConditionalOnBean(DatabaseClient.class)
+        @ConditionalOnMissingBean(SpannerProbe.class)
+        SpannerProbe spannerProbe(DatabaseClient databaseClient) {
+            return new SpannerProbe(databaseClient);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(DataSource.class)
+    static class DataSourceProbeConfiguration {
+
+        @Bean
+        @ConditionalOnBean(DataSource.class)
+        @ConditionalOnMissingBean(DataSourceProbe.class)
+        DataSourceProbe dataSourceProbe(DataSource dataSource) {
+            return new DataSourceProbe(dataSource);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.anz.fastpayment.common.health;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dependency Health Monitor
+ * 
+ * Probes every {@link DependencyProbe} in the background, each on its own interval and
+ * timeout, and keeps the latest result so health endpoints answer from memory without
+ * touching a dependency. A scheduler thread only starts probes; each probe runs on its
+ * own short-lived platform thread, so a hung dependency never delays the others, even
+ * when its client blocks in a way that would pin a virtual thread. A probe still
+ * running at its timeout is reported DOWN and interrupted, and the dependency is not
+ * probed again until that call has returned, so a dead dependency cannot pile up
+ * blocked threads.
+ * 
+ * Publishes {@code dependency.probe.duration} per dependency and outcome (up, down,
+ * timeout) and {@code dependency.up} (1 up, 0 down, NaN before the first result).
+ */
+public class DependencyHealthMonitor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyHealthMonitor.class);
+
+    private final List<Runner> runners;
+    private final ScheduledExecutorService scheduler;
+
+    public DependencyHealthMonitor(List<DependencyProbe> probes, DependencyHealthProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "health-probe-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.runners = new ArrayList<>(probes.size());
+        for (DependencyProbe probe : probes) {
+            runners.add(new Runner(probe, properties.intervalOf(probe.name()), properties.timeoutOf(probe.name()),
+                    meterRegistry));
+        }
+        for (Runner runner : runners) {
+            scheduler.execute(runner::start);
+        }
+        logger.info("Probing dependencies {} in the background", runners.stream().map(r -> r.probe.name()).toList());
+    }
+
+    /**
+     * Latest result of every probe, in registration order. Never blocks.
+     */
+    public Map<String, ProbeResult> snapshot() {
+        Map<String, ProbeResult> results = new LinkedHashMap<>();
+        for (Runner runner : runners) {
+            results.put(runner.probe.name(), runner.result);
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        for (Runner runner : runners) {
+            Thread worker = runner.worker;
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private final class Runner {
+
+        private final DependencyProbe probe;
+        private final Duration timeout;
+        private final long intervalMillis;
+        private final Timer upTimer;
+        private final Timer downTimer;
+        private final Timer timeoutTimer;
+
+        // Attempts started (scheduler thread only) and settled; whichever of the
+        // probe and its timeout settles an attempt first decides its result
+        private long started;
+        private final AtomicLong settled = new AtomicLong();
+
+        private volatile ProbeResult result;
+        private volatile Thread worker;
+
+        Runner(DependencyProbe probe, Duration interval, Duration timeout, MeterRegistry meterRegistry) {
+            this.probe = probe;
+            this.timeout = timeout;
+            this.intervalMillis = interval.toMillis();
+            this.result = ProbeResult.unknown(probe.name());
+            this.upTimer = timer(meterRegistry, "up");
+            this.downTimer = timer(meterRegistry, "down");
+            this.timeoutTimer = timer(meterRegistry, "timeout");
+            Gauge.builder("dependency.up", this, Runner::gaugeValue)
+                    .description("Whether the last probe of the dependency succeeded")
+                    .tag("dependency", probe.name())
+                    .register(meterRegistry);
+        }
+
+        private Timer timer(MeterRegistry meterRegistry, String outcome) {
+            return Timer.builder("dependency.probe.duration")
+                    .description("Round trip of background dependency health probes")
+                    .tag("dependency", probe.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        private double gaugeValue() {
+            return switch (result.status()) {
+                case UP -> 1.0;
+                case DOWN -> 0.0;
+                case UNKNOWN -> Double.NaN;
+            };
+        }
+
+        void start() {
+            Thread previous = worker;
+            if (previous != null && previous.isAlive()) {
+                // Still stuck in the last call, which has already been reported DOWN
+                scheduleNext();
+                return;
+            }
+            long attempt = ++started;
+            long startedAt = System.nanoTime();
+            worker = Thread.ofPlatform()
+                    .daemon()
+                    .name("health-probe-" + probe.name())
+                    .start(() -> run(attempt, startedAt));
+            scheduler.schedule(() -> expire(attempt), timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        private void run(long attempt, long startedAt) {
+            String error = null;
+            try {
+                probe.probe(timeout);
+            } catch (Exception e) {
+                error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            }
+            long elapsed = System.nanoTime() - startedAt;
+            if (settle(attempt)) {
+                record(error == null ? ProbeResult.Status.UP : ProbeResult.Status.DOWN, Duration.ofNanos(elapsed), error);
+                (error == null ? upTimer : downTimer).record(elapsed, TimeUnit.NANOSECONDS);
+                scheduleNext();
+            }
+        }
+
+        private void expire(long attempt) {
+            if (settle(attempt)) {
+                record(ProbeResult.Status.DOWN, timeout, "No response within " + timeout.toMillis() + "ms");
+                timeoutTimer.record(timeout.toNanos(), TimeUnit.NANOSECONDS);
+                Thread stuck = worker;
+                if (stuck != null) {
+                    stuck.interrupt();
+                }
+                scheduleNext();
+            }
+        }
+
+        private boolean settle(long attempt) {
+            return settled.compareAndSet(attempt - 1, attempt);
+        }
+
+        private void record(ProbeResult.Status status, Duration latency, String error) {
+            ProbeResult previous = result;
+            result = new ProbeResult(probe.name(), status, latency, Instant.now(), error);
+            if (status != previous.status()) {
+                if (status == ProbeResult.Status.DOWN) {
+                    logger.warn("Dependency {} is DOWN: {}", probe.name(), error);
+                } else {
+                    logger.info("Dependency {} is {} ({}ms)", probe.name(), status, latency.toMillis());
+                }
+            }
+        }
+
+        private void scheduleNext() {
+            try {
+                scheduler.schedule(this::start, intervalMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Monitor closed
+            }
+        }
+    }
+}
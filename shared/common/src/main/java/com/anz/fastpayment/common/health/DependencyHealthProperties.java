@@ -0,0 +1,101 @@
+package com.anz.fastpayment.common.health;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dependency Health Properties
+ * 
+ * Configuration under {@code fast.health}
+ */
+@ConfigurationProperties(prefix = "fast.health")
+public class DependencyHealthProperties {
+
+    /**
+     * Whether dependencies are probed at all
+     */
+    private boolean enabled = true;
+
+    /**
+     * Default time between the end of one probe and the start of the next
+     */
+    private Duration interval = Duration.ofSeconds(10);
+
+    /**
+     * Default time after which a probe that has not returned counts as DOWN
+     */
+    private Duration timeout = Duration.ofSeconds(2);
+
+    /**
+     * Per-dependency overrides keyed by probe name (kafka, redis, spanner, database)
+     */
+    private Map<String, Probe> probes = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Map<String, Probe> getProbes() {
+        return probes;
+    }
+
+    public void setProbes(Map<String, Probe> probes) {
+        this.probes = probes;
+    }
+
+    Duration intervalOf(String dependency) {
+        Probe probe = probes.get(dependency);
+        return probe != null && probe.getInterval() != null ? probe.getInterval() : interval;
+    }
+
+    Duration timeoutOf(String dependency) {
+        Probe probe = probes.get(dependency);
+        return probe != null && probe.getTimeout() != null ? probe.getTimeout() : timeout;
+    }
+
+    public static class Probe {
+
+        private Duration interval;
+
+        private Duration timeout;
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
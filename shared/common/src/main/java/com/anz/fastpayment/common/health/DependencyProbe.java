@@ -0,0 +1,26 @@
+package com.anz.fastpayment.common.health;
+
+import java.time.Duration;
+
+/**
+ * Dependency Probe
+ * 
+ * A single round trip to an external dependency. {@link DependencyHealthMonitor} runs
+ * each probe in the background; a probe is UP when {@link #probe} returns and DOWN
+ * when it throws or does not return within its timeout.
+ */
+public interface DependencyProbe {
+
+    /**
+     * Dependency name as reported by health endpoints and the {@code dependency} metric tag
+     */
+    String name();
+
+    /**
+     * Check the dependency once
+     * 
+     * @param timeout Time the monitor allows; pass it to the client where it accepts a deadline
+     * @throws Exception if the dependency is not usable
+     */
+    void probe(Duration timeout) throws Exception;
+}
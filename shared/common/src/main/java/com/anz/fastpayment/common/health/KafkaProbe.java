@@ -0,0 +1,54 @@
+package com.anz.fastpayment.common.health;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.DescribeClusterOptions;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka Probe
+ * 
+ * Asks the cluster for its id and broker list through one long-lived admin client
+ */
+public class KafkaProbe implements DependencyProbe, AutoCloseable {
+
+    public static final String NAME = "kafka";
+
+    private final Map<String, Object> adminConfig;
+    private Admin admin;
+
+    public KafkaProbe(Map<String, Object> adminConfig) {
+        this.adminConfig = adminConfig;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void probe(Duration timeout) throws Exception {
+        DescribeClusterOptions options = new DescribeClusterOptions().timeoutMs((int) timeout.toMillis());
+        int brokers = admin().describeCluster(options).nodes().get(timeout.toMillis(), TimeUnit.MILLISECONDS).size();
+        if (brokers == 0) {
+            throw new IllegalStateException("Kafka cluster reports no brokers");
+        }
+    }
+
+    // Probes of one dependency never overlap, so this is only ever called by one thread at a time
+    private Admin admin() {
+        if (admin == null) {
+            admin = Admin.create(adminConfig);
+        }
+        return admin;
+    }
+
+    @Override
+    public void close() {
+        if (admin != null) {
+            admin.close(Duration.ofSeconds(1));
+        }
+    }
+}
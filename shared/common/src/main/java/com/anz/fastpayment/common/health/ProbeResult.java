@@ -0,0 +1,36 @@
+package com.anz.fastpayment.common.health;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Probe Result
+ * 
+ * Outcome of the most recent completed probe of one dependency
+ * 
+ * @param dependency Dependency name
+ * @param status UNKNOWN until the first probe completes
+ * @param latency Duration of the probe, or the timeout if it did not finish
+ * @param checkedAt When the probe completed or timed out, null while UNKNOWN
+ * @param error Why the dependency is DOWN, null otherwise
+ */
+public record ProbeResult(String dependency,
+                          Status status,
+                          Duration latency,
+                          Instant checkedAt,
+                          String error) {
+
+    public enum Status {
+        UNKNOWN,
+        UP,
+        DOWN
+    }
+
+    static ProbeResult unknown(String dependency) {
+        return new ProbeResult(dependency, Status.UNKNOWN, Duration.ZERO, null, null);
+    }
+
+    public boolean isDown() {
+        return status == Status.DOWN;
+    }
+}
@@ -0,0 +1,38 @@
+package com.anz.fastpayment.common.health;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.time.Duration;
+
+/**
+ * Redis Probe
+ * 
+ * Sends PING over a connection from the service's own connection factory, so it is
+ * bounded by the client's configured command timeout
+ */
+public class RedisProbe implements DependencyProbe {
+
+    public static final String NAME = "redis";
+
+    private final RedisConnectionFactory connectionFactory;
+
+    public RedisProbe(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void probe(Duration timeout) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            String reply = connection.ping();
+            if (!"PONG".equalsIgnoreCase(reply)) {
+                throw new IllegalStateException("Unexpected PING reply: " + reply);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.anz.fastpayment.common.health;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.Statement;
+
+import java.time.Duration;
+
+/**
+ * Spanner Probe
+ * 
+ * Runs {@code SELECT 1} in a single-use read-only transaction
+ */
+public class SpannerProbe implements DependencyProbe {
+
+    public static final String NAME = "spanner";
+
+    private static final Statement PING = Statement.of("SELECT 1");
+
+    private final DatabaseClient databaseClient;
+
+    public SpannerProbe(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void probe(Duration timeout) {
+        try (ResultSet resultSet = databaseClient.singleUse().executeQuery(PING)) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("Spanner returned no row for SELECT 1");
+            }
+        }
+    }
+}
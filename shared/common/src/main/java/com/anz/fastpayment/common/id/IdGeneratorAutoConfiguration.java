@@ -0,0 +1,58 @@
+package com.anz.fastpayment.common.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Id Generator Auto-Configuration
+ * 
+ * Provides an {@link IdGenerator} bean to every service that depends on this module.
+ * {@code fast.id.node-id} is required unless the {@code local} profile is active, where
+ * a node id derived from the host name is used instead.
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(IdGeneratorProperties.class)
+public class IdGeneratorAutoConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorAutoConfiguration.class);
+
+    private static final String LOCAL_PROFILE = "local";
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdGenerator idGenerator(IdGeneratorProperties properties, Environment environment) {
+        Integer nodeId = properties.getNodeId();
+        if (nodeId == null) {
+            if (!environment.acceptsProfiles(Profiles.of(LOCAL_PROFILE))) {
+                // Two instances hashing to the same node id would issue the same ids
+                throw new IllegalStateException("fast.id.node-id (FAST_NODE_ID) must be set to a node id "
+                        + "unique among running instances, 0-" + IdGenerator.MAX_NODE_ID);
+            }
+            nodeId = nodeIdFromHostName();
+            logger.warn("fast.id.node-id is not set, using node id {} derived from the host name "
+                    + "under the local profile", nodeId);
+        }
+        logger.info("Id generator started with node id {}", nodeId);
+        return new IdGenerator(nodeId);
+    }
+
+    private static int nodeIdFromHostName() {
+        String hostName;
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            hostName = "localhost";
+        }
+        int h = hostName.hashCode();
+        return (h ^ (h >>> 16)) & IdGenerator.MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,27 @@
+package com.anz.fastpayment.common.id;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Id Generator Properties
+ * 
+ * Configuration under {@code fast.id}
+ */
+@ConfigurationProperties(prefix = "fast.id")
+public class IdGeneratorProperties {
+
+    /**
+     * Node id (0-1023) of this instance, unique among all running instances that
+     * share an id space. Required unless the {@code local} profile is active, where it
+     * defaults to one derived from the host name.
+     */
+    private Integer nodeId;
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(Integer nodeId) {
+        this.nodeId = nodeId;
+    }
+}
@@ -0,0 +1,40 @@
+package com.anz.fastpayment.liquidity.client;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Balance Check
+ * 
+ * A balance check request. The amount is a count of 10^-5 units of the currency,
+ * the scale the liquidity service keeps every amount at: negative for debits,
+ * positive for credits.
+ * 
+ * @param participantId Eight uppercase letters, or null for the scheme's house participant
+ * @param countryCode SG or HK
+ * @param currency ISO 4217 code
+ * @param amount Signed amount in 10^-5 units
+ * @param transactionType Type of transaction being checked
+ * @param reference Optional caller reference of up to 35 characters
+ */
+public record BalanceCheck(String participantId,
+                           String countryCode,
+                           String currency,
+                           long amount,
+                           TransactionType transactionType,
+                           String reference) {
+
+    /**
+     * Units per 1.00 of currency
+     */
+    public static final long UNIT = 100_000L;
+
+    /**
+     * Amount in units for a decimal with at most 5 decimal places
+     * 
+     * @throws ArithmeticException if it has more decimal places or does not fit
+     */
+    public static long units(BigDecimal amount) {
+        return amount.setScale(5, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+}
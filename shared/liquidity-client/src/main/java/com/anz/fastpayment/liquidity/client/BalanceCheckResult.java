@@ -0,0 +1,30 @@
+package com.anz.fastpayment.liquidity.client;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Balance Check Result
+ * 
+ * The liquidity service's answer to a {@link BalanceCheck}; amounts are 10^-5 units
+ * 
+ * @param authorized Whether the transaction may proceed
+ * @param currentBalance Balance now
+ * @param projectedBalance Balance after the checked amount
+ * @param minimumBalance Balance that must be kept
+ * @param availableAmount Unreserved funds above the minimum balance
+ * @param requestId Id the check is audited under
+ * @param rejectionReason Why it was not authorized, null when authorized
+ * @param warnings Threshold warnings, possibly empty
+ * @param timestamp When the check was made
+ */
+public record BalanceCheckResult(boolean authorized,
+                                 long currentBalance,
+                                 long projectedBalance,
+                                 long minimumBalance,
+                                 long availableAmount,
+                                 String requestId,
+                                 String rejectionReason,
+                                 List<String> warnings,
+                                 Instant timestamp) {
+}
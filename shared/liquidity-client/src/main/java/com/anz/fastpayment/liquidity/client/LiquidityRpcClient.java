@@ -0,0 +1,277 @@
+package com.anz.fastpayment.liquidity.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Liquidity RPC Client
+ *
+ * Checks balances against the liquidity service over a small pool of persistent
+ * {@link LiquidityWire} connections. Calls are spread round-robin across the pool and
+ * pipelined: each is tagged with a correlation id, written straight away and matched
+ * to its reply by the connection's reader thread, so a slow check never holds up the
+ * ones behind it. A connection that fails is reopened by the next call that picks it;
+ * the checks in flight on it fail with {@link LiquidityRpcException#CONNECTION_FAILED}.
+ *
+ * Thread-safe; share one instance per service.
+ */
+public class LiquidityRpcClient implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiquidityRpcClient.class);
+
+    private final String host;
+    private final int port;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final Connection[] connections;
+    private final AtomicInteger nextConnection = new AtomicInteger();
+    private final AtomicInteger nextCorrelationId = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    public LiquidityRpcClient(String host, int port, int connections,
+                              Duration connectTimeout, Duration requestTimeout) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("At least one connection is required");
+        }
+        this.host = host;
+        this.port = port;
+        this.connectTimeout = connectTimeout;
+        this.requestTimeout = requestTimeout;
+        this.connections = new Connection[connections];
+        for (int i = 0; i < connections; i++) {
+            this.connections[i] = new Connection(i);
+        }
+    }
+
+    public LiquidityRpcClient(LiquidityRpcClientProperties properties) {
+        this(properties.getHost(), properties.getPort(), properties.getConnections(),
+                properties.getConnectTimeout(), properties.getRequestTimeout());
+    }
+
+    /**
+     * Check a balance and wait for the answer
+     *
+     * @throws LiquidityRpcException if the service refused the check or did not answer in time
+     */
+    public BalanceCheckResult checkBalance(BalanceCheck check) {
+        try {
+            return checkBalanceAsync(check).get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LiquidityRpcException(LiquidityRpcException.CONNECTION_FAILED, "Interrupted waiting for balance check", e);
+        }
+    }
+
+    /**
+     * Send a balance check without waiting. The future fails with a
+     * {@link LiquidityRpcException} if the service refused the check, the connection
+     * failed, or no answer came within the request timeout.
+     */
+    public CompletableFuture<BalanceCheckResult> checkBalanceAsync(BalanceCheck check) {
+        if (closed) {
+            return CompletableFuture.failedFuture(
+                    new LiquidityRpcException(LiquidityRpcException.CONNECTION_FAILED, "Client is closed"));
+        }
+        Connection connection = connections[Math.floorMod(nextConnection.getAndIncrement(), connections.length)];
+        int correlationId = nextCorrelationId.incrementAndGet();
+        CompletableFuture<BalanceCheckResult> reply = new CompletableFuture<>();
+        try {
+            connection.send(correlationId, check, reply);
+        } catch (LiquidityRpcException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return reply.orTimeout(requestTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                .whenComplete((result, failure) -> connection.pending.remove(correlationId))
+                .exceptionallyCompose(failure -> CompletableFuture.failedFuture(unwrap(failure)));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private LiquidityRpcException unwrap(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (cause instanceof LiquidityRpcException rpcException) {
+            return rpcException;
+        }
+        if (cause instanceof TimeoutException) {
+            return new LiquidityRpcException(LiquidityRpcException.TIMEOUT,
+                    "No answer from liquidity service within " + requestTimeout);
+        }
+        return new LiquidityRpcException(LiquidityRpcException.CONNECTION_FAILED, cause.getMessage(), cause);
+    }
+
+    /**
+     * One pooled connection. Writers take the lock (a ReentrantLock rather than a
+     * monitor so virtual-thread callers are not pinned) and flush only when nobody is
+     * queued behind them, so concurrent checks share a write.
+     */
+    private final class Connection {
+
+        private final int index;
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final LiquidityWire.FrameWriter writer = new LiquidityWire.FrameWriter();
+        private final ConcurrentHashMap<Integer, CompletableFuture<BalanceCheckResult>> pending = new ConcurrentHashMap<>();
+
+        // Guarded by writeLock
+        private Socket socket;
+        private OutputStream out;
+
+        Connection(int index) {
+            this.index = index;
+        }
+
+        void send(int correlationId, BalanceCheck check, CompletableFuture<BalanceCheckResult> reply) {
+            writeLock.lock();
+            try {
+                if (socket == null) {
+                    open();
+                }
+                try {
+                    LiquidityWire.writeCheck(writer, correlationId, check);
+                    writer.checkLength();
+                } catch (RuntimeException e) {
+                    // Nothing written; still flush for a writer that left it to us
+                    flushUnlessQueued();
+                    throw e;
+                }
+                pending.put(correlationId, reply);
+                writer.writeTo(out);
+                flushUnlessQueued();
+            } catch (IOException e) {
+                pending.remove(correlationId);
+                disconnect(socket, e);
+                throw new LiquidityRpcException(LiquidityRpcException.CONNECTION_FAILED,
+                        "Cannot reach liquidity service at " + host + ":" + port + ": " + e.getMessage(), e);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private void flushUnlessQueued() throws IOException {
+            if (!writeLock.hasQueuedThreads()) {
+                out.flush();
+            }
+        }
+
+        private void open() throws IOException {
+            Socket opened = new Socket();
+            try {
+                opened.setTcpNoDelay(true);
+                opened.setKeepAlive(true);
+                opened.connect(new InetSocketAddress(host, port),
+                        (int) connectTimeout.toMillis());
+                opened.setSoTimeout((int) connectTimeout.toMillis());
+                OutputStream output = new BufferedOutputStream(opened.getOutputStream(), 8192);
+                InputStream input = new BufferedInputStream(opened.getInputStream(), 8192);
+                LiquidityWire.writeHandshake(output);
+                LiquidityWire.readHandshake(input);
+                opened.setSoTimeout(0);
+
+                Thread reader = new Thread(() -> read(opened, input), "liquidity-rpc-reader-" + index);
+                reader.setDaemon(true);
+                reader.start();
+                socket = opened;
+                out = output;
+                logger.info("Connected to liquidity service at {}:{} (connection {})", host, port, index);
+            } catch (IOException | RuntimeException e) {
+                opened.close();
+                throw e instanceof LiquidityRpcException rpcException ? new IOException(rpcException.getMessage(), rpcException)
+                        : e instanceof IOException ioException ? ioException : new IOException(e);
+            }
+        }
+
+        private void read(Socket source, InputStream input) {
+            LiquidityWire.FrameReader reader = new LiquidityWire.FrameReader();
+            Exception failure = null;
+            try {
+                while (reader.next(input)) {
+                    CompletableFuture<BalanceCheckResult> reply = pending.remove(reader.correlationId());
+                    switch (reader.type()) {
+                        case LiquidityWire.CHECK_RESPONSE -> {
+                            BalanceCheckResult result = LiquidityWire.readResult(reader);
+                            if (reply != null) {
+                                reply.complete(result);
+                            }
+                        }
+                        case LiquidityWire.ERROR -> {
+                            LiquidityRpcException error = LiquidityWire.readError(reader);
+                            if (reply != null) {
+                                reply.completeExceptionally(error);
+                            }
+                        }
+                        default -> throw new LiquidityRpcException(LiquidityRpcException.PROTOCOL_ERROR,
+                                "Unexpected frame type " + reader.type());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            }
+            writeLock.lock();
+            try {
+                disconnect(source, failure);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        /**
+         * Drop the connection if it is still {@code source} and fail what is in flight on it.
+         * Called with the write lock held.
+         */
+        private void disconnect(Socket source, Exception failure) {
+            if (source == null || socket != source) {
+                return;
+            }
+            socket = null;
+            out = null;
+            try {
+                source.close();
+            } catch (IOException ignored) {
+                // Already failed
+            }
+            if (!closed) {
+                logger.warn("Connection {} to liquidity service at {}:{} lost: {}", index, host, port,
+                        failure != null ? failure.getMessage() : "closed by server");
+            }
+            LiquidityRpcException error = new LiquidityRpcException(LiquidityRpcException.CONNECTION_FAILED,
+                    "Connection to liquidity service lost", failure);
+            pending.values().forEach(reply -> reply.completeExceptionally(error));
+            pending.clear();
+        }
+
+        void close() {
+            writeLock.lock();
+            try {
+                disconnect(socket, null);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+}
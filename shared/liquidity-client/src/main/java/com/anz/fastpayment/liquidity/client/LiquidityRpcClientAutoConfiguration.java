@@ -0,0 +1,26 @@
+package com.anz.fastpayment.liquidity.client;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Liquidity RPC Client Auto-Configuration
+ * 
+ * Provides a shared {@link LiquidityRpcClient} once
+ * {@code fast.liquidity.rpc.client.host} is set. Connections are opened by the first
+ * check, so the service starts even while the liquidity service is down.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "fast.liquidity.rpc.client", name = "host")
+@EnableConfigurationProperties(LiquidityRpcClientProperties.class)
+public class LiquidityRpcClientAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public LiquidityRpcClient liquidityRpcClient(LiquidityRpcClientProperties properties) {
+        return new LiquidityRpcClient(properties);
+    }
+}
@@ -0,0 +1,79 @@
+package com.anz.fastpayment.liquidity.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Liquidity RPC Client Properties
+ * 
+ * Configuration under {@code fast.liquidity.rpc.client}
+ */
+@ConfigurationProperties(prefix = "fast.liquidity.rpc.client")
+public class LiquidityRpcClientProperties {
+
+    /**
+     * Liquidity service host; no client is created until this is set
+     */
+    private String host;
+
+    /**
+     * Liquidity service RPC port ({@code liquidity.rpc.port} on the service)
+     */
+    private int port = 9084;
+
+    /**
+     * Persistent connections checks are spread across
+     */
+    private int connections = 2;
+
+    /**
+     * Longest to wait for a connection and handshake
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Longest to wait for the answer to one check
+     */
+    private Duration requestTimeout = Duration.ofMillis(500);
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+}
@@ -0,0 +1,38 @@
+package com.anz.fastpayment.liquidity.client;
+
+/**
+ * Liquidity RPC Exception
+ * 
+ * A balance check that got no result: the service refused it ({@code errorCode} is one
+ * of the service's error codes, such as VALIDATION_ERROR) or the call itself failed
+ * (one of the codes below). Only the latter are worth retrying.
+ */
+public class LiquidityRpcException extends RuntimeException {
+
+    public static final String CONNECTION_FAILED = "CONNECTION_FAILED";
+    public static final String TIMEOUT = "TIMEOUT";
+    public static final String PROTOCOL_ERROR = "PROTOCOL_ERROR";
+
+    private final String errorCode;
+
+    public LiquidityRpcException(String errorCode, String message) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+
+    public LiquidityRpcException(String errorCode, String message, Throwable cause) {
+        super(message, cause);
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * Whether the call failed in transport, so the check may be retried
+     */
+    public boolean isTransportFailure() {
+        return CONNECTION_FAILED.equals(errorCode) || TIMEOUT.equals(errorCode);
+    }
+}
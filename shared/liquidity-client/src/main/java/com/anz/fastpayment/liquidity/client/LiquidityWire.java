@@ -0,0 +1,366 @@
+package com.anz.fastpayment.liquidity.client;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Liquidity Wire
+ *
+ * Binary protocol between the payment processors and the liquidity service. A
+ * connection opens with {@link #HANDSHAKE} from the client, echoed by the server,
+ * and then carries frames in both directions:
+ *
+ * <pre>
+ * int  length          bytes after this field
+ * byte type            CHECK_REQUEST, CHECK_RESPONSE or ERROR
+ * int  correlationId   chosen by the client, echoed in the reply
+ * ...  payload
+ * </pre>
+ *
+ * Replies may come back in any order, so many checks can be in flight on one
+ * connection. All integers are big-endian; amounts are signed longs of 10^-5 units.
+ * Codes and identifiers are ASCII with a one byte length (255 for null); free text is
+ * UTF-8 with a two byte length (-1 for null).
+ */
+public final class LiquidityWire {
+
+    /**
+     * "LQRP" followed by the protocol version
+     */
+    public static final byte[] HANDSHAKE = {'L', 'Q', 'R', 'P', 1};
+
+    public static final byte CHECK_REQUEST = 1;
+    public static final byte CHECK_RESPONSE = 2;
+    public static final byte ERROR = 3;
+
+    /**
+     * Largest frame either side accepts
+     */
+    public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+    private static final int HEADER_LENGTH = 4 + 1 + 4;
+    private static final int NULL_ASCII = 0xFF;
+
+    private LiquidityWire() {}
+
+    /**
+     * Send the handshake
+     */
+    public static void writeHandshake(OutputStream out) throws IOException {
+        out.write(HANDSHAKE);
+        out.flush();
+    }
+
+    /**
+     * Read the handshake and check it is for this protocol version
+     *
+     * @throws LiquidityRpcException if the peer does not speak this protocol
+     */
+    public static void readHandshake(InputStream in) throws IOException {
+        byte[] received = in.readNBytes(HANDSHAKE.length);
+        if (!Arrays.equals(received, HANDSHAKE)) {
+            throw new LiquidityRpcException(LiquidityRpcException.PROTOCOL_ERROR,
+                    "Peer does not speak liquidity RPC version " + HANDSHAKE[HANDSHAKE.length - 1]);
+        }
+    }
+
+    public static void writeCheck(FrameWriter writer, int correlationId, BalanceCheck check) {
+        writer.begin(CHECK_REQUEST, correlationId);
+        writer.writeAscii(check.participantId());
+        writer.writeAscii(check.countryCode());
+        writer.writeAscii(check.currency());
+        writer.writeLong(check.amount());
+        writer.writeByte(check.transactionType().code());
+        writer.writeUtf(check.reference());
+    }
+
+    public static BalanceCheck readCheck(FrameReader reader) {
+        String participantId = reader.readAscii();
+        String countryCode = reader.readAscii();
+        String currency = reader.readAscii();
+        long amount = reader.readLong();
+        TransactionType transactionType = TransactionType.fromCode(reader.readByte());
+        String reference = reader.readUtf();
+        return new BalanceCheck(participantId, countryCode, currency, amount, transactionType, reference);
+    }
+
+    public static void writeResult(FrameWriter writer, int correlationId, BalanceCheckResult result) {
+        writer.begin(CHECK_RESPONSE, correlationId);
+        writer.writeByte(result.authorized() ? (byte) 1 : (byte) 0);
+        writer.writeLong(result.currentBalance());
+        writer.writeLong(result.projectedBalance());
+        writer.writeLong(result.minimumBalance());
+        writer.writeLong(result.availableAmount());
+        writer.writeAscii(result.requestId());
+        writer.writeUtf(result.rejectionReason());
+        List<String> warnings = result.warnings() != null ? result.warnings() : List.of();
+        writer.writeByte((byte) warnings.size());
+        for (String warning : warnings) {
+            writer.writeUtf(warning);
+        }
+        writer.writeLong(result.timestamp().getEpochSecond());
+        writer.writeInt(result.timestamp().getNano());
+    }
+
+    public static BalanceCheckResult readResult(FrameReader reader) {
+        boolean authorized = reader.readByte() != 0;
+        long currentBalance = reader.readLong();
+        long projectedBalance = reader.readLong();
+        long minimumBalance = reader.readLong();
+        long availableAmount = reader.readLong();
+        String requestId = reader.readAscii();
+        String rejectionReason = reader.readUtf();
+        int warningCount = reader.readByte() & 0xFF;
+        List<String> warnings = warningCount == 0 ? List.of() : new ArrayList<>(warningCount);
+        for (int i = 0; i < warningCount; i++) {
+            warnings.add(reader.readUtf());
+        }
+        Instant timestamp = Instant.ofEpochSecond(reader.readLong(), reader.readInt());
+        return new BalanceCheckResult(authorized, currentBalance, projectedBalance, minimumBalance,
+                availableAmount, requestId, rejectionReason, warnings, timestamp);
+    }
+
+    /**
+     * Refuse a request with one of the liquidity service's error codes
+     */
+    public static void writeError(FrameWriter writer, int correlationId, String errorCode, String message) {
+        writer.begin(ERROR, correlationId);
+        writer.writeAscii(errorCode);
+        writer.writeUtf(message);
+    }
+
+    public static LiquidityRpcException readError(FrameReader reader) {
+        String errorCode = reader.readAscii();
+        String message = reader.readUtf();
+        return new LiquidityRpcException(errorCode, message);
+    }
+
+    /**
+     * Encodes one frame at a time into a reusable buffer. Not thread-safe; each
+     * connection writes through its own, under its write lock.
+     */
+    public static final class FrameWriter {
+
+        private byte[] buffer = new byte[512];
+        private int position;
+
+        /**
+         * Discard any previous frame and start a new one
+         */
+        public void begin(byte type, int correlationId) {
+            position = 4;
+            writeByte(type);
+            writeInt(correlationId);
+        }
+
+        /**
+         * Check the frame is within {@link #MAX_FRAME_LENGTH}
+         *
+         * @throws LiquidityRpcException if it is not
+         */
+        public void checkLength() {
+            int length = position - 4;
+            if (length > MAX_FRAME_LENGTH) {
+                throw new LiquidityRpcException(LiquidityRpcException.PROTOCOL_ERROR,
+                        "Frame of " + length + " bytes exceeds " + MAX_FRAME_LENGTH);
+            }
+        }
+
+        /**
+         * Fill in the length and write the frame; the caller decides when to flush
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            checkLength();
+            putInt(0, position - 4);
+            out.write(buffer, 0, position);
+        }
+
+        void writeByte(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            putInt(position, value);
+            position += 4;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeAscii(String value) {
+            if (value == null) {
+                writeByte((byte) NULL_ASCII);
+                return;
+            }
+            int length = value.length();
+            if (length >= NULL_ASCII) {
+                throw new IllegalArgumentException("Code of " + length + " characters is too long");
+            }
+            ensure(1 + length);
+            buffer[position++] = (byte) length;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c > 0x7F) {
+                    throw new IllegalArgumentException("Code must be ASCII: " + value);
+                }
+                buffer[position++] = (byte) c;
+            }
+        }
+
+        void writeUtf(String value) {
+            if (value == null) {
+                ensure(2);
+                buffer[position++] = (byte) 0xFF;
+                buffer[position++] = (byte) 0xFF;
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Text of " + bytes.length + " bytes is too long");
+            }
+            ensure(2 + bytes.length);
+            buffer[position++] = (byte) (bytes.length >>> 8);
+            buffer[position++] = (byte) bytes.length;
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void putInt(int offset, int value) {
+            buffer[offset] = (byte) (value >>> 24);
+            buffer[offset + 1] = (byte) (value >>> 16);
+            buffer[offset + 2] = (byte) (value >>> 8);
+            buffer[offset + 3] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+    }
+
+    /**
+     * Reads one frame at a time into a reusable buffer. Not thread-safe; each
+     * connection has one reading thread.
+     */
+    public static final class FrameReader {
+
+        private final byte[] header = new byte[HEADER_LENGTH];
+        private byte[] buffer = new byte[512];
+        private int position;
+        private int limit;
+        private byte type;
+        private int correlationId;
+
+        /**
+         * Block until the next frame has been read
+         *
+         * @return false if the stream ended cleanly between frames
+         * @throws EOFException if the stream ended inside a frame
+         * @throws LiquidityRpcException if the frame is malformed
+         */
+        public boolean next(InputStream in) throws IOException {
+            int read = in.readNBytes(header, 0, HEADER_LENGTH);
+            if (read == 0) {
+                return false;
+            }
+            if (read < HEADER_LENGTH) {
+                throw new EOFException("Connection closed inside a frame header");
+            }
+            int length = getInt(header, 0);
+            if (length < 5 || length > MAX_FRAME_LENGTH) {
+                throw new LiquidityRpcException(LiquidityRpcException.PROTOCOL_ERROR,
+                        "Invalid frame length " + length);
+            }
+            type = header[4];
+            correlationId = getInt(header, 5);
+            limit = length - 5;
+            if (limit > buffer.length) {
+                buffer = new byte[Math.max(limit, buffer.length * 2)];
+            }
+            if (in.readNBytes(buffer, 0, limit) < limit) {
+                throw new EOFException("Connection closed inside a frame");
+            }
+            position = 0;
+            return true;
+        }
+
+        public byte type() {
+            return type;
+        }
+
+        public int correlationId() {
+            return correlationId;
+        }
+
+        byte readByte() {
+            require(1);
+            return buffer[position++];
+        }
+
+        int readInt() {
+            require(4);
+            int value = getInt(buffer, position);
+            position += 4;
+            return value;
+        }
+
+        long readLong() {
+            require(8);
+            long value = 0L;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFFL);
+            }
+            return value;
+        }
+
+        String readAscii() {
+            int length = readByte() & 0xFF;
+            if (length == NULL_ASCII) {
+                return null;
+            }
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.ISO_8859_1);
+            position += length;
+            return value;
+        }
+
+        String readUtf() {
+            require(2);
+            short length = (short) (((buffer[position] & 0xFF) << 8) | (buffer[position + 1] & 0xFF));
+            position += 2;
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void require(int bytes) {
+            if (position + bytes > limit) {
+                throw new LiquidityRpcException(LiquidityRpcException.PROTOCOL_ERROR,
+                        "Frame of type " + type + " is truncated");
+            }
+        }
+
+        private static int getInt(byte[] bytes, int offset) {
+            return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                    | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+        }
+    }
+}
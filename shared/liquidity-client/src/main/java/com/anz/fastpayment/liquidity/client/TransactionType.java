@@ -0,0 +1,32 @@
+package com.anz.fastpayment.liquidity.client;
+
+/**
+ * Transaction Type
+ * 
+ * Transaction types of the liquidity service, with the code each has on the wire
+ */
+public enum TransactionType {
+    DEBIT(1),
+    CREDIT(2),
+    RESERVE(3),
+    RELEASE(4);
+
+    private static final TransactionType[] BY_CODE = {null, DEBIT, CREDIT, RESERVE, RELEASE};
+
+    private final byte code;
+
+    TransactionType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public static TransactionType fromCode(byte code) {
+        if (code <= 0 || code >= BY_CODE.length) {
+            throw new LiquidityRpcException(LiquidityRpcException.PROTOCOL_ERROR, "Unknown transaction type code " + code);
+        }
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,149 @@
+package com.anz.fastpayment.liquidity.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LiquidityWireTest {
+
+    @Test
+    void checkRoundTrips() throws IOException {
+        BalanceCheck check = new BalanceCheck("DBSSSGSG", "SG", "SGD", -123_456_789L, TransactionType.DEBIT,
+                "Invoice 42 für Zahlung");
+        LiquidityWire.FrameReader reader = readBack(frame(writer -> LiquidityWire.writeCheck(writer, 7, check)));
+
+        assertThat(reader.type()).isEqualTo(LiquidityWire.CHECK_REQUEST);
+        assertThat(reader.correlationId()).isEqualTo(7);
+        assertThat(LiquidityWire.readCheck(reader)).isEqualTo(check);
+    }
+
+    @Test
+    void checkRoundTripsNullFields() throws IOException {
+        BalanceCheck check = new BalanceCheck(null, "HK", "HKD", Long.MAX_VALUE, TransactionType.RELEASE, null);
+        LiquidityWire.FrameReader reader = readBack(frame(writer -> LiquidityWire.writeCheck(writer, -1, check)));
+
+        assertThat(reader.correlationId()).isEqualTo(-1);
+        assertThat(LiquidityWire.readCheck(reader)).isEqualTo(check);
+    }
+
+    @Test
+    void resultRoundTrips() throws IOException {
+        BalanceCheckResult result = new BalanceCheckResult(false, 10_000_000L, -500_000L, 0L, 9_500_000L,
+                "CHK-0ABCDEFGHJKMN", "Insufficient funds for transaction",
+                List.of("Balance below warning threshold", "Net debit cap 90% used"),
+                Instant.ofEpochSecond(1_700_000_000L, 123_456_789));
+        LiquidityWire.FrameReader reader = readBack(frame(writer -> LiquidityWire.writeResult(writer, 3, result)));
+
+        assertThat(reader.type()).isEqualTo(LiquidityWire.CHECK_RESPONSE);
+        assertThat(LiquidityWire.readResult(reader)).isEqualTo(result);
+    }
+
+    @Test
+    void resultRoundTripsWithoutWarningsOrReason() throws IOException {
+        BalanceCheckResult result = new BalanceCheckResult(true, 1L, 2L, 3L, 4L, null, null, null,
+                Instant.EPOCH);
+        LiquidityWire.FrameReader reader = readBack(frame(writer -> LiquidityWire.writeResult(writer, 0, result)));
+
+        BalanceCheckResult read = LiquidityWire.readResult(reader);
+        assertThat(read.authorized()).isTrue();
+        assertThat(read.requestId()).isNull();
+        assertThat(read.rejectionReason()).isNull();
+        assertThat(read.warnings()).isEmpty();
+        assertThat(read.timestamp()).isEqualTo(Instant.EPOCH);
+    }
+
+    @Test
+    void errorRoundTrips() throws IOException {
+        LiquidityWire.FrameReader reader = readBack(frame(writer ->
+                LiquidityWire.writeError(writer, 9, "VALIDATION_ERROR", "Currency must be 3 uppercase letters")));
+
+        assertThat(reader.type()).isEqualTo(LiquidityWire.ERROR);
+        LiquidityRpcException error = LiquidityWire.readError(reader);
+        assertThat(error.getErrorCode()).isEqualTo("VALIDATION_ERROR");
+        assertThat(error.getMessage()).isEqualTo("Currency must be 3 uppercase letters");
+    }
+
+    @Test
+    void readsPipelinedFramesUntilCleanEnd() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LiquidityWire.FrameWriter writer = new LiquidityWire.FrameWriter();
+        for (int i = 0; i < 100; i++) {
+            LiquidityWire.writeCheck(writer, i, new BalanceCheck("OCBCSGSG", "SG", "SGD", i, TransactionType.CREDIT,
+                    "REF-" + i));
+            writer.writeTo(out);
+        }
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        LiquidityWire.FrameReader reader = new LiquidityWire.FrameReader();
+        for (int i = 0; i < 100; i++) {
+            assertThat(reader.next(in)).isTrue();
+            assertThat(reader.correlationId()).isEqualTo(i);
+            assertThat(LiquidityWire.readCheck(reader).reference()).isEqualTo("REF-" + i);
+        }
+        assertThat(reader.next(in)).isFalse();
+    }
+
+    @Test
+    void refusesFrameCutShort() throws IOException {
+        byte[] frame = frame(writer -> LiquidityWire.writeCheck(writer, 1,
+                new BalanceCheck("DBSSSGSG", "SG", "SGD", 1L, TransactionType.DEBIT, null)));
+        byte[] cut = Arrays.copyOf(frame, frame.length - 1);
+
+        assertThatThrownBy(() -> new LiquidityWire.FrameReader().next(new ByteArrayInputStream(cut)))
+                .isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void refusesInvalidFrameLength() {
+        byte[] header = {0x7F, 0, 0, 0, LiquidityWire.CHECK_REQUEST, 0, 0, 0, 1};
+
+        assertThatThrownBy(() -> new LiquidityWire.FrameReader().next(new ByteArrayInputStream(header)))
+                .isInstanceOf(LiquidityRpcException.class)
+                .hasMessageContaining("Invalid frame length");
+    }
+
+    @Test
+    void refusesPayloadShorterThanItsFields() throws IOException {
+        // An error frame has fewer fields than a result
+        LiquidityWire.FrameReader reader = readBack(frame(writer -> LiquidityWire.writeError(writer, 1, "X", null)));
+
+        assertThatThrownBy(() -> LiquidityWire.readResult(reader))
+                .isInstanceOf(LiquidityRpcException.class)
+                .hasMessageContaining("truncated");
+    }
+
+    @Test
+    void handshakeRefusesOtherVersion() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LiquidityWire.writeHandshake(out);
+        LiquidityWire.readHandshake(new ByteArrayInputStream(out.toByteArray()));
+
+        byte[] other = {'L', 'Q', 'R', 'P', 2};
+        assertThatThrownBy(() -> LiquidityWire.readHandshake(new ByteArrayInputStream(other)))
+                .isInstanceOf(LiquidityRpcException.class);
+    }
+
+    private static byte[] frame(Consumer<LiquidityWire.FrameWriter> encode) throws IOException {
+        LiquidityWire.FrameWriter writer = new LiquidityWire.FrameWriter();
+        encode.accept(writer);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static LiquidityWire.FrameReader readBack(byte[] frame) throws IOException {
+        LiquidityWire.FrameReader reader = new LiquidityWire.FrameReader();
+        assertThat(reader.next(new ByteArrayInputStream(frame))).isTrue();
+        return reader;
+    }
+}